@@ -0,0 +1,27 @@
+plugins {
+    id("java")
+    id("me.champeau.jmh").version("0.7.3")
+}
+
+dependencies {
+    jmh(project(":packages:core"))
+    // The root project provides Runner and the bundled default_sound.wav
+    jmh(project(":"))
+}
+
+jmh {
+    resultFormat = "JSON"
+    resultsFile = layout.buildDirectory.file("results/jmh/results.json")
+    jvmArgs.addAll("--add-modules", "jdk.incubator.vector")
+}
+
+// Runs the benchmarks and copies the JSON results to a stable location in the root build
+tasks.register<Copy>("publishBenchmarkResults") {
+    group = "benchmark"
+    description = "Runs the JMH benchmarks and publishes the results as JSON."
+    dependsOn(tasks.named("jmh"))
+
+    from(jmh.resultsFile)
+    into(rootProject.layout.buildDirectory.dir("reports/benchmarks"))
+    rename { "jmh-results.json" }
+}
@@ -0,0 +1,73 @@
+package dev.haruki7049.jiho;
+
+import dev.haruki7049.jiho.core.config.Config;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Benchmark for parsing a config.json with every field set through {@link Runner#loadConfig}. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConfigLoadBenchmark {
+  private static final String CONFIG_JSON =
+      """
+      {
+        "soundSource": "/usr/share/sounds/chime.wav",
+        "volume": 0.5,
+        "warmLine": true,
+        "precisionMode": true,
+        "precisionGuard": "PT0.05S",
+        "chimeGap": "PT0.5S"
+      }
+      """;
+
+  private Path configPath;
+
+  /**
+   * Writes the config file.
+   *
+   * @throws Exception if the file cannot be written.
+   */
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    this.configPath = Files.createTempFile("jiho-bench-", ".json");
+    Files.writeString(this.configPath, CONFIG_JSON);
+  }
+
+  /**
+   * Deletes the config file.
+   *
+   * @throws Exception if the file cannot be deleted.
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    Files.deleteIfExists(this.configPath);
+  }
+
+  /**
+   * Loads the config file.
+   *
+   * @return The loaded config.
+   * @throws Exception if loading fails.
+   */
+  @Benchmark
+  public Config loadConfig() throws Exception {
+    return Runner.loadConfig(this.configPath);
+  }
+}
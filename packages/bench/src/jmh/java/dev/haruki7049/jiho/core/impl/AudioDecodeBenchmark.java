@@ -0,0 +1,119 @@
+package dev.haruki7049.jiho.core.impl;
+
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for reading {@code default_sound.wav}: the Java Sound decode against the WAV mapping,
+ * and {@link AudioManager#getAudioDuration()} cold and cached.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AudioDecodeBenchmark {
+  private Path source;
+  private URL sourceUrl;
+  private AudioManager warmManager;
+
+  /**
+   * Copies the bundled sound to a temporary file, so that it is read as a local file.
+   *
+   * @throws Exception if the sound cannot be copied or read.
+   */
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    this.source = Files.createTempFile("jiho-bench-", ".wav");
+    try (InputStream in = AudioDecodeBenchmark.class.getResourceAsStream("/default_sound.wav")) {
+      Files.copy(in, this.source, StandardCopyOption.REPLACE_EXISTING);
+    }
+    this.sourceUrl = this.source.toUri().toURL();
+
+    this.warmManager = AudioManager.builder(this.sourceUrl).build();
+    this.warmManager.getAudioDuration();
+  }
+
+  /**
+   * Deletes the temporary copy of the sound.
+   *
+   * @throws Exception if the file cannot be deleted.
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    Files.deleteIfExists(this.source);
+  }
+
+  /**
+   * Decodes the whole file through Java Sound.
+   *
+   * @return The decoded audio.
+   * @throws Exception if decoding fails.
+   */
+  @Benchmark
+  public DecodedAudio decodeJavaSound() throws Exception {
+    return PcmCache.decode(this.sourceUrl);
+  }
+
+  /**
+   * Maps the file through a fresh cache.
+   *
+   * @return The mapped audio.
+   * @throws Exception if mapping fails.
+   */
+  @Benchmark
+  public DecodedAudio decodeMapped() throws Exception {
+    return new PcmCache(this.sourceUrl).get();
+  }
+
+  /**
+   * Reads the duration from the header only.
+   *
+   * @return The duration.
+   * @throws Exception if the header cannot be read.
+   */
+  @Benchmark
+  public Duration probeHeader() throws Exception {
+    return AudioProbe.probe(this.source).getDuration();
+  }
+
+  /**
+   * Gets the duration from a new AudioManager, as at startup.
+   *
+   * @return The duration.
+   * @throws Exception if the duration cannot be read.
+   */
+  @Benchmark
+  public Duration audioDurationCold() throws Exception {
+    return AudioManager.builder(this.sourceUrl).build().getAudioDuration();
+  }
+
+  /**
+   * Gets the duration from an AudioManager that already answered once.
+   *
+   * @return The duration.
+   * @throws Exception if the duration cannot be read.
+   */
+  @Benchmark
+  public Duration audioDurationCached() throws Exception {
+    return this.warmManager.getAudioDuration();
+  }
+}
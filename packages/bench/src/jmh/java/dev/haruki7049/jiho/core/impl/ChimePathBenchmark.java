@@ -0,0 +1,109 @@
+package dev.haruki7049.jiho.core.impl;
+
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for the chime path of {@link AudioManager}, from prepare to the first frame played,
+ * against a {@link NullSink} that is not real-time. Its lines never block, so this measures the
+ * software overhead only.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChimePathBenchmark {
+  @Param({"1", "12"})
+  public int times;
+
+  private Path source;
+  private HeadlessLine line;
+  private AudioManager manager;
+  private Duration period;
+
+  /**
+   * Copies the bundled sound to a temporary file and creates a manager playing it headlessly.
+   *
+   * @throws Exception if the sound cannot be copied or read.
+   */
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    this.source = Files.createTempFile("jiho-bench-", ".wav");
+    try (InputStream in = ChimePathBenchmark.class.getResourceAsStream("/default_sound.wav")) {
+      Files.copy(in, this.source, StandardCopyOption.REPLACE_EXISTING);
+    }
+    URL sourceUrl = this.source.toUri().toURL();
+
+    NullSink sink = new NullSink(false);
+    this.manager =
+        AudioManager.builder(sourceUrl)
+            .sink(
+                format -> {
+                  this.line = (HeadlessLine) sink.getLine(format);
+                  return this.line;
+                })
+            .build();
+    this.period = this.manager.getAudioDuration().plus(Duration.ofMillis(500));
+  }
+
+  /**
+   * Closes the warm line and deletes the temporary copy of the sound.
+   *
+   * @throws Exception if the file cannot be deleted.
+   */
+  @TearDown(Level.Trial)
+  public void tearDown() throws Exception {
+    this.manager.release();
+    Files.deleteIfExists(this.source);
+  }
+
+  /**
+   * Prefetches the sound, prepares the line and plays, as a chime with the warm line enabled does
+   * over one hour.
+   *
+   * @return The time from the start of prefetch to the first frame, in nanoseconds.
+   * @throws Exception if playback fails.
+   */
+  @Benchmark
+  public long prepareAndPlay() throws Exception {
+    long start = System.nanoTime();
+    this.manager.prefetch(this.times, this.period, null);
+    this.manager.prepare(null);
+    this.manager.play(this.times, this.period, null);
+    return this.line.getFirstFrameNanos() - start;
+  }
+
+  /**
+   * Plays with a line opened at the hour, as a chime without the warm line does.
+   *
+   * @return The time from the start of play to the first frame, in nanoseconds.
+   * @throws Exception if playback fails.
+   */
+  @Benchmark
+  public long playColdLine() throws Exception {
+    this.manager.release();
+    long start = System.nanoTime();
+    this.manager.play(this.times, this.period, null);
+    return this.line.getFirstFrameNanos() - start;
+  }
+}
@@ -0,0 +1,80 @@
+package dev.haruki7049.jiho.core.impl;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the gain stage kernels on one second of 48 kHz stereo: the scalar loops against
+ * the Vector API, for a constant gain and for a fade ramp. Run with {@code kernel=vector} only on a
+ * JVM with the {@code jdk.incubator.vector} module added, as the build does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GainStageBenchmark {
+  private static final int CHANNELS = 2;
+  private static final int SAMPLES = 48000 * CHANNELS;
+
+  @Param({"scalar", "vector"})
+  public String kernel;
+
+  private GainKernel gainKernel;
+  private short[] source;
+  private short[] samples;
+
+  /** Creates the kernel and a second of noise. */
+  @Setup(Level.Trial)
+  public void setUp() {
+    this.gainKernel =
+        "vector".equals(this.kernel) ? new VectorGainKernel() : new ScalarGainKernel();
+    this.source = new short[SAMPLES];
+    Random random = new Random(42);
+    for (int i = 0; i < SAMPLES; i++) {
+      this.source[i] = (short) random.nextInt();
+    }
+    this.samples = new short[SAMPLES];
+  }
+
+  /** Restores the samples, so every invocation scales the same noise. */
+  @Setup(Level.Invocation)
+  public void resetSamples() {
+    System.arraycopy(this.source, 0, this.samples, 0, SAMPLES);
+  }
+
+  /**
+   * Applies a constant gain.
+   *
+   * @return The samples.
+   */
+  @Benchmark
+  public short[] scale() {
+    this.gainKernel.scale(this.samples, 0, SAMPLES, 0.7f);
+    return this.samples;
+  }
+
+  /**
+   * Applies a fade over the whole second.
+   *
+   * @return The samples.
+   */
+  @Benchmark
+  public short[] ramp() {
+    this.gainKernel.ramp(this.samples, 0, SAMPLES, CHANNELS, 0.0f, 1.0f / (SAMPLES / CHANNELS));
+    return this.samples;
+  }
+}
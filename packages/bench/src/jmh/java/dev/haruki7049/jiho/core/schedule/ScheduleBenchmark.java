@@ -0,0 +1,95 @@
+package dev.haruki7049.jiho.core.schedule;
+
+import dev.haruki7049.jiho.core.Jiho;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks for computing the next hour and the number of times to chime at it, and for serving
+ * many cron rules from one scheduler.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScheduleBenchmark {
+  @Param({"UTC", "Europe/London", "America/New_York"})
+  public String zone;
+
+  // Number of rules served by the rule scheduler
+  private static final int RULE_COUNT = 1000;
+
+  private HourlyScheduler scheduler;
+  private ZonedDateTime now;
+  private ZonedDateTime nextHour;
+  private RuleScheduler ruleScheduler;
+  private ZonedDateTime lastRuleDeadline;
+
+  /** Creates a scheduler for the zone and a fixed point in time to schedule from. */
+  @Setup(Level.Trial)
+  public void setUp() {
+    ZoneId zoneId = ZoneId.of(this.zone);
+    this.scheduler = new HourlyScheduler(Clock.system(zoneId), Duration.ofSeconds(30));
+    this.now = ZonedDateTime.of(2025, 3, 30, 0, 42, 17, 0, zoneId);
+    this.nextHour = this.scheduler.nextDeadline(this.now);
+
+    // Rules spread over every minute of the day, as a large deployment would have
+    List<ChimeRule> rules = new ArrayList<>(RULE_COUNT);
+    for (int i = 0; i < RULE_COUNT; i++) {
+      String cron = (i * 7 % 60) + " " + (i % 24) + " * * *";
+      rules.add(new ChimeRule(CronExpression.parse(cron), 1));
+    }
+    this.ruleScheduler = new RuleScheduler(Clock.fixed(this.now.toInstant(), zoneId), rules);
+    this.lastRuleDeadline = this.now;
+  }
+
+  /**
+   * Computes the next hour.
+   *
+   * @return The next deadline.
+   */
+  @Benchmark
+  public ZonedDateTime nextDeadline() {
+    return this.scheduler.nextDeadline(this.now);
+  }
+
+  /**
+   * Computes the number of times to chime at the next hour.
+   *
+   * @return The number of times.
+   */
+  @Benchmark
+  public int calculateTimes() {
+    return Jiho.calculateTimes(this.nextHour);
+  }
+
+  /**
+   * Advances the rule scheduler past one deadline, as after every chime.
+   *
+   * @return The next deadline.
+   */
+  @Benchmark
+  public ZonedDateTime ruleNextDeadline() {
+    this.lastRuleDeadline = this.ruleScheduler.nextDeadline(this.lastRuleDeadline);
+    return this.lastRuleDeadline;
+  }
+}
@@ -2,6 +2,10 @@ package dev.haruki7049.jiho.core;
 
 import java.io.IOException;
 import java.time.Duration;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 import javax.sound.sampled.LineUnavailableException;
 import javax.sound.sampled.UnsupportedAudioFileException;
 
@@ -15,7 +19,7 @@ public interface AudioPlayer {
    * Plays the audio source a specified number of times.
    *
    * @param times The number of times to play the sound.
-   * @param duration The duration to wait or play for each repetition.
+   * @param duration The time from the start of one repetition to the start of the next.
    * @param volume The playback volume (0.0 to 1.0), or null for default.
    * @throws UnsupportedAudioFileException if the audio file format is not supported.
    * @throws IOException if an I/O error occurs.
@@ -36,4 +40,119 @@ public interface AudioPlayer {
    * @throws IOException if an I/O error occurs when reading the file.
    */
   Duration getAudioDuration() throws UnsupportedAudioFileException, IOException;
+
+  /**
+   * Gets everything the next {@link #play} call needs ready ahead of the deadline, except the
+   * output line: checks whether the source changed, decodes it and renders the sequence. The play
+   * call then uses this state without touching the source, which may be on a slow file system. The
+   * default implementation does nothing.
+   *
+   * @param times The number of times the sound will be played.
+   * @param duration The time from the start of one repetition to the start of the next.
+   * @param volume The playback volume (0.0 to 1.0), or null for default.
+   * @throws UnsupportedAudioFileException if the audio file format is not supported.
+   * @throws IOException if an I/O error occurs.
+   */
+  default void prefetch(int times, Duration duration, Float volume)
+      throws UnsupportedAudioFileException, IOException {}
+
+  /**
+   * Opens and primes the output line ahead of the next {@link #play} call, so that the call only
+   * needs to start the line. The line stays open between calls until {@link #release()} is called.
+   * The default implementation does nothing.
+   *
+   * @param volume The playback volume (0.0 to 1.0), or null for default.
+   * @throws UnsupportedAudioFileException if the audio file format is not supported.
+   * @throws IOException if an I/O error occurs.
+   * @throws LineUnavailableException if a line cannot be opened.
+   */
+  default void prepare(Float volume)
+      throws UnsupportedAudioFileException, IOException, LineUnavailableException {}
+
+  /**
+   * Closes the line opened by {@link #prepare}, if any. The default implementation does nothing.
+   */
+  default void release() {}
+
+  /**
+   * Gets the time at which the first frame of the last {@link #play} call started playing.
+   *
+   * @return The {@link System#nanoTime()} value of the last onset, or empty if not measured.
+   */
+  default OptionalLong getLastOnsetNanoTime() {
+    return OptionalLong.empty();
+  }
+
+  /**
+   * Gets the statistics of the playbacks of this player: underruns and late starts.
+   *
+   * @return The playback statistics, or empty if the player does not measure them.
+   */
+  default Optional<PlaybackStats> getPlaybackStats() {
+    return Optional.empty();
+  }
+
+  /**
+   * Plays the audio source on a new platform thread and returns immediately. The future completes
+   * when the playback has finished, or exceptionally with the exception thrown by {@link #play}.
+   *
+   * <p>The players and the Java Sound lines block inside monitors for the whole chime. On a virtual
+   * thread this would pin its carrier, so that chimes of more tenants than cores would wait for
+   * each other. A platform thread at the highest priority blocks on its own.
+   *
+   * <p>Completing the future before the playback has finished, by cancelling it or through a
+   * timeout such as {@link CompletableFuture#orTimeout}, stops the playback: the thread is
+   * interrupted and {@link #abort()} is called. A failure of {@link #play} itself does neither.
+   *
+   * @param times The number of times to play the sound.
+   * @param duration The time from the start of one repetition to the start of the next.
+   * @param volume The playback volume (0.0 to 1.0), or null for default.
+   * @return A future completing when the playback has finished.
+   */
+  default CompletableFuture<Void> playAsync(int times, Duration duration, Float volume) {
+    CompletableFuture<Void> future = new CompletableFuture<>();
+    AtomicBoolean returned = new AtomicBoolean(); // Set once play() has returned or thrown
+    Thread thread =
+        Thread.ofPlatform()
+            .daemon()
+            .priority(Thread.MAX_PRIORITY)
+            .name("jiho-audio")
+            .unstarted(
+                () -> {
+                  if (future.isDone()) {
+                    // Cancelled before the thread got to run
+                    return;
+                  }
+                  try {
+                    this.play(times, duration, volume);
+                    returned.set(true);
+                    future.complete(null);
+                  } catch (Throwable e) {
+                    returned.set(true);
+                    future.completeExceptionally(e);
+                  }
+                });
+
+    // Cancellation and timeouts complete the future early, stop the playback then. A failure of
+    // play() completes it too, but the player may already be playing another chime by the time
+    // this runs (on any thread waiting for the future), which must not be aborted.
+    future.whenComplete(
+        (result, error) -> {
+          if (error != null && !returned.get() && thread.isAlive()) {
+            thread.interrupt();
+            this.abort();
+          }
+        });
+
+    thread.start();
+    return future;
+  }
+
+  /**
+   * Stops the playback in progress as soon as possible. This is called from another thread while
+   * {@link #play} is running, when an asynchronous playback is cancelled. The {@link #play} call
+   * then throws {@link InterruptedException}. The default implementation does nothing and relies
+   * on the interrupt alone.
+   */
+  default void abort() {}
 }
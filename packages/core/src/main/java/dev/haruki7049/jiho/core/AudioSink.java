@@ -0,0 +1,22 @@
+package dev.haruki7049.jiho.core;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+
+/**
+ * Interface defining where an {@link AudioPlayer} sends its PCM data. This abstracts the audio
+ * device: a sink hands out the lines the player writes to, which may belong to a real mixer or to a
+ * headless implementation.
+ */
+public interface AudioSink {
+
+  /**
+   * Gets a line that accepts data in the given format. The line is returned unopened.
+   *
+   * @param format The PCM format that will be written to the line.
+   * @return The line.
+   * @throws LineUnavailableException if no line for the format is available.
+   */
+  SourceDataLine getLine(AudioFormat format) throws LineUnavailableException;
+}
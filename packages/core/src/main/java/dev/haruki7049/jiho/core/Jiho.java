@@ -1,25 +1,61 @@
 package dev.haruki7049.jiho.core;
 
 import dev.haruki7049.jiho.core.config.Config;
+import dev.haruki7049.jiho.core.jfr.ChimeEvent;
+import dev.haruki7049.jiho.core.jfr.ScheduleEvent;
+import dev.haruki7049.jiho.core.jfr.WaitEvent;
+import dev.haruki7049.jiho.core.metrics.ChimeMetrics;
+import dev.haruki7049.jiho.core.schedule.ChimeRule;
+import dev.haruki7049.jiho.core.schedule.ChimeScheduler;
+import dev.haruki7049.jiho.core.schedule.HourlyScheduler;
 import java.io.IOException;
+import java.time.Clock;
 import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.logging.Logger;
 import javax.sound.sampled.UnsupportedAudioFileException;
 
 /**
- * Main application logic class for Jiho. Handles time calculation and triggers the audio player.
- * Note: This class is tightly coupled to Config loading and AudioManager. Consider using Dependency
- * Injection.
+ * Main application logic class for Jiho. Waits for the deadlines of a {@link ChimeScheduler} and
+ * triggers the audio player.
+ *
+ * <p>The configuration, player and scheduler can be replaced while running with {@link
+ * #reconfigure}. They are swapped together as one immutable {@link Settings} snapshot.
+ *
+ * <p>The current time is read from a {@link Clock}, and the waiting is done by the scheduler, so a
+ * Jiho with a {@link dev.haruki7049.jiho.core.schedule.VirtualClock} for both runs a schedule
+ * faster than real time.
+ *
+ * <p>The schedule computations, the waits and the chimes are Flight Recorder events.
  */
 public class Jiho {
-  private final Config config;
-  private final AudioPlayer audioPlayer;
-  private final Duration playbackDuration; // Holds the resolved duration
+  private final Clock clock;
+  private final ChimeMetrics metrics;
+  private volatile Settings settings; // Replaced as a whole by reconfigure()
+  private volatile Duration lastOnsetLatency; // Deadline to first frame of the last chime
+  private volatile NextChime nextChime; // Waited for or playing, null outside run()
+  private volatile CompletableFuture<Void> scheduledChime; // The last chime run() played
+  private volatile long chimeCount; // Only written by the run() thread
+  private CompletableFuture<Void> manualChime; // The last manual chime, guarded by trigger()
+  private final Object waitLock = new Object();
+  private Thread waitingThread; // The run() thread while it waits for a deadline, under waitLock
+  private boolean rearm; // The wait was interrupted for a new schedule, under waitLock
 
-  // Define a default buffer to add to the audio length
-  // This ensures playback finishes before the sleep ends.
-  private static final Duration DEFAULT_INTERVAL_BUFFER = Duration.ofMillis(500); // 0.5s buffer
+  /** Most times a manual chime may play the sound, as many as the clock strikes at noon. */
+  public static final int MAX_TRIGGER_TIMES = ChimeRule.MAX_TIMES;
+
+  // Define a default gap of silence between two repetitions of the sound
+  private static final Duration DEFAULT_CHIME_GAP = Duration.ofMillis(500); // 0.5s gap
+
+  // Time a chime may take beyond the length of its sequence before it is cancelled
+  private static final Duration PLAYBACK_TIMEOUT_GRACE = Duration.ofSeconds(10);
 
   /**
    * Constructs a new Jiho instance by loading configuration from a file.
@@ -30,75 +66,555 @@ public class Jiho {
    */
   public Jiho(Config config, AudioPlayer audioPlayer)
       throws UnsupportedAudioFileException, IOException {
-    this.config = config;
-    this.audioPlayer = audioPlayer;
+    this(
+        config,
+        audioPlayer,
+        new HourlyScheduler(config.getZone() != null ? config.getZone() : ZoneId.systemDefault()));
+  }
+
+  /**
+   * Constructs a new Jiho instance with a specific scheduler.
+   *
+   * @param config The configuration file.
+   * @param audioPlayer The audio playback service.
+   * @param scheduler The scheduler deciding when chimes fire.
+   * @throws Exception if config loading fails or audio source is invalid.
+   */
+  public Jiho(Config config, AudioPlayer audioPlayer, ChimeScheduler scheduler)
+      throws UnsupportedAudioFileException, IOException {
+    this(config, audioPlayer, scheduler, Clock.systemUTC());
+  }
+
+  /**
+   * Constructs a new Jiho instance with a specific scheduler and clock.
+   *
+   * @param config The configuration file.
+   * @param audioPlayer The audio playback service.
+   * @param scheduler The scheduler deciding when chimes fire, waiting on the same time as the
+   *     clock.
+   * @param clock The wall clock. Its zone is not used, times are shown in the deadline's zone.
+   * @throws Exception if config loading fails or audio source is invalid.
+   */
+  public Jiho(Config config, AudioPlayer audioPlayer, ChimeScheduler scheduler, Clock clock)
+      throws UnsupportedAudioFileException, IOException {
+    this(config, audioPlayer, scheduler, clock, new ChimeMetrics());
+  }
+
+  /**
+   * Constructs a new Jiho instance with a specific scheduler and clock, recording the onset
+   * lateness, the repetitions played and the failed chimes in existing metrics.
+   *
+   * @param config The configuration file.
+   * @param audioPlayer The audio playback service.
+   * @param scheduler The scheduler deciding when chimes fire, waiting on the same time as the
+   *     clock.
+   * @param clock The wall clock. Its zone is not used, times are shown in the deadline's zone.
+   * @param metrics The metrics to record the chimes in.
+   * @throws Exception if config loading fails or audio source is invalid.
+   */
+  public Jiho(
+      Config config,
+      AudioPlayer audioPlayer,
+      ChimeScheduler scheduler,
+      Clock clock,
+      ChimeMetrics metrics)
+      throws UnsupportedAudioFileException, IOException {
+    this.clock = clock;
+    this.metrics = metrics;
+    this.settings = createSettings(config, audioPlayer, scheduler);
+  }
+
+  /**
+   * Replaces the configuration, the audio player and the scheduler. The chime in progress finishes
+   * with the old settings; the next chime plays with the new ones. A new scheduler takes effect at
+   * once: the wait for the deadline of the old one is interrupted, and the new one is asked for the
+   * next deadline. If the player is replaced, the old one is released.
+   *
+   * @param config The new configuration.
+   * @param audioPlayer The new audio player, or the current one to keep it.
+   * @param scheduler The new scheduler, or the current one to keep it.
+   * @throws UnsupportedAudioFileException if the new audio source is not supported.
+   * @throws IOException if the length of the new audio source cannot be read.
+   */
+  public void reconfigure(Config config, AudioPlayer audioPlayer, ChimeScheduler scheduler)
+      throws UnsupportedAudioFileException, IOException {
+    Settings next = createSettings(config, audioPlayer, scheduler);
+    Settings previous = this.settings;
+    this.settings = next;
+    if (previous.scheduler() != scheduler) {
+      this.rearmWait();
+    }
+
+    NextChime waitedFor = this.nextChime;
+    if (waitedFor != null) {
+      // The chime being waited for plays with the new settings, get them ready too
+      this.prefetch(Logger.getLogger("jiho"), next, waitedFor.times());
+    }
+
+    if (previous.audioPlayer() != null && previous.audioPlayer() != audioPlayer) {
+      previous.audioPlayer().release();
+    }
+  }
+
+  /**
+   * Gets the configuration in use.
+   *
+   * @return The current configuration.
+   */
+  public Config getConfig() {
+    return this.settings.config();
+  }
+
+  /**
+   * Gets the audio player in use.
+   *
+   * @return The current audio player.
+   */
+  public AudioPlayer getAudioPlayer() {
+    return this.settings.audioPlayer();
+  }
+
+  /**
+   * Gets the scheduler in use.
+   *
+   * @return The current scheduler.
+   */
+  public ChimeScheduler getScheduler() {
+    return this.settings.scheduler();
+  }
+
+  /**
+   * Gets the metrics the chimes are recorded in.
+   *
+   * @return The metrics.
+   */
+  public ChimeMetrics getMetrics() {
+    return this.metrics;
+  }
 
-    // Resolve the playback duration once during construction
-    this.playbackDuration = this.resolvePlaybackDuration(config, audioPlayer);
+  /**
+   * Creates a settings snapshot, resolving the playback duration.
+   *
+   * @param config The configuration.
+   * @param audioPlayer The audio player.
+   * @param scheduler The scheduler.
+   * @return The snapshot.
+   * @throws UnsupportedAudioFileException if the audio source is not supported.
+   * @throws IOException if the length of the audio source cannot be read.
+   */
+  private static Settings createSettings(
+      Config config, AudioPlayer audioPlayer, ChimeScheduler scheduler)
+      throws UnsupportedAudioFileException, IOException {
+    String siteTag = config.getSite() != null ? "[" + config.getSite() + "] " : "";
+    return new Settings(
+        config, audioPlayer, scheduler, resolvePlaybackDuration(config, audioPlayer), siteTag);
   }
 
   /**
-   * Determines the correct duration to use. Uses config value if present, otherwise falls back to
-   * the audio file's length plus a buffer.
+   * Determines the time from the start of one repetition to the start of the next: the audio
+   * file's length plus the configured gap, or a default gap if none is configured.
    */
-  private Duration resolvePlaybackDuration(Config config, AudioPlayer player)
+  private static Duration resolvePlaybackDuration(Config config, AudioPlayer player)
       throws UnsupportedAudioFileException, IOException {
-    // 2. If null, fall back to the audio file's actual length
     if (player != null) {
       // Get the exact audio length
       Duration audioLength = player.getAudioDuration();
-      // Add the buffer to prevent cutting off the sound
-      return audioLength.plus(DEFAULT_INTERVAL_BUFFER);
+
+      // Add the gap of silence between repetitions
+      Duration gap = config.getChimeGap();
+      if (gap == null || gap.isNegative()) {
+        gap = DEFAULT_CHIME_GAP;
+      }
+      return audioLength.plus(gap);
     }
 
-    // Fallback in case player is also null (e.g., during tests)
+    // Fallback in case player is null (e.g., during tests)
     // This should ideally not be hit in production
     return Duration.ofSeconds(1);
   }
 
   /**
-   * Runs the main loop of the Jiho application. Waits until the next hour, then plays the sound.
+   * Runs the main loop of the Jiho application. Waits for the next deadline from the scheduler,
+   * then plays the sound.
    *
    * @throws Exception if an error occurs during execution.
    */
   public void run() throws Exception {
+    this.run(null);
+  }
+
+  /**
+   * Runs the main loop of the Jiho application until a given time. Waits for the next deadline
+   * from the scheduler, then plays the sound, and returns once the next deadline is after the end.
+   *
+   * @param end The last time a chime may be played at, or null to run forever.
+   * @throws Exception if an error occurs during execution.
+   */
+  public void run(ZonedDateTime end) throws Exception {
     Logger logger = Logger.getLogger("jiho");
 
     while (true) {
-      Thread.sleep(1000); // 1000 milliseconds <- 1 second
+      final Settings waiting = this.settings;
 
-      // Get now time
-      final ZonedDateTime now = ZonedDateTime.now();
-
-      final ZonedDateTime nextHour = now.plusHours(1).withMinute(0).withSecond(0).withNano(0);
+      // Get the next absolute deadline
+      ScheduleEvent scheduleEvent = new ScheduleEvent();
+      scheduleEvent.begin();
+      final ZonedDateTime nextHour = waiting.scheduler().nextDeadline();
+      if (end != null && nextHour.isAfter(end)) {
+        this.nextChime = null;
+        return;
+      }
+      final ZonedDateTime now = ZonedDateTime.now(this.clock.withZone(nextHour.getZone()));
 
-      final Duration durationUntilNextHour = Duration.between(now, nextHour);
-      final long millisecondsToWait = durationUntilNextHour.toMillis();
+      final Duration durationUntilNextHour =
+          Duration.between(now.toInstant(), waiting.scheduler().localInstant(nextHour));
 
-      final int times = this.calculateTimes(nextHour);
+      final int times =
+          waiting.scheduler().chimeCount(nextHour).orElseGet(() -> calculateTimes(nextHour));
+      this.nextChime = new NextChime(nextHour, times);
+      if (scheduleEvent.shouldCommit()) {
+        scheduleEvent.site = waiting.config().getSite();
+        scheduleEvent.scheduler = waiting.scheduler().getClass().getSimpleName();
+        scheduleEvent.deadline = nextHour.toInstant().toEpochMilli();
+        scheduleEvent.times = times;
+        scheduleEvent.commit();
+      }
 
       logger.info(
-          "Current time: "
+          waiting.siteTag()
+              + "Current time: "
               + now
               + ". Waiting "
               + durationUntilNextHour.toSeconds()
               + " seconds until "
               + nextHour);
-      logger.fine("Next time it will plays the sound " + times + " times...");
+      logger.fine(waiting.siteTag() + "Next time it will plays the sound " + times + " times...");
+
+      // Check and decode the source before sleeping, so the chime does not touch the file system
+      this.prefetch(logger, waiting, times);
+
+      // Open and prime the output line before sleeping, so the chime only has to start it.
+      // Precision mode always does this, nothing but start() may be left for the deadline.
+      if (Boolean.TRUE.equals(waiting.config().getWarmLine())
+          || Boolean.TRUE.equals(waiting.config().getPrecisionMode())) {
+        this.prepareWarmLine(logger, waiting);
+      }
 
-      // Thread sleeping
+      // Thread sleeping, unless the schedule was replaced meanwhile. From here on, a new schedule
+      // interrupts the wait (see reconfigure).
+      synchronized (this.waitLock) {
+        if (this.settings.scheduler() != waiting.scheduler()) {
+          continue;
+        }
+        this.waitingThread = Thread.currentThread();
+      }
+      WaitEvent waitEvent = new WaitEvent();
+      waitEvent.begin();
+      final Instant localDeadline; // The deadline on this.clock, which the scheduler may not use
       try {
-        Thread.sleep(millisecondsToWait);
+        boolean onTime;
+        try {
+          onTime = waiting.scheduler().awaitDeadline(nextHour);
+        } finally {
+          this.endWait();
+        }
+        localDeadline = waiting.scheduler().localInstant(nextHour);
+        if (waitEvent.shouldCommit()) {
+          waitEvent.site = waiting.config().getSite();
+          waitEvent.deadline = nextHour.toInstant().toEpochMilli();
+          waitEvent.lateness = Duration.between(localDeadline, this.clock.instant()).toNanos();
+          waitEvent.onTime = onTime;
+          waitEvent.commit();
+        }
+        if (!onTime) {
+          // The deadline was missed (suspend, clock step), re-arm with the next one
+          continue;
+        }
       } catch (InterruptedException e) {
+        if (this.settings.scheduler() != waiting.scheduler()) {
+          logger.info(waiting.siteTag() + "Schedule replaced, waiting for its next deadline.");
+          continue;
+        }
         Thread.currentThread().interrupt();
-        logger.warning("Thread sleeping interrupted: " + e.getMessage());
+        logger.warning(waiting.siteTag() + "Thread sleeping interrupted: " + e.getMessage());
         return;
       }
 
-      logger.info("It's the hour. Playing sound...");
+      // The deadline expressed on the monotonic clock, for the onset latency report
+      final Duration sinceDeadline = Duration.between(localDeadline, this.clock.instant());
+      final long deadlineNanos = System.nanoTime() - sinceDeadline.toNanos();
+
+      // Play with the settings of the moment, which may have been reloaded while waiting
+      final Settings playing = this.settings;
+
+      logger.info(playing.siteTag() + "It's the hour. Playing sound...");
+      ChimeEvent chimeEvent = new ChimeEvent();
+      chimeEvent.begin();
       // Use the resolved playbackDuration and config volume
-      this.audioPlayer.play(times, this.playbackDuration, this.config.getVolume());
+      CompletableFuture<Void> chime =
+          playing
+              .audioPlayer()
+              .playAsync(times, playing.playbackDuration(), playing.config().getVolume());
+      this.scheduledChime = chime;
+      this.chimeCount++;
+      try {
+        if (!this.awaitChime(logger, playing, chime, times, chimeEvent)) {
+          return;
+        }
+        Duration onset = this.reportOnsetLatency(logger, playing, deadlineNanos);
+        if (onset != null) {
+          chimeEvent.onsetLateness = onset.toNanos();
+          chimeEvent.actualStart = nextHour.toInstant().plus(onset).toEpochMilli();
+        }
+      } finally {
+        if (chimeEvent.shouldCommit()) {
+          chimeEvent.site = playing.config().getSite();
+          chimeEvent.deadline = nextHour.toInstant().toEpochMilli();
+          chimeEvent.times = times;
+          chimeEvent.commit();
+        }
+      }
+    }
+  }
+
+  /**
+   * Waits for an asynchronous chime to finish. A chime that takes much longer than its sequence,
+   * such as one stuck on a line that never drains, is cancelled so the next hour is not missed.
+   * The outcome is recorded in the metrics and in the chime event.
+   *
+   * @param logger The logger to report to.
+   * @param playing The settings the chime is played with.
+   * @param chime The playback future.
+   * @param times The number of repetitions of the chime.
+   * @param event The Flight Recorder event of the chime.
+   * @return false if the thread was interrupted and the loop must stop.
+   * @throws Exception the exception the playback failed with.
+   */
+  private boolean awaitChime(
+      Logger logger,
+      Settings playing,
+      CompletableFuture<Void> chime,
+      int times,
+      ChimeEvent event)
+      throws Exception {
+    Duration timeout = playing.playbackDuration().multipliedBy(times).plus(PLAYBACK_TIMEOUT_GRACE);
+    try {
+      chime.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+      this.metrics.recordPlayed(times);
+      event.outcome = "played";
+      return true;
+    } catch (TimeoutException e) {
+      chime.cancel(true);
+      this.metrics.recordFailure();
+      event.outcome = "timed out";
+      logger.warning(
+          playing.siteTag() + "Chime did not finish within " + timeout + ", cancelled it");
+      return true;
+    } catch (InterruptedException e) {
+      chime.cancel(true);
+      event.outcome = "interrupted";
+      Thread.currentThread().interrupt();
+      logger.warning(playing.siteTag() + "Interrupted while playing the chime: " + e.getMessage());
+      return false;
+    } catch (ExecutionException e) {
+      this.metrics.recordFailure();
+      event.outcome = "failed";
+      if (e.getCause() instanceof Exception cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Gets the measured onset latency of the last chime, from the deadline to the first frame.
+   *
+   * @return The onset latency, or null if it has not been measured yet.
+   */
+  public Duration getLastOnsetLatency() {
+    return this.lastOnsetLatency;
+  }
+
+  /**
+   * Gets the chime the main loop waits for, or is playing.
+   *
+   * @return The next chime, or null if the loop has not scheduled one yet.
+   */
+  public NextChime getNextChime() {
+    return this.nextChime;
+  }
+
+  /**
+   * Gets the number of scheduled chimes played since the main loop started.
+   *
+   * @return The chime count, not counting manual triggers.
+   */
+  public long getChimeCount() {
+    return this.chimeCount;
+  }
+
+  /**
+   * Plays a chime now, outside the schedule, with the current settings. It is refused while
+   * another chime is playing, manual or scheduled, as it would only play once that one has
+   * finished. It is also refused if it could still be playing at the next scheduled chime, which
+   * must not be held up by it, or if that chime is due.
+   *
+   * @param times The number of times to play the sound, up to {@value #MAX_TRIGGER_TIMES}.
+   * @return A future completing when the playback has finished.
+   * @throws IllegalArgumentException if times is out of range.
+   * @throws IllegalStateException if a chime is playing, or if the chime would overlap the next
+   *     scheduled one.
+   */
+  public synchronized CompletableFuture<Void> trigger(int times) {
+    if (times < 1 || times > MAX_TRIGGER_TIMES) {
+      throw new IllegalArgumentException(
+          "Times must be from 1 to " + MAX_TRIGGER_TIMES + ": " + times);
+    }
+    if (this.manualChime != null && !this.manualChime.isDone()) {
+      throw new IllegalStateException("A manual chime is already playing");
+    }
+    if (this.scheduledChime != null && !this.scheduledChime.isDone()) {
+      throw new IllegalStateException("The scheduled chime is playing");
+    }
+
+    Settings playing = this.settings;
+    Duration length = playing.playbackDuration().multipliedBy(times);
+    NextChime next = this.nextChime;
+    if (next != null) {
+      Duration untilNext =
+          Duration.between(
+              this.clock.instant(), playing.scheduler().localInstant(next.deadline()));
+      // Nothing is playing, so the chime would start now. A deadline already reached is about to
+      // play, and is refused as an overlap too.
+      if (untilNext.compareTo(length) < 0) {
+        throw new IllegalStateException(
+            "A chime of " + length + " would overlap the next one at " + next.deadline());
+      }
+    }
+
+    Logger.getLogger("jiho")
+        .info(playing.siteTag() + "Playing a manual chime " + times + " times...");
+    CompletableFuture<Void> chime =
+        playing
+            .audioPlayer()
+            .playAsync(times, playing.playbackDuration(), playing.config().getVolume());
+    chime.whenComplete(
+        (result, error) -> {
+          if (error == null) {
+            this.metrics.recordPlayed(times);
+          } else {
+            this.metrics.recordFailure();
+          }
+        });
+    this.manualChime = chime;
+    return chime;
+  }
+
+  /**
+   * Interrupts the wait of run() for a deadline of the previous schedule, so that it asks the new
+   * one for its next deadline instead.
+   */
+  private void rearmWait() {
+    synchronized (this.waitLock) {
+      if (this.waitingThread != null) {
+        this.rearm = true;
+        this.waitingThread.interrupt();
+      }
+    }
+  }
+
+  /**
+   * Marks the end of the wait for a deadline. An interrupt from {@link #rearmWait()} that arrived
+   * after the deadline was reached is cleared, the chime of that deadline still plays.
+   */
+  private void endWait() {
+    synchronized (this.waitLock) {
+      this.waitingThread = null;
+      if (this.rearm) {
+        this.rearm = false;
+        Thread.interrupted();
+      }
+    }
+  }
+
+  /**
+   * Asks the audio player to check, decode and render the sound ahead of the deadline. Failures
+   * are not fatal, the player then loads the sound at the deadline as usual.
+   *
+   * @param logger The logger to report failures to.
+   * @param waiting The settings of the next chime.
+   * @param times The number of times the sound will be played.
+   */
+  private void prefetch(Logger logger, Settings waiting, int times) {
+    try {
+      waiting
+          .audioPlayer()
+          .prefetch(times, waiting.playbackDuration(), waiting.config().getVolume());
+    } catch (Exception e) {
+      logger.warning(
+          waiting.siteTag() + "Could not prepare the sound, loading it at the hour instead: " + e);
+    }
+  }
+
+  /**
+   * Asks the audio player to open its line ahead of the deadline. Failures are not fatal, the
+   * player then opens the line at the deadline as usual.
+   *
+   * @param logger The logger to report failures to.
+   * @param waiting The settings of the next chime.
+   */
+  private void prepareWarmLine(Logger logger, Settings waiting) {
+    try {
+      waiting.audioPlayer().prepare(waiting.config().getVolume());
+    } catch (Exception e) {
+      logger.warning(
+          waiting.siteTag() + "Could not prepare warm line, opening it at the hour instead: " + e);
+    }
+  }
+
+  /**
+   * Logs the time from the deadline to the first frame of the chime, if the player measured it,
+   * and warns about underruns and late starts of the chime.
+   *
+   * @param logger The logger to report to.
+   * @param playing The settings the chime was played with.
+   * @param deadlineNanos The deadline as a {@link System#nanoTime()} value.
+   * @return The onset latency, or null if the player did not measure it.
+   */
+  private Duration reportOnsetLatency(Logger logger, Settings playing, long deadlineNanos) {
+    playing
+        .audioPlayer()
+        .getPlaybackStats()
+        .ifPresent(
+            stats -> {
+              if (stats.getLastUnderruns() > 0 || stats.isLastStartLate()) {
+                logger.warning(
+                    playing.siteTag()
+                        + "Chime had "
+                        + stats.getLastUnderruns()
+                        + " underrun(s), start delay "
+                        + stats.getLastStartDelay().toNanos() / 1e6
+                        + " ms. Playback stats: "
+                        + stats);
+              } else {
+                logger.fine(playing.siteTag() + "Playback stats: " + stats);
+              }
+            });
+
+    OptionalLong onsetNanos = playing.audioPlayer().getLastOnsetNanoTime();
+    if (onsetNanos.isEmpty()) {
+      return null;
     }
+
+    long latencyNanos = onsetNanos.getAsLong() - deadlineNanos;
+    this.metrics.recordOnsetLateness(latencyNanos);
+    this.lastOnsetLatency = Duration.ofNanos(latencyNanos);
+    logger.info(
+        playing.siteTag()
+            + "Chime onset latency (deadline to first frame): "
+            + this.lastOnsetLatency.toNanos() / 1e6
+            + " ms");
+    return this.lastOnsetLatency;
   }
 
   /**
@@ -107,7 +623,7 @@ public class Jiho {
    * @param nextHour The ZonedDateTime of the next hour.
    * @return The number of times (1-12).
    */
-  private int calculateTimes(ZonedDateTime nextHour) {
+  public static int calculateTimes(ZonedDateTime nextHour) {
     // 24-hour clock
     int times = nextHour.getHour();
 
@@ -120,4 +636,28 @@ public class Jiho {
 
     return times;
   }
+
+  /**
+   * A scheduled chime.
+   *
+   * @param deadline The time it is played at.
+   * @param times The number of times the sound is played.
+   */
+  public record NextChime(ZonedDateTime deadline, int times) {}
+
+  /**
+   * Everything a chime is played with, replaced as a whole when the configuration is reloaded.
+   *
+   * @param config The configuration.
+   * @param audioPlayer The audio playback service.
+   * @param scheduler The scheduler deciding when chimes fire.
+   * @param playbackDuration The time from the start of one repetition to the start of the next.
+   * @param siteTag The prefix of log messages, naming the site in multi-tenant mode.
+   */
+  private record Settings(
+      Config config,
+      AudioPlayer audioPlayer,
+      ChimeScheduler scheduler,
+      Duration playbackDuration,
+      String siteTag) {}
 }
@@ -0,0 +1,121 @@
+package dev.haruki7049.jiho.core;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Running statistics of how playbacks went on the output line: underruns (the line ran out of data
+ * while the sequence was still being written) and late starts (the first frame came long after the
+ * line was started).
+ */
+public class PlaybackStats {
+  /** Start delay above which a playback counts as a late start. */
+  public static final Duration LATE_START_THRESHOLD = Duration.ofMillis(20);
+
+  private long plays;
+  private long underruns;
+  private long lateStarts;
+  private int lastUnderruns;
+  private long lastStartDelayNanos;
+  private long worstStartDelayNanos;
+
+  /**
+   * Records one playback.
+   *
+   * @param underruns The number of underruns seen during the playback.
+   * @param startDelayNanos The time from starting the line to its first frame, in nanoseconds.
+   */
+  public synchronized void record(int underruns, long startDelayNanos) {
+    this.plays++;
+    this.underruns += underruns;
+    this.lastUnderruns = underruns;
+    this.lastStartDelayNanos = startDelayNanos;
+    this.worstStartDelayNanos = Math.max(this.worstStartDelayNanos, startDelayNanos);
+    if (this.isLastStartLate()) {
+      this.lateStarts++;
+    }
+  }
+
+  /**
+   * Gets the number of recorded playbacks.
+   *
+   * @return The playback count.
+   */
+  public synchronized long getPlays() {
+    return this.plays;
+  }
+
+  /**
+   * Gets the number of underruns over all recorded playbacks.
+   *
+   * @return The underrun count.
+   */
+  public synchronized long getUnderruns() {
+    return this.underruns;
+  }
+
+  /**
+   * Gets the number of recorded playbacks that started late.
+   *
+   * @return The late start count.
+   */
+  public synchronized long getLateStarts() {
+    return this.lateStarts;
+  }
+
+  /**
+   * Gets the number of underruns of the last recorded playback.
+   *
+   * @return The underrun count, or zero if nothing was recorded.
+   */
+  public synchronized int getLastUnderruns() {
+    return this.lastUnderruns;
+  }
+
+  /**
+   * Gets the start delay of the last recorded playback.
+   *
+   * @return The start delay, or zero if nothing was recorded.
+   */
+  public synchronized Duration getLastStartDelay() {
+    return Duration.ofNanos(this.lastStartDelayNanos);
+  }
+
+  /**
+   * Gets the largest start delay of all recorded playbacks.
+   *
+   * @return The worst start delay, or zero if nothing was recorded.
+   */
+  public synchronized Duration getWorstStartDelay() {
+    return Duration.ofNanos(this.worstStartDelayNanos);
+  }
+
+  /**
+   * Tells whether the last recorded playback started late.
+   *
+   * @return true if its start delay was above {@link #LATE_START_THRESHOLD}.
+   */
+  public synchronized boolean isLastStartLate() {
+    return this.plays > 0 && this.lastStartDelayNanos > LATE_START_THRESHOLD.toNanos();
+  }
+
+  /**
+   * Formats the statistics as a one-line report.
+   *
+   * @return The report.
+   */
+  @Override
+  public synchronized String toString() {
+    if (this.plays == 0) {
+      return "no playbacks";
+    }
+    return String.format(
+        Locale.ROOT,
+        "underruns=%d late starts=%d start delay last=%.1fms worst=%.1fms (n=%d)",
+        this.underruns,
+        this.lateStarts,
+        this.lastStartDelayNanos / 1e6,
+        this.worstStartDelayNanos / 1e6,
+        this.plays);
+  }
+}
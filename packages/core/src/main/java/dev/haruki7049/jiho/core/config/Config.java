@@ -3,12 +3,31 @@ package dev.haruki7049.jiho.core.config;
 import com.google.gson.annotations.Expose;
 import com.google.gson.annotations.SerializedName;
 import java.io.File;
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.List;
 
 /**
  * Represents the application configuration, loaded from JSON. This class holds settings required by
  * the application, such as file paths.
  */
 public class Config {
+  /**
+   * The name of the site, used in log messages when several configs run in one process. Exposed
+   * to Gson for serialization/deserialization.
+   */
+  @SerializedName("site")
+  @Expose
+  private final String site;
+
+  /**
+   * The time zone whose local hours are chimed (e.g., "Asia/Tokyo"). Exposed to Gson for
+   * serialization/deserialization.
+   */
+  @SerializedName("zone")
+  @Expose
+  private final ZoneId zone;
+
   /**
    * The sound file (e.g., MP3, WAV) to be played. Exposed to Gson for
    * serialization/deserialization.
@@ -22,6 +41,102 @@ public class Config {
   @Expose
   private final Float volume; // Use Float (wrapper) to allow null
 
+  /**
+   * Whether the output line is opened ahead of the hour and kept open between chimes. Exposed to
+   * Gson for serialization/deserialization.
+   */
+  @SerializedName("warmLine")
+  @Expose
+  private final Boolean warmLine;
+
+  /**
+   * Whether chimes are mixed in software into one output line shared by every tenant of the
+   * process. Exposed to Gson for serialization/deserialization.
+   */
+  @SerializedName("mixer")
+  @Expose
+  private final Boolean mixer;
+
+  /**
+   * The sample rate of the output line in Hz (e.g., 48000). The sound is converted to this rate
+   * once and cached on disk. Exposed to Gson for serialization/deserialization.
+   */
+  @SerializedName("outputSampleRate")
+  @Expose
+  private final Integer outputSampleRate;
+
+  /**
+   * Whether to busy-wait the last moments before the hour for sub-millisecond onset precision.
+   * Exposed to Gson for serialization/deserialization.
+   */
+  @SerializedName("precisionMode")
+  @Expose
+  private final Boolean precisionMode;
+
+  /**
+   * How long before the hour the precision mode stops parking and starts busy-waiting, as an ISO
+   * 8601 duration (e.g., "PT0.05S"). Exposed to Gson for serialization/deserialization.
+   */
+  @SerializedName("precisionGuard")
+  @Expose
+  private final Duration precisionGuard;
+
+  /**
+   * The UDP multicast group and port shared with the other instances to chime in sync (e.g.,
+   * "239.255.74.72:47474"). Exposed to Gson for serialization/deserialization.
+   */
+  @SerializedName("syncGroup")
+  @Expose
+  private final String syncGroup;
+
+  /**
+   * The name of the network interface the sync group is joined on (e.g., "eth0"). Exposed to Gson
+   * for serialization/deserialization.
+   */
+  @SerializedName("syncInterface")
+  @Expose
+  private final String syncInterface;
+
+  /**
+   * The address and port the metrics are served on over HTTP (e.g., "127.0.0.1:9464"). Exposed to
+   * Gson for serialization/deserialization.
+   */
+  @SerializedName("metricsAddress")
+  @Expose
+  private final String metricsAddress;
+
+  /**
+   * The silence between two repetitions of the sound, as an ISO 8601 duration (e.g., "PT0.5S").
+   * Exposed to Gson for serialization/deserialization.
+   */
+  @SerializedName("chimeGap")
+  @Expose
+  private final Duration chimeGap;
+
+  /**
+   * The fade-in at the start of every repetition of the sound, as an ISO 8601 duration (e.g.,
+   * "PT0.01S"). Exposed to Gson for serialization/deserialization.
+   */
+  @SerializedName("fadeIn")
+  @Expose
+  private final Duration fadeIn;
+
+  /**
+   * The fade-out at the end of every repetition of the sound, as an ISO 8601 duration (e.g.,
+   * "PT0.05S"). Exposed to Gson for serialization/deserialization.
+   */
+  @SerializedName("fadeOut")
+  @Expose
+  private final Duration fadeOut;
+
+  /**
+   * The chime rules. If empty or not specified, the sound chimes every hour. Exposed to Gson for
+   * serialization/deserialization.
+   */
+  @SerializedName("rules")
+  @Expose
+  private final List<RuleConfig> rules;
+
   /**
    * Constructs a new Config instance with specified settings.
    *
@@ -29,8 +144,58 @@ public class Config {
    * @param volume The playback volume (0.0 to 1.0), or null if not specified.
    */
   public Config(File soundSource, Float volume) {
-    this.soundSource = soundSource;
-    this.volume = volume;
+    this(new Builder().soundSource(soundSource).volume(volume));
+  }
+
+  /**
+   * Constructs a new Config instance from a builder.
+   *
+   * @param builder The builder holding the settings.
+   */
+  private Config(Builder builder) {
+    this.site = builder.site;
+    this.zone = builder.zone;
+    this.soundSource = builder.soundSource;
+    this.volume = builder.volume;
+    this.warmLine = builder.warmLine;
+    this.mixer = builder.mixer;
+    this.outputSampleRate = builder.outputSampleRate;
+    this.precisionMode = builder.precisionMode;
+    this.precisionGuard = builder.precisionGuard;
+    this.syncGroup = builder.syncGroup;
+    this.syncInterface = builder.syncInterface;
+    this.metricsAddress = builder.metricsAddress;
+    this.chimeGap = builder.chimeGap;
+    this.fadeIn = builder.fadeIn;
+    this.fadeOut = builder.fadeOut;
+    this.rules = builder.rules;
+  }
+
+  /**
+   * Creates a builder for a Config where every setting is unspecified (null).
+   *
+   * @return A new builder.
+   */
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Gets the name of the site.
+   *
+   * @return The site name, or null if not specified.
+   */
+  public String getSite() {
+    return this.site;
+  }
+
+  /**
+   * Gets the time zone whose local hours are chimed.
+   *
+   * @return The time zone, or null if not specified (the system default is used).
+   */
+  public ZoneId getZone() {
+    return this.zone;
   }
 
   /**
@@ -50,4 +215,317 @@ public class Config {
   public Float getVolume() {
     return this.volume;
   }
+
+  /**
+   * Gets whether the output line should be kept warm.
+   *
+   * @return true to keep the line warm, false or null otherwise.
+   */
+  public Boolean getWarmLine() {
+    return this.warmLine;
+  }
+
+  /**
+   * Gets whether chimes go through the shared software mixer.
+   *
+   * @return true to use the mixer, false or null otherwise.
+   */
+  public Boolean getMixer() {
+    return this.mixer;
+  }
+
+  /**
+   * Gets the sample rate of the output line.
+   *
+   * @return The sample rate in Hz, or null if not specified (the rate of the sound is used).
+   */
+  public Integer getOutputSampleRate() {
+    return this.outputSampleRate;
+  }
+
+  /**
+   * Gets whether the sub-millisecond precision mode is enabled.
+   *
+   * @return true to enable precision mode, false or null otherwise.
+   */
+  public Boolean getPrecisionMode() {
+    return this.precisionMode;
+  }
+
+  /**
+   * Gets the busy-wait window before the hour used by the precision mode.
+   *
+   * @return The guard window, or null if not specified.
+   */
+  public Duration getPrecisionGuard() {
+    return this.precisionGuard;
+  }
+
+  /**
+   * Gets the multicast group shared with the other instances to chime in sync.
+   *
+   * @return The group as ADDRESS:PORT, or null if not specified (no synchronization).
+   */
+  public String getSyncGroup() {
+    return this.syncGroup;
+  }
+
+  /**
+   * Gets the network interface the sync group is joined on.
+   *
+   * @return The interface name, or null if not specified (the system default).
+   */
+  public String getSyncInterface() {
+    return this.syncInterface;
+  }
+
+  /**
+   * Gets the address the metrics are served on.
+   *
+   * @return The address as HOST:PORT, or null if not specified (no metrics endpoint).
+   */
+  public String getMetricsAddress() {
+    return this.metricsAddress;
+  }
+
+  /**
+   * Gets the silence between two repetitions of the sound.
+   *
+   * @return The gap, or null if not specified.
+   */
+  public Duration getChimeGap() {
+    return this.chimeGap;
+  }
+
+  /**
+   * Gets the fade-in at the start of every repetition of the sound.
+   *
+   * @return The fade-in, or null if not specified (no fade).
+   */
+  public Duration getFadeIn() {
+    return this.fadeIn;
+  }
+
+  /**
+   * Gets the fade-out at the end of every repetition of the sound.
+   *
+   * @return The fade-out, or null if not specified (no fade).
+   */
+  public Duration getFadeOut() {
+    return this.fadeOut;
+  }
+
+  /**
+   * Gets the chime rules.
+   *
+   * @return The rules, or null if not specified.
+   */
+  public List<RuleConfig> getRules() {
+    return this.rules;
+  }
+
+  /** Builder for {@link Config}. Settings that are never set stay null (unspecified). */
+  public static class Builder {
+    private String site;
+    private ZoneId zone;
+    private File soundSource;
+    private Float volume;
+    private Boolean warmLine;
+    private Boolean mixer;
+    private Integer outputSampleRate;
+    private Boolean precisionMode;
+    private Duration precisionGuard;
+    private String syncGroup;
+    private String syncInterface;
+    private String metricsAddress;
+    private Duration chimeGap;
+    private Duration fadeIn;
+    private Duration fadeOut;
+    private List<RuleConfig> rules;
+
+    /**
+     * Sets the name of the site.
+     *
+     * @param site The site name.
+     * @return This builder.
+     */
+    public Builder site(String site) {
+      this.site = site;
+      return this;
+    }
+
+    /**
+     * Sets the time zone whose local hours are chimed.
+     *
+     * @param zone The time zone.
+     * @return This builder.
+     */
+    public Builder zone(ZoneId zone) {
+      this.zone = zone;
+      return this;
+    }
+
+    /**
+     * Sets the sound source file.
+     *
+     * @param soundSource The sound file to be played.
+     * @return This builder.
+     */
+    public Builder soundSource(File soundSource) {
+      this.soundSource = soundSource;
+      return this;
+    }
+
+    /**
+     * Sets the playback volume.
+     *
+     * @param volume The playback volume (0.0 to 1.0).
+     * @return This builder.
+     */
+    public Builder volume(Float volume) {
+      this.volume = volume;
+      return this;
+    }
+
+    /**
+     * Sets whether the output line is kept warm.
+     *
+     * @param warmLine true to keep the line warm.
+     * @return This builder.
+     */
+    public Builder warmLine(Boolean warmLine) {
+      this.warmLine = warmLine;
+      return this;
+    }
+
+    /**
+     * Sets whether chimes go through the shared software mixer.
+     *
+     * @param mixer true to use the mixer.
+     * @return This builder.
+     */
+    public Builder mixer(Boolean mixer) {
+      this.mixer = mixer;
+      return this;
+    }
+
+    /**
+     * Sets the sample rate of the output line.
+     *
+     * @param outputSampleRate The sample rate in Hz.
+     * @return This builder.
+     */
+    public Builder outputSampleRate(Integer outputSampleRate) {
+      this.outputSampleRate = outputSampleRate;
+      return this;
+    }
+
+    /**
+     * Sets whether the precision mode is enabled.
+     *
+     * @param precisionMode true to enable precision mode.
+     * @return This builder.
+     */
+    public Builder precisionMode(Boolean precisionMode) {
+      this.precisionMode = precisionMode;
+      return this;
+    }
+
+    /**
+     * Sets the busy-wait window before the hour used by the precision mode.
+     *
+     * @param precisionGuard The guard window.
+     * @return This builder.
+     */
+    public Builder precisionGuard(Duration precisionGuard) {
+      this.precisionGuard = precisionGuard;
+      return this;
+    }
+
+    /**
+     * Sets the multicast group shared with the other instances to chime in sync.
+     *
+     * @param syncGroup The group as ADDRESS:PORT.
+     * @return This builder.
+     */
+    public Builder syncGroup(String syncGroup) {
+      this.syncGroup = syncGroup;
+      return this;
+    }
+
+    /**
+     * Sets the network interface the sync group is joined on.
+     *
+     * @param syncInterface The interface name.
+     * @return This builder.
+     */
+    public Builder syncInterface(String syncInterface) {
+      this.syncInterface = syncInterface;
+      return this;
+    }
+
+    /**
+     * Sets the address the metrics are served on.
+     *
+     * @param metricsAddress The address as HOST:PORT.
+     * @return This builder.
+     */
+    public Builder metricsAddress(String metricsAddress) {
+      this.metricsAddress = metricsAddress;
+      return this;
+    }
+
+    /**
+     * Sets the silence between two repetitions of the sound.
+     *
+     * @param chimeGap The gap.
+     * @return This builder.
+     */
+    public Builder chimeGap(Duration chimeGap) {
+      this.chimeGap = chimeGap;
+      return this;
+    }
+
+    /**
+     * Sets the fade-in at the start of every repetition of the sound.
+     *
+     * @param fadeIn The fade-in.
+     * @return This builder.
+     */
+    public Builder fadeIn(Duration fadeIn) {
+      this.fadeIn = fadeIn;
+      return this;
+    }
+
+    /**
+     * Sets the fade-out at the end of every repetition of the sound.
+     *
+     * @param fadeOut The fade-out.
+     * @return This builder.
+     */
+    public Builder fadeOut(Duration fadeOut) {
+      this.fadeOut = fadeOut;
+      return this;
+    }
+
+    /**
+     * Sets the chime rules.
+     *
+     * @param rules The rules, in order of precedence.
+     * @return This builder.
+     */
+    public Builder rules(List<RuleConfig> rules) {
+      this.rules = rules;
+      return this;
+    }
+
+    /**
+     * Builds the Config.
+     *
+     * @return A new Config instance.
+     */
+    public Config build() {
+      return new Config(this);
+    }
+  }
 }
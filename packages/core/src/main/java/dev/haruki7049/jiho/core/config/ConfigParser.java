@@ -0,0 +1,404 @@
+package dev.haruki7049.jiho.core.config;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import dev.haruki7049.jiho.core.metrics.MetricsServer;
+import dev.haruki7049.jiho.core.schedule.ChimeRule;
+import dev.haruki7049.jiho.core.schedule.ClockSync;
+import dev.haruki7049.jiho.core.schedule.CronExpression;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reads {@link Config} objects from JSON with a streaming {@link JsonReader}, without reflection.
+ * Values are checked while reading: unknown or duplicate keys, values of the wrong type and values
+ * out of range are rejected with an {@link InvalidConfigException} telling the line, column and
+ * JSON path of the offending value. A JSON null is the same as leaving the key out.
+ *
+ * <p>Files, durations and time zones are read with the same {@link FileAdapter}, {@link
+ * DurationAdapter} and {@link ZoneIdAdapter} as before.
+ */
+public final class ConfigParser {
+  private static final FileAdapter FILE_ADAPTER = new FileAdapter();
+  private static final DurationAdapter DURATION_ADAPTER = new DurationAdapter();
+  private static final ZoneIdAdapter ZONE_ID_ADAPTER = new ZoneIdAdapter();
+
+  /** Not instantiable. */
+  private ConfigParser() {}
+
+  /**
+   * Reads a configuration object.
+   *
+   * @param in The JSON source. It is not closed.
+   * @return The configuration.
+   * @throws InvalidConfigException if a key or a value is invalid.
+   * @throws IOException if the JSON is malformed or cannot be read.
+   */
+  public static Config parse(Reader in) throws IOException {
+    JsonReader reader = new JsonReader(in);
+    Config config = readConfig(reader);
+    expectEnd(reader);
+    return config;
+  }
+
+  /**
+   * Reads an array of configuration objects, as in a tenants file.
+   *
+   * @param in The JSON source. It is not closed.
+   * @return The configurations.
+   * @throws InvalidConfigException if a key or a value is invalid.
+   * @throws IOException if the JSON is malformed or cannot be read.
+   */
+  public static List<Config> parseList(Reader in) throws IOException {
+    JsonReader reader = new JsonReader(in);
+    expect(reader, JsonToken.BEGIN_ARRAY, "an array of configuration objects");
+
+    List<Config> configs = new ArrayList<>();
+    reader.beginArray();
+    while (reader.hasNext()) {
+      configs.add(readConfig(reader));
+    }
+    reader.endArray();
+
+    expectEnd(reader);
+    return configs;
+  }
+
+  /**
+   * Reads one configuration object.
+   *
+   * @param reader The reader, positioned at the object.
+   * @return The configuration.
+   * @throws IOException if the object is malformed or invalid.
+   */
+  private static Config readConfig(JsonReader reader) throws IOException {
+    expect(reader, JsonToken.BEGIN_OBJECT, "a configuration object");
+    Config.Builder builder = Config.builder();
+    Set<String> keys = new HashSet<>();
+
+    reader.beginObject();
+    while (reader.hasNext()) {
+      String key = readKey(reader, keys);
+      if (reader.peek() == JsonToken.NULL) {
+        reader.nextNull();
+        continue;
+      }
+
+      switch (key) {
+        case "site" -> builder.site(readString(reader));
+        case "zone" -> builder.zone(readWith(reader, ZONE_ID_ADAPTER));
+        case "soundSource" -> builder.soundSource(readWith(reader, FILE_ADAPTER));
+        case "volume" -> builder.volume((float) readNumber(reader, 0.0, 1.0));
+        case "chimeGap" -> builder.chimeGap(readDuration(reader, true));
+        case "fadeIn" -> builder.fadeIn(readDuration(reader, true));
+        case "fadeOut" -> builder.fadeOut(readDuration(reader, true));
+        case "warmLine" -> builder.warmLine(readBoolean(reader));
+        case "mixer" -> builder.mixer(readBoolean(reader));
+        case "outputSampleRate" ->
+            builder.outputSampleRate((int) readInteger(reader, 8000, 384000));
+        case "precisionMode" -> builder.precisionMode(readBoolean(reader));
+        case "precisionGuard" -> builder.precisionGuard(readDuration(reader, false));
+        case "syncGroup" -> builder.syncGroup(readSyncGroup(reader));
+        case "syncInterface" -> builder.syncInterface(readString(reader));
+        case "metricsAddress" -> builder.metricsAddress(readMetricsAddress(reader));
+        case "rules" -> builder.rules(readRules(reader));
+        default -> throw invalid(reader, "Unknown configuration key \"" + key + "\"");
+      }
+    }
+    reader.endObject();
+
+    return builder.build();
+  }
+
+  /**
+   * Reads the list of chime rules.
+   *
+   * @param reader The reader, positioned at the array.
+   * @return The rules.
+   * @throws IOException if the array is malformed or a rule is invalid.
+   */
+  private static List<RuleConfig> readRules(JsonReader reader) throws IOException {
+    expect(reader, JsonToken.BEGIN_ARRAY, "an array of rules");
+    List<RuleConfig> rules = new ArrayList<>();
+
+    reader.beginArray();
+    while (reader.hasNext()) {
+      expect(reader, JsonToken.BEGIN_OBJECT, "a rule object");
+      String ruleLocation = location(reader);
+      String cron = null;
+      Integer times = null;
+      Set<String> keys = new HashSet<>();
+
+      reader.beginObject();
+      while (reader.hasNext()) {
+        String key = readKey(reader, keys);
+        if (reader.peek() == JsonToken.NULL) {
+          reader.nextNull();
+          continue;
+        }
+
+        switch (key) {
+          case "cron" -> cron = readCron(reader);
+          case "times" -> times = (int) readInteger(reader, 1, ChimeRule.MAX_TIMES);
+          default -> throw invalid(reader, "Unknown rule key \"" + key + "\"");
+        }
+      }
+      reader.endObject();
+
+      if (cron == null) {
+        throw new InvalidConfigException("Rule without \"cron\" " + ruleLocation);
+      }
+      rules.add(new RuleConfig(cron, times));
+    }
+    reader.endArray();
+
+    return rules;
+  }
+
+  /**
+   * Reads a key of an object, rejecting duplicates, and moves to its value.
+   *
+   * @param reader The reader, positioned at the key.
+   * @param keys The keys already read in this object.
+   * @return The key.
+   * @throws IOException if the key was already read.
+   */
+  private static String readKey(JsonReader reader, Set<String> keys) throws IOException {
+    String key = reader.nextName();
+    if (!keys.add(key)) {
+      throw invalid(reader, "Duplicate key \"" + key + "\"");
+    }
+    return key;
+  }
+
+  /**
+   * Reads a string.
+   *
+   * @param reader The reader, positioned at the value.
+   * @return The string.
+   * @throws IOException if the value is not a string.
+   */
+  private static String readString(JsonReader reader) throws IOException {
+    expect(reader, JsonToken.STRING, "a string");
+    return reader.nextString();
+  }
+
+  /**
+   * Reads a boolean.
+   *
+   * @param reader The reader, positioned at the value.
+   * @return The boolean.
+   * @throws IOException if the value is not a boolean.
+   */
+  private static boolean readBoolean(JsonReader reader) throws IOException {
+    expect(reader, JsonToken.BOOLEAN, "true or false");
+    return reader.nextBoolean();
+  }
+
+  /**
+   * Reads a number within a range.
+   *
+   * @param reader The reader, positioned at the value.
+   * @param min The smallest allowed value.
+   * @param max The largest allowed value.
+   * @return The number.
+   * @throws IOException if the value is not a number or out of range.
+   */
+  private static double readNumber(JsonReader reader, double min, double max) throws IOException {
+    expect(reader, JsonToken.NUMBER, "a number");
+    String location = location(reader);
+    double value = reader.nextDouble();
+    if (!(value >= min && value <= max)) {
+      throw new InvalidConfigException(
+          "Expected a number from " + min + " to " + max + " but was " + value + " " + location);
+    }
+    return value;
+  }
+
+  /**
+   * Reads a whole number within a range.
+   *
+   * @param reader The reader, positioned at the value.
+   * @param min The smallest allowed value.
+   * @param max The largest allowed value.
+   * @return The number.
+   * @throws IOException if the value is not a whole number or out of range.
+   */
+  private static long readInteger(JsonReader reader, long min, long max) throws IOException {
+    expect(reader, JsonToken.NUMBER, "a whole number");
+    String location = location(reader);
+    double value = reader.nextDouble();
+    if (value != Math.rint(value) || value < min || value > max) {
+      throw new InvalidConfigException(
+          "Expected a whole number from "
+              + min
+              + " to "
+              + max
+              + " but was "
+              + value
+              + " "
+              + location);
+    }
+    return (long) value;
+  }
+
+  /**
+   * Reads an ISO 8601 duration.
+   *
+   * @param reader The reader, positioned at the value.
+   * @param allowZero Whether a zero duration is allowed. Negative durations never are.
+   * @return The duration.
+   * @throws IOException if the value is not a valid duration.
+   */
+  private static Duration readDuration(JsonReader reader, boolean allowZero) throws IOException {
+    String location = location(reader);
+    Duration duration = readWith(reader, DURATION_ADAPTER);
+    if (duration.isNegative() || (!allowZero && duration.isZero())) {
+      throw new InvalidConfigException(
+          "Expected a "
+              + (allowZero ? "non-negative" : "positive")
+              + " duration but was "
+              + duration
+              + " "
+              + location);
+    }
+    return duration;
+  }
+
+  /**
+   * Reads a cron expression and checks that it parses.
+   *
+   * @param reader The reader, positioned at the value.
+   * @return The expression as written.
+   * @throws IOException if the value is not a valid cron expression.
+   */
+  private static String readCron(JsonReader reader) throws IOException {
+    String location = location(reader);
+    String cron = readString(reader);
+    try {
+      CronExpression.parse(cron);
+    } catch (IllegalArgumentException e) {
+      throw new InvalidConfigException(e.getMessage() + " " + location, e);
+    }
+    return cron;
+  }
+
+  /**
+   * Reads a multicast group and checks that it parses.
+   *
+   * @param reader The reader, positioned at the value.
+   * @return The group as written.
+   * @throws IOException if the value is not a multicast address and a port.
+   */
+  private static String readSyncGroup(JsonReader reader) throws IOException {
+    String location = location(reader);
+    String group = readString(reader);
+    try {
+      ClockSync.parseGroup(group);
+    } catch (IllegalArgumentException e) {
+      throw new InvalidConfigException(e.getMessage() + " " + location, e);
+    }
+    return group;
+  }
+
+  /**
+   * Reads the address of the metrics endpoint and checks that it parses.
+   *
+   * @param reader The reader, positioned at the value.
+   * @return The address as written.
+   * @throws IOException if the value is not a host and a port.
+   */
+  private static String readMetricsAddress(JsonReader reader) throws IOException {
+    String location = location(reader);
+    String address = readString(reader);
+    try {
+      MetricsServer.parseAddress(address);
+    } catch (IllegalArgumentException e) {
+      throw new InvalidConfigException(e.getMessage() + " " + location, e);
+    }
+    return address;
+  }
+
+  /**
+   * Reads a string value through one of the type adapters.
+   *
+   * @param <T> The type of the value.
+   * @param reader The reader, positioned at the value.
+   * @param adapter The adapter.
+   * @return The value.
+   * @throws IOException if the value is not a string or the adapter rejects it.
+   */
+  private static <T> T readWith(JsonReader reader, TypeAdapter<T> adapter) throws IOException {
+    expect(reader, JsonToken.STRING, "a string");
+    String location = location(reader);
+    try {
+      return adapter.read(reader);
+    } catch (IOException e) {
+      throw new InvalidConfigException(e.getMessage() + " " + location, e);
+    }
+  }
+
+  /**
+   * Checks the type of the next token.
+   *
+   * @param reader The reader.
+   * @param token The expected token.
+   * @param description What is expected, for the error message.
+   * @throws IOException if the next token is of another type.
+   */
+  private static void expect(JsonReader reader, JsonToken token, String description)
+      throws IOException {
+    JsonToken actual = reader.peek();
+    if (actual != token) {
+      throw invalid(reader, "Expected " + description + " but was " + actual);
+    }
+  }
+
+  /**
+   * Checks that nothing follows the top-level value.
+   *
+   * @param reader The reader.
+   * @throws IOException if there is more content.
+   */
+  private static void expectEnd(JsonReader reader) throws IOException {
+    if (reader.peek() != JsonToken.END_DOCUMENT) {
+      throw invalid(reader, "Unexpected content after the configuration");
+    }
+  }
+
+  /**
+   * Creates an exception for the current position of the reader.
+   *
+   * @param reader The reader.
+   * @param message What is wrong.
+   * @return The exception.
+   * @throws IOException if the reader fails while finding the position.
+   */
+  private static InvalidConfigException invalid(JsonReader reader, String message)
+      throws IOException {
+    return new InvalidConfigException(message + " " + location(reader));
+  }
+
+  /**
+   * Describes the position of the next token, e.g. "at line 3 column 13 path $.volume".
+   *
+   * @param reader The reader.
+   * @return The position.
+   * @throws IOException if the reader fails while skipping to the next token.
+   */
+  private static String location(JsonReader reader) throws IOException {
+    // Skips whitespace and separators, so the position is the start of the next token
+    reader.peek();
+
+    // JsonReader only exposes its line and column through toString()
+    String description = reader.toString();
+    int at = description.indexOf(" at line ");
+    return at >= 0 ? description.substring(at + 1) : "at path " + reader.getPath();
+  }
+}
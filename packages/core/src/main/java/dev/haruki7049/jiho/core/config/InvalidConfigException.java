@@ -0,0 +1,28 @@
+package dev.haruki7049.jiho.core.config;
+
+import java.io.IOException;
+
+/**
+ * Exception thrown when a configuration file holds an unknown key or an invalid value. The message
+ * tells where in the file the problem is.
+ */
+public class InvalidConfigException extends IOException {
+  /**
+   * Constructs the exception with a specific message.
+   *
+   * @param message The detail message, including the position in the file.
+   */
+  public InvalidConfigException(String message) {
+    super(message);
+  }
+
+  /**
+   * Constructs the exception with a specific message and cause.
+   *
+   * @param message The detail message, including the position in the file.
+   * @param cause The underlying error.
+   */
+  public InvalidConfigException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
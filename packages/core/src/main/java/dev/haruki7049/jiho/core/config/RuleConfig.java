@@ -0,0 +1,77 @@
+package dev.haruki7049.jiho.core.config;
+
+import com.google.gson.annotations.Expose;
+import com.google.gson.annotations.SerializedName;
+import java.util.Objects;
+
+/** Represents one chime rule in the configuration, loaded from JSON. */
+public class RuleConfig {
+  /**
+   * When the rule fires, as a five-field cron expression (e.g., "0,30 9-17 * * MON-FRI"). Exposed
+   * to Gson for serialization/deserialization.
+   */
+  @SerializedName("cron")
+  @Expose
+  private final String cron;
+
+  /**
+   * How many times to chime, or null to chime the 12-hour clock hour. Exposed to Gson for
+   * serialization/deserialization.
+   */
+  @SerializedName("times")
+  @Expose
+  private final Integer times;
+
+  /**
+   * Constructs a new RuleConfig instance.
+   *
+   * @param cron The cron expression.
+   * @param times How many times to chime, or null to chime the hour.
+   */
+  public RuleConfig(String cron, Integer times) {
+    this.cron = cron;
+    this.times = times;
+  }
+
+  /**
+   * Gets the cron expression.
+   *
+   * @return The cron expression.
+   */
+  public String getCron() {
+    return this.cron;
+  }
+
+  /**
+   * Gets how many times to chime.
+   *
+   * @return The number of times, or null to chime the hour.
+   */
+  public Integer getTimes() {
+    return this.times;
+  }
+
+  /**
+   * Compares two rules by their settings, so a reloaded configuration can tell whether its rules
+   * changed.
+   *
+   * @param o The other object.
+   * @return true if the other object is a rule with the same settings.
+   */
+  @Override
+  public boolean equals(Object o) {
+    return o instanceof RuleConfig other
+        && Objects.equals(this.cron, other.cron)
+        && Objects.equals(this.times, other.times);
+  }
+
+  /**
+   * Computes a hash code consistent with {@link #equals}.
+   *
+   * @return The hash code.
+   */
+  @Override
+  public int hashCode() {
+    return Objects.hash(this.cron, this.times);
+  }
+}
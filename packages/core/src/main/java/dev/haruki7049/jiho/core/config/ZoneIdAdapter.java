@@ -0,0 +1,54 @@
+package dev.haruki7049.jiho.core.config;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.ZoneId;
+
+/**
+ * TypeAdapter for java.time.ZoneId. Serializes ZoneId to its ID (e.g., "Asia/Tokyo"). Deserializes
+ * the ID back to a ZoneId using ZoneId.of().
+ */
+public class ZoneIdAdapter extends TypeAdapter<ZoneId> {
+  /**
+   * Writes a ZoneId object as a JSON string.
+   *
+   * @param writer the JSON writer
+   * @param value the ZoneId object to write
+   * @throws IOException if an error occurs writing JSON
+   */
+  @Override
+  public void write(JsonWriter writer, ZoneId value) throws IOException {
+    if (value == null) {
+      writer.nullValue();
+    } else {
+      writer.value(value.getId());
+    }
+  }
+
+  /**
+   * Reads a JSON string and converts it to a ZoneId object.
+   *
+   * @param reader the JSON reader
+   * @return the deserialized ZoneId object
+   * @throws IOException if an error occurs reading JSON
+   */
+  @Override
+  public ZoneId read(JsonReader reader) throws IOException {
+    if (reader.peek() == JsonToken.NULL) {
+      // Read and return null if the JSON value is null
+      reader.nextNull();
+      return null;
+    }
+
+    String zoneString = reader.nextString();
+    try {
+      return ZoneId.of(zoneString);
+    } catch (DateTimeException e) {
+      throw new IOException("Failed to parse ZoneId: " + zoneString, e);
+    }
+  }
+}
@@ -1,20 +1,28 @@
 package dev.haruki7049.jiho.core.impl;
 
 import dev.haruki7049.jiho.core.AudioPlayer;
+import dev.haruki7049.jiho.core.AudioSink;
+import dev.haruki7049.jiho.core.PlaybackStats;
+import dev.haruki7049.jiho.core.jfr.DecodeEvent;
+import dev.haruki7049.jiho.core.jfr.LineOpenEvent;
+import dev.haruki7049.jiho.core.jfr.RepetitionEvent;
+import dev.haruki7049.jiho.core.metrics.ChimeMetrics;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.time.Duration;
-import java.time.temporal.ChronoUnit; // Import for microseconds
+import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.logging.Logger; // Import Logger
 import javax.sound.sampled.AudioFormat;
-import javax.sound.sampled.AudioInputStream;
-import javax.sound.sampled.AudioSystem;
-import javax.sound.sampled.Clip;
-import javax.sound.sampled.DataLine;
 import javax.sound.sampled.FloatControl; // Import
+import javax.sound.sampled.Line;
 import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
 import javax.sound.sampled.UnsupportedAudioFileException;
 
 /**
@@ -23,8 +31,40 @@ import javax.sound.sampled.UnsupportedAudioFileException;
  */
 public class AudioManager implements AudioPlayer {
   private URL sourceUrl;
+  private final AudioSink sink; // Where the lines come from
+  private final PcmCache pcmCache; // Decoded PCM, shared by play() and getAudioDuration()
+  private final Duration fadeIn; // null for none
+  private final Duration fadeOut; // null for none
   private static final Logger logger = Logger.getLogger("jiho.audio"); // Add logger
 
+  /** Sources larger than this (in encoded bytes) are streamed instead of decoded into memory. */
+  public static final long DEFAULT_STREAMING_THRESHOLD = 8L * 1024 * 1024; // 8 MiB
+
+  // Streaming fallback for large sources, so memory does not grow with the file size
+  private final StreamingAudioPlayer streamingPlayer;
+  private final long streamingThreshold;
+  private volatile boolean lastPlayStreamed;
+  private Boolean streamed; // Decided from the source size by prefetch(), null until first needed
+
+  // Header-only duration probe, so that startup does not touch the audio payload
+  private final ProbeCache probeCache;
+  private ProbedAudio probedResource; // Probe result of a non-file source, looked up once
+
+  // Line opened by prepare() and kept open between chimes
+  private SourceDataLine warmLine;
+
+  // Line of the play() call in progress, read by abort() from another thread
+  private volatile SourceDataLine playingLine;
+
+  // Follows the playing line for the onset and underruns, and collects the results
+  private final LineMonitor monitor = new LineMonitor();
+  private final PlaybackStats stats = new PlaybackStats();
+  private final ChimeMetrics metrics;
+
+  // Onset of the last play() call
+  private volatile long lastOnsetNanos;
+  private volatile boolean hasOnset;
+
   /**
    * Constructs an AudioManager with the audio source file.
    *
@@ -32,7 +72,7 @@ public class AudioManager implements AudioPlayer {
    * @throws MalformedURLException if the file path cannot be converted to a URL.
    */
   public AudioManager(File source) throws MalformedURLException {
-    this.sourceUrl = source.toURI().toURL();
+    this(source.toURI().toURL());
   }
 
   /**
@@ -41,15 +81,56 @@ public class AudioManager implements AudioPlayer {
    * @param sourceUrl The URL to the audio resource.
    */
   public AudioManager(URL sourceUrl) {
-    this.sourceUrl = sourceUrl;
+    this(builder(sourceUrl));
   }
 
   /**
-   * Plays the sound using Java Sound API. Ensures that both AudioInputStream and Clip resources are
-   * closed.
+   * Constructs an AudioManager from a builder.
+   *
+   * @param builder The builder holding the settings.
+   */
+  private AudioManager(Builder builder) {
+    this.sourceUrl = builder.sourceUrl;
+    this.sink = builder.sink;
+    this.pcmCache = builder.pcmCache != null ? builder.pcmCache : new PcmCache(this.sourceUrl);
+    this.metrics = builder.metrics != null ? builder.metrics : new ChimeMetrics();
+    this.streamingPlayer =
+        new StreamingAudioPlayer(this.pcmCache, this.sink, this.stats, this.metrics);
+    this.streamingThreshold = builder.streamingThreshold;
+    this.probeCache = builder.probeCache;
+    this.fadeIn = builder.fadeIn;
+    this.fadeOut = builder.fadeOut;
+  }
+
+  /**
+   * Creates a builder for an AudioManager playing the given source. Unless configured otherwise,
+   * it plays through Java Sound, uses the default streaming threshold and keeps probe results in
+   * memory only.
+   *
+   * @param sourceUrl The URL to the audio resource.
+   * @return A new builder.
+   */
+  public static Builder builder(URL sourceUrl) {
+    return new Builder(sourceUrl);
+  }
+
+  /**
+   * Plays the sound using Java Sound API. The whole sequence of repetitions is pre-rendered into
+   * one PCM buffer, with repetitions exactly {@code duration} apart, and streamed through a
+   * SourceDataLine in one continuous write. If a warm line was opened by {@link #prepare}, it is
+   * reused and only needs to be started; otherwise a new line is opened and closed afterwards.
+   * Sources above the streaming threshold are handed to a {@link StreamingAudioPlayer} instead.
+   *
+   * <p>The volume and the fades are applied to the samples by the {@link GainStage} when the
+   * sequence is rendered. Only formats the gain stage cannot process use the gain control of the
+   * line.
+   *
+   * <p>The time spent getting the decoded sound and the rendered sequence, and opening the line,
+   * is recorded in the {@link ChimeMetrics}. Both, and the writing of every repetition, are also
+   * Flight Recorder events.
    *
    * @param times The number of times to play.
-   * @param duration The duration to wait after starting playback.
+   * @param duration The time from the start of one repetition to the start of the next.
    * @param volume The playback volume (0.0 to 1.0), or null for default.
    * @throws UnsupportedAudioFileException if the audio file format is not supported.
    * @throws IOException if an I/O error occurs.
@@ -57,56 +138,340 @@ public class AudioManager implements AudioPlayer {
    * @throws InterruptedException if the thread is interrupted.
    */
   @Override
-  public void play(int times, Duration duration, Float volume)
+  public synchronized void play(int times, Duration duration, Float volume)
       throws UnsupportedAudioFileException,
           IOException,
           LineUnavailableException,
           InterruptedException {
 
-    // Use try-with-resources to ensure AudioInputStream is closed
-    try (AudioInputStream audioStream = AudioSystem.getAudioInputStream(this.sourceUrl)) {
-      Clip line = null;
-      try {
-        AudioFormat format = audioStream.getFormat();
-        DataLine.Info info = new DataLine.Info(Clip.class, format);
-        line = (Clip) AudioSystem.getLine(info);
-
-        // Open the clip with the audio stream.
-        // The stream is now owned by the clip.
-        line.open(audioStream);
-
-        // Set volume if specified
-        if (volume != null) {
-          setVolume(line, volume);
-        }
+    this.lastPlayStreamed = this.isStreamed();
+    if (this.lastPlayStreamed) {
+      this.closeWarmLine();
+      this.streamingPlayer.play(times, duration, volume);
+      return;
+    }
 
-        for (int i = 0; i < times; i++) {
-          // Reset play position to the beginning
-          line.setFramePosition(0);
+    final long decodeStartNanos = System.nanoTime();
+    DecodeEvent decodeEvent = new DecodeEvent();
+    decodeEvent.begin();
+    DecodedAudio audio = this.pcmCache.get();
+    Float lineVolume = lineVolume(audio.getFormat(), volume);
+    ChimeRenderer renderer =
+        this.pcmCache.getRenderer(this, audio, duration, this.envelope(audio.getFormat(), volume));
+    ByteBuffer sequence = renderer.render(times);
+    this.metrics.recordDecode(System.nanoTime() - decodeStartNanos);
+    if (decodeEvent.shouldCommit()) {
+      decodeEvent.source = this.sourceUrl.toString();
+      decodeEvent.format = audio.getFormat().toString();
+      decodeEvent.frames = audio.getFrameLength();
+      decodeEvent.sequenceSize = sequence.remaining();
+      decodeEvent.times = times;
+      decodeEvent.commit();
+    }
 
-          line.start();
-          // Wait for the specified duration
-          Thread.sleep(duration);
-        }
-      } finally {
-        // Ensure clip is closed (which also releases audio stream resources)
-        if (line != null) {
-          line.close();
+    // Re-prime the warm line if the source format changed since it was opened
+    if (this.warmLine != null && !this.warmLine.getFormat().matches(audio.getFormat())) {
+      this.prepare(volume);
+    }
+
+    final boolean warm = this.warmLine != null;
+    final SourceDataLine line =
+        warm ? this.warmLine : this.openLine(audio.getFormat(), lineVolume, false);
+
+    this.playingLine = line;
+    try {
+      if (Thread.interrupted()) {
+        // Aborted before the line was published
+        throw new InterruptedException();
+      }
+
+      if (warm && lineVolume != null) {
+        setVolume(line, lineVolume);
+      }
+
+      this.monitor.begin();
+      line.start();
+      final long writeStartNanos = System.nanoTime();
+
+      // Queue the whole sequence, then wait until it has been played
+      this.writeSequence(line, sequence, times, renderer.getPeriodFrames());
+      this.monitor.endWrites();
+      line.drain();
+
+      this.lastOnsetNanos = this.monitor.end(writeStartNanos, this.stats);
+      this.hasOnset = true;
+
+      if (Thread.interrupted()) {
+        throw new InterruptedException();
+      }
+    } finally {
+      this.playingLine = null;
+      if (warm) {
+        // Keep the warm line open for the next chime
+        line.stop();
+        line.flush();
+      } else {
+        // Ensure the line is closed
+        line.close();
+      }
+    }
+  }
+
+  /**
+   * Checks whether the source changed and whether it is streamed, and decodes and renders it ahead
+   * of the next {@link #play} call, so that the call neither reads file attributes nor decodes.
+   *
+   * @param times The number of times the sound will be played.
+   * @param duration The time from the start of one repetition to the start of the next.
+   * @param volume The playback volume (0.0 to 1.0), or null for default.
+   * @throws UnsupportedAudioFileException if the audio file format is not supported.
+   * @throws IOException if an I/O error occurs.
+   */
+  @Override
+  public synchronized void prefetch(int times, Duration duration, Float volume)
+      throws UnsupportedAudioFileException, IOException {
+    this.pcmCache.refresh();
+    this.streamed = this.pcmCache.getSourceSize() > this.streamingThreshold;
+    if (this.streamed) {
+      return;
+    }
+
+    DecodedAudio audio = this.pcmCache.get();
+    GainEnvelope envelope = this.envelope(audio.getFormat(), volume);
+    this.pcmCache.getRenderer(this, audio, duration, envelope).render(times);
+  }
+
+  /**
+   * Opens a SourceDataLine for the cached audio and keeps it open between chimes, so that the next
+   * {@link #play} call only needs to start it.
+   *
+   * @param volume The playback volume (0.0 to 1.0), or null for default.
+   * @throws UnsupportedAudioFileException if the audio file format is not supported.
+   * @throws IOException if an I/O error occurs.
+   * @throws LineUnavailableException if a line cannot be opened.
+   */
+  @Override
+  public synchronized void prepare(Float volume)
+      throws UnsupportedAudioFileException, IOException, LineUnavailableException {
+    if (this.isStreamed()) {
+      // Large sources are streamed and their format is only known once the stream is open
+      return;
+    }
+
+    DecodedAudio audio = this.pcmCache.get();
+    Float lineVolume = lineVolume(audio.getFormat(), volume);
+
+    if (this.warmLine != null && this.warmLine.getFormat().matches(audio.getFormat())) {
+      // Already primed with the current format, only the volume may have changed
+      if (lineVolume != null) {
+        setVolume(this.warmLine, lineVolume);
+      }
+      return;
+    }
+
+    this.closeWarmLine();
+    this.warmLine = this.openLine(audio.getFormat(), lineVolume, true);
+    logger.fine("Warm line opened: " + audio.getFormat());
+  }
+
+  /**
+   * Stops the line that is playing, so that the blocked write and drain return at once. Large
+   * sources are stopped through the {@link StreamingAudioPlayer}.
+   */
+  @Override
+  public void abort() {
+    this.monitor.cancel();
+    SourceDataLine line = this.playingLine;
+    if (line != null) {
+      line.stop();
+      line.flush();
+    }
+    this.streamingPlayer.abort();
+  }
+
+  /**
+   * Closes the warm line, if any, and lets the cache drop the rendered sequence unless another
+   * player uses it.
+   */
+  @Override
+  public synchronized void release() {
+    this.closeWarmLine();
+    this.pcmCache.releaseRenderer(this);
+  }
+
+  /** Closes the warm line, if any. */
+  private void closeWarmLine() {
+    if (this.warmLine != null) {
+      this.warmLine.close();
+      this.warmLine = null;
+    }
+  }
+
+  /**
+   * Gets the time at which the first frame of the last play() call started playing. This is the
+   * time of the line's START event, or the time the write started if the line sent no event.
+   *
+   * @return The {@link System#nanoTime()} value of the last onset, or empty if nothing was played.
+   */
+  @Override
+  public OptionalLong getLastOnsetNanoTime() {
+    if (this.lastPlayStreamed) {
+      return this.streamingPlayer.getLastOnsetNanoTime();
+    }
+    return this.hasOnset ? OptionalLong.of(this.lastOnsetNanos) : OptionalLong.empty();
+  }
+
+  /**
+   * Gets the statistics of the playbacks of this manager. Large sources that are streamed are
+   * recorded in the same statistics.
+   *
+   * @return The playback statistics.
+   */
+  @Override
+  public Optional<PlaybackStats> getPlaybackStats() {
+    return Optional.of(this.stats);
+  }
+
+  /**
+   * Decides whether the source is large enough to be streamed instead of decoded into memory. The
+   * decision of the last {@link #prefetch} is used, the size is only read if there was none.
+   *
+   * @return true if the source is streamed.
+   * @throws IOException if the source size cannot be read.
+   */
+  private synchronized boolean isStreamed() throws IOException {
+    if (this.streamed == null) {
+      this.streamed = this.pcmCache.getSourceSize() > this.streamingThreshold;
+    }
+    return this.streamed;
+  }
+
+  /**
+   * Gets the gain envelope the sequence is rendered with.
+   *
+   * @param format The PCM format of the decoded audio.
+   * @param volume The playback volume (0.0 to 1.0), or null for default.
+   * @return The volume and the fades, or unity if the gain stage cannot process the format.
+   */
+  private GainEnvelope envelope(AudioFormat format, Float volume) {
+    return GainStage.supports(format)
+        ? GainEnvelope.of(volume, this.fadeIn, this.fadeOut)
+        : GainEnvelope.UNITY;
+  }
+
+  /**
+   * Opens a SourceDataLine for the given format.
+   *
+   * @param format The PCM format of the data to be written.
+   * @param volume The playback volume (0.0 to 1.0), or null for default.
+   * @param warm Whether the line is kept open between chimes.
+   * @return The opened line.
+   * @throws LineUnavailableException if a line cannot be opened.
+   */
+  private SourceDataLine openLine(AudioFormat format, Float volume, boolean warm)
+      throws LineUnavailableException {
+    long startNanos = System.nanoTime();
+    LineOpenEvent event = new LineOpenEvent();
+    event.begin();
+    SourceDataLine line = this.sink.getLine(format);
+
+    // Record when the line actually starts running, and whether it stalls
+    line.addLineListener(this.monitor);
+
+    line.open(format);
+    this.metrics.recordLineOpen(System.nanoTime() - startNanos);
+    if (event.shouldCommit()) {
+      event.sink = this.sink.getClass().getSimpleName();
+      event.format = format.toString();
+      event.bufferSize = line.getBufferSize();
+      event.warm = warm;
+      event.commit();
+    }
+
+    // Set volume if specified
+    if (volume != null) {
+      setVolume(line, volume);
+    }
+
+    return line;
+  }
+
+  /**
+   * Writes the sequence to the line in chunks of half the line's buffer, so that the line is
+   * checked for underruns between chunks. A Flight Recorder event is committed once all frames of
+   * a repetition have been written.
+   *
+   * @param line The started line.
+   * @param sequence The PCM data to write, from offset 0 of its backing array to its limit.
+   * @param times The number of repetitions in the sequence.
+   * @param periodFrames The frames from the start of one repetition to the start of the next.
+   * @throws InterruptedException if the thread is interrupted.
+   */
+  private void writeSequence(
+      SourceDataLine line, ByteBuffer sequence, int times, long periodFrames)
+      throws InterruptedException {
+    final byte[] data = sequence.array();
+    final int length = sequence.limit();
+    int frameSize = line.getFormat().getFrameSize();
+    long periodBytes = periodFrames * frameSize;
+    int chunk = line.getBufferSize() / 2;
+    chunk -= chunk % frameSize;
+    if (chunk <= 0) {
+      // No usable buffer size, queue everything at once
+      chunk = length;
+    }
+
+    int offset = 0;
+    int repetition = 0;
+    RepetitionEvent event = new RepetitionEvent();
+    event.begin();
+    while (offset < length) {
+      if (Thread.interrupted()) {
+        throw new InterruptedException();
+      }
+      this.monitor.beforeWrite(line);
+      offset += line.write(data, offset, Math.min(chunk, length - offset));
+
+      // Commit the repetitions written completely, the last one ends with the sequence
+      while (repetition < times
+          && offset >= Math.min((repetition + 1) * periodBytes, length)) {
+        if (event.shouldCommit()) {
+          long end = Math.min((repetition + 1) * periodBytes, length);
+          event.repetition = repetition + 1;
+          event.times = times;
+          event.frames = (end - repetition * periodBytes) / frameSize;
+          event.format = line.getFormat().toString();
+          event.underruns = this.monitor.getUnderruns();
+          event.commit();
         }
+        repetition++;
+        event = new RepetitionEvent();
+        event.begin();
       }
     }
   }
 
   /**
-   * Sets the volume of the Clip using FloatControl (Master Gain).
+   * Gets the volume to set on the gain control of the line.
+   *
+   * @param format The PCM format of the data written to the line.
+   * @param volume The playback volume (0.0 to 1.0), or null for default.
+   * @return The volume, or null if the gain stage applies it to the samples instead.
+   */
+  private static Float lineVolume(AudioFormat format, Float volume) {
+    return GainStage.supports(format) ? null : volume;
+  }
+
+  /**
+   * Sets the volume of the line using FloatControl (Master Gain).
    *
-   * @param clip The clip to modify.
+   * @param line The line to modify.
    * @param volume The target volume (linear scale, 0.0 to 1.0).
    */
-  private void setVolume(Clip clip, float volume) {
+  static void setVolume(Line line, float volume) {
     // Check if MASTER_GAIN control is supported
-    if (clip.isControlSupported(FloatControl.Type.MASTER_GAIN)) {
-      FloatControl gainControl = (FloatControl) clip.getControl(FloatControl.Type.MASTER_GAIN);
+    if (line.isControlSupported(FloatControl.Type.MASTER_GAIN)) {
+      FloatControl gainControl = (FloatControl) line.getControl(FloatControl.Type.MASTER_GAIN);
 
       // Clamp volume between 0.0 and 1.0
       float clampedVolume = Math.max(0.0f, Math.min(1.0f, volume));
@@ -134,8 +499,10 @@ public class AudioManager implements AudioPlayer {
   }
 
   /**
-   * Gets the actual playback duration (length) of the loaded audio source. This opens a new stream
-   * to calculate the length.
+   * Gets the actual playback duration (length) of the loaded audio source. The length is read from
+   * the WAV/AIFF/AU header (through the probe cache), so the audio payload is not touched. Other
+   * formats are served from the decode-once cache, or measured without decoding them into memory
+   * if they are streamed.
    *
    * @return The Duration of the audio clip.
    * @throws UnsupportedAudioFileException if the audio file format is not supported.
@@ -143,16 +510,149 @@ public class AudioManager implements AudioPlayer {
    */
   @Override
   public Duration getAudioDuration() throws UnsupportedAudioFileException, IOException {
-    // Open a new stream just to get the format and frame length
-    // Use try-with-resources to ensure it's closed immediately after
-    try (AudioInputStream audioStream = AudioSystem.getAudioInputStream(this.sourceUrl)) {
-      AudioFormat format = audioStream.getFormat();
-      long frameLength = audioStream.getFrameLength();
+    Duration probed = this.probeDuration();
+    if (probed != null) {
+      return probed;
+    }
+
+    if (this.isStreamed()) {
+      return this.streamingPlayer.getAudioDuration();
+    }
+    return this.pcmCache.get().getDuration();
+  }
+
+  /**
+   * Reads the duration from the audio file header.
+   *
+   * @return The duration, or null if the header could not be probed.
+   */
+  private synchronized Duration probeDuration() {
+    try {
+      Path path = this.pcmCache.getSourcePath();
+      ProbedAudio probed;
+      if (path != null) {
+        probed = this.probeCache.probe(path);
+      } else {
+        if (this.probedResource == null) {
+          try (InputStream in = this.sourceUrl.openStream()) {
+            this.probedResource = AudioProbe.probe(in, this.pcmCache.getSourceSize());
+          }
+        }
+        probed = this.probedResource;
+      }
+      return probed != null ? probed.getDuration() : null;
+    } catch (IOException e) {
+      logger.fine("Header probe failed, falling back to Java Sound: " + e);
+      return null;
+    }
+  }
+
+  /** Builder for {@link AudioManager}. */
+  public static class Builder {
+    private final URL sourceUrl;
+    private long streamingThreshold = DEFAULT_STREAMING_THRESHOLD;
+    private ProbeCache probeCache = new ProbeCache(null);
+    private AudioSink sink = new JavaSoundSink();
+    private PcmCache pcmCache;
+    private Duration fadeIn;
+    private Duration fadeOut;
+    private ChimeMetrics metrics;
+
+    /**
+     * Constructs a Builder.
+     *
+     * @param sourceUrl The URL to the audio resource.
+     */
+    private Builder(URL sourceUrl) {
+      this.sourceUrl = sourceUrl;
+    }
+
+    /**
+     * Sets the size above which sources are streamed in chunks instead of decoded into memory.
+     *
+     * @param streamingThreshold The threshold in encoded bytes.
+     * @return This builder.
+     */
+    public Builder streamingThreshold(long streamingThreshold) {
+      this.streamingThreshold = streamingThreshold;
+      return this;
+    }
+
+    /**
+     * Sets the cache of header-only probe results used by {@link #getAudioDuration()}.
+     *
+     * @param probeCache The probe cache.
+     * @return This builder.
+     */
+    public Builder probeCache(ProbeCache probeCache) {
+      this.probeCache = probeCache;
+      return this;
+    }
+
+    /**
+     * Sets the sink that provides the output lines.
+     *
+     * @param sink The audio sink.
+     * @return This builder.
+     */
+    public Builder sink(AudioSink sink) {
+      this.sink = sink;
+      return this;
+    }
+
+    /**
+     * Sets the cache of the decoded source, so that several managers playing the same source share
+     * one decoded copy and its rendered sequences. By default each manager has its own cache.
+     *
+     * @param pcmCache The cache. Its source must be the source of this builder.
+     * @return This builder.
+     */
+    public Builder pcmCache(PcmCache pcmCache) {
+      this.pcmCache = pcmCache;
+      return this;
+    }
 
-      // Calculate duration in microseconds
-      long microseconds = (long) ((frameLength / format.getFrameRate()) * 1000000);
+    /**
+     * Sets the length of the fade-in at the start of every repetition of the sound.
+     *
+     * @param fadeIn The fade-in, or null for none.
+     * @return This builder.
+     */
+    public Builder fadeIn(Duration fadeIn) {
+      this.fadeIn = fadeIn;
+      return this;
+    }
+
+    /**
+     * Sets the length of the fade-out at the end of every repetition of the sound.
+     *
+     * @param fadeOut The fade-out, or null for none.
+     * @return This builder.
+     */
+    public Builder fadeOut(Duration fadeOut) {
+      this.fadeOut = fadeOut;
+      return this;
+    }
+
+    /**
+     * Sets the metrics the decode and line open times are recorded in. By default they are
+     * recorded in metrics of the manager's own, which are not exported.
+     *
+     * @param metrics The metrics, usually shared by every player of the process.
+     * @return This builder.
+     */
+    public Builder metrics(ChimeMetrics metrics) {
+      this.metrics = metrics;
+      return this;
+    }
 
-      return Duration.of(microseconds, ChronoUnit.MICROS);
+    /**
+     * Builds the AudioManager.
+     *
+     * @return A new AudioManager.
+     */
+    public AudioManager build() {
+      return new AudioManager(this);
     }
   }
 }
@@ -0,0 +1,393 @@
+package dev.haruki7049.jiho.core.impl;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+
+/**
+ * Header-only prober for WAV, AIFF/AIFC and AU files. It reads the chunk headers it needs and skips
+ * everything else, so the audio payload is never read. Unlike {@code
+ * AudioInputStream.getFrameLength()}, it also reports a sensible length for compressed WAV files
+ * (from the "fact" chunk or the byte rate).
+ */
+public final class AudioProbe {
+  private static final int WAVE_FORMAT_PCM = 0x0001;
+  private static final int WAVE_FORMAT_IEEE_FLOAT = 0x0003;
+  private static final int WAVE_FORMAT_ALAW = 0x0006;
+  private static final int WAVE_FORMAT_MULAW = 0x0007;
+  private static final int WAVE_FORMAT_EXTENSIBLE = 0xFFFE;
+
+  // Size marker used by streamed WAV and AU files whose length was not known when written
+  private static final long UNKNOWN_SIZE = 0xFFFFFFFFL;
+
+  private AudioProbe() {}
+
+  /**
+   * Probes a local file.
+   *
+   * @param path The file to probe.
+   * @return The probe result, or null if the file is not a WAV, AIFF or AU file.
+   * @throws IOException if the file cannot be read.
+   */
+  public static ProbedAudio probe(Path path) throws IOException {
+    try (InputStream in = Files.newInputStream(path)) {
+      return probe(in, Files.size(path));
+    }
+  }
+
+  /**
+   * Probes a stream positioned at the start of the file. Payload bytes are skipped, not read.
+   *
+   * @param in The stream. It is not closed.
+   * @param totalSize The size of the whole file, or -1 if unknown.
+   * @return The probe result, or null if the stream is not a WAV, AIFF or AU file.
+   * @throws IOException if the stream cannot be read.
+   */
+  public static ProbedAudio probe(InputStream in, long totalSize) throws IOException {
+    DataInputStream data = new DataInputStream(new BufferedInputStream(in, 512));
+    try {
+      byte[] magic = new byte[4];
+      data.readFully(magic);
+
+      switch (new String(magic, StandardCharsets.US_ASCII)) {
+        case "RIFF":
+          return probeWav(data, totalSize);
+        case "FORM":
+          return probeAiff(data);
+        case ".snd":
+          return probeAu(data, totalSize);
+        default:
+          return null;
+      }
+    } catch (EOFException e) {
+      // Truncated header
+      return null;
+    }
+  }
+
+  /**
+   * Probes the rest of a WAV file after the "RIFF" magic.
+   *
+   * @param in The stream.
+   * @param totalSize The size of the whole file, or -1 if unknown.
+   * @return The probe result, or null if it is not a WAV file.
+   * @throws IOException if the stream cannot be read.
+   */
+  private static ProbedAudio probeWav(DataInputStream in, long totalSize) throws IOException {
+    readUnsignedIntLe(in); // RIFF size
+    if (!"WAVE".equals(readFourCc(in))) {
+      return null;
+    }
+
+    long offset = 12;
+    int formatTag = -1;
+    int channels = 0;
+    long sampleRate = 0;
+    long byteRate = 0;
+    int blockAlign = 0;
+    int bitsPerSample = 0;
+    long factFrames = -1;
+
+    while (true) {
+      String id = readFourCc(in);
+      long size = readUnsignedIntLe(in);
+      offset += 8;
+
+      if ("fmt ".equals(id)) {
+        formatTag = readUnsignedShortLe(in);
+        channels = readUnsignedShortLe(in);
+        sampleRate = readUnsignedIntLe(in);
+        byteRate = readUnsignedIntLe(in);
+        blockAlign = readUnsignedShortLe(in);
+        bitsPerSample = readUnsignedShortLe(in);
+        long read = 16;
+        if (formatTag == WAVE_FORMAT_EXTENSIBLE && size >= 40) {
+          skipFully(in, 8); // cbSize, valid bits, channel mask
+          formatTag = readUnsignedShortLe(in); // first two bytes of the sub-format GUID
+          read += 10;
+        }
+        skipFully(in, size - read + (size & 1));
+      } else if ("fact".equals(id) && size >= 4) {
+        factFrames = readUnsignedIntLe(in);
+        skipFully(in, size - 4 + (size & 1));
+      } else if ("data".equals(id)) {
+        if (formatTag < 0) {
+          return null;
+        }
+        if ((size == UNKNOWN_SIZE || size == 0) && totalSize > offset) {
+          size = totalSize - offset;
+        }
+
+        long frames;
+        if (isLinear(formatTag) && blockAlign > 0) {
+          frames = size / blockAlign;
+        } else if (factFrames >= 0) {
+          frames = factFrames;
+        } else if (byteRate > 0) {
+          frames = (long) (size * (double) sampleRate / byteRate);
+        } else {
+          frames = -1;
+        }
+
+        // The payload itself is never read
+        return new ProbedAudio(
+            wavFormat(formatTag, sampleRate, bitsPerSample, channels, blockAlign), frames);
+      } else {
+        skipFully(in, size + (size & 1));
+      }
+      offset += size + (size & 1);
+    }
+  }
+
+  /**
+   * Probes the rest of an AIFF or AIFC file after the "FORM" magic. Only the "COMM" chunk is
+   * needed, it holds the frame count.
+   *
+   * @param in The stream.
+   * @return The probe result, or null if it is not an AIFF file.
+   * @throws IOException if the stream cannot be read.
+   */
+  private static ProbedAudio probeAiff(DataInputStream in) throws IOException {
+    in.readInt(); // FORM size
+    String type = readFourCc(in);
+    if (!"AIFF".equals(type) && !"AIFC".equals(type)) {
+      return null;
+    }
+
+    while (true) {
+      String id = readFourCc(in);
+      long size = Integer.toUnsignedLong(in.readInt());
+
+      if ("COMM".equals(id)) {
+        int channels = in.readUnsignedShort();
+        long frames = Integer.toUnsignedLong(in.readInt());
+        int bits = in.readUnsignedShort();
+        double sampleRate = readExtended(in);
+
+        AudioFormat.Encoding encoding = AudioFormat.Encoding.PCM_SIGNED;
+        boolean bigEndian = true;
+        if ("AIFC".equals(type) && size >= 22) {
+          switch (readFourCc(in)) {
+            case "sowt":
+              bigEndian = false;
+              break;
+            case "fl32":
+            case "fl64":
+              encoding = AudioFormat.Encoding.PCM_FLOAT;
+              break;
+            case "ulaw":
+              encoding = AudioFormat.Encoding.ULAW;
+              bits = 8;
+              break;
+            case "alaw":
+              encoding = AudioFormat.Encoding.ALAW;
+              bits = 8;
+              break;
+            default:
+              break;
+          }
+        }
+
+        int frameSize = channels * ((bits + 7) / 8);
+        AudioFormat format =
+            new AudioFormat(
+                encoding,
+                (float) sampleRate,
+                bits,
+                channels,
+                frameSize,
+                (float) sampleRate,
+                bigEndian);
+        return new ProbedAudio(format, frames);
+      }
+
+      skipFully(in, size + (size & 1));
+    }
+  }
+
+  /**
+   * Probes the rest of an AU file after the ".snd" magic.
+   *
+   * @param in The stream.
+   * @param totalSize The size of the whole file, or -1 if unknown.
+   * @return The probe result.
+   * @throws IOException if the stream cannot be read.
+   */
+  private static ProbedAudio probeAu(DataInputStream in, long totalSize) throws IOException {
+    long dataOffset = Integer.toUnsignedLong(in.readInt());
+    long dataSize = Integer.toUnsignedLong(in.readInt());
+    int encodingId = in.readInt();
+    int sampleRate = in.readInt();
+    int channels = in.readInt();
+
+    AudioFormat.Encoding encoding;
+    int bits;
+    switch (encodingId) {
+      case 1:
+        encoding = AudioFormat.Encoding.ULAW;
+        bits = 8;
+        break;
+      case 2:
+        encoding = AudioFormat.Encoding.PCM_SIGNED;
+        bits = 8;
+        break;
+      case 3:
+        encoding = AudioFormat.Encoding.PCM_SIGNED;
+        bits = 16;
+        break;
+      case 4:
+        encoding = AudioFormat.Encoding.PCM_SIGNED;
+        bits = 24;
+        break;
+      case 5:
+        encoding = AudioFormat.Encoding.PCM_SIGNED;
+        bits = 32;
+        break;
+      case 6:
+        encoding = AudioFormat.Encoding.PCM_FLOAT;
+        bits = 32;
+        break;
+      case 7:
+        encoding = AudioFormat.Encoding.PCM_FLOAT;
+        bits = 64;
+        break;
+      case 27:
+        encoding = AudioFormat.Encoding.ALAW;
+        bits = 8;
+        break;
+      default:
+        encoding = new AudioFormat.Encoding("AU_" + encodingId);
+        bits = AudioSystem.NOT_SPECIFIED;
+        break;
+    }
+
+    if (dataSize == UNKNOWN_SIZE) {
+      dataSize = totalSize > dataOffset ? totalSize - dataOffset : -1;
+    }
+
+    int frameSize = bits > 0 ? channels * (bits / 8) : AudioSystem.NOT_SPECIFIED;
+    long frames = dataSize >= 0 && frameSize > 0 ? dataSize / frameSize : -1;
+    AudioFormat format =
+        new AudioFormat(encoding, sampleRate, bits, channels, frameSize, sampleRate, true);
+    return new ProbedAudio(format, frames);
+  }
+
+  /**
+   * Builds the AudioFormat for a WAV format tag.
+   *
+   * @param formatTag The format tag from the "fmt " chunk.
+   * @param sampleRate The sample rate.
+   * @param bits The bits per sample.
+   * @param channels The number of channels.
+   * @param blockAlign The size of one block (one frame for uncompressed formats).
+   * @return The format.
+   */
+  private static AudioFormat wavFormat(
+      int formatTag, long sampleRate, int bits, int channels, int blockAlign) {
+    AudioFormat.Encoding encoding;
+    switch (formatTag) {
+      case WAVE_FORMAT_PCM:
+        // 8-bit WAV data is unsigned, everything wider is signed
+        encoding =
+            bits == 8 ? AudioFormat.Encoding.PCM_UNSIGNED : AudioFormat.Encoding.PCM_SIGNED;
+        break;
+      case WAVE_FORMAT_IEEE_FLOAT:
+        encoding = AudioFormat.Encoding.PCM_FLOAT;
+        break;
+      case WAVE_FORMAT_ALAW:
+        encoding = AudioFormat.Encoding.ALAW;
+        break;
+      case WAVE_FORMAT_MULAW:
+        encoding = AudioFormat.Encoding.ULAW;
+        break;
+      default:
+        encoding = new AudioFormat.Encoding("WAVE_" + formatTag);
+        break;
+    }
+    return new AudioFormat(encoding, sampleRate, bits, channels, blockAlign, sampleRate, false);
+  }
+
+  /**
+   * Checks whether a WAV format tag stores one block per frame.
+   *
+   * @param formatTag The format tag.
+   * @return true for uncompressed formats.
+   */
+  private static boolean isLinear(int formatTag) {
+    return formatTag == WAVE_FORMAT_PCM
+        || formatTag == WAVE_FORMAT_IEEE_FLOAT
+        || formatTag == WAVE_FORMAT_ALAW
+        || formatTag == WAVE_FORMAT_MULAW;
+  }
+
+  /**
+   * Reads an 80-bit IEEE 754 extended precision number, as used for the AIFF sample rate.
+   *
+   * @param in The stream.
+   * @return The value.
+   * @throws IOException if the stream cannot be read.
+   */
+  private static double readExtended(DataInputStream in) throws IOException {
+    int signAndExponent = in.readUnsignedShort();
+    long mantissa = in.readLong();
+
+    int exponent = (signAndExponent & 0x7FFF) - 16383;
+    double value = (mantissa >>> 11) * Math.pow(2, exponent - 52);
+    return (signAndExponent & 0x8000) != 0 ? -value : value;
+  }
+
+  /**
+   * Reads a four character chunk id.
+   *
+   * @param in The stream.
+   * @return The id.
+   * @throws IOException if the stream cannot be read.
+   */
+  private static String readFourCc(DataInputStream in) throws IOException {
+    byte[] id = new byte[4];
+    in.readFully(id);
+    return new String(id, StandardCharsets.US_ASCII);
+  }
+
+  /**
+   * Reads a little endian unsigned 16-bit value.
+   *
+   * @param in The stream.
+   * @return The value.
+   * @throws IOException if the stream cannot be read.
+   */
+  private static int readUnsignedShortLe(DataInputStream in) throws IOException {
+    return Short.toUnsignedInt(Short.reverseBytes(in.readShort()));
+  }
+
+  /**
+   * Reads a little endian unsigned 32-bit value.
+   *
+   * @param in The stream.
+   * @return The value.
+   * @throws IOException if the stream cannot be read.
+   */
+  private static long readUnsignedIntLe(DataInputStream in) throws IOException {
+    return Integer.toUnsignedLong(Integer.reverseBytes(in.readInt()));
+  }
+
+  /**
+   * Skips bytes without reading them. Seekable streams (like file streams) skip by seeking.
+   *
+   * @param in The stream.
+   * @param count The number of bytes to skip.
+   * @throws IOException if the end of the stream is reached first.
+   */
+  private static void skipFully(DataInputStream in, long count) throws IOException {
+    if (count > 0) {
+      in.skipNBytes(count);
+    }
+  }
+}
@@ -0,0 +1,230 @@
+package dev.haruki7049.jiho.core.impl;
+
+import dev.haruki7049.jiho.core.AudioSink;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.SourceDataLine;
+
+/**
+ * AudioSink that records everything played on its lines in memory, with the time every frame was
+ * played, so tests can check what a player produced and when. Each opening of a line records a new
+ * {@link Capture}. Frames that are flushed before being played are dropped from the capture.
+ */
+public class CaptureSink implements AudioSink {
+  private final boolean realTime;
+  private final List<Capture> captures = new CopyOnWriteArrayList<>();
+
+  /** Constructs a CaptureSink whose lines play at real-time pace. */
+  public CaptureSink() {
+    this(true);
+  }
+
+  /**
+   * Constructs a CaptureSink.
+   *
+   * @param realTime Whether the lines play at the frame rate, or instantly.
+   */
+  public CaptureSink(boolean realTime) {
+    this.realTime = realTime;
+  }
+
+  /**
+   * Gets a new line that records its data.
+   *
+   * @param format The PCM format that will be written to the line.
+   * @return The line.
+   */
+  @Override
+  public SourceDataLine getLine(AudioFormat format) {
+    return new CaptureLine(format, this.realTime);
+  }
+
+  /**
+   * Gets the recordings made so far.
+   *
+   * @return One capture per opening of a line, in the order the lines were opened.
+   */
+  public List<Capture> getCaptures() {
+    return List.copyOf(this.captures);
+  }
+
+  /** Removes the recordings made so far. Lines that are still open keep recording. */
+  public void clear() {
+    this.captures.clear();
+  }
+
+  /**
+   * A run of frames played without a gap.
+   *
+   * @param frame The first frame of the run.
+   * @param nanos The {@link System#nanoTime()} value when it was played.
+   */
+  private record Run(long frame, long nanos) {}
+
+  /** What was played on one opening of a line. */
+  public static final class Capture {
+    private final AudioFormat format;
+    private final boolean realTime;
+    private final List<Run> runs = new ArrayList<>();
+    private byte[] data = new byte[4096];
+    private int size;
+
+    /**
+     * Constructs a Capture.
+     *
+     * @param format The format the line was opened with.
+     * @param realTime Whether the line plays at the frame rate.
+     */
+    private Capture(AudioFormat format, boolean realTime) {
+      this.format = format;
+      this.realTime = realTime;
+    }
+
+    /**
+     * Gets the format of the data.
+     *
+     * @return The format the line was opened with.
+     */
+    public AudioFormat getFormat() {
+      return this.format;
+    }
+
+    /**
+     * Gets the recorded data.
+     *
+     * @return A copy of the PCM data written to the line and not flushed.
+     */
+    public synchronized byte[] getData() {
+      return Arrays.copyOf(this.data, this.size);
+    }
+
+    /**
+     * Gets the number of recorded frames.
+     *
+     * @return The number of frames.
+     */
+    public synchronized long getFrameCount() {
+      return this.size / this.format.getFrameSize();
+    }
+
+    /**
+     * Gets when a frame was played. On a real-time line, a frame that is queued in the running line
+     * gets the time it is going to be played.
+     *
+     * @param frame The frame, counted from the first one written to the line.
+     * @return The {@link System#nanoTime()} value, or -1 if the frame has not been played.
+     */
+    public synchronized long getFrameNanos(long frame) {
+      if (frame < 0 || frame >= this.getFrameCount()) {
+        return -1;
+      }
+      for (int i = this.runs.size() - 1; i >= 0; i--) {
+        Run run = this.runs.get(i);
+        if (run.frame() <= frame) {
+          if (!this.realTime) {
+            return run.nanos();
+          }
+          return run.nanos() + Math.round((frame - run.frame()) * 1e9 / this.format.getFrameRate());
+        }
+      }
+      return -1;
+    }
+
+    /**
+     * Appends data.
+     *
+     * @param b The data.
+     * @param off The offset of the first byte.
+     * @param len The number of bytes.
+     */
+    private synchronized void append(byte[] b, int off, int len) {
+      if (this.size + len > this.data.length) {
+        this.data = Arrays.copyOf(this.data, Math.max(this.size + len, 2 * this.data.length));
+      }
+      System.arraycopy(b, off, this.data, this.size, len);
+      this.size += len;
+    }
+
+    /**
+     * Records the start of a run of frames.
+     *
+     * @param frame The first frame of the run.
+     * @param nanos When it is played.
+     */
+    private synchronized void playStarted(long frame, long nanos) {
+      this.runs.add(new Run(frame, nanos));
+    }
+
+    /**
+     * Drops the frames from the given one on, which were never played.
+     *
+     * @param frame The first dropped frame.
+     */
+    private synchronized void truncate(long frame) {
+      this.size = (int) Math.min(this.size, frame * this.format.getFrameSize());
+      this.runs.removeIf(run -> run.frame() >= frame);
+    }
+  }
+
+  /** Line that records into a new capture each time it is opened. */
+  private class CaptureLine extends HeadlessLine {
+    private Capture capture;
+
+    /**
+     * Constructs a CaptureLine.
+     *
+     * @param format The default format.
+     * @param realTime Whether the line plays at the frame rate.
+     */
+    CaptureLine(AudioFormat format, boolean realTime) {
+      super(format, realTime);
+    }
+
+    /**
+     * Starts a new capture.
+     *
+     * @param format The format of the data that will be written.
+     */
+    @Override
+    void onOpen(AudioFormat format) {
+      this.capture = new Capture(format, this.isRealTime());
+      CaptureSink.this.captures.add(this.capture);
+    }
+
+    /**
+     * Records the data.
+     *
+     * @param b The data.
+     * @param off The offset of the first byte.
+     * @param len The number of bytes.
+     */
+    @Override
+    void consume(byte[] b, int off, int len) {
+      this.capture.append(b, off, len);
+    }
+
+    /**
+     * Records the start of a run of frames.
+     *
+     * @param frame The first frame of the run.
+     * @param nanos When it is played.
+     */
+    @Override
+    void onPlayStart(long frame, long nanos) {
+      this.capture.playStarted(frame, nanos);
+    }
+
+    /**
+     * Drops the flushed frames from the capture.
+     *
+     * @param frame The first dropped frame.
+     */
+    @Override
+    void onFlush(long frame) {
+      this.capture.truncate(frame);
+    }
+  }
+}
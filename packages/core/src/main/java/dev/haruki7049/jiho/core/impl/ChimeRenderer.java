@@ -0,0 +1,179 @@
+package dev.haruki7049.jiho.core.impl;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * Renders a whole chime sequence (the sound repeated N times) into one PCM buffer. Repetitions
+ * start exactly a fixed number of frames apart, with silence in between, so the spacing does not
+ * depend on thread scheduling. The sequence of 12 repetitions is rendered once, lazily, and the
+ * sequences of 1 to 11 repetitions are its prefixes, so the cache holds {@code 11 * period + sound}
+ * of PCM however many counts are played.
+ *
+ * <p>A {@link GainEnvelope} other than unity is applied to the sound by the {@link GainStage} once,
+ * before the first sequence is rendered, so the cached sequences are played as they are.
+ */
+public class ChimeRenderer {
+  // Sequences for this many repetitions or fewer are served from the cache (one for each hour)
+  private static final int MAX_CACHED_TIMES = 12;
+
+  private final DecodedAudio audio;
+  private final Duration period;
+  private final GainEnvelope envelope;
+  private DecodedAudio processed; // The audio with the envelope applied, created on first render
+  private final long periodFrames;
+  private byte[] longest; // The sequence of MAX_CACHED_TIMES repetitions, created on first render
+
+  /**
+   * Constructs a ChimeRenderer.
+   *
+   * @param audio The decoded sound to repeat.
+   * @param period The time from the start of one repetition to the start of the next. If shorter
+   *     than the sound, the sound's length is used so repetitions never overlap.
+   */
+  public ChimeRenderer(DecodedAudio audio, Duration period) {
+    this(audio, period, GainEnvelope.UNITY);
+  }
+
+  /**
+   * Constructs a ChimeRenderer applying a gain envelope to every repetition.
+   *
+   * @param audio The decoded sound to repeat.
+   * @param period The time from the start of one repetition to the start of the next. If shorter
+   *     than the sound, the sound's length is used so repetitions never overlap.
+   * @param envelope The gain envelope. Unless it is unity, the format of the audio must be {@link
+   *     GainStage#supports supported} by the gain stage.
+   * @throws IllegalArgumentException if the envelope cannot be applied to the format.
+   */
+  public ChimeRenderer(DecodedAudio audio, Duration period, GainEnvelope envelope) {
+    if (!envelope.isUnity() && !GainStage.supports(audio.getFormat())) {
+      throw new IllegalArgumentException("Gain stage cannot process " + audio.getFormat());
+    }
+    this.audio = audio;
+    this.period = period;
+    this.envelope = envelope;
+
+    long frames = Math.round(period.toNanos() / 1e9 * audio.getFormat().getFrameRate());
+    this.periodFrames = Math.max(frames, audio.getFrameLength());
+  }
+
+  /**
+   * Gets the sound this renderer repeats.
+   *
+   * @return The decoded audio.
+   */
+  public DecodedAudio getAudio() {
+    return this.audio;
+  }
+
+  /**
+   * Gets the period this renderer was created with.
+   *
+   * @return The period between repetition starts.
+   */
+  public Duration getPeriod() {
+    return this.period;
+  }
+
+  /**
+   * Gets the length of a period, the frames from the start of one repetition to the start of the
+   * next. It is never shorter than the sound.
+   *
+   * @return The period in frames.
+   */
+  public long getPeriodFrames() {
+    return this.periodFrames;
+  }
+
+  /**
+   * Gets the gain envelope applied to every repetition.
+   *
+   * @return The envelope.
+   */
+  public GainEnvelope getEnvelope() {
+    return this.envelope;
+  }
+
+  /**
+   * Gets the rendered sequence for the given number of repetitions. Up to 12 repetitions, the
+   * returned buffer is a new view of the start of the cached sequence: its backing array is shared
+   * and must be treated as read-only.
+   *
+   * @param times The number of repetitions.
+   * @return The PCM bytes of the whole sequence, from offset 0 of the backing array to the limit.
+   */
+  public synchronized ByteBuffer render(int times) {
+    if (times < 1) {
+      throw new IllegalArgumentException("times must be positive: " + times);
+    }
+    if (times > MAX_CACHED_TIMES) {
+      return ByteBuffer.wrap(this.renderSequence(times));
+    }
+    if (this.longest == null) {
+      this.longest = this.renderSequence(MAX_CACHED_TIMES);
+    }
+    return ByteBuffer.wrap(this.longest, 0, (int) this.sequenceLength(times));
+  }
+
+  /**
+   * Computes the size of a sequence. The last repetition is not followed by a gap.
+   *
+   * @param times The number of repetitions.
+   * @return The size in bytes.
+   */
+  private long sequenceLength(int times) {
+    long periodBytes = this.periodFrames * this.audio.getFormat().getFrameSize();
+    return (times - 1) * periodBytes + this.audio.getData().remaining();
+  }
+
+  /**
+   * Renders a sequence without caching it.
+   *
+   * @param times The number of repetitions.
+   * @return The PCM bytes of the whole sequence.
+   */
+  private byte[] renderSequence(int times) {
+    if (this.processed == null) {
+      this.processed =
+          this.envelope.isUnity() ? this.audio : GainStage.apply(this.audio, this.envelope);
+    }
+
+    final ByteBuffer sound = this.processed.getData();
+    final int soundLength = sound.remaining();
+    final long periodBytes = this.periodFrames * this.audio.getFormat().getFrameSize();
+
+    long totalBytes = this.sequenceLength(times);
+    if (totalBytes > Integer.MAX_VALUE - 8) {
+      throw new IllegalArgumentException("Chime sequence too long to render: " + totalBytes);
+    }
+
+    byte[] sequence = new byte[(int) totalBytes];
+    fillSilence(sequence, this.audio.getFormat());
+    for (int i = 0; i < times; i++) {
+      // Copies straight out of the cache (or the file mapping) without moving its position
+      sound.get(sound.position(), sequence, (int) (i * periodBytes), soundLength);
+    }
+    return sequence;
+  }
+
+  /**
+   * Fills a newly allocated (zeroed) buffer with digital silence for the given format. Signed PCM
+   * is silent at zero, unsigned PCM at the middle of its range.
+   *
+   * @param buffer The zeroed buffer to fill.
+   * @param format The PCM format of the buffer.
+   */
+  static void fillSilence(byte[] buffer, AudioFormat format) {
+    if (!AudioFormat.Encoding.PCM_UNSIGNED.equals(format.getEncoding())) {
+      // A new array is already zero filled
+      return;
+    }
+
+    int sampleBytes = Math.max(1, format.getSampleSizeInBits() / 8);
+    int msbOffset = format.isBigEndian() ? 0 : sampleBytes - 1;
+    for (int i = 0; i < buffer.length; i += sampleBytes) {
+      buffer[i + msbOffset] = (byte) 0x80;
+    }
+  }
+}
@@ -0,0 +1,107 @@
+package dev.haruki7049.jiho.core.impl;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * Immutable holder for a fully decoded audio source. Keeps the raw PCM bytes together with the
+ * {@link AudioFormat} describing them, so the source never has to be decoded again. The bytes are
+ * either on the heap or a read-only slice of a memory-mapped WAV file.
+ */
+public class DecodedAudio {
+  private final AudioFormat format;
+  private final ByteBuffer data;
+  private final boolean mapped;
+
+  /**
+   * Constructs a DecodedAudio from already decoded PCM bytes.
+   *
+   * @param format The PCM format of the data.
+   * @param data The decoded PCM bytes. The array is not copied and must not be modified afterwards.
+   */
+  public DecodedAudio(AudioFormat format, byte[] data) {
+    this(format, ByteBuffer.wrap(data), false);
+  }
+
+  /**
+   * Constructs a DecodedAudio from a memory-mapped WAV file.
+   *
+   * @param wavFile The mapped file.
+   */
+  public DecodedAudio(WavFile wavFile) {
+    this(wavFile.getFormat(), wavFile.getData(), true);
+  }
+
+  /**
+   * Constructs a DecodedAudio.
+   *
+   * @param format The PCM format of the data.
+   * @param data The decoded PCM bytes.
+   * @param mapped Whether the data is a slice of a file mapping.
+   */
+  private DecodedAudio(AudioFormat format, ByteBuffer data, boolean mapped) {
+    this.format = format;
+    this.data = data.asReadOnlyBuffer();
+    this.mapped = mapped;
+  }
+
+  /**
+   * Gets the PCM format of the decoded data.
+   *
+   * @return The {@link AudioFormat}.
+   */
+  public AudioFormat getFormat() {
+    return this.format;
+  }
+
+  /**
+   * Gets the decoded PCM bytes as a read-only buffer. Each call returns an independent view, so the
+   * caller may move its position freely.
+   *
+   * @return The PCM bytes.
+   */
+  public ByteBuffer getData() {
+    return this.data.duplicate();
+  }
+
+  /**
+   * Gets the size of the decoded PCM data.
+   *
+   * @return The size in bytes.
+   */
+  public int getByteLength() {
+    return this.data.remaining();
+  }
+
+  /**
+   * Gets whether the data is a slice of a memory-mapped file rather than a heap copy.
+   *
+   * @return true if the data is mapped.
+   */
+  public boolean isMapped() {
+    return this.mapped;
+  }
+
+  /**
+   * Gets the number of sample frames in the decoded data.
+   *
+   * @return The frame count.
+   */
+  public long getFrameLength() {
+    return this.data.remaining() / this.format.getFrameSize();
+  }
+
+  /**
+   * Gets the playback length of the decoded data.
+   *
+   * @return The Duration of the audio.
+   */
+  public Duration getDuration() {
+    // Calculate duration in microseconds
+    long microseconds = (long) ((this.getFrameLength() / this.format.getFrameRate()) * 1000000);
+
+    return Duration.of(microseconds, ChronoUnit.MICROS);
+  }
+}
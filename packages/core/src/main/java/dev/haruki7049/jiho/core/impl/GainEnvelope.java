@@ -0,0 +1,41 @@
+package dev.haruki7049.jiho.core.impl;
+
+import java.time.Duration;
+
+/**
+ * Gain applied to every repetition of a sound by the {@link GainStage}: a constant volume, with a
+ * linear fade-in at the start and a linear fade-out at the end of the sound.
+ *
+ * @param gain The linear gain (0.0 to 1.0).
+ * @param fadeIn The length of the fade-in, zero for none.
+ * @param fadeOut The length of the fade-out, zero for none.
+ */
+public record GainEnvelope(float gain, Duration fadeIn, Duration fadeOut) {
+  /** The envelope that leaves the samples untouched. */
+  public static final GainEnvelope UNITY = new GainEnvelope(1.0f, Duration.ZERO, Duration.ZERO);
+
+  /**
+   * Creates an envelope from configuration values.
+   *
+   * @param volume The playback volume (0.0 to 1.0), or null for full volume. Clamped to the range.
+   * @param fadeIn The length of the fade-in, or null for none.
+   * @param fadeOut The length of the fade-out, or null for none.
+   * @return The envelope.
+   */
+  public static GainEnvelope of(Float volume, Duration fadeIn, Duration fadeOut) {
+    float gain = volume != null ? Math.max(0.0f, Math.min(1.0f, volume)) : 1.0f;
+    return new GainEnvelope(
+        gain,
+        fadeIn != null ? fadeIn : Duration.ZERO,
+        fadeOut != null ? fadeOut : Duration.ZERO);
+  }
+
+  /**
+   * Gets whether the envelope leaves the samples untouched.
+   *
+   * @return true for full volume without fades.
+   */
+  public boolean isUnity() {
+    return this.gain == 1.0f && this.fadeIn.isZero() && this.fadeOut.isZero();
+  }
+}
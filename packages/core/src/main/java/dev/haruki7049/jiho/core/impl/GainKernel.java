@@ -0,0 +1,31 @@
+package dev.haruki7049.jiho.core.impl;
+
+/**
+ * Inner loops of the {@link GainStage} on 16-bit samples. Every implementation computes exactly
+ * the same results: a sample is multiplied in single precision, clamped to the 16-bit range and
+ * truncated toward zero.
+ */
+interface GainKernel {
+  /**
+   * Multiplies samples by a constant gain.
+   *
+   * @param samples The interleaved samples, modified in place.
+   * @param from The first sample, at the start of a frame.
+   * @param to The end of the range (exclusive).
+   * @param gain The gain.
+   */
+  void scale(short[] samples, int from, int to, float gain);
+
+  /**
+   * Multiplies samples by a gain changing linearly from frame to frame. The gain of the k-th frame
+   * of the range is {@code start + step * k}.
+   *
+   * @param samples The interleaved samples, modified in place.
+   * @param from The first sample, at the start of a frame.
+   * @param to The end of the range (exclusive), at the end of a frame.
+   * @param channels The number of samples per frame.
+   * @param start The gain of the first frame.
+   * @param step The change of the gain from one frame to the next.
+   */
+  void ramp(short[] samples, int from, int to, int channels, float start, float step);
+}
@@ -0,0 +1,462 @@
+package dev.haruki7049.jiho.core.impl;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.Control;
+import javax.sound.sampled.DataLine;
+import javax.sound.sampled.LineEvent;
+import javax.sound.sampled.LineListener;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+
+/**
+ * SourceDataLine without an audio device, the base of the headless sinks. It behaves like a line
+ * of a real mixer: it sends the OPEN, START, STOP and CLOSE events, and frames written to it are
+ * played only while it runs.
+ *
+ * <p>A real-time line plays at the frame rate of its format from a buffer of {@link
+ * #DEFAULT_BUFFER_TIME}: {@link #write} blocks while the buffer is full, {@link #drain} until it
+ * is empty, and a line that is not written to in time runs dry as a device would. A line that is
+ * not real-time is an infinitely fast device without a buffer: it plays every write at the moment
+ * it is made and never blocks, which measures the software overhead only.
+ *
+ * <p>Subclasses receive the data with {@link #consume} and learn when frames are played from
+ * {@link #onPlayStart}. Every method is synchronized, and a blocked write or drain waits on the
+ * line's monitor, so {@link #stop}, {@link #flush} and {@link #close} from another thread wake it.
+ */
+abstract class HeadlessLine implements SourceDataLine {
+
+  /** Buffer a real-time line is opened with unless a size is given, in seconds. */
+  static final float DEFAULT_BUFFER_TIME = 0.1f;
+
+  private final List<LineListener> listeners = new CopyOnWriteArrayList<>();
+  private final boolean realTime;
+
+  private AudioFormat format;
+  private int bufferFrames;
+  private boolean open;
+  private boolean running;
+  private long writtenFrames; // Frames written since the line was opened, minus the flushed ones
+  private long playedFrames;
+  private boolean playing; // Whether a run of frames is being played
+  private long segmentFrame; // First frame of the run being played
+  private long segmentNanos; // When the first frame of the run was played
+  private long firstFrameNanos;
+
+  /**
+   * Constructs a HeadlessLine.
+   *
+   * @param format The default format, used if the line is opened without one.
+   * @param realTime Whether the line plays at the frame rate, or instantly.
+   */
+  HeadlessLine(AudioFormat format, boolean realTime) {
+    this.format = format;
+    this.realTime = realTime;
+  }
+
+  /**
+   * Gets whether the line plays at the frame rate of its format.
+   *
+   * @return true if the line is real-time.
+   */
+  boolean isRealTime() {
+    return this.realTime;
+  }
+
+  /**
+   * Gets the time the first frame was played after the last start.
+   *
+   * @return The {@link System#nanoTime()} value, or 0 if nothing was played.
+   */
+  synchronized long getFirstFrameNanos() {
+    return this.firstFrameNanos;
+  }
+
+  /**
+   * Called when the line is opened, before the OPEN event.
+   *
+   * @param format The format of the data that will be written.
+   * @throws LineUnavailableException if the line cannot take data in the format.
+   */
+  void onOpen(AudioFormat format) throws LineUnavailableException {}
+
+  /**
+   * Receives data written to the line, as it is queued.
+   *
+   * @param b The data.
+   * @param off The offset of the first byte.
+   * @param len The number of bytes, whole frames.
+   */
+  abstract void consume(byte[] b, int off, int len);
+
+  /**
+   * Called when the line starts playing a run of frames: after it is started with data queued, or
+   * when data is written to a running line that had nothing left to play. Until the next call,
+   * frame {@code n} is played at {@code nanos + (n - frame) / frame rate} on a real-time line, and
+   * at {@code nanos} on a line that is not.
+   *
+   * @param frame The first frame of the run, counted from the first frame written.
+   * @param nanos The {@link System#nanoTime()} value when the frame is played.
+   */
+  void onPlayStart(long frame, long nanos) {}
+
+  /**
+   * Called when queued frames are flushed, so they are never played.
+   *
+   * @param frame The first dropped frame. The next frame written takes its number.
+   */
+  void onFlush(long frame) {}
+
+  /** Called when the line is closed, after the CLOSE event. */
+  void onClose() {}
+
+  @Override
+  public void open(AudioFormat format, int bufferSize) throws LineUnavailableException {
+    if (bufferSize <= 0) {
+      this.open(format);
+    } else {
+      this.openFrames(format, bufferSize / format.getFrameSize());
+    }
+  }
+
+  @Override
+  public void open(AudioFormat format) throws LineUnavailableException {
+    this.openFrames(format, Math.round(format.getFrameRate() * DEFAULT_BUFFER_TIME));
+  }
+
+  @Override
+  public void open() throws LineUnavailableException {
+    this.open(this.format);
+  }
+
+  /**
+   * Opens the line with a buffer of the given number of frames.
+   *
+   * @param format The format of the data that will be written.
+   * @param frames The buffer size in frames.
+   * @throws LineUnavailableException if the subclass cannot take data in the format.
+   */
+  private synchronized void openFrames(AudioFormat format, int frames)
+      throws LineUnavailableException {
+    if (this.open) {
+      return;
+    }
+    this.onOpen(format);
+    this.format = format;
+    this.bufferFrames = Math.max(1, frames);
+    this.writtenFrames = 0;
+    this.playedFrames = 0;
+    this.playing = false;
+    this.open = true;
+    this.fire(LineEvent.Type.OPEN);
+  }
+
+  /**
+   * Queues data for playback. A real-time line blocks until all of it fits into the buffer, unless
+   * it is stopped, flushed, closed or the thread is interrupted, which return the number of bytes
+   * queued so far.
+   *
+   * @param b The data.
+   * @param off The offset of the first byte.
+   * @param len The number of bytes, whole frames.
+   * @return The number of bytes queued.
+   * @throws IllegalArgumentException if the data is not whole frames.
+   */
+  @Override
+  public synchronized int write(byte[] b, int off, int len) {
+    int frameSize = this.format.getFrameSize();
+    if (len % frameSize != 0) {
+      throw new IllegalArgumentException("Not a whole number of frames: " + len + " bytes");
+    }
+    if (!this.open) {
+      return 0;
+    }
+
+    int done = 0;
+    while (done < len) {
+      long now = System.nanoTime();
+      this.advance(now);
+
+      int frames = (len - done) / frameSize;
+      if (this.realTime) {
+        frames = (int) Math.min(frames, this.free());
+      }
+      if (frames > 0) {
+        this.consume(b, off + done, frames * frameSize);
+        long first = this.writtenFrames;
+        this.writtenFrames += frames;
+        done += frames * frameSize;
+        if (this.running && !this.playing) {
+          this.startSegment(first, now);
+        }
+        this.advance(now);
+        continue;
+      }
+
+      // Buffer full: wait until enough of it is played, or for stop, flush or close
+      if (!this.running) {
+        break;
+      }
+      long needed = Math.min((len - done) / frameSize, this.bufferFrames);
+      if (!this.await(this.toNanos(needed - this.free()))) {
+        break;
+      }
+    }
+    return done;
+  }
+
+  /**
+   * Blocks until the queued frames are played, unless the line is stopped, flushed or closed or
+   * the thread is interrupted. Returns at once on a line that is not real-time.
+   */
+  @Override
+  public synchronized void drain() {
+    while (this.running) {
+      this.advance(System.nanoTime());
+      long queued = this.writtenFrames - this.playedFrames;
+      if (queued <= 0 || !this.await(this.toNanos(queued))) {
+        return;
+      }
+    }
+  }
+
+  /** Drops the frames that are queued but not played yet. */
+  @Override
+  public synchronized void flush() {
+    this.advance(System.nanoTime());
+    if (this.writtenFrames > this.playedFrames) {
+      this.writtenFrames = this.playedFrames;
+      this.onFlush(this.playedFrames);
+    }
+    this.playing = false;
+    this.notifyAll();
+  }
+
+  /** Starts playing, at once if frames are queued, with the next write otherwise. */
+  @Override
+  public synchronized void start() {
+    if (this.running || !this.open) {
+      return;
+    }
+    this.running = true;
+    this.firstFrameNanos = 0;
+    this.fire(LineEvent.Type.START);
+    long now = System.nanoTime();
+    if (this.writtenFrames > this.playedFrames) {
+      this.startSegment(this.playedFrames, now);
+      this.advance(now);
+    }
+  }
+
+  /** Pauses playing. The queued frames stay queued. */
+  @Override
+  public synchronized void stop() {
+    if (!this.running) {
+      return;
+    }
+    this.advance(System.nanoTime());
+    this.running = false;
+    this.playing = false;
+    this.fire(LineEvent.Type.STOP);
+    this.notifyAll();
+  }
+
+  @Override
+  public synchronized boolean isRunning() {
+    return this.running;
+  }
+
+  @Override
+  public synchronized boolean isActive() {
+    this.advance(System.nanoTime());
+    return this.playing;
+  }
+
+  @Override
+  public synchronized AudioFormat getFormat() {
+    return this.format;
+  }
+
+  /**
+   * Gets the buffer size.
+   *
+   * @return The buffer size in bytes, or 0 for a line that is not real-time, which has none.
+   */
+  @Override
+  public synchronized int getBufferSize() {
+    return this.realTime ? this.bufferFrames * this.format.getFrameSize() : 0;
+  }
+
+  /**
+   * Gets how much can be written without blocking.
+   *
+   * @return The free space of the buffer in bytes, or {@link Integer#MAX_VALUE} for a line that is
+   *     not real-time.
+   */
+  @Override
+  public synchronized int available() {
+    if (!this.realTime) {
+      return Integer.MAX_VALUE;
+    }
+    this.advance(System.nanoTime());
+    return (int) this.free() * this.format.getFrameSize();
+  }
+
+  @Override
+  public int getFramePosition() {
+    return (int) this.getLongFramePosition();
+  }
+
+  @Override
+  public synchronized long getLongFramePosition() {
+    this.advance(System.nanoTime());
+    return this.playedFrames;
+  }
+
+  @Override
+  public long getMicrosecondPosition() {
+    return (long) (this.getLongFramePosition() * 1e6 / this.format.getFrameRate());
+  }
+
+  @Override
+  public float getLevel() {
+    return AudioSystem.NOT_SPECIFIED;
+  }
+
+  @Override
+  public DataLine.Info getLineInfo() {
+    return new DataLine.Info(SourceDataLine.class, this.format);
+  }
+
+  /** Stops the line, drops what is queued and releases it. */
+  @Override
+  public synchronized void close() {
+    if (!this.open) {
+      return;
+    }
+    this.stop();
+    this.flush();
+    this.open = false;
+    this.fire(LineEvent.Type.CLOSE);
+    this.onClose();
+  }
+
+  @Override
+  public Control[] getControls() {
+    return new Control[0];
+  }
+
+  @Override
+  public boolean isControlSupported(Control.Type control) {
+    return false;
+  }
+
+  @Override
+  public Control getControl(Control.Type control) {
+    throw new IllegalArgumentException("Unsupported control type: " + control);
+  }
+
+  @Override
+  public synchronized boolean isOpen() {
+    return this.open;
+  }
+
+  @Override
+  public void addLineListener(LineListener listener) {
+    this.listeners.add(listener);
+  }
+
+  @Override
+  public void removeLineListener(LineListener listener) {
+    this.listeners.remove(listener);
+  }
+
+  /**
+   * Moves the play position to the given time. A running line that played everything queued runs
+   * dry, and starts a new run with the next write.
+   *
+   * @param now The {@link System#nanoTime()} value.
+   */
+  private void advance(long now) {
+    if (!this.playing) {
+      return;
+    }
+    long due =
+        this.realTime
+            ? this.segmentFrame
+                + (long) ((now - this.segmentNanos) / 1e9 * this.format.getFrameRate())
+            : Long.MAX_VALUE;
+    if (due >= this.writtenFrames) {
+      this.playedFrames = this.writtenFrames;
+      this.playing = false;
+    } else {
+      this.playedFrames = Math.max(this.playedFrames, due);
+    }
+  }
+
+  /**
+   * Starts playing a run of frames.
+   *
+   * @param frame The first frame of the run.
+   * @param now The {@link System#nanoTime()} value when it is played.
+   */
+  private void startSegment(long frame, long now) {
+    this.segmentFrame = frame;
+    this.segmentNanos = now;
+    this.playing = true;
+    if (this.firstFrameNanos == 0) {
+      this.firstFrameNanos = now;
+    }
+    this.onPlayStart(frame, now);
+  }
+
+  /**
+   * Gets the free space of the buffer.
+   *
+   * @return The number of frames that can be queued.
+   */
+  private long free() {
+    return this.bufferFrames - (this.writtenFrames - this.playedFrames);
+  }
+
+  /**
+   * Converts a number of frames into the time they take to play.
+   *
+   * @param frames The number of frames.
+   * @return The time in nanoseconds.
+   */
+  private long toNanos(long frames) {
+    return (long) Math.ceil(frames * 1e9 / this.format.getFrameRate());
+  }
+
+  /**
+   * Waits on the line's monitor, at least a millisecond so the play position moves on.
+   *
+   * @param nanos The time to wait.
+   * @return false if the thread was interrupted, with the interrupt status set again.
+   */
+  private boolean await(long nanos) {
+    try {
+      long millis = Math.max(1, nanos / 1_000_000);
+      this.wait(millis);
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  /**
+   * Sends an event to the listeners on the calling thread.
+   *
+   * @param type The event type.
+   */
+  private void fire(LineEvent.Type type) {
+    LineEvent event = new LineEvent(this, type, this.playedFrames);
+    for (LineListener listener : this.listeners) {
+      listener.update(event);
+    }
+  }
+}
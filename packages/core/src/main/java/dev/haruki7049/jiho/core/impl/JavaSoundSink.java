@@ -0,0 +1,25 @@
+package dev.haruki7049.jiho.core.impl;
+
+import dev.haruki7049.jiho.core.AudioSink;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.DataLine;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+
+/** AudioSink backed by the default Java Sound mixer. */
+public class JavaSoundSink implements AudioSink {
+
+  /**
+   * Gets a SourceDataLine for the format from {@link AudioSystem}.
+   *
+   * @param format The PCM format that will be written to the line.
+   * @return The line.
+   * @throws LineUnavailableException if no line for the format is available.
+   */
+  @Override
+  public SourceDataLine getLine(AudioFormat format) throws LineUnavailableException {
+    DataLine.Info info = new DataLine.Info(SourceDataLine.class, format);
+    return (SourceDataLine) AudioSystem.getLine(info);
+  }
+}
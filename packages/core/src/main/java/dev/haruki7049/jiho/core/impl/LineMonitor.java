@@ -0,0 +1,117 @@
+package dev.haruki7049.jiho.core.impl;
+
+import dev.haruki7049.jiho.core.PlaybackStats;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+import javax.sound.sampled.LineEvent;
+import javax.sound.sampled.LineListener;
+import javax.sound.sampled.SourceDataLine;
+
+/**
+ * LineListener following the playbacks on a SourceDataLine. It records when the line actually
+ * started and counts underruns, which are detected in two ways: a STOP event sent by the line while
+ * data is still being written, or {@link SourceDataLine#available()} showing that the whole buffer
+ * was played out between two writes.
+ *
+ * <p>One playback is {@link #begin()}, any number of {@link #beforeWrite} calls, {@link
+ * #endWrites()} once everything is queued, and {@link #end}, all on the playing thread.
+ */
+class LineMonitor implements LineListener {
+  private static final Logger logger = Logger.getLogger("jiho.audio");
+
+  private final AtomicInteger underruns = new AtomicInteger();
+  private volatile boolean writing;
+  private volatile long startCallNanos;
+  private volatile long startEventNanos;
+  private boolean primed; // Whether the buffer was filled once, only used by the playing thread
+
+  /** Starts following a playback. Call right before starting the line. */
+  void begin() {
+    this.underruns.set(0);
+    this.primed = false;
+    this.startEventNanos = 0;
+    this.startCallNanos = System.nanoTime();
+    this.writing = true;
+  }
+
+  /**
+   * Checks the line for an underrun before the next write. The line's buffer being completely free
+   * after it was filled means the line played everything and ran dry in between.
+   *
+   * @param line The line about to be written to.
+   */
+  void beforeWrite(SourceDataLine line) {
+    int bufferSize = line.getBufferSize();
+    if (bufferSize <= 0) {
+      // Lines without a real buffer cannot run dry
+      return;
+    }
+
+    if (this.primed && line.available() >= bufferSize) {
+      this.countUnderrun("buffer empty before write");
+    }
+    this.primed = true;
+  }
+
+  /**
+   * Gets the underruns counted so far in the playback.
+   *
+   * @return The underrun count.
+   */
+  int getUnderruns() {
+    return this.underruns.get();
+  }
+
+  /** Marks that all data is queued. The line running out of data now is the expected end. */
+  void endWrites() {
+    this.writing = false;
+  }
+
+  /**
+   * Finishes following the playback and records it in the statistics.
+   *
+   * @param fallbackOnsetNanos The onset to use if the line sent no START event.
+   * @param stats The statistics to record the playback in.
+   * @return The onset of the playback as a {@link System#nanoTime()} value.
+   */
+  long end(long fallbackOnsetNanos, PlaybackStats stats) {
+    this.writing = false;
+
+    long eventNanos = this.startEventNanos;
+    long onsetNanos = eventNanos != 0 ? eventNanos : fallbackOnsetNanos;
+    stats.record(this.underruns.get(), onsetNanos - this.startCallNanos);
+    return onsetNanos;
+  }
+
+  /**
+   * Stops following the playback without recording it, when it is aborted. The line is about to be
+   * stopped, which must not count as an underrun.
+   */
+  void cancel() {
+    this.writing = false;
+  }
+
+  /**
+   * Records START events and counts STOP events sent while data is still being written.
+   *
+   * @param event The line event.
+   */
+  @Override
+  public void update(LineEvent event) {
+    if (event.getType() == LineEvent.Type.START) {
+      this.startEventNanos = System.nanoTime();
+    } else if (event.getType() == LineEvent.Type.STOP && this.writing) {
+      this.countUnderrun("line stopped at frame " + event.getFramePosition());
+    }
+  }
+
+  /**
+   * Counts one underrun.
+   *
+   * @param reason How the underrun was detected.
+   */
+  private void countUnderrun(String reason) {
+    this.underruns.incrementAndGet();
+    logger.warning("Playback underrun: " + reason);
+  }
+}
@@ -0,0 +1,177 @@
+package dev.haruki7049.jiho.core.impl;
+
+import dev.haruki7049.jiho.core.AudioPlayer;
+import dev.haruki7049.jiho.core.metrics.ChimeMetrics;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * AudioPlayer that plays its chimes as voices of a shared {@link SoftwareMixer}, instead of opening
+ * a line of its own. Any number of these players can chime at the same moment through one output
+ * line. The volume and the fades are applied to the rendered sequence by the {@link GainStage},
+ * or as a gain in the mix for formats the gain stage cannot process.
+ */
+public class MixingAudioPlayer implements AudioPlayer {
+  private final PcmCache pcmCache;
+  private final SoftwareMixer mixer;
+  private final Duration fadeIn; // null for none
+  private final Duration fadeOut; // null for none
+  private final ChimeMetrics metrics;
+
+  // Voice of the play() call in progress, cancelled by abort() from another thread
+  private volatile CompletableFuture<Void> playingVoice;
+
+  /**
+   * Constructs a MixingAudioPlayer.
+   *
+   * @param pcmCache The cache of the audio source, possibly shared with other players.
+   * @param mixer The mixer to play through, possibly shared with other players.
+   */
+  public MixingAudioPlayer(PcmCache pcmCache, SoftwareMixer mixer) {
+    this(pcmCache, mixer, null, null);
+  }
+
+  /**
+   * Constructs a MixingAudioPlayer fading every repetition of the sound in and out.
+   *
+   * @param pcmCache The cache of the audio source, possibly shared with other players.
+   * @param mixer The mixer to play through, possibly shared with other players.
+   * @param fadeIn The length of the fade-in, or null for none.
+   * @param fadeOut The length of the fade-out, or null for none.
+   */
+  public MixingAudioPlayer(
+      PcmCache pcmCache, SoftwareMixer mixer, Duration fadeIn, Duration fadeOut) {
+    this(pcmCache, mixer, fadeIn, fadeOut, new ChimeMetrics());
+  }
+
+  /**
+   * Constructs a MixingAudioPlayer fading every repetition of the sound in and out, and recording
+   * the time spent getting the rendered sequence in existing metrics. The mixer keeps its line
+   * open, so no line open time is recorded.
+   *
+   * @param pcmCache The cache of the audio source, possibly shared with other players.
+   * @param mixer The mixer to play through, possibly shared with other players.
+   * @param fadeIn The length of the fade-in, or null for none.
+   * @param fadeOut The length of the fade-out, or null for none.
+   * @param metrics The metrics to record the decode time in.
+   */
+  public MixingAudioPlayer(
+      PcmCache pcmCache,
+      SoftwareMixer mixer,
+      Duration fadeIn,
+      Duration fadeOut,
+      ChimeMetrics metrics) {
+    this.pcmCache = pcmCache;
+    this.mixer = mixer;
+    this.fadeIn = fadeIn;
+    this.fadeOut = fadeOut;
+    this.metrics = metrics;
+  }
+
+  /**
+   * Plays the pre-rendered sequence of repetitions as one voice of the mixer and waits until it
+   * has been played.
+   *
+   * @param times The number of times to play.
+   * @param duration The time from the start of one repetition to the start of the next.
+   * @param volume The playback volume (0.0 to 1.0), or null for default.
+   * @throws UnsupportedAudioFileException if the audio file format is not supported.
+   * @throws IOException if an I/O error occurs.
+   * @throws LineUnavailableException if the mixer cannot open its line.
+   * @throws InterruptedException if the thread is interrupted.
+   */
+  @Override
+  public synchronized void play(int times, Duration duration, Float volume)
+      throws UnsupportedAudioFileException,
+          IOException,
+          LineUnavailableException,
+          InterruptedException {
+    long decodeStartNanos = System.nanoTime();
+    DecodedAudio audio = this.pcmCache.get();
+    GainEnvelope envelope = GainEnvelope.of(volume, this.fadeIn, this.fadeOut);
+    float gain = 1.0f;
+    if (!GainStage.supports(audio.getFormat())) {
+      // Mixed with the gain instead, without fades
+      gain = envelope.gain();
+      envelope = GainEnvelope.UNITY;
+    }
+    ByteBuffer sequence =
+        this.pcmCache.getRenderer(this, audio, duration, envelope).render(times);
+    this.metrics.recordDecode(System.nanoTime() - decodeStartNanos);
+
+    CompletableFuture<Void> voice =
+        this.mixer.play(sequence, audio.getFormat(), gain, 0);
+    this.playingVoice = voice;
+    try {
+      voice.get();
+    } catch (InterruptedException e) {
+      voice.cancel(true);
+      throw e;
+    } catch (CancellationException e) {
+      // Aborted
+      throw new InterruptedException("Chime removed from the mix");
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof LineUnavailableException cause) {
+        throw cause;
+      }
+      throw new IOException("Mixer failed to play the chime", e.getCause());
+    } finally {
+      this.playingVoice = null;
+    }
+  }
+
+  /**
+   * Checks whether the source changed, and decodes and renders it ahead of the next {@link #play}
+   * call.
+   *
+   * @param times The number of times the sound will be played.
+   * @param duration The time from the start of one repetition to the start of the next.
+   * @param volume The playback volume (0.0 to 1.0), or null for default.
+   * @throws UnsupportedAudioFileException if the audio file format is not supported.
+   * @throws IOException if an I/O error occurs.
+   */
+  @Override
+  public void prefetch(int times, Duration duration, Float volume)
+      throws UnsupportedAudioFileException, IOException {
+    this.pcmCache.refresh();
+    DecodedAudio audio = this.pcmCache.get();
+    GainEnvelope envelope =
+        GainStage.supports(audio.getFormat())
+            ? GainEnvelope.of(volume, this.fadeIn, this.fadeOut)
+            : GainEnvelope.UNITY;
+    this.pcmCache.getRenderer(this, audio, duration, envelope).render(times);
+  }
+
+  /** Lets the cache drop the rendered sequence, unless another player uses it. */
+  @Override
+  public void release() {
+    this.pcmCache.releaseRenderer(this);
+  }
+
+  /** Removes the voice that is playing from the mix. */
+  @Override
+  public void abort() {
+    CompletableFuture<Void> voice = this.playingVoice;
+    if (voice != null) {
+      voice.cancel(true);
+    }
+  }
+
+  /**
+   * Gets the playback duration of the source from the decode-once cache.
+   *
+   * @return The Duration of the audio.
+   * @throws UnsupportedAudioFileException if the audio file format is not supported.
+   * @throws IOException if an I/O error occurs when reading the source.
+   */
+  @Override
+  public Duration getAudioDuration() throws UnsupportedAudioFileException, IOException {
+    return this.pcmCache.get().getDuration();
+  }
+}
@@ -0,0 +1,43 @@
+package dev.haruki7049.jiho.core.impl;
+
+import dev.haruki7049.jiho.core.AudioSink;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.SourceDataLine;
+
+/**
+ * AudioSink whose lines discard everything written to them, for hosts without a sound device. A
+ * real-time sink plays the data away at the frame rate, so writes and drains take as long as on a
+ * device; otherwise every write is played the moment it is made.
+ */
+public class NullSink implements AudioSink {
+  private final boolean realTime;
+
+  /** Constructs a NullSink that plays at real-time pace. */
+  public NullSink() {
+    this(true);
+  }
+
+  /**
+   * Constructs a NullSink.
+   *
+   * @param realTime Whether the lines play at the frame rate, or instantly.
+   */
+  public NullSink(boolean realTime) {
+    this.realTime = realTime;
+  }
+
+  /**
+   * Gets a new line that discards its data.
+   *
+   * @param format The PCM format that will be written to the line.
+   * @return The line.
+   */
+  @Override
+  public SourceDataLine getLine(AudioFormat format) {
+    return new HeadlessLine(format, this.realTime) {
+      /** Discards the data. */
+      @Override
+      void consume(byte[] b, int off, int len) {}
+    };
+  }
+}
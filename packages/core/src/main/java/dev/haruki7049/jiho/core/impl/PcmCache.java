@@ -0,0 +1,377 @@
+package dev.haruki7049.jiho.core.impl;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.logging.Logger;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * Decode-once cache for a single audio source. The source is decoded to PCM on first use and the
+ * result is served from memory afterwards. For sources on the local file system, {@link #refresh}
+ * invalidates the cached data when the file's modification time or size changed. Serving the cache
+ * does not touch the file system, so the players call it ahead of the deadline only: sources on a
+ * slow network home directory do not delay the chime.
+ *
+ * <p>Local PCM WAV files are not decoded at all: they are memory-mapped with {@link WavFile} and
+ * the cache hands out the mapped payload. Every other source goes through Java Sound.
+ *
+ * <p>With a {@link TranscodeCache}, the source is served in the format of the output line instead:
+ * it is converted once and the converted file is mapped, unless the source already is a mappable
+ * WAV file in that format.
+ */
+public class PcmCache {
+  private static final Logger logger = Logger.getLogger("jiho.audio");
+
+  private final URL sourceUrl;
+  private final Path sourcePath; // null if the source is not a local file (e.g., a JAR resource)
+  private final TranscodeCache transcodeCache; // null to serve the source in its own format
+  private final AudioFormat targetFormat; // null to keep the source's sample rate and channels
+
+  private DecodedAudio decoded;
+  private DecodedAudio mapped; // The WAV mapping, null if not mapped (yet or at all)
+  private boolean mapAttempted;
+  private long cachedModifiedTime;
+  private long cachedSize;
+  private long resourceSize = -1; // Content length of a non-file source, looked up once
+
+  // Renderers of the current decoded audio, by period and gain envelope
+  private final Map<RendererKey, ChimeRenderer> renderers = new HashMap<>();
+  private DecodedAudio renderedAudio;
+
+  // The renderer each player used last, by player. Other renderers are dropped.
+  private final Map<Object, RendererKey> keysInUse = new WeakHashMap<>();
+
+  /**
+   * Constructs a PcmCache for the given audio source.
+   *
+   * @param sourceUrl The URL to the audio source.
+   */
+  public PcmCache(URL sourceUrl) {
+    this(sourceUrl, null, null);
+  }
+
+  /**
+   * Constructs a PcmCache serving the audio source converted to the format of the output line.
+   *
+   * @param sourceUrl The URL to the audio source.
+   * @param transcodeCache The persistent cache of converted sources, or null to not convert.
+   * @param targetFormat The format of the output line, see {@link TranscodeCache#resolve}, or null
+   *     to keep the sample rate and channels of the source.
+   */
+  public PcmCache(URL sourceUrl, TranscodeCache transcodeCache, AudioFormat targetFormat) {
+    this.sourceUrl = sourceUrl;
+    this.sourcePath = toLocalPath(sourceUrl);
+    this.transcodeCache = transcodeCache;
+    this.targetFormat = targetFormat;
+  }
+
+  /**
+   * Gets the URL of the cached source.
+   *
+   * @return The source URL.
+   */
+  public URL getSourceUrl() {
+    return this.sourceUrl;
+  }
+
+  /**
+   * Gets the local path of the cached source.
+   *
+   * @return The path, or null if the source is not a local file.
+   */
+  public Path getSourcePath() {
+    return this.sourcePath;
+  }
+
+  /**
+   * Drops the cached data if the source file changed since it was decoded, so that the next {@link
+   * #get()} decodes it again.
+   *
+   * @throws IOException if the file attributes cannot be read.
+   */
+  public synchronized void refresh() throws IOException {
+    this.invalidateIfChanged();
+  }
+
+  /**
+   * Gets the decoded audio, decoding the source if it has not been decoded yet or since the last
+   * {@link #refresh} found it changed. Once decoded, the file is not looked at again. For mappable
+   * WAV files this is the mapped payload, with a transcode cache it is the mapped conversion to the
+   * target format.
+   *
+   * @return The decoded audio.
+   * @throws UnsupportedAudioFileException if the audio file format is not supported.
+   * @throws IOException if an I/O error occurs when reading the source.
+   */
+  public synchronized DecodedAudio get() throws UnsupportedAudioFileException, IOException {
+    if (this.decoded == null) {
+      // Remember the attributes of the file that is decoded, for refresh()
+      this.invalidateIfChanged();
+      DecodedAudio wav = this.getMapped();
+      if (this.transcodeCache != null) {
+        this.decoded = this.transcode(wav);
+      } else {
+        this.decoded = wav != null ? wav : decode(this.sourceUrl);
+      }
+    }
+
+    return this.decoded;
+  }
+
+  /**
+   * Gets the source in the target format from the transcode cache.
+   *
+   * @param wav The mapped source, or null if it is not a mappable WAV file.
+   * @return The mapped source if it already is in the target format, the conversion otherwise.
+   * @throws UnsupportedAudioFileException if the source cannot be decoded or converted.
+   * @throws IOException if an I/O error occurs when reading the source.
+   */
+  private DecodedAudio transcode(DecodedAudio wav)
+      throws UnsupportedAudioFileException, IOException {
+    AudioFormat sourceFormat =
+        wav != null ? wav.getFormat() : AudioSystem.getAudioFileFormat(this.sourceUrl).getFormat();
+    AudioFormat target = TranscodeCache.resolve(sourceFormat, this.targetFormat);
+    if (wav != null && wav.getFormat().matches(target)) {
+      return wav;
+    }
+    return this.transcodeCache.get(this.sourceUrl, target);
+  }
+
+  /**
+   * Gets the renderer of chime sequences for the given audio and period, without a gain envelope.
+   *
+   * @param player The player the renderer is for, see {@link #getRenderer(Object, DecodedAudio,
+   *     Duration, GainEnvelope)}.
+   * @param audio The decoded audio, as returned by {@link #get()}.
+   * @param period The time between repetition starts.
+   * @return The renderer.
+   */
+  public ChimeRenderer getRenderer(Object player, DecodedAudio audio, Duration period) {
+    return this.getRenderer(player, audio, period, GainEnvelope.UNITY);
+  }
+
+  /**
+   * Gets the renderer of chime sequences for the given audio, period and gain envelope, so the
+   * envelope is applied once when the first sequence is rendered rather than on every chime.
+   *
+   * <p>Renderers are shared by every player using this cache with the same period and envelope, so
+   * a sequence is rendered once however many players use it. Each distinct period and envelope
+   * in use, such as one per volume, holds a processed copy of the sound and a rendered sequence of
+   * {@code 11 * period + sound}. Only the renderer each player asked for last is kept: one whose
+   * players all moved on to other settings, or were released, is dropped.
+   *
+   * @param player The player the renderer is for, which keeps it in use until it asks for another
+   *     one or is {@link #releaseRenderer released}. It is only weakly referenced.
+   * @param audio The decoded audio, as returned by {@link #get()}.
+   * @param period The time between repetition starts.
+   * @param envelope The gain envelope, see {@link ChimeRenderer#ChimeRenderer(DecodedAudio,
+   *     Duration, GainEnvelope)}.
+   * @return The renderer.
+   */
+  public synchronized ChimeRenderer getRenderer(
+      Object player, DecodedAudio audio, Duration period, GainEnvelope envelope) {
+    if (audio != this.renderedAudio) {
+      // The source changed, drop the renderings of the old audio
+      this.renderers.clear();
+      this.renderedAudio = audio;
+    }
+
+    RendererKey key = new RendererKey(period, envelope);
+    if (!key.equals(this.keysInUse.put(player, key))) {
+      this.evictUnused();
+    }
+    return this.renderers.computeIfAbsent(key, k -> new ChimeRenderer(audio, period, envelope));
+  }
+
+  /**
+   * Tells that a player no longer needs its renderer, which is dropped unless another player uses
+   * it.
+   *
+   * @param player The player.
+   */
+  public synchronized void releaseRenderer(Object player) {
+    if (this.keysInUse.remove(player) != null) {
+      this.evictUnused();
+    }
+  }
+
+  /** Drops the renderers no player uses anymore. */
+  private void evictUnused() {
+    this.renderers.keySet().retainAll(new HashSet<>(this.keysInUse.values()));
+  }
+
+  /**
+   * Gets the memory-mapped payload of the source without ever decoding it. Large sources can be
+   * written to a line from this mapping in chunks. Like {@link #get()}, the file is only looked at
+   * again after {@link #refresh} found it changed.
+   *
+   * @return The mapped audio, or null if the source is not a local PCM WAV file.
+   * @throws IOException if an I/O error occurs when reading the source.
+   */
+  public synchronized DecodedAudio getMapped() throws IOException {
+    if (!this.mapAttempted && this.sourcePath != null) {
+      this.invalidateIfChanged();
+      this.mapAttempted = true;
+      WavFile wavFile = WavFile.map(this.sourcePath);
+      if (wavFile != null) {
+        this.mapped = new DecodedAudio(wavFile);
+        logger.fine("Mapped " + this.sourcePath + " as " + wavFile.getFormat());
+      } else {
+        logger.fine("Not a mappable PCM WAV file, using Java Sound: " + this.sourcePath);
+      }
+    }
+
+    return this.mapped;
+  }
+
+  /**
+   * Drops the cached data if the source file's modification time or size changed.
+   *
+   * @throws IOException if the file attributes cannot be read.
+   */
+  private void invalidateIfChanged() throws IOException {
+    if (this.sourcePath == null) {
+      // Resources inside a JAR cannot change while we are running
+      return;
+    }
+
+    BasicFileAttributes attributes =
+        Files.readAttributes(this.sourcePath, BasicFileAttributes.class);
+    long modifiedTime = attributes.lastModifiedTime().toMillis();
+    long size = attributes.size();
+
+    if (modifiedTime != this.cachedModifiedTime || size != this.cachedSize) {
+      if (this.decoded != null || this.mapAttempted) {
+        logger.info("Sound source changed, decoding again: " + this.sourcePath);
+      }
+      this.decoded = null;
+      this.mapped = null;
+      this.mapAttempted = false;
+      this.cachedModifiedTime = modifiedTime;
+      this.cachedSize = size;
+    }
+  }
+
+  /**
+   * Gets the size of the encoded source without decoding it.
+   *
+   * @return The size in bytes, or -1 if it is unknown.
+   * @throws IOException if an I/O error occurs when reading the file attributes.
+   */
+  public synchronized long getSourceSize() throws IOException {
+    if (this.sourcePath != null) {
+      return Files.size(this.sourcePath);
+    }
+    if (this.resourceSize < 0) {
+      this.resourceSize = this.sourceUrl.openConnection().getContentLengthLong();
+    }
+    return this.resourceSize;
+  }
+
+  /**
+   * Opens a stream producing the PCM data of the source, converting non-PCM encodings on the fly.
+   * Nothing is decoded in advance, so this is suitable for sources of any size.
+   *
+   * @param sourceUrl The URL to the audio source.
+   * @return The PCM stream. The caller must close it.
+   * @throws UnsupportedAudioFileException if the audio file format is not supported.
+   * @throws IOException if an I/O error occurs when opening the source.
+   */
+  static AudioInputStream openPcmStream(URL sourceUrl)
+      throws UnsupportedAudioFileException, IOException {
+    return toPcm(AudioSystem.getAudioInputStream(sourceUrl));
+  }
+
+  /**
+   * Decodes the whole audio source into PCM. Non-PCM encodings are converted to 16-bit signed PCM.
+   *
+   * @param sourceUrl The URL to the audio source.
+   * @return The decoded audio.
+   * @throws UnsupportedAudioFileException if the audio file format is not supported.
+   * @throws IOException if an I/O error occurs when reading the source.
+   */
+  static DecodedAudio decode(URL sourceUrl) throws UnsupportedAudioFileException, IOException {
+    long start = System.nanoTime();
+
+    // Use try-with-resources to ensure AudioInputStream is closed
+    try (AudioInputStream audioStream = AudioSystem.getAudioInputStream(sourceUrl);
+        AudioInputStream pcmStream = toPcm(audioStream)) {
+      byte[] data = pcmStream.readAllBytes();
+      DecodedAudio decoded = new DecodedAudio(pcmStream.getFormat(), data);
+
+      logger.fine(
+          "Decoded "
+              + sourceUrl
+              + " ("
+              + data.length
+              + " bytes) in "
+              + (System.nanoTime() - start) / 1000000
+              + " ms");
+      return decoded;
+    }
+  }
+
+  /**
+   * Wraps the stream in a converting stream if its encoding is not plain PCM.
+   *
+   * @param audioStream The source stream.
+   * @return A stream producing PCM data.
+   */
+  private static AudioInputStream toPcm(AudioInputStream audioStream) {
+    AudioFormat format = audioStream.getFormat();
+    AudioFormat.Encoding encoding = format.getEncoding();
+    if (AudioFormat.Encoding.PCM_SIGNED.equals(encoding)
+        || AudioFormat.Encoding.PCM_UNSIGNED.equals(encoding)) {
+      return audioStream;
+    }
+
+    AudioFormat pcmFormat =
+        new AudioFormat(
+            AudioFormat.Encoding.PCM_SIGNED,
+            format.getSampleRate(),
+            16,
+            format.getChannels(),
+            format.getChannels() * 2,
+            format.getSampleRate(),
+            false);
+    return AudioSystem.getAudioInputStream(pcmFormat, audioStream);
+  }
+
+  /**
+   * Key of a cached renderer.
+   *
+   * @param period The time between repetition starts.
+   * @param envelope The gain envelope.
+   */
+  private record RendererKey(Duration period, GainEnvelope envelope) {}
+
+  /**
+   * Converts a "file:" URL into a local path.
+   *
+   * @param url The URL to convert.
+   * @return The local path, or null if the URL does not point to a local file.
+   */
+  private static Path toLocalPath(URL url) {
+    if (!"file".equals(url.getProtocol())) {
+      return null;
+    }
+    try {
+      return Paths.get(url.toURI());
+    } catch (URISyntaxException | IllegalArgumentException e) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,67 @@
+package dev.haruki7049.jiho.core.impl;
+
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * Pool of {@link PcmCache}s, one per audio source and target format. Players created with caches
+ * from the same pool share the decoded audio and the rendered sequences of every source they have
+ * in common, so many players of a few sounds hold only a few decoded copies.
+ */
+public class PcmCachePool {
+  private final TranscodeCache transcodeCache; // null to serve sources in their own format
+
+  // Keyed by the URL's text, URL.equals() may resolve host names, and the target format
+  private final Map<String, PcmCache> caches = new ConcurrentHashMap<>();
+
+  /** Constructs a PcmCachePool whose caches serve every source in its own format. */
+  public PcmCachePool() {
+    this(null);
+  }
+
+  /**
+   * Constructs a PcmCachePool whose caches convert their sources through a transcode cache.
+   *
+   * @param transcodeCache The persistent cache of converted sources, or null to not convert.
+   */
+  public PcmCachePool(TranscodeCache transcodeCache) {
+    this.transcodeCache = transcodeCache;
+  }
+
+  /**
+   * Gets the cache of the given source, creating it on first use.
+   *
+   * @param sourceUrl The URL to the audio source.
+   * @return The shared cache.
+   */
+  public PcmCache get(URL sourceUrl) {
+    return this.get(sourceUrl, null);
+  }
+
+  /**
+   * Gets the cache of the given source in the given target format, creating it on first use.
+   * Without a transcode cache the target format is ignored.
+   *
+   * @param sourceUrl The URL to the audio source.
+   * @param targetFormat The format of the output line, see {@link TranscodeCache#resolve}, or null
+   *     to keep the sample rate and channels of the source.
+   * @return The shared cache.
+   */
+  public PcmCache get(URL sourceUrl, AudioFormat targetFormat) {
+    AudioFormat target = this.transcodeCache != null ? targetFormat : null;
+    String key = sourceUrl.toExternalForm() + (target != null ? " " + target : "");
+    return this.caches.computeIfAbsent(
+        key, k -> new PcmCache(sourceUrl, this.transcodeCache, target));
+  }
+
+  /**
+   * Gets the number of caches in the pool, one per distinct source and target format.
+   *
+   * @return The cache count.
+   */
+  public int size() {
+    return this.caches.size();
+  }
+}
@@ -0,0 +1,203 @@
+package dev.haruki7049.jiho.core.impl;
+
+import dev.dirs.ProjectDirectories;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Properties;
+import java.util.logging.Logger;
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * Persistent cache of {@link AudioProbe} results, so that startup does not even read the audio
+ * headers again. Entries are keyed by absolute path and are only used while the file's size and
+ * modification time match the ones recorded with the entry.
+ *
+ * <p>The cache is a small properties file, by default in the user cache directory.
+ */
+public class ProbeCache {
+  private static final Logger logger = Logger.getLogger("jiho.audio");
+
+  private static final String CACHE_FILE_NAME = "probe-cache.properties";
+
+  private final Path cacheFile; // null for an in-memory cache
+  private Properties entries; // Loaded lazily
+
+  /**
+   * Constructs a ProbeCache.
+   *
+   * @param cacheFile The file the cache is persisted to, or null to keep it in memory only.
+   */
+  public ProbeCache(Path cacheFile) {
+    this.cacheFile = cacheFile;
+  }
+
+  /**
+   * Gets the default location of the cache file, in the user cache directory.
+   *
+   * @return The cache file path.
+   */
+  public static Path defaultCacheFile() {
+    ProjectDirectories projDirs = ProjectDirectories.from("dev", "haruki7049", "jiho");
+    return Paths.get(projDirs.cacheDir, CACHE_FILE_NAME);
+  }
+
+  /**
+   * Probes a file, using the cached result if the file did not change since it was recorded.
+   *
+   * @param source The audio file.
+   * @return The probe result, or null if the file is not a WAV, AIFF or AU file.
+   * @throws IOException if the file cannot be read.
+   */
+  public synchronized ProbedAudio probe(Path source) throws IOException {
+    BasicFileAttributes attributes = Files.readAttributes(source, BasicFileAttributes.class);
+    String key = source.toAbsolutePath().toString();
+    String stamp = attributes.size() + ":" + attributes.lastModifiedTime().toMillis();
+
+    Properties properties = this.load();
+    String cached = properties.getProperty(key);
+    if (cached != null && cached.startsWith(stamp + ";")) {
+      ProbedAudio probed = decode(cached.substring(stamp.length() + 1));
+      if (probed != null) {
+        return probed;
+      }
+    }
+
+    ProbedAudio probed = AudioProbe.probe(source);
+    if (probed != null) {
+      properties.setProperty(key, stamp + ";" + encode(probed));
+      this.save(properties);
+    }
+    return probed;
+  }
+
+  /**
+   * Loads the cache file on first use. A missing or unreadable file results in an empty cache.
+   *
+   * @return The cache entries.
+   */
+  private Properties load() {
+    if (this.entries != null) {
+      return this.entries;
+    }
+
+    this.entries = new Properties();
+    if (this.cacheFile != null) {
+      try (Reader reader = Files.newBufferedReader(this.cacheFile)) {
+        this.entries.load(reader);
+      } catch (NoSuchFileException e) {
+        // First run, nothing cached yet
+      } catch (IOException | IllegalArgumentException e) {
+        logger.warning("Ignoring unreadable probe cache " + this.cacheFile + ": " + e);
+        this.entries.clear();
+      }
+    }
+    return this.entries;
+  }
+
+  /**
+   * Writes the cache file atomically. Failures are logged, the cache keeps working in memory.
+   *
+   * @param properties The entries to write.
+   */
+  private void save(Properties properties) {
+    if (this.cacheFile == null) {
+      return;
+    }
+
+    try {
+      Files.createDirectories(this.cacheFile.getParent());
+      Path temp = Files.createTempFile(this.cacheFile.getParent(), CACHE_FILE_NAME, ".tmp");
+      try (Writer writer = Files.newBufferedWriter(temp)) {
+        properties.store(writer, "jiho audio probe cache");
+      }
+      Files.move(
+          temp,
+          this.cacheFile,
+          StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      logger.warning("Could not write probe cache " + this.cacheFile + ": " + e);
+    }
+  }
+
+  /**
+   * Serializes a probe result into a cache value.
+   *
+   * @param probed The probe result.
+   * @return The serialized value.
+   */
+  static String encode(ProbedAudio probed) {
+    AudioFormat format = probed.getFormat();
+    return probed.getFrameLength()
+        + ";"
+        + format.getEncoding()
+        + ";"
+        + format.getSampleRate()
+        + ";"
+        + format.getSampleSizeInBits()
+        + ";"
+        + format.getChannels()
+        + ";"
+        + format.getFrameSize()
+        + ";"
+        + format.getFrameRate()
+        + ";"
+        + format.isBigEndian();
+  }
+
+  /**
+   * Deserializes a cache value.
+   *
+   * @param value The serialized value.
+   * @return The probe result, or null if the value is malformed.
+   */
+  static ProbedAudio decode(String value) {
+    String[] fields = value.split(";");
+    if (fields.length != 8) {
+      return null;
+    }
+    try {
+      AudioFormat format =
+          new AudioFormat(
+              toEncoding(fields[1]),
+              Float.parseFloat(fields[2]),
+              Integer.parseInt(fields[3]),
+              Integer.parseInt(fields[4]),
+              Integer.parseInt(fields[5]),
+              Float.parseFloat(fields[6]),
+              Boolean.parseBoolean(fields[7]));
+      return new ProbedAudio(format, Long.parseLong(fields[0]));
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Maps an encoding name back to the predefined encoding instance, if there is one.
+   *
+   * @param name The encoding name.
+   * @return The encoding.
+   */
+  private static AudioFormat.Encoding toEncoding(String name) {
+    AudioFormat.Encoding[] known = {
+      AudioFormat.Encoding.PCM_SIGNED,
+      AudioFormat.Encoding.PCM_UNSIGNED,
+      AudioFormat.Encoding.PCM_FLOAT,
+      AudioFormat.Encoding.ULAW,
+      AudioFormat.Encoding.ALAW
+    };
+    for (AudioFormat.Encoding encoding : known) {
+      if (encoding.toString().equals(name)) {
+        return encoding;
+      }
+    }
+    return new AudioFormat.Encoding(name);
+  }
+}
@@ -0,0 +1,59 @@
+package dev.haruki7049.jiho.core.impl;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * Immutable result of a header-only probe: the format of an audio file and its length in frames,
+ * read without touching the audio payload.
+ */
+public class ProbedAudio {
+  private final AudioFormat format;
+  private final long frameLength;
+
+  /**
+   * Constructs a ProbedAudio.
+   *
+   * @param format The format declared in the header.
+   * @param frameLength The number of sample frames, or -1 if the header does not say.
+   */
+  public ProbedAudio(AudioFormat format, long frameLength) {
+    this.format = format;
+    this.frameLength = frameLength;
+  }
+
+  /**
+   * Gets the format declared in the header.
+   *
+   * @return The {@link AudioFormat}.
+   */
+  public AudioFormat getFormat() {
+    return this.format;
+  }
+
+  /**
+   * Gets the number of sample frames.
+   *
+   * @return The frame count, or -1 if it is unknown.
+   */
+  public long getFrameLength() {
+    return this.frameLength;
+  }
+
+  /**
+   * Gets the playback length.
+   *
+   * @return The Duration of the audio, or null if the frame count or frame rate is unknown.
+   */
+  public Duration getDuration() {
+    if (this.frameLength < 0 || this.format.getFrameRate() <= 0) {
+      return null;
+    }
+
+    // Calculate duration in microseconds
+    long microseconds = (long) ((this.frameLength / this.format.getFrameRate()) * 1000000);
+
+    return Duration.of(microseconds, ChronoUnit.MICROS);
+  }
+}
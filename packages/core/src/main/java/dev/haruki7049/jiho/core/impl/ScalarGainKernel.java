@@ -0,0 +1,69 @@
+package dev.haruki7049.jiho.core.impl;
+
+/** {@link GainKernel} with plain loops, used when the Vector API is not available. */
+final class ScalarGainKernel implements GainKernel {
+
+  /**
+   * Multiplies samples by a constant gain, one sample at a time.
+   *
+   * @param samples The interleaved samples, modified in place.
+   * @param from The first sample, at the start of a frame.
+   * @param to The end of the range (exclusive).
+   * @param gain The gain.
+   */
+  @Override
+  public void scale(short[] samples, int from, int to, float gain) {
+    for (int i = from; i < to; i++) {
+      samples[i] = clamp(samples[i] * gain);
+    }
+  }
+
+  /**
+   * Multiplies samples by a linearly changing gain, one sample at a time.
+   *
+   * @param samples The interleaved samples, modified in place.
+   * @param from The first sample, at the start of a frame.
+   * @param to The end of the range (exclusive), at the end of a frame.
+   * @param channels The number of samples per frame.
+   * @param start The gain of the first frame.
+   * @param step The change of the gain from one frame to the next.
+   */
+  @Override
+  public void ramp(short[] samples, int from, int to, int channels, float start, float step) {
+    this.ramp(samples, from, to, channels, start, step, 0);
+  }
+
+  /**
+   * Multiplies samples by a linearly changing gain that started before the range, so that the
+   * k-th frame of the range gets {@code start + step * (firstFrame + k)}, rounded the same as if
+   * the whole ramp had been computed here.
+   *
+   * @param samples The interleaved samples, modified in place.
+   * @param from The first sample, at the start of a frame.
+   * @param to The end of the range (exclusive), at the end of a frame.
+   * @param channels The number of samples per frame.
+   * @param start The gain of the first frame of the ramp.
+   * @param step The change of the gain from one frame to the next.
+   * @param firstFrame The frame of the ramp the range starts at.
+   */
+  void ramp(
+      short[] samples, int from, int to, int channels, float start, float step, int firstFrame) {
+    int i = from;
+    for (int frame = firstFrame; i < to; frame++) {
+      float gain = start + step * (float) frame;
+      for (int end = Math.min(i + channels, to); i < end; i++) {
+        samples[i] = clamp(samples[i] * gain);
+      }
+    }
+  }
+
+  /**
+   * Converts a scaled sample back to 16 bits, clamping it instead of letting it wrap around.
+   *
+   * @param value The scaled sample.
+   * @return The 16-bit sample, truncated toward zero.
+   */
+  static short clamp(float value) {
+    return (short) (int) Math.max(-32768.0f, Math.min(32767.0f, value));
+  }
+}
@@ -0,0 +1,453 @@
+package dev.haruki7049.jiho.core.impl;
+
+import dev.haruki7049.jiho.core.AudioSink;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.logging.Logger;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+
+/**
+ * Plays any number of concurrent voices through a single SourceDataLine. Voices are summed in
+ * fixed-size blocks on one audio thread and clipped to the output range, so chimes that fire at the
+ * same moment neither compete for the mixer's lines nor wait for each other.
+ *
+ * <p>Each voice is PCM data with its own gain and start offset. Voices in a different sample rate
+ * or channel count than the output are converted on the fly, by linear interpolation and by
+ * repeating or dropping channels. The line is opened with the first voice, stopped when the last
+ * voice has drained and started again by the next one.
+ */
+public class SoftwareMixer implements AutoCloseable {
+  private static final Logger logger = Logger.getLogger("jiho.audio");
+
+  /** Output format used unless configured otherwise: 44.1 kHz, 16-bit signed, stereo. */
+  public static final AudioFormat DEFAULT_FORMAT = new AudioFormat(44100f, 16, 2, true, false);
+
+  /** Number of frames mixed at a time unless configured otherwise, about 23 ms at 44.1 kHz. */
+  public static final int DEFAULT_BLOCK_FRAMES = 1024;
+
+  // Blocks the line buffer holds, which bounds the time from submission to playback
+  private static final int LINE_BUFFER_BLOCKS = 4;
+
+  private final AudioSink sink;
+  private final AudioFormat format;
+  private final int blockFrames;
+  private final int channels;
+
+  // Voices handed over to the audio thread
+  private final Queue<Voice> submitted = new ConcurrentLinkedQueue<>();
+  private final Object lock = new Object();
+  private boolean closed; // Guarded by lock
+  private Thread thread; // Guarded by lock
+
+  // Owned by the audio thread
+  private final List<Voice> active = new ArrayList<>();
+  private final List<Voice> finishing = new ArrayList<>();
+  private final float[] mix;
+  private final byte[] block;
+  private SourceDataLine line;
+  private boolean lineStarted;
+  private long mixedFrames; // Frames written to the line since it was opened
+
+  private volatile long clippedSamples;
+
+  /**
+   * Constructs a SoftwareMixer with the default output format and block size.
+   *
+   * @param sink The sink that provides the output line.
+   */
+  public SoftwareMixer(AudioSink sink) {
+    this(sink, DEFAULT_FORMAT, DEFAULT_BLOCK_FRAMES);
+  }
+
+  /**
+   * Constructs a SoftwareMixer.
+   *
+   * @param sink The sink that provides the output line.
+   * @param format The output format. Must be 16-bit signed PCM.
+   * @param blockFrames The number of frames mixed at a time.
+   * @throws IllegalArgumentException if the format is not 16-bit signed PCM or the block is empty.
+   */
+  public SoftwareMixer(AudioSink sink, AudioFormat format, int blockFrames) {
+    if (!AudioFormat.Encoding.PCM_SIGNED.equals(format.getEncoding())
+        || format.getSampleSizeInBits() != 16) {
+      throw new IllegalArgumentException("Mixer output must be 16-bit signed PCM: " + format);
+    }
+    if (blockFrames <= 0) {
+      throw new IllegalArgumentException("blockFrames must be positive: " + blockFrames);
+    }
+
+    this.sink = sink;
+    this.format = format;
+    this.blockFrames = blockFrames;
+    this.channels = format.getChannels();
+    this.mix = new float[blockFrames * this.channels];
+    this.block = new byte[blockFrames * format.getFrameSize()];
+  }
+
+  /**
+   * Gets the output format of the mixer.
+   *
+   * @return The format written to the line.
+   */
+  public AudioFormat getFormat() {
+    return this.format;
+  }
+
+  /**
+   * Gets the number of output samples that exceeded the output range and were clipped.
+   *
+   * @return The clipped sample count since the mixer was created.
+   */
+  public long getClippedSamples() {
+    return this.clippedSamples;
+  }
+
+  /**
+   * Adds a voice to the mix.
+   *
+   * @param data The PCM data, from its position to its limit. It is read but never modified.
+   * @param dataFormat The PCM format of the data. Signed or unsigned, 8 to 32 bits per sample.
+   * @param gain The linear gain applied to the voice, 1.0 for unchanged.
+   * @param startOffsetFrames The number of output frames between the first block mixed after this
+   *     call and the first frame of the voice.
+   * @return A future completed when the voice has been played. Cancelling it removes the voice.
+   * @throws IllegalArgumentException if the data format is not supported.
+   * @throws IllegalStateException if the mixer is closed.
+   */
+  public CompletableFuture<Void> play(
+      ByteBuffer data, AudioFormat dataFormat, float gain, long startOffsetFrames) {
+    Voice voice = new Voice(data, dataFormat, gain, Math.max(0, startOffsetFrames), this.format);
+
+    synchronized (this.lock) {
+      if (this.closed) {
+        throw new IllegalStateException("Mixer is closed");
+      }
+      this.submitted.add(voice);
+      if (this.thread == null) {
+        this.thread =
+            Thread.ofPlatform()
+                .daemon()
+                .priority(Thread.MAX_PRIORITY)
+                .name("jiho-mixer")
+                .start(this::runMixer);
+      }
+      this.lock.notifyAll();
+    }
+
+    return voice.done;
+  }
+
+  /** Stops the audio thread, closes the line and cancels the voices that have not finished. */
+  @Override
+  public void close() {
+    Thread mixerThread;
+    synchronized (this.lock) {
+      this.closed = true;
+      mixerThread = this.thread;
+      this.lock.notifyAll();
+    }
+    if (mixerThread == null) {
+      return;
+    }
+
+    mixerThread.interrupt();
+    try {
+      mixerThread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /** Body of the audio thread: mixes and writes blocks while there are voices. */
+  private void runMixer() {
+    try {
+      while (this.awaitVoices()) {
+        try {
+          this.mixAndWrite();
+        } catch (LineUnavailableException | RuntimeException e) {
+          logger.warning("Mixer output failed: " + e);
+          this.failAll(e);
+          this.closeLine();
+        }
+      }
+    } finally {
+      this.closeLine();
+      this.failAll(new IllegalStateException("Mixer is closed"));
+    }
+  }
+
+  /**
+   * Waits until there is something to play. With nothing left, drains and stops the line first.
+   *
+   * @return false if the mixer was closed.
+   */
+  private boolean awaitVoices() {
+    if (!this.active.isEmpty() || !this.submitted.isEmpty()) {
+      return !Thread.currentThread().isInterrupted();
+    }
+
+    this.idleLine();
+    synchronized (this.lock) {
+      while (this.submitted.isEmpty() && !this.closed) {
+        try {
+          this.lock.wait();
+        } catch (InterruptedException e) {
+          return false;
+        }
+      }
+      return !this.closed;
+    }
+  }
+
+  /** Moves the submitted voices to the active ones, starting at the next block. */
+  private void takeSubmitted() {
+    Voice voice;
+    while ((voice = this.submitted.poll()) != null) {
+      voice.startFrame = this.mixedFrames + voice.startOffsetFrames;
+      this.active.add(voice);
+    }
+  }
+
+  /**
+   * Mixes one block of the active voices and writes it to the line, opening or starting the line
+   * if needed.
+   *
+   * @throws LineUnavailableException if the line cannot be opened.
+   */
+  private void mixAndWrite() throws LineUnavailableException {
+    if (this.line == null) {
+      this.line = this.sink.getLine(this.format);
+      this.line.open(this.format, this.block.length * LINE_BUFFER_BLOCKS);
+      this.mixedFrames = 0;
+      logger.fine("Mixer line opened: " + this.format);
+    }
+
+    this.takeSubmitted();
+    this.mixBlock();
+
+    if (!this.lineStarted) {
+      this.line.start();
+      this.lineStarted = true;
+    }
+    this.line.write(this.block, 0, this.block.length);
+    this.mixedFrames += this.blockFrames;
+
+    this.completeFinished(this.line.getLongFramePosition());
+  }
+
+  /** Sums the active voices into the block, removing voices that ended or were cancelled. */
+  private void mixBlock() {
+    Arrays.fill(this.mix, 0f);
+    final long blockStart = this.mixedFrames;
+
+    Iterator<Voice> voices = this.active.iterator();
+    while (voices.hasNext()) {
+      Voice voice = voices.next();
+      if (voice.done.isDone()) {
+        // Cancelled
+        voices.remove();
+        continue;
+      }
+
+      int frame = (int) Math.max(0, Math.min(this.blockFrames, voice.startFrame - blockStart));
+      for (; frame < this.blockFrames; frame++) {
+        double position = (blockStart + frame - voice.startFrame) * voice.step;
+        if (position >= voice.frames) {
+          break;
+        }
+        voice.mixFrame(position, this.mix, frame * this.channels, this.channels);
+      }
+
+      if ((blockStart + frame - voice.startFrame) * voice.step >= voice.frames) {
+        voices.remove();
+        voice.endFrame = blockStart + frame;
+        this.finishing.add(voice);
+      }
+    }
+
+    this.writeBlock();
+  }
+
+  /** Converts the float mix into the output block, clipping samples outside the output range. */
+  private void writeBlock() {
+    boolean bigEndian = this.format.isBigEndian();
+    long clipped = 0;
+    for (int i = 0; i < this.mix.length; i++) {
+      float value = this.mix[i];
+      if (value > 1f || value < -1f) {
+        clipped++;
+        value = Math.max(-1f, Math.min(1f, value));
+      }
+      int sample = Math.round(value * Short.MAX_VALUE);
+      this.block[2 * i + (bigEndian ? 1 : 0)] = (byte) sample;
+      this.block[2 * i + (bigEndian ? 0 : 1)] = (byte) (sample >> 8);
+    }
+    if (clipped > 0) {
+      this.clippedSamples += clipped;
+    }
+  }
+
+  /**
+   * Completes the voices whose last frame has been played.
+   *
+   * @param playedFrames The frame position of the line.
+   */
+  private void completeFinished(long playedFrames) {
+    Iterator<Voice> voices = this.finishing.iterator();
+    while (voices.hasNext()) {
+      Voice voice = voices.next();
+      if (voice.endFrame <= playedFrames) {
+        voices.remove();
+        voice.done.complete(null);
+      }
+    }
+  }
+
+  /** Lets the line play out what was written, then stops it until the next voice. */
+  private void idleLine() {
+    if (this.line != null && this.lineStarted) {
+      this.line.drain();
+      this.line.stop();
+      this.lineStarted = false;
+    }
+    this.completeFinished(Long.MAX_VALUE);
+  }
+
+  /** Closes the line. The next voice opens a new one. */
+  private void closeLine() {
+    if (this.line != null) {
+      this.line.close();
+      this.line = null;
+      this.lineStarted = false;
+    }
+  }
+
+  /**
+   * Fails every voice that has not been played yet.
+   *
+   * @param cause The reason.
+   */
+  private void failAll(Throwable cause) {
+    for (List<Voice> voices : List.of(this.active, this.finishing)) {
+      voices.forEach(voice -> voice.done.completeExceptionally(cause));
+      voices.clear();
+    }
+    Voice voice;
+    while ((voice = this.submitted.poll()) != null) {
+      voice.done.completeExceptionally(cause);
+    }
+  }
+
+  /** A voice in the mix. */
+  private static final class Voice {
+    private final ByteBuffer data;
+    private final AudioFormat format;
+    private final int frameSize;
+    private final int sampleBytes;
+    private final int channels;
+    private final long frames;
+    private final float gain;
+    private final double step; // Source frames per output frame
+    private final long startOffsetFrames;
+    private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+    private long startFrame; // Output frame of the first frame of the voice
+    private long endFrame; // Output frame after the last frame of the voice
+
+    /**
+     * Constructs a Voice.
+     *
+     * @param data The PCM data.
+     * @param format The PCM format of the data.
+     * @param gain The linear gain.
+     * @param startOffsetFrames The start offset in output frames.
+     * @param output The output format of the mixer.
+     * @throws IllegalArgumentException if the format is not supported.
+     */
+    Voice(
+        ByteBuffer data,
+        AudioFormat format,
+        float gain,
+        long startOffsetFrames,
+        AudioFormat output) {
+      AudioFormat.Encoding encoding = format.getEncoding();
+      int bits = format.getSampleSizeInBits();
+      if (!(AudioFormat.Encoding.PCM_SIGNED.equals(encoding)
+              || AudioFormat.Encoding.PCM_UNSIGNED.equals(encoding))
+          || bits % 8 != 0
+          || bits < 8
+          || bits > 32) {
+        throw new IllegalArgumentException("Unsupported voice format: " + format);
+      }
+
+      this.data = data.slice();
+      this.format = format;
+      this.frameSize = format.getFrameSize();
+      this.sampleBytes = bits / 8;
+      this.channels = format.getChannels();
+      this.frames = this.data.remaining() / this.frameSize;
+      this.gain = gain;
+      this.step = format.getSampleRate() / output.getSampleRate();
+      this.startOffsetFrames = startOffsetFrames;
+    }
+
+    /**
+     * Adds one output frame of this voice to the mix, interpolating between source frames.
+     *
+     * @param position The position in source frames.
+     * @param mix The mix buffer.
+     * @param offset The index of the output frame's first sample in the mix.
+     * @param outputChannels The number of output channels.
+     */
+    void mixFrame(double position, float[] mix, int offset, int outputChannels) {
+      int index = (int) position;
+      float fraction = (float) (position - index);
+      int next = index + 1 < this.frames ? index + 1 : index;
+
+      for (int channel = 0; channel < outputChannels; channel++) {
+        // Mono is repeated on every output channel, extra channels are dropped
+        int source = Math.min(channel, this.channels - 1);
+        float value = this.sample(index, source);
+        if (fraction > 0f) {
+          value += (this.sample(next, source) - value) * fraction;
+        }
+        mix[offset + channel] += value * this.gain;
+      }
+    }
+
+    /**
+     * Reads one sample as a float in [-1, 1).
+     *
+     * @param frame The source frame.
+     * @param channel The source channel.
+     * @return The sample value.
+     */
+    private float sample(int frame, int channel) {
+      int base = frame * this.frameSize + channel * this.sampleBytes;
+      int bits = this.sampleBytes * 8;
+
+      long value = 0;
+      for (int i = 0; i < this.sampleBytes; i++) {
+        int shift = this.format.isBigEndian() ? (this.sampleBytes - 1 - i) * 8 : i * 8;
+        value |= (long) (this.data.get(base + i) & 0xff) << shift;
+      }
+
+      if (AudioFormat.Encoding.PCM_UNSIGNED.equals(this.format.getEncoding())) {
+        value -= 1L << (bits - 1);
+      } else if ((value & (1L << (bits - 1))) != 0) {
+        // Sign extend
+        value -= 1L << bits;
+      }
+
+      return (float) (value / (double) (1L << (bits - 1)));
+    }
+  }
+}
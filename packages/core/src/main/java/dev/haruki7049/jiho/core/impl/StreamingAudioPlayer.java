@@ -0,0 +1,408 @@
+package dev.haruki7049.jiho.core.impl;
+
+import dev.haruki7049.jiho.core.AudioPlayer;
+import dev.haruki7049.jiho.core.AudioSink;
+import dev.haruki7049.jiho.core.PlaybackStats;
+import dev.haruki7049.jiho.core.metrics.ChimeMetrics;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.logging.Logger;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * AudioPlayer that streams the source in fixed-size chunks from an {@link AudioInputStream} into a
+ * SourceDataLine, instead of decoding it into memory. Memory use stays constant no matter how large
+ * the source is, at the cost of reading the source again for every repetition.
+ *
+ * <p>Local PCM WAV files are not read through Java Sound at all: the chunks are copied straight out
+ * of the file mapping shared with the {@link PcmCache}.
+ */
+public class StreamingAudioPlayer implements AudioPlayer {
+  private static final Logger logger = Logger.getLogger("jiho.audio");
+
+  // Size of the reusable transfer buffer
+  private static final int BUFFER_SIZE = 16 * 1024;
+
+  private final URL sourceUrl;
+  private final PcmCache pcmCache; // Only used for its WAV mapping, never decodes
+  private final AudioSink sink;
+  private final byte[] buffer = new byte[BUFFER_SIZE];
+
+  // Line of the play() call in progress, read by abort() from another thread
+  private volatile SourceDataLine playingLine;
+
+  // Follows the playing line for the onset and underruns, and collects the results
+  private final LineMonitor monitor = new LineMonitor();
+  private final PlaybackStats stats;
+  private final ChimeMetrics metrics;
+
+  // Onset of the last play() call
+  private volatile long lastOnsetNanos;
+  private volatile boolean hasOnset;
+
+  /**
+   * Constructs a StreamingAudioPlayer.
+   *
+   * @param sourceUrl The URL to the audio source.
+   */
+  public StreamingAudioPlayer(URL sourceUrl) {
+    this(new PcmCache(sourceUrl), new JavaSoundSink());
+  }
+
+  /**
+   * Constructs a StreamingAudioPlayer sharing the WAV mapping of an existing cache.
+   *
+   * @param pcmCache The cache of the audio source.
+   * @param sink The sink that provides the output line.
+   */
+  public StreamingAudioPlayer(PcmCache pcmCache, AudioSink sink) {
+    this(pcmCache, sink, new PlaybackStats());
+  }
+
+  /**
+   * Constructs a StreamingAudioPlayer recording its playbacks in existing statistics.
+   *
+   * @param pcmCache The cache of the audio source.
+   * @param sink The sink that provides the output line.
+   * @param stats The statistics to record playbacks in.
+   */
+  public StreamingAudioPlayer(PcmCache pcmCache, AudioSink sink, PlaybackStats stats) {
+    this(pcmCache, sink, stats, new ChimeMetrics());
+  }
+
+  /**
+   * Constructs a StreamingAudioPlayer recording its playbacks in existing statistics, and the time
+   * spent opening streams and lines in existing metrics.
+   *
+   * @param pcmCache The cache of the audio source.
+   * @param sink The sink that provides the output line.
+   * @param stats The statistics to record playbacks in.
+   * @param metrics The metrics to record the open times in.
+   */
+  public StreamingAudioPlayer(
+      PcmCache pcmCache, AudioSink sink, PlaybackStats stats, ChimeMetrics metrics) {
+    this.sourceUrl = pcmCache.getSourceUrl();
+    this.pcmCache = pcmCache;
+    this.sink = sink;
+    this.stats = stats;
+    this.metrics = metrics;
+  }
+
+  /**
+   * Plays the sound by streaming it into a SourceDataLine. Each repetition is followed by silence
+   * up to the exact period, written through the same buffer.
+   *
+   * @param times The number of times to play.
+   * @param duration The time from the start of one repetition to the start of the next.
+   * @param volume The playback volume (0.0 to 1.0), or null for default.
+   * @throws UnsupportedAudioFileException if the audio file format is not supported.
+   * @throws IOException if an I/O error occurs.
+   * @throws LineUnavailableException if a line cannot be opened.
+   * @throws InterruptedException if the thread is interrupted.
+   */
+  @Override
+  public synchronized void play(int times, Duration duration, Float volume)
+      throws UnsupportedAudioFileException,
+          IOException,
+          LineUnavailableException,
+          InterruptedException {
+    DecodedAudio mapped = this.pcmCache.getMapped();
+    if (mapped != null) {
+      this.playMapped(mapped, times, duration, volume);
+      return;
+    }
+
+    SourceDataLine line = null;
+    try {
+      for (int i = 0; i < times; i++) {
+        long openStartNanos = System.nanoTime();
+        try (AudioInputStream stream = PcmCache.openPcmStream(this.sourceUrl)) {
+          this.metrics.recordDecode(System.nanoTime() - openStartNanos);
+          AudioFormat format = stream.getFormat();
+          if (line == null) {
+            line = this.openLine(format, volume);
+            this.playingLine = line;
+            this.monitor.begin();
+            line.start();
+            this.lastOnsetNanos = System.nanoTime();
+          }
+
+          long written = this.copy(stream, line);
+
+          // Pad with silence up to the start of the next repetition
+          if (i < times - 1) {
+            long periodFrames = Math.round(duration.toNanos() / 1e9 * format.getFrameRate());
+            this.writeSilence(line, periodFrames * format.getFrameSize() - written);
+          }
+        }
+
+        checkInterrupted();
+      }
+
+      if (line != null) {
+        this.monitor.endWrites();
+        line.drain();
+        this.recordOnset();
+      }
+    } finally {
+      this.playingLine = null;
+      if (line != null) {
+        line.close();
+      }
+    }
+  }
+
+  /**
+   * Plays the sound by copying chunks out of a memory-mapped WAV payload.
+   *
+   * @param mapped The mapped audio.
+   * @param times The number of times to play.
+   * @param duration The time from the start of one repetition to the start of the next.
+   * @param volume The playback volume (0.0 to 1.0), or null for default.
+   * @throws LineUnavailableException if a line cannot be opened.
+   * @throws InterruptedException if the thread is interrupted.
+   */
+  private void playMapped(DecodedAudio mapped, int times, Duration duration, Float volume)
+      throws LineUnavailableException, InterruptedException {
+    AudioFormat format = mapped.getFormat();
+    long periodFrames = Math.round(duration.toNanos() / 1e9 * format.getFrameRate());
+
+    SourceDataLine line = this.openLine(format, volume);
+    this.playingLine = line;
+    try {
+      this.monitor.begin();
+      line.start();
+      this.lastOnsetNanos = System.nanoTime();
+
+      for (int i = 0; i < times; i++) {
+        long written = this.copy(mapped.getData(), line);
+
+        // Pad with silence up to the start of the next repetition
+        if (i < times - 1) {
+          this.writeSilence(line, periodFrames * format.getFrameSize() - written);
+        }
+
+        checkInterrupted();
+      }
+
+      this.monitor.endWrites();
+      line.drain();
+      this.recordOnset();
+    } finally {
+      this.playingLine = null;
+      line.close();
+    }
+  }
+
+  /**
+   * Checks whether the source changed, and maps it again if so, ahead of the next {@link #play}
+   * call. Nothing is decoded.
+   *
+   * @param times The number of times the sound will be played.
+   * @param duration The time from the start of one repetition to the start of the next.
+   * @param volume The playback volume (0.0 to 1.0), or null for default.
+   * @throws IOException if an I/O error occurs.
+   */
+  @Override
+  public void prefetch(int times, Duration duration, Float volume) throws IOException {
+    this.pcmCache.refresh();
+    this.pcmCache.getMapped();
+  }
+
+  /**
+   * Stops the line that is playing. The write in progress returns, and the next chunk is not
+   * written because the playing thread has been interrupted.
+   */
+  @Override
+  public void abort() {
+    this.monitor.cancel();
+    SourceDataLine line = this.playingLine;
+    if (line != null) {
+      line.stop();
+      line.flush();
+    }
+  }
+
+  /**
+   * Gets the time at which the first frame of the last play() call started playing.
+   *
+   * @return The {@link System#nanoTime()} value of the last onset, or empty if nothing was played.
+   */
+  @Override
+  public OptionalLong getLastOnsetNanoTime() {
+    return this.hasOnset ? OptionalLong.of(this.lastOnsetNanos) : OptionalLong.empty();
+  }
+
+  /**
+   * Gets the statistics of the playbacks of this player.
+   *
+   * @return The playback statistics.
+   */
+  @Override
+  public Optional<PlaybackStats> getPlaybackStats() {
+    return Optional.of(this.stats);
+  }
+
+  /**
+   * Gets the playback duration of the source. Uses the WAV mapping or the frame length from the
+   * header if there is one, otherwise reads through the stream counting bytes, which still uses
+   * constant memory.
+   *
+   * @return The Duration of the audio.
+   * @throws UnsupportedAudioFileException if the audio file format is not supported.
+   * @throws IOException if an I/O error occurs when reading the file.
+   */
+  @Override
+  public synchronized Duration getAudioDuration()
+      throws UnsupportedAudioFileException, IOException {
+    DecodedAudio mapped = this.pcmCache.getMapped();
+    if (mapped != null) {
+      return mapped.getDuration();
+    }
+
+    try (AudioInputStream stream = PcmCache.openPcmStream(this.sourceUrl)) {
+      AudioFormat format = stream.getFormat();
+      long frameLength = stream.getFrameLength();
+
+      if (frameLength == AudioSystem.NOT_SPECIFIED) {
+        long bytes = 0;
+        int read;
+        while ((read = stream.read(this.buffer)) > 0) {
+          bytes += read;
+        }
+        frameLength = bytes / format.getFrameSize();
+      }
+
+      // Calculate duration in microseconds
+      long microseconds = (long) ((frameLength / format.getFrameRate()) * 1000000);
+
+      return Duration.of(microseconds, ChronoUnit.MICROS);
+    }
+  }
+
+  /**
+   * Copies the whole stream into the line through the reusable buffer.
+   *
+   * @param stream The PCM stream.
+   * @param line The line to write to.
+   * @return The number of bytes written.
+   * @throws IOException if reading the stream fails.
+   * @throws InterruptedException if the thread is interrupted.
+   */
+  private long copy(AudioInputStream stream, SourceDataLine line)
+      throws IOException, InterruptedException {
+    long written = 0;
+    int read;
+    // AudioInputStream only returns whole frames, so every chunk is frame aligned
+    while ((read = stream.read(this.buffer)) > 0) {
+      checkInterrupted();
+      this.monitor.beforeWrite(line);
+      written += line.write(this.buffer, 0, read);
+    }
+    return written;
+  }
+
+  /**
+   * Copies a PCM buffer into the line through the reusable buffer.
+   *
+   * @param data The PCM data, positioned at the first byte to write.
+   * @param line The line to write to.
+   * @return The number of bytes written.
+   * @throws InterruptedException if the thread is interrupted.
+   */
+  private long copy(ByteBuffer data, SourceDataLine line) throws InterruptedException {
+    long written = 0;
+    while (data.hasRemaining()) {
+      checkInterrupted();
+      this.monitor.beforeWrite(line);
+      int length = Math.min(this.buffer.length, data.remaining());
+      data.get(this.buffer, 0, length);
+      written += line.write(this.buffer, 0, length);
+    }
+    return written;
+  }
+
+  /**
+   * Writes digital silence to the line through the reusable buffer.
+   *
+   * @param line The line to write to.
+   * @param bytes The number of bytes of silence. Nothing is written if not positive.
+   * @throws InterruptedException if the thread is interrupted.
+   */
+  private void writeSilence(SourceDataLine line, long bytes) throws InterruptedException {
+    if (bytes <= 0) {
+      return;
+    }
+
+    AudioFormat format = line.getFormat();
+    Arrays.fill(this.buffer, (byte) 0);
+    ChimeRenderer.fillSilence(this.buffer, format);
+
+    // Keep chunks frame aligned
+    int frameSize = format.getFrameSize();
+    int chunk = this.buffer.length - this.buffer.length % frameSize;
+    while (bytes > 0) {
+      checkInterrupted();
+      this.monitor.beforeWrite(line);
+      int length = (int) Math.min(chunk, bytes);
+      bytes -= line.write(this.buffer, 0, length);
+    }
+  }
+
+  /**
+   * Opens a SourceDataLine for the given format.
+   *
+   * @param format The PCM format of the data to be written.
+   * @param volume The playback volume (0.0 to 1.0), or null for default.
+   * @return The opened line.
+   * @throws LineUnavailableException if a line cannot be opened.
+   */
+  private SourceDataLine openLine(AudioFormat format, Float volume)
+      throws LineUnavailableException {
+    long startNanos = System.nanoTime();
+    SourceDataLine line = this.sink.getLine(format);
+
+    // Record when the line actually starts running, and whether it stalls
+    line.addLineListener(this.monitor);
+
+    line.open(format);
+    this.metrics.recordLineOpen(System.nanoTime() - startNanos);
+    logger.fine("Streaming " + this.sourceUrl + " as " + format);
+
+    // Set volume if specified
+    if (volume != null) {
+      AudioManager.setVolume(line, volume);
+    }
+
+    return line;
+  }
+
+  /**
+   * Throws if the thread has been interrupted, so that an aborted playback stops writing chunks to
+   * a stopped line, where the write would block.
+   *
+   * @throws InterruptedException if the thread is interrupted.
+   */
+  private static void checkInterrupted() throws InterruptedException {
+    if (Thread.interrupted()) {
+      throw new InterruptedException();
+    }
+  }
+
+  /** Records the onset of the current play() call, preferring the line's START event. */
+  private void recordOnset() {
+    this.lastOnsetNanos = this.monitor.end(this.lastOnsetNanos, this.stats);
+    this.hasOnset = true;
+  }
+}
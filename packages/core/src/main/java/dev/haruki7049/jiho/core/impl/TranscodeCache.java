@@ -0,0 +1,219 @@
+package dev.haruki7049.jiho.core.impl;
+
+import dev.dirs.ProjectDirectories;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.logging.Logger;
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * Persistent cache of sources converted to the format of the output line. A source is decoded,
+ * resampled and channel-mapped once, and the PCM is stored as a WAV file in the cache directory.
+ * Later uses, also in later runs, only map that file with {@link WavFile}.
+ *
+ * <p>Entries are keyed by the SHA-256 hash of the source contents and the target format, so an
+ * edited source gets a new entry and an unchanged source is found again whatever its path is. The
+ * directory holds nothing else and can be deleted at any time.
+ */
+public class TranscodeCache {
+  private static final Logger logger = Logger.getLogger("jiho.audio");
+
+  private static final String CACHE_DIRECTORY_NAME = "pcm";
+
+  private final Path directory;
+
+  /**
+   * Constructs a TranscodeCache.
+   *
+   * @param directory The directory the converted files are stored in. Created on first use.
+   */
+  public TranscodeCache(Path directory) {
+    this.directory = directory;
+  }
+
+  /**
+   * Gets the default cache directory, in the user cache directory.
+   *
+   * @return The directory path.
+   */
+  public static Path defaultDirectory() {
+    ProjectDirectories projDirs = ProjectDirectories.from("dev", "haruki7049", "jiho");
+    return Paths.get(projDirs.cacheDir, CACHE_DIRECTORY_NAME);
+  }
+
+  /**
+   * Resolves a target format against the format of a source. Signed 16-bit little-endian PCM is
+   * always used, the sample rate and channel count of the source are kept where the target leaves
+   * them {@link AudioSystem#NOT_SPECIFIED}.
+   *
+   * @param source The format of the source.
+   * @param target The wanted format, possibly partly unspecified, or null to keep both.
+   * @return The fully specified format.
+   */
+  public static AudioFormat resolve(AudioFormat source, AudioFormat target) {
+    if (target == null) {
+      return new AudioFormat(source.getSampleRate(), 16, source.getChannels(), true, false);
+    }
+    float sampleRate =
+        target.getSampleRate() != AudioSystem.NOT_SPECIFIED
+            ? target.getSampleRate()
+            : source.getSampleRate();
+    int channels =
+        target.getChannels() != AudioSystem.NOT_SPECIFIED
+            ? target.getChannels()
+            : source.getChannels();
+    return new AudioFormat(sampleRate, 16, channels, true, false);
+  }
+
+  /**
+   * Gets the source converted to the target format, converting and storing it if it is not cached
+   * yet. If the file cannot be stored, the converted audio is returned from memory.
+   *
+   * @param sourceUrl The URL to the audio source.
+   * @param target The fully specified target format, see {@link #resolve}.
+   * @return The converted audio, mapped from the cache file if possible.
+   * @throws UnsupportedAudioFileException if the source cannot be decoded or converted.
+   * @throws IOException if an I/O error occurs when reading the source.
+   */
+  public DecodedAudio get(URL sourceUrl, AudioFormat target)
+      throws UnsupportedAudioFileException, IOException {
+    Path file = this.directory.resolve(hash(sourceUrl) + "-" + formatTag(target) + ".wav");
+
+    if (Files.isRegularFile(file)) {
+      WavFile wavFile = WavFile.map(file);
+      if (wavFile != null && wavFile.getFormat().matches(target)) {
+        logger.fine("Mapped cached conversion " + file + " of " + sourceUrl);
+        return new DecodedAudio(wavFile);
+      }
+      logger.warning("Converting again, unusable cache file " + file);
+    }
+
+    long start = System.nanoTime();
+    try {
+      this.store(sourceUrl, target, file);
+      WavFile wavFile = WavFile.map(file);
+      if (wavFile == null) {
+        throw new IOException("Not a PCM WAV file after conversion: " + file);
+      }
+      logger.fine(
+          "Converted "
+              + sourceUrl
+              + " to "
+              + target
+              + " in "
+              + (System.nanoTime() - start) / 1000000
+              + " ms, cached in "
+              + file);
+      return new DecodedAudio(wavFile);
+    } catch (IOException e) {
+      logger.warning("Could not cache the conversion of " + sourceUrl + " in " + file + ": " + e);
+    }
+
+    // Not cached, e.g. the cache directory is read-only: convert into memory
+    try (AudioInputStream converted = convert(sourceUrl, target)) {
+      return new DecodedAudio(converted.getFormat(), converted.readAllBytes());
+    }
+  }
+
+  /**
+   * Converts the source and writes it to the cache file atomically, so a concurrent reader or an
+   * interrupted run never sees a partial file.
+   *
+   * @param sourceUrl The URL to the audio source.
+   * @param target The target format.
+   * @param file The cache file.
+   * @throws UnsupportedAudioFileException if the source cannot be decoded or converted.
+   * @throws IOException if the file cannot be written.
+   */
+  private void store(URL sourceUrl, AudioFormat target, Path file)
+      throws UnsupportedAudioFileException, IOException {
+    Files.createDirectories(this.directory);
+    Path temp = Files.createTempFile(this.directory, file.getFileName().toString(), ".tmp");
+    try {
+      try (AudioInputStream converted = convert(sourceUrl, target)) {
+        // Java Sound fixes up the chunk sizes of a file once the length is known
+        AudioSystem.write(converted, AudioFileFormat.Type.WAVE, temp.toFile());
+      }
+      Files.move(
+          temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  /**
+   * Opens a stream converting the source to the target format.
+   *
+   * @param sourceUrl The URL to the audio source.
+   * @param target The target format.
+   * @return The converted stream. The caller must close it.
+   * @throws UnsupportedAudioFileException if the source cannot be decoded or converted.
+   * @throws IOException if an I/O error occurs when opening the source.
+   */
+  static AudioInputStream convert(URL sourceUrl, AudioFormat target)
+      throws UnsupportedAudioFileException, IOException {
+    AudioInputStream pcmStream = PcmCache.openPcmStream(sourceUrl);
+    if (pcmStream.getFormat().matches(target)) {
+      return pcmStream;
+    }
+    try {
+      return AudioSystem.getAudioInputStream(target, pcmStream);
+    } catch (IllegalArgumentException e) {
+      pcmStream.close();
+      throw new UnsupportedAudioFileException(
+          "Cannot convert " + pcmStream.getFormat() + " to " + target);
+    }
+  }
+
+  /**
+   * Hashes the contents of the source.
+   *
+   * @param sourceUrl The URL to the audio source.
+   * @return The SHA-256 hash in hexadecimal.
+   * @throws IOException if the source cannot be read.
+   */
+  static String hash(URL sourceUrl) throws IOException {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      // Every Java platform is required to support SHA-256
+      throw new IllegalStateException(e);
+    }
+
+    try (InputStream in = new DigestInputStream(sourceUrl.openStream(), digest)) {
+      in.transferTo(OutputStream.nullOutputStream());
+    }
+    return HexFormat.of().formatHex(digest.digest());
+  }
+
+  /**
+   * Describes a format for the cache file name, e.g. "48000Hz-16bit-2ch".
+   *
+   * @param format The format.
+   * @return The description.
+   */
+  static String formatTag(AudioFormat format) {
+    return String.format(
+        Locale.ROOT,
+        "%dHz-%dbit-%dch",
+        Math.round(format.getSampleRate()),
+        format.getSampleSizeInBits(),
+        format.getChannels());
+  }
+}
@@ -0,0 +1,112 @@
+package dev.haruki7049.jiho.core.impl;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link GainKernel} on SIMD registers with the incubating Vector API. Samples are widened to the
+ * preferred float vector, so the short vector holds as many lanes as the float vector and every
+ * conversion is lane for lane. The tail that does not fill a vector is left to the scalar loop.
+ *
+ * <p>Only load this class after checking that the {@code jdk.incubator.vector} module is present,
+ * see {@link GainStage}.
+ */
+final class VectorGainKernel implements GainKernel {
+  private static final VectorSpecies<Float> FLOATS = FloatVector.SPECIES_PREFERRED;
+  private static final VectorSpecies<Short> SHORTS =
+      VectorSpecies.of(short.class, VectorShape.forBitSize(FLOATS.length() * Short.SIZE));
+
+  private final ScalarGainKernel scalar = new ScalarGainKernel();
+
+  /**
+   * Gets the number of samples processed at once.
+   *
+   * @return The vector length in lanes.
+   */
+  static int lanes() {
+    return FLOATS.length();
+  }
+
+  /**
+   * Multiplies samples by a constant gain, a vector at a time.
+   *
+   * @param samples The interleaved samples, modified in place.
+   * @param from The first sample, at the start of a frame.
+   * @param to The end of the range (exclusive).
+   * @param gain The gain.
+   */
+  @Override
+  public void scale(short[] samples, int from, int to, float gain) {
+    int i = from;
+    for (int bound = to - SHORTS.length(); i <= bound; i += SHORTS.length()) {
+      FloatVector values = load(samples, i);
+      store(values.mul(gain), samples, i);
+    }
+    this.scalar.scale(samples, i, to, gain);
+  }
+
+  /**
+   * Multiplies samples by a linearly changing gain, a vector at a time. If a vector does not hold
+   * whole frames, e.g. for 6 channels, the scalar loop is used instead.
+   *
+   * @param samples The interleaved samples, modified in place.
+   * @param from The first sample, at the start of a frame.
+   * @param to The end of the range (exclusive), at the end of a frame.
+   * @param channels The number of samples per frame.
+   * @param start The gain of the first frame.
+   * @param step The change of the gain from one frame to the next.
+   */
+  @Override
+  public void ramp(short[] samples, int from, int to, int channels, float start, float step) {
+    int lanes = SHORTS.length();
+    if (lanes % channels != 0) {
+      this.scalar.ramp(samples, from, to, channels, start, step);
+      return;
+    }
+
+    // Frame of each lane, relative to the first frame of the vector
+    float[] laneFrames = new float[lanes];
+    for (int lane = 0; lane < lanes; lane++) {
+      laneFrames[lane] = lane / channels;
+    }
+    FloatVector frameOffsets = FloatVector.fromArray(FLOATS, laneFrames, 0);
+
+    int i = from;
+    for (int bound = to - lanes; i <= bound; i += lanes) {
+      float firstFrame = (i - from) / channels;
+      FloatVector gains = frameOffsets.add(firstFrame).mul(step).add(start);
+      store(load(samples, i).mul(gains), samples, i);
+    }
+
+    // The tail continues the ramp where the vectors stopped, from the absolute frame index: a gain
+    // restarted there would round differently than the scalar loop
+    this.scalar.ramp(samples, i, to, channels, start, step, (i - from) / channels);
+  }
+
+  /**
+   * Loads samples and widens them to floats.
+   *
+   * @param samples The samples.
+   * @param offset The first sample to load.
+   * @return The samples as floats.
+   */
+  private static FloatVector load(short[] samples, int offset) {
+    ShortVector values = ShortVector.fromArray(SHORTS, samples, offset);
+    return (FloatVector) values.convertShape(VectorOperators.S2F, FLOATS, 0);
+  }
+
+  /**
+   * Clamps scaled samples to the 16-bit range and stores them, truncated toward zero.
+   *
+   * @param values The scaled samples.
+   * @param samples The samples.
+   * @param offset The first sample to store.
+   */
+  private static void store(FloatVector values, short[] samples, int offset) {
+    FloatVector clamped = values.max(-32768.0f).min(32767.0f);
+    ((ShortVector) clamped.convertShape(VectorOperators.F2S, SHORTS, 0)).intoArray(samples, offset);
+  }
+}
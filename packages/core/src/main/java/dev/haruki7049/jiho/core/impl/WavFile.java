@@ -0,0 +1,182 @@
+package dev.haruki7049.jiho.core.impl;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * Zero-copy reader for PCM WAV files. The file is mapped with {@link FileChannel#map}, the RIFF,
+ * "fmt " and "data" chunks are parsed in place, and the PCM payload is handed out as a read-only
+ * slice of the mapping.
+ *
+ * <p>Only integer PCM (format tag 1, or WAVE_FORMAT_EXTENSIBLE with a PCM sub-format) is handled.
+ * For anything else {@link #map(Path)} returns null, and callers fall back to Java Sound.
+ *
+ * <p>The mapping stays valid until it is garbage collected. A file that is truncated in place while
+ * it is mapped must not be read through an old mapping; callers re-map when the file changes.
+ */
+public class WavFile {
+  private static final int WAVE_FORMAT_PCM = 0x0001;
+  private static final int WAVE_FORMAT_EXTENSIBLE = 0xFFFE;
+
+  private final AudioFormat format;
+  private final ByteBuffer data;
+
+  /**
+   * Constructs a WavFile from parsed values.
+   *
+   * @param format The PCM format of the payload.
+   * @param data The read-only PCM payload.
+   */
+  private WavFile(AudioFormat format, ByteBuffer data) {
+    this.format = format;
+    this.data = data;
+  }
+
+  /**
+   * Maps a WAV file and parses its header in place.
+   *
+   * @param path The file to map.
+   * @return The parsed file, or null if it is not a WAV file with integer PCM data (or too large to
+   *     map).
+   * @throws IOException if the file cannot be opened or mapped.
+   */
+  public static WavFile map(Path path) throws IOException {
+    MappedByteBuffer mapping;
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      if (channel.size() > Integer.MAX_VALUE) {
+        // A single mapping cannot cover more than 2 GiB
+        return null;
+      }
+      // The mapping stays valid after the channel is closed
+      mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+    return parse(mapping);
+  }
+
+  /**
+   * Parses a WAV file from a buffer holding the whole file. The returned data is a slice of the
+   * given buffer, nothing is copied.
+   *
+   * @param file The file contents.
+   * @return The parsed file, or null if it is not a WAV file with integer PCM data.
+   */
+  static WavFile parse(ByteBuffer file) {
+    ByteBuffer buffer = file.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+
+    if (buffer.remaining() < 12
+        || buffer.getInt(0) != fourCc("RIFF")
+        || buffer.getInt(8) != fourCc("WAVE")) {
+      return null;
+    }
+
+    AudioFormat format = null;
+    int position = 12;
+
+    // Walk the chunks until the data chunk; fmt must come before it
+    while (position + 8 <= buffer.limit()) {
+      int id = buffer.getInt(position);
+      long size = Integer.toUnsignedLong(buffer.getInt(position + 4));
+      int body = position + 8;
+
+      if (id == fourCc("fmt ")) {
+        format = parseFormat(buffer, body, size);
+        if (format == null) {
+          return null;
+        }
+      } else if (id == fourCc("data")) {
+        if (format == null) {
+          return null;
+        }
+        // Streamed WAVs may declare a larger (or 0xFFFFFFFF) size, clamp to what is there
+        int length = (int) Math.min(size, buffer.limit() - body);
+        length -= length % format.getFrameSize();
+        ByteBuffer data = buffer.slice(body, length).asReadOnlyBuffer();
+        return new WavFile(format, data);
+      }
+
+      // Chunks are padded to an even size
+      long next = body + size + (size & 1);
+      if (next > buffer.limit()) {
+        break;
+      }
+      position = (int) next;
+    }
+
+    return null;
+  }
+
+  /**
+   * Parses the body of a "fmt " chunk.
+   *
+   * @param buffer The file contents, little endian.
+   * @param body The offset of the chunk body.
+   * @param size The size of the chunk body.
+   * @return The PCM format, or null if the chunk does not describe integer PCM.
+   */
+  private static AudioFormat parseFormat(ByteBuffer buffer, int body, long size) {
+    if (size < 16 || body + size > buffer.limit()) {
+      return null;
+    }
+
+    int formatTag = Short.toUnsignedInt(buffer.getShort(body));
+    int channels = Short.toUnsignedInt(buffer.getShort(body + 2));
+    long sampleRate = Integer.toUnsignedLong(buffer.getInt(body + 4));
+    int blockAlign = Short.toUnsignedInt(buffer.getShort(body + 12));
+    int bitsPerSample = Short.toUnsignedInt(buffer.getShort(body + 14));
+
+    if (formatTag == WAVE_FORMAT_EXTENSIBLE && size >= 40) {
+      // The first two bytes of the sub-format GUID hold the actual format tag
+      formatTag = Short.toUnsignedInt(buffer.getShort(body + 24));
+    }
+
+    if (formatTag != WAVE_FORMAT_PCM
+        || channels == 0
+        || sampleRate == 0
+        || blockAlign == 0
+        || bitsPerSample == 0
+        || bitsPerSample % 8 != 0
+        || blockAlign != channels * (bitsPerSample / 8)) {
+      return null;
+    }
+
+    // 8-bit WAV data is unsigned, everything wider is signed
+    AudioFormat.Encoding encoding =
+        bitsPerSample == 8 ? AudioFormat.Encoding.PCM_UNSIGNED : AudioFormat.Encoding.PCM_SIGNED;
+    return new AudioFormat(
+        encoding, sampleRate, bitsPerSample, channels, blockAlign, sampleRate, false);
+  }
+
+  /**
+   * Converts a four character chunk id into the int read from a little endian buffer.
+   *
+   * @param id The chunk id.
+   * @return The id as a little endian int.
+   */
+  private static int fourCc(String id) {
+    return id.charAt(0) | id.charAt(1) << 8 | id.charAt(2) << 16 | id.charAt(3) << 24;
+  }
+
+  /**
+   * Gets the PCM format of the payload.
+   *
+   * @return The {@link AudioFormat}.
+   */
+  public AudioFormat getFormat() {
+    return this.format;
+  }
+
+  /**
+   * Gets the PCM payload as a read-only slice of the mapping.
+   *
+   * @return The PCM data.
+   */
+  public ByteBuffer getData() {
+    return this.data.duplicate();
+  }
+}
@@ -0,0 +1,288 @@
+package dev.haruki7049.jiho.core.impl;
+
+import dev.haruki7049.jiho.core.AudioSink;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.logging.Logger;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+
+/**
+ * AudioSink that writes what is played to a WAV file. The lines are written one after the other
+ * into the same file, which is replaced when the first line is opened, and the header is brought up
+ * to date whenever a line is closed. The file is only valid while no line is open.
+ *
+ * <p>Every line must have the sample rate, sample size and channel count of the first one, and
+ * only one line can be open at a time. Big-endian samples are written little-endian and 8-bit
+ * samples unsigned, as WAV requires. Frames flushed before being played are removed from the file.
+ */
+public class WavFileSink implements AudioSink {
+  private static final Logger logger = Logger.getLogger("jiho.audio");
+
+  private static final int HEADER_SIZE = 44;
+  private static final short WAVE_FORMAT_PCM = 0x0001;
+
+  private final Path path;
+  private final boolean realTime;
+
+  // Guarded by this
+  private AudioFormat fileFormat; // Set when the first line is opened
+  private long dataSize;
+  private boolean lineOpen;
+
+  /**
+   * Constructs a WavFileSink whose lines write as fast as they are fed.
+   *
+   * @param path The file to write.
+   */
+  public WavFileSink(Path path) {
+    this(path, false);
+  }
+
+  /**
+   * Constructs a WavFileSink.
+   *
+   * @param path The file to write.
+   * @param realTime Whether the lines play at the frame rate, or instantly.
+   */
+  public WavFileSink(Path path, boolean realTime) {
+    this.path = path;
+    this.realTime = realTime;
+  }
+
+  /**
+   * Gets the file written to.
+   *
+   * @return The path of the WAV file.
+   */
+  public Path getPath() {
+    return this.path;
+  }
+
+  /**
+   * Gets a new line that writes to the file.
+   *
+   * @param format The PCM format that will be written to the line.
+   * @return The line.
+   */
+  @Override
+  public SourceDataLine getLine(AudioFormat format) {
+    return new WavFileLine(format, this.realTime);
+  }
+
+  /**
+   * Gets the format samples are stored in: little-endian, unsigned for 8 bits and signed above.
+   *
+   * @param format The format written to a line.
+   * @return The format of the file.
+   * @throws LineUnavailableException if the format is not integer PCM in whole bytes.
+   */
+  private static AudioFormat fileFormatOf(AudioFormat format) throws LineUnavailableException {
+    AudioFormat.Encoding encoding = format.getEncoding();
+    int bits = format.getSampleSizeInBits();
+    if (!(AudioFormat.Encoding.PCM_SIGNED.equals(encoding)
+            || AudioFormat.Encoding.PCM_UNSIGNED.equals(encoding))
+        || bits % 8 != 0
+        || format.getFrameSize() != bits / 8 * format.getChannels()) {
+      throw new LineUnavailableException("WAV file sink needs integer PCM, not " + format);
+    }
+    return new AudioFormat(format.getSampleRate(), bits, format.getChannels(), bits > 8, false);
+  }
+
+  /**
+   * Claims the file for a line being opened.
+   *
+   * @param format The format written to the line.
+   * @return The channel to write to, positioned at the end of the data.
+   * @throws LineUnavailableException if a line is already open, the format does not match the
+   *     file, or the file cannot be opened.
+   */
+  private synchronized FileChannel openFile(AudioFormat format) throws LineUnavailableException {
+    if (this.lineOpen) {
+      throw new LineUnavailableException("A line of " + this.path + " is already open");
+    }
+    AudioFormat target = fileFormatOf(format);
+    if (this.fileFormat != null && !this.fileFormat.matches(target)) {
+      throw new LineUnavailableException(
+          "WAV file " + this.path + " holds " + this.fileFormat + ", not " + target);
+    }
+
+    try {
+      FileChannel channel;
+      if (this.fileFormat == null) {
+        channel =
+            FileChannel.open(
+                this.path,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        this.fileFormat = target;
+        this.dataSize = 0;
+        channel.write(header(target, 0), 0);
+      } else {
+        channel = FileChannel.open(this.path, StandardOpenOption.WRITE);
+      }
+      channel.position(HEADER_SIZE + this.dataSize);
+      this.lineOpen = true;
+      return channel;
+    } catch (IOException e) {
+      LineUnavailableException exception =
+          new LineUnavailableException("Cannot open " + this.path + ": " + e);
+      exception.initCause(e);
+      throw exception;
+    }
+  }
+
+  /**
+   * Releases the file when a line is closed, writing the header for the data written so far.
+   *
+   * @param channel The channel of the line.
+   * @param size The size of the data in the file.
+   */
+  private synchronized void closeFile(FileChannel channel, long size) {
+    this.dataSize = size;
+    this.lineOpen = false;
+    try (channel) {
+      channel.truncate(HEADER_SIZE + size);
+      channel.write(header(this.fileFormat, size), 0);
+    } catch (IOException e) {
+      logger.warning("Could not finish WAV file " + this.path + ": " + e);
+    }
+  }
+
+  /**
+   * Builds a canonical 44-byte WAV header.
+   *
+   * @param format The format of the file.
+   * @param dataSize The size of the data chunk.
+   * @return The header, ready to be written.
+   */
+  static ByteBuffer header(AudioFormat format, long dataSize) {
+    int size = (int) Math.min(dataSize, 0xFFFFFFFFL - (HEADER_SIZE - 8));
+    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    header.put("RIFF".getBytes(StandardCharsets.US_ASCII));
+    header.putInt(HEADER_SIZE - 8 + size);
+    header.put("WAVE".getBytes(StandardCharsets.US_ASCII));
+    header.put("fmt ".getBytes(StandardCharsets.US_ASCII));
+    header.putInt(16);
+    header.putShort(WAVE_FORMAT_PCM);
+    header.putShort((short) format.getChannels());
+    header.putInt((int) format.getSampleRate());
+    header.putInt((int) format.getSampleRate() * format.getFrameSize());
+    header.putShort((short) format.getFrameSize());
+    header.putShort((short) format.getSampleSizeInBits());
+    header.put("data".getBytes(StandardCharsets.US_ASCII));
+    header.putInt(size);
+    return header.flip();
+  }
+
+  /** Line that writes to the file of the sink while it is open. */
+  private class WavFileLine extends HeadlessLine {
+    private FileChannel channel;
+    private long baseSize; // Size of the data in the file when the line was opened
+    private long size;
+    private boolean swap; // Whether samples are big-endian
+    private boolean flipSign; // Whether 8-bit samples are signed
+    private byte[] converted = new byte[0];
+
+    /**
+     * Constructs a WavFileLine.
+     *
+     * @param format The default format.
+     * @param realTime Whether the line plays at the frame rate.
+     */
+    WavFileLine(AudioFormat format, boolean realTime) {
+      super(format, realTime);
+    }
+
+    /**
+     * Claims the file and decides how samples are converted.
+     *
+     * @param format The format of the data that will be written.
+     * @throws LineUnavailableException if the file cannot take data in the format.
+     */
+    @Override
+    void onOpen(AudioFormat format) throws LineUnavailableException {
+      this.channel = WavFileSink.this.openFile(format);
+      this.baseSize = WavFileSink.this.dataSize;
+      this.size = this.baseSize;
+      int bits = format.getSampleSizeInBits();
+      this.swap = bits > 8 && format.isBigEndian();
+      this.flipSign = bits == 8 && AudioFormat.Encoding.PCM_SIGNED.equals(format.getEncoding());
+    }
+
+    /**
+     * Writes the data to the file, converted to the file's sample format.
+     *
+     * @param b The data.
+     * @param off The offset of the first byte.
+     * @param len The number of bytes.
+     */
+    @Override
+    void consume(byte[] b, int off, int len) {
+      if (this.channel == null) {
+        return;
+      }
+
+      ByteBuffer data;
+      if (this.swap || this.flipSign) {
+        if (this.converted.length < len) {
+          this.converted = new byte[len];
+        }
+        int sampleSize = this.getFormat().getSampleSizeInBits() / 8;
+        for (int i = 0; i < len; i++) {
+          // Reverses the bytes of each sample for big-endian data
+          int source = this.swap ? i - i % sampleSize + sampleSize - 1 - i % sampleSize : i;
+          byte value = b[off + source];
+          this.converted[i] = this.flipSign ? (byte) (value ^ 0x80) : value;
+        }
+        data = ByteBuffer.wrap(this.converted, 0, len);
+      } else {
+        data = ByteBuffer.wrap(b, off, len);
+      }
+
+      try {
+        while (data.hasRemaining()) {
+          this.channel.write(data);
+        }
+        this.size += len;
+      } catch (IOException e) {
+        logger.warning("Could not write WAV file " + WavFileSink.this.path + ": " + e);
+        WavFileSink.this.closeFile(this.channel, this.size);
+        this.channel = null;
+      }
+    }
+
+    /**
+     * Removes the flushed frames from the file.
+     *
+     * @param frame The first dropped frame.
+     */
+    @Override
+    void onFlush(long frame) {
+      this.size = Math.min(this.size, this.baseSize + frame * this.getFormat().getFrameSize());
+      if (this.channel != null) {
+        try {
+          this.channel.position(HEADER_SIZE + this.size);
+        } catch (IOException e) {
+          logger.warning("Could not rewind WAV file " + WavFileSink.this.path + ": " + e);
+        }
+      }
+    }
+
+    /** Writes the header and releases the file. */
+    @Override
+    void onClose() {
+      if (this.channel != null) {
+        WavFileSink.this.closeFile(this.channel, this.size);
+        this.channel = null;
+      }
+    }
+  }
+}
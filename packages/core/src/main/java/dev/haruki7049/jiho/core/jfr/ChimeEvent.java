@@ -0,0 +1,45 @@
+package dev.haruki7049.jiho.core.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+import jdk.jfr.Timestamp;
+
+/** Flight Recorder event of a scheduled chime, from the deadline until it has been played. */
+@Name("dev.haruki7049.jiho.Chime")
+@Label("Chime")
+@Category({"Jiho", "Audio"})
+@Description("A scheduled chime was played.")
+@StackTrace(false)
+public class ChimeEvent extends Event {
+  /** The site of the configuration, null if it has no name. */
+  @Label("Site")
+  public String site;
+
+  /** The deadline of the chime. */
+  @Label("Deadline")
+  @Timestamp(Timestamp.MILLISECONDS_SINCE_EPOCH)
+  public long deadline;
+
+  /** When the first frame was played, or 0 if the player did not measure it. */
+  @Label("Actual Start")
+  @Timestamp(Timestamp.MILLISECONDS_SINCE_EPOCH)
+  public long actualStart;
+
+  /** The time from the deadline to the first frame, or 0 if not measured. */
+  @Label("Onset Lateness")
+  @Timespan(Timespan.NANOSECONDS)
+  public long onsetLateness;
+
+  /** How many times the sound was played. */
+  @Label("Times")
+  public int times;
+
+  /** How the chime ended: played, failed, timed out or interrupted. */
+  @Label("Outcome")
+  public String outcome;
+}
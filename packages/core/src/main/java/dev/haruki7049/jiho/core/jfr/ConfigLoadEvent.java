@@ -0,0 +1,28 @@
+package dev.haruki7049.jiho.core.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Flight Recorder event of reading and parsing a configuration file, at startup or on reload. */
+@Name("dev.haruki7049.jiho.ConfigLoad")
+@Label("Config Load")
+@Category({"Jiho", "Config"})
+@Description("A configuration file was read and parsed.")
+@StackTrace(false)
+public class ConfigLoadEvent extends Event {
+  /** The configuration file. */
+  @Label("Path")
+  public String path;
+
+  /** Whether the file was read and is valid. */
+  @Label("Valid")
+  public boolean valid;
+
+  /** Why the file could not be loaded, empty if it was. */
+  @Label("Error")
+  public String error;
+}
@@ -0,0 +1,41 @@
+package dev.haruki7049.jiho.core.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event of getting the samples of a chime: decoding the sound, unless it is cached,
+ * and rendering the sequence of repetitions, unless it was rendered before.
+ */
+@Name("dev.haruki7049.jiho.AudioDecode")
+@Label("Audio Decode")
+@Category({"Jiho", "Audio"})
+@Description("The sound was decoded or taken from the cache, and its chime sequence rendered.")
+@StackTrace(false)
+public class DecodeEvent extends Event {
+  /** The URL of the sound source. */
+  @Label("Source")
+  public String source;
+
+  /** The PCM format of the decoded sound. */
+  @Label("Format")
+  public String format;
+
+  /** The length of the sound in frames. */
+  @Label("Frames")
+  public long frames;
+
+  /** The size of the rendered sequence. */
+  @Label("Sequence Size")
+  @DataAmount(DataAmount.BYTES)
+  public long sequenceSize;
+
+  /** How many repetitions the sequence holds. */
+  @Label("Times")
+  public int times;
+}
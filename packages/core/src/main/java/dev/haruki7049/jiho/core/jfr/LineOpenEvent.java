@@ -0,0 +1,34 @@
+package dev.haruki7049.jiho.core.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Flight Recorder event of getting an output line from the sink and opening it. */
+@Name("dev.haruki7049.jiho.LineOpen")
+@Label("Line Acquisition")
+@Category({"Jiho", "Audio"})
+@Description("An output line was acquired from the sink and opened.")
+@StackTrace(false)
+public class LineOpenEvent extends Event {
+  /** The sink the line came from. */
+  @Label("Sink")
+  public String sink;
+
+  /** The format the line was opened with. */
+  @Label("Format")
+  public String format;
+
+  /** The buffer size of the opened line. */
+  @Label("Buffer Size")
+  @DataAmount(DataAmount.BYTES)
+  public int bufferSize;
+
+  /** Whether the line is kept open between chimes. */
+  @Label("Warm")
+  public boolean warm;
+}
@@ -0,0 +1,39 @@
+package dev.haruki7049.jiho.core.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event of one repetition of the sound in a chime, while its frames were written
+ * to the line. The line plays them about one buffer later.
+ */
+@Name("dev.haruki7049.jiho.Repetition")
+@Label("Repetition Playback")
+@Category({"Jiho", "Audio"})
+@Description("The frames of one repetition of the sound were written to the line.")
+@StackTrace(false)
+public class RepetitionEvent extends Event {
+  /** The number of the repetition, from 1. */
+  @Label("Repetition")
+  public int repetition;
+
+  /** How many repetitions the chime has. */
+  @Label("Times")
+  public int times;
+
+  /** The frames of the repetition, with the silence up to the next one. */
+  @Label("Frames")
+  public long frames;
+
+  /** The format of the frames. */
+  @Label("Format")
+  public String format;
+
+  /** Underruns of the line seen so far in the chime. */
+  @Label("Underruns")
+  public int underruns;
+}
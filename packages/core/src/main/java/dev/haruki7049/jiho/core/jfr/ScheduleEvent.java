@@ -0,0 +1,34 @@
+package dev.haruki7049.jiho.core.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timestamp;
+
+/** Flight Recorder event of the computation of the next deadline by the scheduler. */
+@Name("dev.haruki7049.jiho.Schedule")
+@Label("Schedule Computation")
+@Category({"Jiho", "Schedule"})
+@Description("The scheduler computed the next deadline and how many times it chimes.")
+@StackTrace(false)
+public class ScheduleEvent extends Event {
+  /** The site of the configuration, null if it has no name. */
+  @Label("Site")
+  public String site;
+
+  /** The scheduler that computed the deadline. */
+  @Label("Scheduler")
+  public String scheduler;
+
+  /** The next deadline. */
+  @Label("Deadline")
+  @Timestamp(Timestamp.MILLISECONDS_SINCE_EPOCH)
+  public long deadline;
+
+  /** How many times the chime at the deadline plays the sound. */
+  @Label("Times")
+  public int times;
+}
@@ -0,0 +1,39 @@
+package dev.haruki7049.jiho.core.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+import jdk.jfr.Timestamp;
+
+/**
+ * Flight Recorder event of the wait for a deadline: the sleeps and parks of the scheduler, and the
+ * busy-wait in precision mode.
+ */
+@Name("dev.haruki7049.jiho.Wait")
+@Label("Deadline Wait")
+@Category({"Jiho", "Schedule"})
+@Description("The scheduler slept or parked until the deadline.")
+@StackTrace(false)
+public class WaitEvent extends Event {
+  /** The site of the configuration, null if it has no name. */
+  @Label("Site")
+  public String site;
+
+  /** The deadline waited for. */
+  @Label("Deadline")
+  @Timestamp(Timestamp.MILLISECONDS_SINCE_EPOCH)
+  public long deadline;
+
+  /** How long after the deadline the wait returned, on the wall clock. */
+  @Label("Wakeup Lateness")
+  @Timespan(Timespan.NANOSECONDS)
+  public long lateness;
+
+  /** Whether the deadline was reached, false if it was missed and skipped. */
+  @Label("On Time")
+  public boolean onTime;
+}
@@ -0,0 +1,145 @@
+package dev.haruki7049.jiho.core.metrics;
+
+/**
+ * The metrics recorded by the chime path: how late chimes start, what the playbacks spend decoding
+ * and opening lines, and how many repetitions were played or failed. One instance is shared by
+ * everything playing in a process, so the numbers add up over reloads and tenants.
+ *
+ * <p>Every record method is lock-free and allocation-free.
+ */
+public class ChimeMetrics {
+  private final MetricsRegistry registry;
+  private final LatencyHistogram onsetLateness;
+  private final LatencyHistogram decodeTime;
+  private final LatencyHistogram lineOpenTime;
+  private final Counter repetitions;
+  private final Counter failures;
+
+  /** Constructs a ChimeMetrics in a registry of its own, for metrics that are not exported. */
+  public ChimeMetrics() {
+    this(new MetricsRegistry());
+  }
+
+  /**
+   * Constructs a ChimeMetrics, registering its metrics.
+   *
+   * @param registry The registry to register the metrics in.
+   * @throws IllegalArgumentException if the registry already holds chime metrics.
+   */
+  public ChimeMetrics(MetricsRegistry registry) {
+    this.registry = registry;
+    this.onsetLateness =
+        registry.histogram(
+            "jiho_onset_lateness_seconds",
+            "Time from the deadline of a scheduled chime to its first played frame.");
+    this.decodeTime =
+        registry.histogram(
+            "jiho_decode_seconds",
+            "Time a playback spent decoding the sound and rendering its sequence, or opening the"
+                + " stream of a streamed sound.");
+    this.lineOpenTime =
+        registry.histogram(
+            "jiho_line_open_seconds", "Time spent getting and opening an output line.");
+    this.repetitions =
+        registry.counter(
+            "jiho_repetitions_played_total", "Repetitions of the sound in finished chimes.");
+    this.failures =
+        registry.counter(
+            "jiho_chime_failures_total", "Chimes that failed or were cancelled as stuck.");
+  }
+
+  /**
+   * Gets the registry the metrics are registered in.
+   *
+   * @return The registry.
+   */
+  public MetricsRegistry getRegistry() {
+    return this.registry;
+  }
+
+  /**
+   * Records how late a chime started.
+   *
+   * @param nanos The time from the deadline to the first frame.
+   */
+  public void recordOnsetLateness(long nanos) {
+    this.onsetLateness.record(nanos);
+  }
+
+  /**
+   * Records the time a playback spent getting its samples ready.
+   *
+   * @param nanos The decode time.
+   */
+  public void recordDecode(long nanos) {
+    this.decodeTime.record(nanos);
+  }
+
+  /**
+   * Records the time spent opening an output line.
+   *
+   * @param nanos The time from asking the sink for the line until it was open.
+   */
+  public void recordLineOpen(long nanos) {
+    this.lineOpenTime.record(nanos);
+  }
+
+  /**
+   * Records a chime that played to the end.
+   *
+   * @param times The number of repetitions it played.
+   */
+  public void recordPlayed(int times) {
+    this.repetitions.add(times);
+  }
+
+  /** Records a chime that failed. */
+  public void recordFailure() {
+    this.failures.increment();
+  }
+
+  /**
+   * Gets the histogram of the onset lateness.
+   *
+   * @return The histogram.
+   */
+  public LatencyHistogram getOnsetLateness() {
+    return this.onsetLateness;
+  }
+
+  /**
+   * Gets the histogram of the decode time.
+   *
+   * @return The histogram.
+   */
+  public LatencyHistogram getDecodeTime() {
+    return this.decodeTime;
+  }
+
+  /**
+   * Gets the histogram of the line open time.
+   *
+   * @return The histogram.
+   */
+  public LatencyHistogram getLineOpenTime() {
+    return this.lineOpenTime;
+  }
+
+  /**
+   * Gets the count of repetitions played.
+   *
+   * @return The counter.
+   */
+  public Counter getRepetitions() {
+    return this.repetitions;
+  }
+
+  /**
+   * Gets the count of failed chimes.
+   *
+   * @return The counter.
+   */
+  public Counter getFailures() {
+    return this.failures;
+  }
+}
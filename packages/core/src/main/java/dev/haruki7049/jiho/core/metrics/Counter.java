@@ -0,0 +1,41 @@
+package dev.haruki7049.jiho.core.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A monotonically increasing count, exported as a Prometheus counter. Counting is a single atomic
+ * add, without locks or allocation, so it can be done on the chime path.
+ */
+public final class Counter {
+  private final AtomicLong value = new AtomicLong();
+
+  /** Constructs a Counter. Counters are created by {@link MetricsRegistry#counter}. */
+  Counter() {}
+
+  /** Adds one to the count. */
+  public void increment() {
+    this.value.incrementAndGet();
+  }
+
+  /**
+   * Adds to the count.
+   *
+   * @param amount The amount to add.
+   * @throws IllegalArgumentException if the amount is negative.
+   */
+  public void add(long amount) {
+    if (amount < 0) {
+      throw new IllegalArgumentException("Counters only increase: " + amount);
+    }
+    this.value.addAndGet(amount);
+  }
+
+  /**
+   * Gets the count.
+   *
+   * @return The sum of everything counted so far.
+   */
+  public long get() {
+    return this.value.get();
+  }
+}
@@ -0,0 +1,174 @@
+package dev.haruki7049.jiho.core.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of latencies in nanoseconds with log-linear buckets, in the manner of HdrHistogram:
+ * every power of two is split into {@value #SUB_BUCKETS} equal buckets, so any value from one
+ * nanosecond up to centuries is kept within about 3% and values below {@value #SUB_BUCKETS} ns are
+ * kept exactly. The buckets are allocated up front.
+ *
+ * <p>Recording is a few atomic adds, without locks or allocation, so it can be done on the chime
+ * path from any thread. Reading takes a {@link Snapshot}, which copies the buckets.
+ */
+public final class LatencyHistogram {
+  /** Number of buckets every power of two is split into. */
+  static final int SUB_BUCKETS = 32;
+
+  private static final int SUB_BUCKET_BITS = Integer.numberOfTrailingZeros(SUB_BUCKETS);
+
+  // The values below SUB_BUCKETS, then SUB_BUCKETS buckets for every power of two up to 2^62
+  private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final AtomicLong sum = new AtomicLong();
+  private final AtomicLong max = new AtomicLong();
+
+  /** Constructs a LatencyHistogram. Histograms are created by {@link MetricsRegistry#histogram}. */
+  LatencyHistogram() {}
+
+  /**
+   * Records one latency.
+   *
+   * @param nanos The latency in nanoseconds. Negative values are recorded as zero.
+   */
+  public void record(long nanos) {
+    long value = Math.max(0, nanos);
+    this.counts.incrementAndGet(indexOf(value));
+    this.sum.addAndGet(value);
+    this.max.accumulateAndGet(value, Math::max);
+  }
+
+  /**
+   * Takes a copy of the recorded latencies. Values recorded while the copy is taken may or may not
+   * be part of it.
+   *
+   * @return The snapshot.
+   */
+  public Snapshot snapshot() {
+    long[] copy = new long[BUCKETS];
+    for (int i = 0; i < BUCKETS; i++) {
+      copy[i] = this.counts.get(i);
+    }
+    return new Snapshot(copy, this.sum.get(), this.max.get());
+  }
+
+  /**
+   * Gets the bucket of a value.
+   *
+   * @param value The non-negative value.
+   * @return The index of its bucket.
+   */
+  static int indexOf(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+  }
+
+  /**
+   * Gets the smallest value of a bucket.
+   *
+   * @param index The index of the bucket.
+   * @return The smallest value that is counted in it.
+   */
+  static long lowestValueAt(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    int shift = index / SUB_BUCKETS - 1;
+    return (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+  }
+
+  /**
+   * Gets the largest value of a bucket.
+   *
+   * @param index The index of the bucket.
+   * @return The largest value that is counted in it.
+   */
+  static long highestValueAt(int index) {
+    return index + 1 < BUCKETS ? lowestValueAt(index + 1) - 1 : Long.MAX_VALUE;
+  }
+
+  /** The latencies recorded in a histogram at one moment. */
+  public static final class Snapshot {
+    private final long[] counts;
+    private final long count;
+    private final long sum;
+    private final long max;
+
+    /**
+     * Constructs a Snapshot.
+     *
+     * @param counts The counts of the buckets, owned by the snapshot.
+     * @param sum The sum of the recorded values.
+     * @param max The largest recorded value.
+     */
+    private Snapshot(long[] counts, long sum, long max) {
+      long total = 0;
+      for (long bucket : counts) {
+        total += bucket;
+      }
+      this.counts = counts;
+      this.count = total;
+      this.sum = sum;
+      this.max = max;
+    }
+
+    /**
+     * Gets the number of recorded values.
+     *
+     * @return The count.
+     */
+    public long getCount() {
+      return this.count;
+    }
+
+    /**
+     * Gets the sum of the recorded values.
+     *
+     * @return The sum in nanoseconds.
+     */
+    public long getSum() {
+      return this.sum;
+    }
+
+    /**
+     * Gets the largest recorded value.
+     *
+     * @return The maximum in nanoseconds, or zero if nothing was recorded.
+     */
+    public long getMax() {
+      return this.max;
+    }
+
+    /**
+     * Gets the value below or at which a given fraction of the recorded values are. The value is
+     * the upper end of the bucket it falls in, and never more than the maximum.
+     *
+     * @param quantile The fraction, from 0.0 to 1.0.
+     * @return The value in nanoseconds, or zero if nothing was recorded.
+     * @throws IllegalArgumentException if the quantile is out of range.
+     */
+    public long getValueAtQuantile(double quantile) {
+      if (!(quantile >= 0.0 && quantile <= 1.0)) {
+        throw new IllegalArgumentException("Quantile out of range: " + quantile);
+      }
+      if (this.count == 0) {
+        return 0;
+      }
+
+      long rank = Math.max(1, (long) Math.ceil(quantile * this.count));
+      long seen = 0;
+      for (int i = 0; i < this.counts.length; i++) {
+        seen += this.counts[i];
+        if (seen >= rank) {
+          return Math.min(highestValueAt(i), this.max);
+        }
+      }
+      return this.max;
+    }
+  }
+}
@@ -0,0 +1,178 @@
+package dev.haruki7049.jiho.core.metrics;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * The metrics of a process, written out in the Prometheus text exposition format. Counters are
+ * exported as counters; latency histograms as summaries in seconds, with the 0.5, 0.9, 0.99 and
+ * 0.999 quantiles, and a gauge of their maximum named {@code <name>_max}.
+ *
+ * <p>Registering takes a lock, recording into the registered metrics does not.
+ */
+public class MetricsRegistry {
+  /** The content type of the text written by {@link #writeTo}. */
+  public static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+  // The quantiles of every histogram, and their labels
+  private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+  private static final Pattern NAME = Pattern.compile("[a-zA-Z_:][a-zA-Z0-9_:]*");
+
+  private final Map<String, Metric> metrics = new LinkedHashMap<>();
+
+  /**
+   * Registers a counter.
+   *
+   * @param name The metric name, ending with {@code _total} by convention.
+   * @param help What is counted.
+   * @return The new counter.
+   * @throws IllegalArgumentException if the name is invalid or already registered.
+   */
+  public synchronized Counter counter(String name, String help) {
+    Counter counter = new Counter();
+    this.register(new Metric(name, help, counter));
+    return counter;
+  }
+
+  /**
+   * Registers a latency histogram.
+   *
+   * @param name The metric name, ending with {@code _seconds} by convention.
+   * @param help What is measured.
+   * @return The new histogram.
+   * @throws IllegalArgumentException if the name is invalid or already registered.
+   */
+  public synchronized LatencyHistogram histogram(String name, String help) {
+    LatencyHistogram histogram = new LatencyHistogram();
+    this.register(new Metric(name, help, histogram));
+    return histogram;
+  }
+
+  /**
+   * Adds a metric to the registry.
+   *
+   * @param metric The metric.
+   * @throws IllegalArgumentException if its name is invalid or already registered.
+   */
+  private void register(Metric metric) {
+    if (!NAME.matcher(metric.name()).matches()) {
+      throw new IllegalArgumentException("Invalid metric name: " + metric.name());
+    }
+    if (this.metrics.putIfAbsent(metric.name(), metric) != null) {
+      throw new IllegalArgumentException("Metric already registered: " + metric.name());
+    }
+  }
+
+  /**
+   * Writes every metric in the Prometheus text exposition format, in the order they were
+   * registered.
+   *
+   * @param out Where to write.
+   * @throws IOException if writing fails.
+   */
+  public synchronized void writeTo(Appendable out) throws IOException {
+    for (Metric metric : this.metrics.values()) {
+      if (metric.value() instanceof Counter counter) {
+        writeHeader(out, metric.name(), metric.help(), "counter");
+        writeSample(out, metric.name(), "", Long.toString(counter.get()));
+      } else if (metric.value() instanceof LatencyHistogram histogram) {
+        writeHistogram(out, metric, histogram.snapshot());
+      }
+    }
+  }
+
+  /**
+   * Writes every metric into a string, see {@link #writeTo}.
+   *
+   * @return The metrics text.
+   */
+  public String scrape() {
+    StringBuilder text = new StringBuilder();
+    try {
+      this.writeTo(text);
+    } catch (IOException e) {
+      // A StringBuilder does not fail
+      throw new UncheckedIOException(e);
+    }
+    return text.toString();
+  }
+
+  /**
+   * Writes a histogram as a summary and a gauge of its maximum.
+   *
+   * @param out Where to write.
+   * @param metric The registered histogram.
+   * @param snapshot The values of the histogram.
+   * @throws IOException if writing fails.
+   */
+  private static void writeHistogram(
+      Appendable out, Metric metric, LatencyHistogram.Snapshot snapshot) throws IOException {
+    writeHeader(out, metric.name(), metric.help(), "summary");
+    for (double quantile : QUANTILES) {
+      writeSample(
+          out,
+          metric.name(),
+          "{quantile=\"" + quantile + "\"}",
+          seconds(snapshot.getValueAtQuantile(quantile)));
+    }
+    writeSample(out, metric.name() + "_sum", "", seconds(snapshot.getSum()));
+    writeSample(out, metric.name() + "_count", "", Long.toString(snapshot.getCount()));
+
+    String maxName = metric.name() + "_max";
+    writeHeader(out, maxName, "Largest value of " + metric.name() + ".", "gauge");
+    writeSample(out, maxName, "", seconds(snapshot.getMax()));
+  }
+
+  /**
+   * Writes the HELP and TYPE lines of a metric.
+   *
+   * @param out Where to write.
+   * @param name The metric name.
+   * @param help The help text.
+   * @param type The Prometheus type.
+   * @throws IOException if writing fails.
+   */
+  private static void writeHeader(Appendable out, String name, String help, String type)
+      throws IOException {
+    String escaped = help.replace("\\", "\\\\").replace("\n", "\\n");
+    out.append("# HELP ").append(name).append(' ').append(escaped).append('\n');
+    out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+  }
+
+  /**
+   * Writes one sample line.
+   *
+   * @param out Where to write.
+   * @param name The sample name.
+   * @param labels The labels in braces, or an empty string for none.
+   * @param value The formatted value.
+   * @throws IOException if writing fails.
+   */
+  private static void writeSample(Appendable out, String name, String labels, String value)
+      throws IOException {
+    out.append(name).append(labels).append(' ').append(value).append('\n');
+  }
+
+  /**
+   * Formats nanoseconds as seconds, the base unit of Prometheus.
+   *
+   * @param nanos The nanoseconds.
+   * @return The seconds.
+   */
+  private static String seconds(long nanos) {
+    return Double.toString(nanos / 1e9);
+  }
+
+  /**
+   * A registered metric.
+   *
+   * @param name The metric name.
+   * @param help What it measures.
+   * @param value The counter or histogram.
+   */
+  private record Metric(String name, String help, Object value) {}
+}
@@ -0,0 +1,141 @@
+package dev.haruki7049.jiho.core.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Serves the metrics of a {@link MetricsRegistry} over HTTP at {@value #PATH}, for Prometheus to
+ * scrape. The JDK's built-in server is used, and requests are answered on its dispatcher thread:
+ * a scrape only copies counters, so it does not hold up other requests, and it never touches the
+ * chime thread.
+ */
+public class MetricsServer implements AutoCloseable {
+  /** The path the metrics are served at. Other paths are not found. */
+  public static final String PATH = "/metrics";
+
+  private final HttpServer server;
+  private final MetricsRegistry registry;
+
+  /**
+   * Constructs a MetricsServer and starts serving.
+   *
+   * @param address The address and port to listen on.
+   * @param registry The metrics to serve.
+   * @throws IOException if the address cannot be bound.
+   */
+  private MetricsServer(InetSocketAddress address, MetricsRegistry registry) throws IOException {
+    this.registry = registry;
+    this.server = HttpServer.create(address, 0);
+    this.server.createContext("/", this::handle);
+    this.server.setExecutor(null); // The dispatcher thread
+    this.server.start();
+  }
+
+  /**
+   * Starts serving metrics.
+   *
+   * @param address The address and port to listen on, see {@link #parseAddress}. An unresolved
+   *     host is resolved first, port 0 picks a free port.
+   * @param registry The metrics to serve.
+   * @return The running server. Closing it stops serving.
+   * @throws IOException if the host cannot be resolved or the address cannot be bound.
+   */
+  public static MetricsServer start(InetSocketAddress address, MetricsRegistry registry)
+      throws IOException {
+    if (address.isUnresolved()) {
+      address = new InetSocketAddress(address.getHostString(), address.getPort());
+      if (address.isUnresolved()) {
+        throw new IOException("Cannot resolve " + address.getHostString());
+      }
+    }
+    return new MetricsServer(address, registry);
+  }
+
+  /**
+   * Parses the address to serve metrics on, such as {@code 127.0.0.1:9464}, {@code
+   * localhost:9464}, {@code [::1]:9464}, or {@code :9464} for every interface. The host is not
+   * resolved until the server starts.
+   *
+   * @param text The address and port.
+   * @return The unresolved socket address, or a wildcard one if no host is given.
+   * @throws IllegalArgumentException if the text is not a host and a port.
+   */
+  public static InetSocketAddress parseAddress(String text) {
+    int colon = text.lastIndexOf(':');
+    if (colon < 0) {
+      throw new IllegalArgumentException("Expected HOST:PORT but was \"" + text + "\"");
+    }
+    String host = text.substring(0, colon);
+    if (host.startsWith("[") && host.endsWith("]")) {
+      host = host.substring(1, host.length() - 1);
+    }
+    if (!host.matches("[0-9A-Za-z.:%_-]*")) {
+      throw new IllegalArgumentException("Invalid host \"" + host + "\" in \"" + text + "\"");
+    }
+
+    int port;
+    try {
+      port = Integer.parseInt(text.substring(colon + 1));
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid port in \"" + text + "\"", e);
+    }
+    if (port < 1 || port > 65535) {
+      throw new IllegalArgumentException("Port out of range in \"" + text + "\"");
+    }
+    return host.isEmpty()
+        ? new InetSocketAddress(port)
+        : InetSocketAddress.createUnresolved(host, port);
+  }
+
+  /**
+   * Gets the address the server listens on.
+   *
+   * @return The bound address, with the actual port if port 0 was asked for.
+   */
+  public InetSocketAddress getAddress() {
+    return this.server.getAddress();
+  }
+
+  /**
+   * Answers one request: the metrics for a GET or HEAD of {@value #PATH}, an error otherwise.
+   *
+   * @param exchange The request and its response.
+   * @throws IOException if the response cannot be sent.
+   */
+  private void handle(HttpExchange exchange) throws IOException {
+    try (exchange) {
+      if (!PATH.equals(exchange.getRequestURI().getPath())) {
+        exchange.sendResponseHeaders(404, -1);
+        return;
+      }
+      String method = exchange.getRequestMethod();
+      boolean head = "HEAD".equals(method);
+      if (!head && !"GET".equals(method)) {
+        exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+        exchange.sendResponseHeaders(405, -1);
+        return;
+      }
+
+      byte[] body = this.registry.scrape().getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().set("Content-Type", MetricsRegistry.CONTENT_TYPE);
+      if (head) {
+        exchange.sendResponseHeaders(200, -1);
+        return;
+      }
+      exchange.sendResponseHeaders(200, body.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(body);
+      }
+    }
+  }
+
+  /** Stops serving, without waiting for requests in progress. */
+  @Override
+  public void close() {
+    this.server.stop(0);
+  }
+}
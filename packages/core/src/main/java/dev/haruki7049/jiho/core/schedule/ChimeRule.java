@@ -0,0 +1,57 @@
+package dev.haruki7049.jiho.core.schedule;
+
+import java.util.OptionalInt;
+
+/** A chime rule: when to chime, as a cron expression, and how many times. */
+public class ChimeRule {
+  /** Most times a rule may chime, as many as the clock strikes at noon. */
+  public static final int MAX_TIMES = 12;
+
+  private final CronExpression expression;
+  private final Integer times;
+
+  /**
+   * Constructs a ChimeRule.
+   *
+   * @param expression When the rule fires.
+   * @param times How many times to chime, up to {@value #MAX_TIMES}, or null to chime the 12-hour
+   *     clock hour.
+   * @throws IllegalArgumentException if times is out of range.
+   */
+  public ChimeRule(CronExpression expression, Integer times) {
+    if (times != null && (times < 1 || times > MAX_TIMES)) {
+      throw new IllegalArgumentException(
+          "Chime count must be from 1 to " + MAX_TIMES + ": " + times);
+    }
+    this.expression = expression;
+    this.times = times;
+  }
+
+  /**
+   * Gets when the rule fires.
+   *
+   * @return The cron expression.
+   */
+  public CronExpression getExpression() {
+    return this.expression;
+  }
+
+  /**
+   * Gets how many times to chime.
+   *
+   * @return The number of times, or empty to chime the hour.
+   */
+  public OptionalInt getTimes() {
+    return this.times != null ? OptionalInt.of(this.times) : OptionalInt.empty();
+  }
+
+  /**
+   * Formats the rule for log messages.
+   *
+   * @return The rule as text.
+   */
+  @Override
+  public String toString() {
+    return "\"" + this.expression + "\" x " + (this.times != null ? this.times : "hour");
+  }
+}
@@ -0,0 +1,60 @@
+package dev.haruki7049.jiho.core.schedule;
+
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.OptionalInt;
+
+/**
+ * Interface defining the contract for deciding when chimes fire. Implementations work from absolute
+ * deadlines: the caller asks for the next deadline, then waits for it.
+ */
+public interface ChimeScheduler {
+
+  /**
+   * Computes the next chime deadline strictly after the current time.
+   *
+   * @return The next deadline.
+   */
+  ZonedDateTime nextDeadline();
+
+  /**
+   * Computes the next chime deadline strictly after the given time. Decorators that wait on another
+   * clock, such as {@link SyncScheduler}, use it to ask for deadlines on that clock.
+   *
+   * @param now The reference time.
+   * @return The next deadline.
+   */
+  ZonedDateTime nextDeadline(ZonedDateTime now);
+
+  /**
+   * Blocks until the wall clock reaches the given deadline.
+   *
+   * @param deadline The deadline to wait for, as returned by {@link #nextDeadline()}.
+   * @return true if the deadline was reached on time, false if it was missed (for example after a
+   *     suspend or a forward clock step) and the caller should re-arm with {@link #nextDeadline()}.
+   * @throws InterruptedException if the waiting thread is interrupted.
+   */
+  boolean awaitDeadline(ZonedDateTime deadline) throws InterruptedException;
+
+  /**
+   * Gets how many times to chime at a deadline returned by {@link #nextDeadline()}. The default
+   * implementation leaves it to the caller, which chimes the 12-hour clock hour.
+   *
+   * @param deadline The deadline.
+   * @return The number of times, or empty to chime the hour.
+   */
+  default OptionalInt chimeCount(ZonedDateTime deadline) {
+    return OptionalInt.empty();
+  }
+
+  /**
+   * Converts a deadline to the local wall clock, to measure how late it was reached. The default
+   * implementation returns the deadline itself, for schedulers that run on the local clock.
+   *
+   * @param deadline A deadline returned by {@link #nextDeadline()}.
+   * @return The instant of the deadline on the local wall clock.
+   */
+  default Instant localInstant(ZonedDateTime deadline) {
+    return deadline.toInstant();
+  }
+}
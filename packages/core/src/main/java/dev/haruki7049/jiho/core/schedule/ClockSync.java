@@ -0,0 +1,543 @@
+package dev.haruki7049.jiho.core.schedule;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.MulticastSocket;
+import java.net.NetworkInterface;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.net.StandardSocketOptions;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.LongSummaryStatistics;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.logging.Logger;
+
+/**
+ * Estimates the offset of the local wall clock to the clocks of the other Jiho instances of a
+ * UDP multicast group, so that they all chime at the same moment.
+ *
+ * <p>Every instance multicasts a beacon once per interval with the time it was sent, and for every
+ * peer it heard the send time of that peer's last beacon and the time it was received. From a
+ * peer's beacon and the entry about one of its own beacons, an instance has the four timestamps of
+ * an NTP exchange (symmetric mode), and computes the offset and round-trip time of the peer's
+ * clock. The sample with the shortest round trip of the last few is kept, as in the NTP clock
+ * filter.
+ *
+ * <p>The group clock is the median of the clocks of all instances heard, the local one included.
+ * Every instance computes the same median through its own offsets, and a clock that is far off
+ * does not move it.
+ *
+ * <p>After a chime, every instance multicasts the time it fired at. Each instance converts the
+ * fire times of its peers to its own clock, and records the spread of the fire times of a chime as
+ * its residual skew.
+ */
+public class ClockSync implements AutoCloseable {
+  private static final Logger logger = Logger.getLogger("jiho.schedule");
+
+  /** The time between two beacons used when none is given. */
+  public static final Duration DEFAULT_INTERVAL = Duration.ofSeconds(1);
+
+  // "JIHO", then the version of the packet layout
+  private static final int MAGIC = 0x4a49484f;
+  private static final byte VERSION = 1;
+  private static final byte BEACON = 1;
+  private static final byte FIRED = 2;
+
+  // Magic, version, type, entry count, node id, send time
+  private static final int HEADER_BYTES = 4 + 1 + 1 + 2 + 8 + 8;
+  // Peer id, its send time, our receive time
+  private static final int ENTRY_BYTES = 8 + 8 + 8;
+  // Peers listed in a beacon, so that it fits in one unfragmented Ethernet datagram
+  static final int MAX_BEACON_PEERS = 56;
+
+  // Samples kept per peer for the clock filter
+  private static final int FILTER_SAMPLES = 8;
+  // Round trips longer than this are not used, the packet was held up somewhere
+  private static final long MAX_ROUND_TRIP_NANOS = Duration.ofMillis(500).toNanos();
+  // Beacons a peer may miss before it is forgotten
+  private static final int PEER_TIMEOUT_BEACONS = 5;
+
+  private final InetSocketAddress group;
+  private final Clock clock;
+  private final long intervalNanos;
+  private final long nodeId = ThreadLocalRandom.current().nextLong();
+  private final MulticastSocket socket;
+  private final Thread thread;
+  private final Map<Long, Peer> peers = new HashMap<>();
+  private final Map<Long, List<Long>> fireTimes = new HashMap<>(); // Deadline to local fire times
+  private final Map<Long, Long> fireReportsSince = new HashMap<>(); // Deadline to nanoTime
+  private final JitterStats skewStats = new JitterStats();
+  private volatile boolean closed;
+
+  /**
+   * Constructs a ClockSync and starts sending beacons.
+   *
+   * @param group The multicast group and port.
+   * @param networkInterface The interface to use, or null for the system default.
+   * @param clock The local wall clock.
+   * @param interval The time between two beacons.
+   * @throws IOException if the group cannot be joined.
+   */
+  ClockSync(
+      InetSocketAddress group, NetworkInterface networkInterface, Clock clock, Duration interval)
+      throws IOException {
+    this.group = group;
+    this.clock = clock;
+    this.intervalNanos = interval.toNanos();
+
+    this.socket = new MulticastSocket(group.getPort()); // Shared with the other local instances
+    try {
+      if (networkInterface != null) {
+        this.socket.setNetworkInterface(networkInterface);
+      }
+      // Instances on this host hear us too
+      this.socket.setOption(StandardSocketOptions.IP_MULTICAST_LOOP, true);
+      this.socket.joinGroup(group, networkInterface);
+    } catch (IOException e) {
+      this.socket.close();
+      throw e;
+    }
+
+    this.thread = Thread.ofPlatform().daemon().name("jiho-sync").start(this::serve);
+    logger.info("Synchronizing chimes with the group " + group);
+  }
+
+  /**
+   * Joins a multicast group and starts synchronizing.
+   *
+   * @param group The multicast group and port, see {@link #parseGroup}.
+   * @param networkInterface The name of the interface to use, or null for the system default.
+   * @param clock The local wall clock.
+   * @return The running synchronization. Closing it leaves the group.
+   * @throws IOException if the interface does not exist or the group cannot be joined.
+   */
+  public static ClockSync start(InetSocketAddress group, String networkInterface, Clock clock)
+      throws IOException {
+    NetworkInterface nic = null;
+    if (networkInterface != null) {
+      nic = NetworkInterface.getByName(networkInterface);
+      if (nic == null) {
+        throw new SocketException("No network interface named " + networkInterface);
+      }
+    }
+    return new ClockSync(group, nic, clock, DEFAULT_INTERVAL);
+  }
+
+  /**
+   * Parses a multicast group address and port, such as {@code 239.255.74.72:47474} or {@code
+   * [ff15::7a]:47474}. The address must be written as numbers, host names are not resolved.
+   *
+   * @param text The group.
+   * @return The group socket address.
+   * @throws IllegalArgumentException if the text is not a multicast address and a port.
+   */
+  public static InetSocketAddress parseGroup(String text) {
+    int colon = text.lastIndexOf(':');
+    if (colon < 0) {
+      throw new IllegalArgumentException("Expected ADDRESS:PORT but was \"" + text + "\"");
+    }
+    String host = text.substring(0, colon);
+    if (host.matches("\\[[0-9A-Fa-f:.]+\\]")) {
+      host = host.substring(1, host.length() - 1);
+    } else if (!host.matches("[0-9.]+")) {
+      throw new IllegalArgumentException(
+          "Expected a numeric IPv4 or [IPv6] address but was \"" + host + "\"");
+    }
+
+    int port;
+    InetAddress address;
+    try {
+      port = Integer.parseInt(text.substring(colon + 1));
+      address = InetAddress.getByName(host); // Numeric, so nothing is looked up
+    } catch (NumberFormatException | IOException e) {
+      throw new IllegalArgumentException("Invalid multicast group \"" + text + "\"", e);
+    }
+    if (port < 1 || port > 65535) {
+      throw new IllegalArgumentException("Port out of range in \"" + text + "\"");
+    }
+    if (!address.isMulticastAddress()) {
+      throw new IllegalArgumentException(host + " is not a multicast address");
+    }
+    return new InetSocketAddress(address, port);
+  }
+
+  /**
+   * Gets the offset of the group clock to the local clock.
+   *
+   * @return The group time minus the local time; positive if the local clock is behind. Zero
+   *     while no peer has been heard.
+   */
+  public synchronized Duration getOffset() {
+    long[] offsets = new long[this.peers.size() + 1]; // The local clock has offset 0
+    int count = 1;
+    for (Peer peer : this.peers.values()) {
+      if (peer.hasEstimate()) {
+        offsets[count++] = peer.offsetNanos();
+      }
+    }
+    Arrays.sort(offsets, 0, count);
+    long median =
+        count % 2 == 1
+            ? offsets[count / 2]
+            : offsets[count / 2 - 1] + (offsets[count / 2] - offsets[count / 2 - 1]) / 2;
+    return Duration.ofNanos(median);
+  }
+
+  /**
+   * Gets the number of peers whose offset is known.
+   *
+   * @return The peer count, not counting this instance.
+   */
+  public synchronized int getPeerCount() {
+    return (int) this.peers.values().stream().filter(Peer::hasEstimate).count();
+  }
+
+  /**
+   * Gets the residual skew of the chimes: for every chime heard from at least one peer, the time
+   * between the first and the last instance firing it, on the local clock.
+   *
+   * @return The skew statistics, one sample per chime.
+   */
+  public JitterStats getSkewStats() {
+    return this.skewStats;
+  }
+
+  /**
+   * Gets the local wall clock the offsets are measured against.
+   *
+   * @return The clock.
+   */
+  Clock getClock() {
+    return this.clock;
+  }
+
+  /**
+   * Reports that this instance played a chime, to measure the skew of the group.
+   *
+   * @param deadline The deadline of the chime.
+   * @param firedAt When it was fired, on the local clock.
+   */
+  public void fired(ZonedDateTime deadline, Instant firedAt) {
+    long deadlineSecond = deadline.toEpochSecond();
+    long firedNanos = epochNanos(firedAt);
+    synchronized (this) {
+      this.recordFire(deadlineSecond, firedNanos);
+    }
+
+    // The send time of the header is the fire time
+    ByteBuffer packet = this.header(FIRED, 0, 8, firedNanos);
+    packet.putLong(deadlineSecond);
+    this.send(packet);
+  }
+
+  /** Body of the synchronization thread: sends the beacons and handles the packets received. */
+  private void serve() {
+    byte[] buffer = new byte[HEADER_BYTES + ENTRY_BYTES * MAX_BEACON_PEERS];
+    DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+    long nextBeacon = System.nanoTime();
+
+    while (!this.closed) {
+      long now = System.nanoTime();
+      if (now - nextBeacon >= 0) {
+        this.sendBeacon();
+        this.expire(now);
+        nextBeacon = now + this.intervalNanos;
+      }
+
+      try {
+        this.socket.setSoTimeout((int) Math.max(1, (nextBeacon - now) / 1_000_000));
+        packet.setLength(buffer.length);
+        this.socket.receive(packet);
+        long receivedNanos = epochNanos(this.clock.instant());
+        this.receive(ByteBuffer.wrap(buffer, 0, packet.getLength()), receivedNanos);
+      } catch (SocketTimeoutException e) {
+        // Time for the next beacon
+      } catch (IOException e) {
+        if (!this.closed) {
+          logger.warning("Clock synchronization stopped: " + e);
+        }
+        return;
+      }
+    }
+  }
+
+  /** Sends a beacon with the last send and receive times of every peer. */
+  private void sendBeacon() {
+    ByteBuffer packet;
+    synchronized (this) {
+      List<Peer> listed = new ArrayList<>(this.peers.values());
+      listed.sort((a, b) -> Long.compare(b.heardNanoTime, a.heardNanoTime)); // Recent first
+      listed = listed.subList(0, Math.min(MAX_BEACON_PEERS, listed.size()));
+
+      packet = this.header(BEACON, listed.size(), listed.size() * ENTRY_BYTES);
+      for (Peer peer : listed) {
+        packet.putLong(peer.id).putLong(peer.lastSendNanos).putLong(peer.lastReceiveNanos);
+      }
+    }
+    this.send(packet);
+  }
+
+  /**
+   * Handles a packet from the group.
+   *
+   * @param packet The packet.
+   * @param receivedNanos When it was received, on the local clock in nanoseconds since the epoch.
+   */
+  private void receive(ByteBuffer packet, long receivedNanos) {
+    try {
+      if (packet.getInt() != MAGIC || packet.get() != VERSION) {
+        return;
+      }
+      byte type = packet.get();
+      int count = Short.toUnsignedInt(packet.getShort());
+      long from = packet.getLong();
+      long sendNanos = packet.getLong();
+      if (from == this.nodeId) {
+        return; // Our own, looped back
+      }
+
+      synchronized (this) {
+        if (type == BEACON) {
+          this.receiveBeacon(packet, count, from, sendNanos, receivedNanos);
+        } else if (type == FIRED) {
+          Peer peer = this.peers.get(from);
+          if (peer != null && peer.hasEstimate()) {
+            // Their fire time on our clock
+            this.recordFire(packet.getLong(), sendNanos - peer.offsetNanos());
+          }
+        }
+      }
+    } catch (BufferUnderflowException e) {
+      logger.fine("Truncated synchronization packet ignored");
+    }
+  }
+
+  /**
+   * Handles a beacon: remembers its times for our next beacon, and if it lists one of our beacons,
+   * takes an offset sample of the peer. The time the peer held our beacon before answering is
+   * taken out of the round trip, so an answer one interval later is as good as an immediate one.
+   *
+   * @param packet The packet, positioned at the entries.
+   * @param count The number of entries.
+   * @param from The node id of the peer.
+   * @param t3 When the peer sent it, on its clock.
+   * @param t4 When it was received, on our clock.
+   */
+  private void receiveBeacon(ByteBuffer packet, int count, long from, long t3, long t4) {
+    Peer peer = this.peers.get(from);
+    if (peer == null) {
+      logger.info("Heard synchronization peer " + Long.toHexString(from));
+      peer = new Peer(from);
+      this.peers.put(from, peer);
+    }
+    peer.lastSendNanos = t3;
+    peer.lastReceiveNanos = t4;
+    peer.heardNanoTime = System.nanoTime();
+
+    for (int i = 0; i < count; i++) {
+      long id = packet.getLong();
+      long t1 = packet.getLong(); // Our send time, on our clock
+      long t2 = packet.getLong(); // Their receive time, on their clock
+      if (id != this.nodeId) {
+        continue; // About another peer
+      }
+
+      long roundTrip = (t4 - t1) - (t3 - t2);
+      if (roundTrip < 0 || roundTrip > MAX_ROUND_TRIP_NANOS) {
+        continue;
+      }
+      peer.sample(((t2 - t1) + (t3 - t4)) / 2, roundTrip);
+    }
+  }
+
+  /**
+   * Records a fire time of a chime.
+   *
+   * @param deadlineSecond The deadline of the chime, in seconds since the epoch.
+   * @param firedNanos The fire time on our clock, in nanoseconds since the epoch.
+   */
+  private void recordFire(long deadlineSecond, long firedNanos) {
+    this.fireTimes.computeIfAbsent(deadlineSecond, d -> new ArrayList<>()).add(firedNanos);
+    this.fireReportsSince.putIfAbsent(deadlineSecond, System.nanoTime());
+  }
+
+  /**
+   * Forgets silent peers, and computes the skew of the chimes whose reports have all come in.
+   *
+   * @param now The current {@link System#nanoTime()}.
+   */
+  private synchronized void expire(long now) {
+    long timeout = this.intervalNanos * PEER_TIMEOUT_BEACONS;
+    Iterator<Peer> peers = this.peers.values().iterator();
+    while (peers.hasNext()) {
+      Peer peer = peers.next();
+      if (now - peer.heardNanoTime > timeout) {
+        logger.info("Lost synchronization peer " + Long.toHexString(peer.id));
+        peers.remove();
+      }
+    }
+
+    // Fire reports arrive within a round trip, a few intervals is plenty
+    Iterator<Map.Entry<Long, Long>> reports = this.fireReportsSince.entrySet().iterator();
+    while (reports.hasNext()) {
+      Map.Entry<Long, Long> report = reports.next();
+      if (now - report.getValue() <= timeout) {
+        continue;
+      }
+      reports.remove();
+      List<Long> times = this.fireTimes.remove(report.getKey());
+      if (times.size() < 2) {
+        continue;
+      }
+      LongSummaryStatistics spread = times.stream().mapToLong(Long::longValue).summaryStatistics();
+      long skew = spread.getMax() - spread.getMin();
+      this.skewStats.record(skew);
+      logger.info(
+          "Chime at "
+              + Instant.ofEpochSecond(report.getKey())
+              + " fired on "
+              + times.size()
+              + " instances within "
+              + skew / 1e6
+              + " ms. Residual skew: "
+              + this.skewStats);
+    }
+  }
+
+  /**
+   * Starts a packet.
+   *
+   * @param type The packet type.
+   * @param count The number of entries.
+   * @param bodyBytes The size of what follows the header.
+   * @param sendNanos The send time to put in the header.
+   * @return The packet, positioned after the header.
+   */
+  private ByteBuffer header(byte type, int count, int bodyBytes, long sendNanos) {
+    return ByteBuffer.allocate(HEADER_BYTES + bodyBytes)
+        .putInt(MAGIC)
+        .put(VERSION)
+        .put(type)
+        .putShort((short) count)
+        .putLong(this.nodeId)
+        .putLong(sendNanos);
+  }
+
+  /**
+   * Starts a packet sent now.
+   *
+   * @param type The packet type.
+   * @param count The number of entries.
+   * @param bodyBytes The size of what follows the header.
+   * @return The packet, positioned after the header.
+   */
+  private ByteBuffer header(byte type, int count, int bodyBytes) {
+    return this.header(type, count, bodyBytes, epochNanos(this.clock.instant()));
+  }
+
+  /**
+   * Multicasts a packet to the group. Failures are logged, the next beacon tries again.
+   *
+   * @param packet The packet, positioned at its end.
+   */
+  private void send(ByteBuffer packet) {
+    try {
+      this.socket.send(new DatagramPacket(packet.array(), packet.position(), this.group));
+    } catch (IOException e) {
+      if (!this.closed) {
+        logger.fine("Sending a synchronization packet failed: " + e);
+      }
+    }
+  }
+
+  /**
+   * Converts an instant to nanoseconds since the epoch.
+   *
+   * @param instant The instant.
+   * @return The nanoseconds.
+   */
+  private static long epochNanos(Instant instant) {
+    return instant.getEpochSecond() * 1_000_000_000L + instant.getNano();
+  }
+
+  /** Stops sending beacons and leaves the group. */
+  @Override
+  public void close() {
+    this.closed = true;
+    this.socket.close(); // Wakes up the receive
+    try {
+      this.thread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /** What is known about the clock of another instance. */
+  private static class Peer {
+    private final long id;
+    private final long[] offsets = new long[FILTER_SAMPLES];
+    private final long[] roundTrips = new long[FILTER_SAMPLES];
+    private int samples;
+    private long lastSendNanos; // Send time of its last beacon, on its clock
+    private long lastReceiveNanos; // Receive time of its last beacon, on our clock
+    private long heardNanoTime; // System.nanoTime() of its last beacon
+
+    /**
+     * Constructs a Peer.
+     *
+     * @param id The node id of the instance.
+     */
+    Peer(long id) {
+      this.id = id;
+    }
+
+    /**
+     * Adds an offset sample, replacing the oldest one.
+     *
+     * @param offsetNanos The peer time minus our time.
+     * @param roundTripNanos The round-trip time of the exchange.
+     */
+    void sample(long offsetNanos, long roundTripNanos) {
+      int slot = this.samples++ % FILTER_SAMPLES;
+      this.offsets[slot] = offsetNanos;
+      this.roundTrips[slot] = roundTripNanos;
+    }
+
+    /**
+     * Tells whether an offset has been measured.
+     *
+     * @return true once a sample was taken.
+     */
+    boolean hasEstimate() {
+      return this.samples > 0;
+    }
+
+    /**
+     * Gets the offset of the sample with the shortest round trip, the least delayed one.
+     *
+     * @return The peer time minus our time, in nanoseconds.
+     */
+    long offsetNanos() {
+      int best = 0;
+      for (int i = 1; i < Math.min(this.samples, FILTER_SAMPLES); i++) {
+        if (this.roundTrips[i] < this.roundTrips[best]) {
+          best = i;
+        }
+      }
+      return this.offsets[best];
+    }
+  }
+}
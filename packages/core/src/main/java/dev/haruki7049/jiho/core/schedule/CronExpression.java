@@ -0,0 +1,340 @@
+package dev.haruki7049.jiho.core.schedule;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A five-field cron expression: minute, hour, day of month, month and day of week, in local time.
+ *
+ * <p>Each field accepts {@code *}, single values, ranges ({@code 1-5}), lists ({@code 0,30}) and
+ * steps ({@code *}{@code /15}, {@code 8-18/2}). Months and days of week also accept three-letter
+ * English names, and both 0 and 7 mean Sunday. As in classic cron, when both the day of month and
+ * the day of week are restricted, a day matching either of them matches. The shortcuts {@code
+ * @hourly}, {@code @daily}, {@code @midnight}, {@code @weekly}, {@code @monthly}, {@code @yearly}
+ * and {@code @annually} are accepted as well.
+ *
+ * <p>Daylight saving time is handled like in {@link HourlyScheduler}: local times in a gap do not
+ * fire, and local times in an overlap fire once for each offset.
+ */
+public final class CronExpression {
+  // Upper bound for the search of the next match, enough for "29 February on a Monday"
+  private static final int MAX_SEARCH_YEARS = 30;
+
+  private static final Map<String, String> SHORTCUTS =
+      Map.of(
+          "@hourly", "0 * * * *",
+          "@daily", "0 0 * * *",
+          "@midnight", "0 0 * * *",
+          "@weekly", "0 0 * * 0",
+          "@monthly", "0 0 1 * *",
+          "@yearly", "0 0 1 1 *",
+          "@annually", "0 0 1 1 *");
+
+  private static final List<String> MONTH_NAMES =
+      List.of("JAN", "FEB", "MAR", "APR", "MAY", "JUN", "JUL", "AUG", "SEP", "OCT", "NOV", "DEC");
+
+  private static final List<String> DAY_NAMES =
+      List.of("SUN", "MON", "TUE", "WED", "THU", "FRI", "SAT");
+
+  private final String expression;
+  private final BitSet minutes;
+  private final BitSet hours;
+  private final BitSet daysOfMonth;
+  private final BitSet months;
+  private final BitSet daysOfWeek; // 0 = Sunday to 6 = Saturday
+  private final boolean dayOfMonthRestricted;
+  private final boolean dayOfWeekRestricted;
+
+  /**
+   * Constructs a CronExpression from parsed fields.
+   *
+   * @param expression The original expression.
+   * @param fields The five fields.
+   */
+  private CronExpression(String expression, String[] fields) {
+    this.expression = expression;
+    this.minutes = parseField(fields[0], 0, 59, List.of());
+    this.hours = parseField(fields[1], 0, 23, List.of());
+    this.daysOfMonth = parseField(fields[2], 1, 31, List.of());
+    this.months = parseField(fields[3], 1, 12, MONTH_NAMES);
+    this.daysOfWeek = parseField(fields[4], 0, 7, DAY_NAMES);
+    this.dayOfMonthRestricted = !fields[2].startsWith("*");
+    this.dayOfWeekRestricted = !fields[4].startsWith("*");
+
+    // 7 is another name for Sunday
+    if (this.daysOfWeek.get(7)) {
+      this.daysOfWeek.clear(7);
+      this.daysOfWeek.set(0);
+    }
+  }
+
+  /**
+   * Parses a cron expression.
+   *
+   * @param expression The expression, e.g. "0,30 9-17 * * MON-FRI" or "@hourly".
+   * @return The parsed expression.
+   * @throws IllegalArgumentException if the expression is malformed.
+   */
+  public static CronExpression parse(String expression) {
+    if (expression == null) {
+      throw new IllegalArgumentException("Cron expression is null");
+    }
+
+    String trimmed = expression.trim();
+    String expanded = SHORTCUTS.getOrDefault(trimmed.toLowerCase(Locale.ROOT), trimmed);
+    String[] fields = expanded.split("\\s+");
+    if (fields.length != 5) {
+      throw new IllegalArgumentException(
+          "Cron expression must have 5 fields, got " + fields.length + ": " + expression);
+    }
+
+    try {
+      return new CronExpression(trimmed, fields);
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException(
+          "Invalid cron expression \"" + expression + "\": " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Computes the next time this expression fires strictly after the given time, in the zone of
+   * the given time.
+   *
+   * @param after The reference time.
+   * @return The next fire time, or null if the expression never fires again (e.g. "0 0 30 2 *").
+   */
+  public ZonedDateTime next(ZonedDateTime after) {
+    ZoneId zone = after.getZone();
+    LocalDateTime local = after.toLocalDateTime().truncatedTo(ChronoUnit.MINUTES);
+    LocalDateTime limit = local.plusYears(MAX_SEARCH_YEARS);
+
+    ZoneOffsetTransition transition = zone.getRules().getTransition(after.toLocalDateTime());
+    if (transition != null
+        && transition.isOverlap()
+        && after.getOffset().equals(transition.getOffsetBefore())) {
+      // In the first pass of an overlap: the rest of the first pass comes first, then the whole
+      // overlap again with the later offset
+      ZonedDateTime firstPass =
+          this.firstMatch(
+              local, transition.getDateTimeBefore(), zone, transition.getOffsetBefore(), after);
+      if (firstPass != null) {
+        return firstPass;
+      }
+      local = transition.getDateTimeAfter();
+    }
+
+    return this.firstMatch(local, limit, zone, null, after);
+  }
+
+  /**
+   * Finds the first matching time after a reference instant, walking the local time line forward.
+   * Outside of the first pass of an overlap, local order is instant order.
+   *
+   * @param from The first local time to consider, truncated to minutes.
+   * @param limit The local time at which the search gives up.
+   * @param zone The time zone.
+   * @param onlyOffset The only offset to consider, or null for every valid offset.
+   * @param after The reference time. Matches must be strictly after it.
+   * @return The first match, or null if there is none before the limit.
+   */
+  private ZonedDateTime firstMatch(
+      LocalDateTime from,
+      LocalDateTime limit,
+      ZoneId zone,
+      ZoneOffset onlyOffset,
+      ZonedDateTime after) {
+    ZoneRules rules = zone.getRules();
+    Instant afterInstant = after.toInstant();
+    LocalDateTime local = from;
+
+    while ((local = this.nextLocalMatch(local, limit)) != null) {
+      // No valid offsets: the time is in a gap. Two offsets: it is in an overlap, and
+      // getValidOffsets() lists the earlier instant first.
+      List<ZoneOffset> offsets =
+          onlyOffset != null ? List.of(onlyOffset) : rules.getValidOffsets(local);
+      for (ZoneOffset offset : offsets) {
+        ZonedDateTime candidate = ZonedDateTime.ofStrict(local, offset, zone);
+        if (candidate.toInstant().isAfter(afterInstant)) {
+          return candidate;
+        }
+      }
+      local = local.plusMinutes(1);
+    }
+
+    return null;
+  }
+
+  /**
+   * Tells whether the given local time matches the expression.
+   *
+   * @param local The local time, seconds are ignored.
+   * @return true if it matches.
+   */
+  public boolean matches(LocalDateTime local) {
+    return this.months.get(local.getMonthValue())
+        && this.matchesDay(local.toLocalDate())
+        && this.hours.get(local.getHour())
+        && this.minutes.get(local.getMinute());
+  }
+
+  /**
+   * Finds the first matching local time at or after the given minute, skipping whole months, days
+   * and hours that cannot match.
+   *
+   * @param from The first local time to consider, truncated to minutes.
+   * @param limit The local time at which the search gives up.
+   * @return The matching local time, or null if there is none before the limit.
+   */
+  private LocalDateTime nextLocalMatch(LocalDateTime from, LocalDateTime limit) {
+    LocalDateTime local = from;
+
+    while (local.isBefore(limit)) {
+      if (!this.months.get(local.getMonthValue())) {
+        local = local.toLocalDate().withDayOfMonth(1).plusMonths(1).atStartOfDay();
+        continue;
+      }
+      if (!this.matchesDay(local.toLocalDate())) {
+        local = local.toLocalDate().plusDays(1).atStartOfDay();
+        continue;
+      }
+
+      int hour = this.hours.nextSetBit(local.getHour());
+      if (hour < 0) {
+        local = local.toLocalDate().plusDays(1).atStartOfDay();
+        continue;
+      }
+      if (hour != local.getHour()) {
+        local = local.withHour(hour).withMinute(0);
+      }
+
+      int minute = this.minutes.nextSetBit(local.getMinute());
+      if (minute < 0) {
+        local = local.truncatedTo(ChronoUnit.HOURS).plusHours(1);
+        continue;
+      }
+      return local.withMinute(minute);
+    }
+
+    return null;
+  }
+
+  /**
+   * Tells whether the date matches the day of month and day of week fields.
+   *
+   * @param date The local date.
+   * @return true if it matches.
+   */
+  private boolean matchesDay(LocalDate date) {
+    boolean dayOfMonth = this.daysOfMonth.get(date.getDayOfMonth());
+    boolean dayOfWeek = this.daysOfWeek.get(date.getDayOfWeek().getValue() % 7);
+
+    if (this.dayOfMonthRestricted && this.dayOfWeekRestricted) {
+      return dayOfMonth || dayOfWeek;
+    }
+    return dayOfMonth && dayOfWeek;
+  }
+
+  /**
+   * Parses one field into the set of values it matches.
+   *
+   * @param field The field text.
+   * @param min The smallest allowed value.
+   * @param max The largest allowed value.
+   * @param names Names for the values starting at {@code min}, or empty if names are not allowed.
+   * @return The matching values.
+   * @throws IllegalArgumentException if the field is malformed.
+   */
+  private static BitSet parseField(String field, int min, int max, List<String> names) {
+    BitSet values = new BitSet(max + 1);
+
+    for (String part : field.split(",")) {
+      int step = 1;
+      int slash = part.indexOf('/');
+      if (slash >= 0) {
+        step = parseNumber(part.substring(slash + 1));
+        if (step <= 0) {
+          throw new IllegalArgumentException("Step must be positive: " + part);
+        }
+        part = part.substring(0, slash);
+      }
+
+      int from;
+      int to;
+      if (part.equals("*")) {
+        from = min;
+        to = max;
+      } else {
+        int dash = part.indexOf('-');
+        if (dash >= 0) {
+          from = parseValue(part.substring(0, dash), min, names);
+          to = parseValue(part.substring(dash + 1), min, names);
+        } else {
+          from = parseValue(part, min, names);
+          // "5/15" means from 5 to the end
+          to = slash >= 0 ? max : from;
+        }
+      }
+
+      if (from < min || to > max || from > to) {
+        throw new IllegalArgumentException(
+            "Value out of range " + min + "-" + max + ": " + field);
+      }
+      for (int value = from; value <= to; value += step) {
+        values.set(value);
+      }
+    }
+
+    return values;
+  }
+
+  /**
+   * Parses a single value, which may be a name.
+   *
+   * @param text The value text.
+   * @param min The value of the first name.
+   * @param names The allowed names.
+   * @return The value.
+   */
+  private static int parseValue(String text, int min, List<String> names) {
+    int index = names.indexOf(text.toUpperCase(Locale.ROOT));
+    if (index >= 0) {
+      return min + index;
+    }
+    return parseNumber(text);
+  }
+
+  /**
+   * Parses a non-negative number.
+   *
+   * @param text The number text.
+   * @return The number.
+   */
+  private static int parseNumber(String text) {
+    try {
+      return Integer.parseInt(text);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Not a number: " + text);
+    }
+  }
+
+  /**
+   * Returns the expression as written.
+   *
+   * @return The expression.
+   */
+  @Override
+  public String toString() {
+    return this.expression;
+  }
+}
@@ -0,0 +1,78 @@
+package dev.haruki7049.jiho.core.schedule;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.logging.Logger;
+
+/**
+ * Waits for absolute deadlines on behalf of the schedulers.
+ *
+ * <p>The wait is a single sleep until the deadline on the wall clock (see {@link
+ * Sleeper#sleepUntil(Clock, Instant)}), so nothing wakes up between chimes. A sleep on the
+ * monotonic clock would be late by as long as the machine was suspended, and would not follow
+ * steps of the wall clock. After every wakeup the wall clock is read again: if it is found past the
+ * deadline by more than the missed tolerance (it was stepped forward, or the machine was suspended
+ * over the deadline), the deadline is reported as missed so the caller can re-arm.
+ */
+class DeadlineWaiter {
+  private static final Logger logger = Logger.getLogger("jiho.schedule");
+
+  // Differences between wall clock and monotonic elapsed time larger than this are logged
+  private static final Duration DISCONTINUITY_THRESHOLD = Duration.ofSeconds(1);
+
+  private final Clock clock;
+  private final Duration missedTolerance;
+  private final Sleeper sleeper;
+
+  /**
+   * Constructs a DeadlineWaiter.
+   *
+   * @param clock The wall clock.
+   * @param missedTolerance How late a deadline may be reached before it is reported as missed.
+   * @param sleeper The monotonic clock to sleep on.
+   */
+  DeadlineWaiter(Clock clock, Duration missedTolerance, Sleeper sleeper) {
+    this.clock = clock;
+    this.missedTolerance = missedTolerance;
+    this.sleeper = sleeper;
+  }
+
+  /**
+   * Sleeps until the wall clock reaches the deadline.
+   *
+   * @param deadline The deadline to wait for.
+   * @return true if the deadline was reached on time, false if it was missed.
+   * @throws InterruptedException if the waiting thread is interrupted.
+   */
+  boolean await(ZonedDateTime deadline) throws InterruptedException {
+    final Instant target = deadline.toInstant();
+
+    while (true) {
+      final Instant wallStart = this.clock.instant();
+      final long remainingNanos = Duration.between(wallStart, target).toNanos();
+
+      if (remainingNanos <= 0) {
+        Duration lateness = Duration.ofNanos(-remainingNanos);
+        if (lateness.compareTo(this.missedTolerance) > 0) {
+          logger.warning("Missed deadline " + deadline + " by " + lateness + ", re-arming.");
+          return false;
+        }
+        return true;
+      }
+
+      final long monoStart = this.sleeper.nanoTime();
+      this.sleeper.sleepUntil(this.clock, target);
+
+      // Compare how much time passed on both clocks to detect a wall clock step
+      long monoElapsed = this.sleeper.nanoTime() - monoStart;
+      long wallElapsed = Duration.between(wallStart, this.clock.instant()).toNanos();
+      long discontinuity = wallElapsed - monoElapsed;
+      if (Math.abs(discontinuity) > DISCONTINUITY_THRESHOLD.toNanos()) {
+        logger.warning(
+            "Wall clock moved by " + Duration.ofNanos(discontinuity) + " while waiting.");
+      }
+    }
+  }
+}
@@ -0,0 +1,134 @@
+package dev.haruki7049.jiho.core.schedule;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.zone.ZoneRules;
+
+/**
+ * Scheduler that fires at the top of every local hour.
+ *
+ * <p>Waiting is done by a {@link DeadlineWaiter}: one sleep until the deadline on the wall clock,
+ * so a suspend or a clock step during the wait does not delay the chime, and nothing wakes up
+ * between chimes. Deadlines reached more than the missed tolerance late are reported as missed.
+ *
+ * <p>Daylight saving time transitions are handled explicitly on the local time line:
+ *
+ * <ul>
+ *   <li>A local hour that does not exist (spring forward gap) does not chime. The next chime is the
+ *       first top of the hour after the gap.
+ *   <li>A local hour that occurs twice (fall back overlap) chimes twice, once for each offset, in
+ *       chronological order.
+ *   <li>Zones whose transitions are not whole hours never produce a deadline off the top of the
+ *       hour, because candidates are always built from local "HH:00" times.
+ * </ul>
+ */
+public class HourlyScheduler implements ChimeScheduler {
+  // How late a deadline may be reached before it is treated as missed
+  static final Duration DEFAULT_MISSED_TOLERANCE = Duration.ofSeconds(30);
+
+  // Upper bound for the search of the next valid local hour (longest known gap is one day)
+  private static final int MAX_SEARCH_HOURS = 48;
+
+  private final Clock clock;
+  private final DeadlineWaiter waiter;
+
+  /**
+   * Constructs an HourlyScheduler for the given time zone, using the system clock.
+   *
+   * @param zone The time zone whose local hours are chimed.
+   */
+  public HourlyScheduler(ZoneId zone) {
+    this(Clock.system(zone), DEFAULT_MISSED_TOLERANCE);
+  }
+
+  /**
+   * Constructs an HourlyScheduler with a specific clock.
+   *
+   * @param clock The wall clock. Its zone decides which local hours are chimed.
+   * @param missedTolerance How late a deadline may be reached before it is reported as missed.
+   */
+  public HourlyScheduler(Clock clock, Duration missedTolerance) {
+    this(clock, missedTolerance, Sleeper.system());
+  }
+
+  /**
+   * Constructs an HourlyScheduler with a specific clock and sleeper, and the default missed
+   * tolerance.
+   *
+   * @param clock The wall clock. Its zone decides which local hours are chimed.
+   * @param sleeper The monotonic clock to sleep on, e.g. a {@link VirtualClock} for simulations.
+   */
+  public HourlyScheduler(Clock clock, Sleeper sleeper) {
+    this(clock, DEFAULT_MISSED_TOLERANCE, sleeper);
+  }
+
+  /**
+   * Constructs an HourlyScheduler with a specific clock and sleeper.
+   *
+   * @param clock The wall clock. Its zone decides which local hours are chimed.
+   * @param missedTolerance How late a deadline may be reached before it is reported as missed.
+   * @param sleeper The monotonic clock to sleep on.
+   */
+  public HourlyScheduler(Clock clock, Duration missedTolerance, Sleeper sleeper) {
+    this.clock = clock;
+    this.waiter = new DeadlineWaiter(clock, missedTolerance, sleeper);
+  }
+
+  /**
+   * Computes the next top of the hour strictly after the current time.
+   *
+   * @return The next deadline.
+   */
+  @Override
+  public ZonedDateTime nextDeadline() {
+    return this.nextDeadline(ZonedDateTime.now(this.clock));
+  }
+
+  /**
+   * Computes the next top of the hour strictly after the given time.
+   *
+   * @param now The reference time.
+   * @return The next deadline, in the scheduler's zone.
+   */
+  @Override
+  public ZonedDateTime nextDeadline(ZonedDateTime now) {
+    ZoneId zone = this.clock.getZone();
+    ZoneRules rules = zone.getRules();
+    Instant nowInstant = now.toInstant();
+
+    LocalDateTime local =
+        now.withZoneSameInstant(zone).toLocalDateTime().truncatedTo(ChronoUnit.HOURS);
+
+    for (int i = 0; i < MAX_SEARCH_HOURS; i++) {
+      // No valid offsets: the hour is in a gap. Two offsets: the hour is in an overlap,
+      // and getValidOffsets() lists the earlier instant first.
+      for (ZoneOffset offset : rules.getValidOffsets(local)) {
+        ZonedDateTime candidate = ZonedDateTime.ofStrict(local, offset, zone);
+        if (candidate.toInstant().isAfter(nowInstant)) {
+          return candidate;
+        }
+      }
+      local = local.plusHours(1);
+    }
+
+    throw new IllegalStateException("No valid top of the hour found after " + now);
+  }
+
+  /**
+   * Sleeps until the wall clock reaches the deadline.
+   *
+   * @param deadline The deadline to wait for.
+   * @return true if the deadline was reached on time, false if it was missed.
+   * @throws InterruptedException if the waiting thread is interrupted.
+   */
+  @Override
+  public boolean awaitDeadline(ZonedDateTime deadline) throws InterruptedException {
+    return this.waiter.await(deadline);
+  }
+}
@@ -0,0 +1,78 @@
+package dev.haruki7049.jiho.core.schedule;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Running statistics of how far wakeups landed from their deadlines. Positive values are late,
+ * negative values are early.
+ */
+public class JitterStats {
+  private long count;
+  private long lastNanos;
+  private long minNanos = Long.MAX_VALUE;
+  private long maxNanos = Long.MIN_VALUE;
+  private long maxAbsNanos;
+  private double sumNanos;
+
+  /**
+   * Records one wakeup.
+   *
+   * @param errorNanos The wakeup time minus the deadline, in nanoseconds.
+   */
+  public synchronized void record(long errorNanos) {
+    this.count++;
+    this.lastNanos = errorNanos;
+    this.minNanos = Math.min(this.minNanos, errorNanos);
+    this.maxNanos = Math.max(this.maxNanos, errorNanos);
+    this.maxAbsNanos = Math.max(this.maxAbsNanos, Math.abs(errorNanos));
+    this.sumNanos += errorNanos;
+  }
+
+  /**
+   * Gets the number of recorded wakeups.
+   *
+   * @return The sample count.
+   */
+  public synchronized long getCount() {
+    return this.count;
+  }
+
+  /**
+   * Gets the error of the last recorded wakeup.
+   *
+   * @return The last error, or zero if nothing was recorded.
+   */
+  public synchronized Duration getLast() {
+    return Duration.ofNanos(this.lastNanos);
+  }
+
+  /**
+   * Gets the largest absolute error of all recorded wakeups.
+   *
+   * @return The worst error, or zero if nothing was recorded.
+   */
+  public synchronized Duration getWorst() {
+    return Duration.ofNanos(this.maxAbsNanos);
+  }
+
+  /**
+   * Formats the statistics as a one-line report in microseconds.
+   *
+   * @return The report.
+   */
+  @Override
+  public synchronized String toString() {
+    if (this.count == 0) {
+      return "no samples";
+    }
+    return String.format(
+        Locale.ROOT,
+        "last=%.1fus min=%.1fus max=%.1fus mean=%.1fus (n=%d)",
+        this.lastNanos / 1e3,
+        this.minNanos / 1e3,
+        this.maxNanos / 1e3,
+        this.sumNanos / this.count / 1e3,
+        this.count);
+  }
+}
@@ -0,0 +1,163 @@
+package dev.haruki7049.jiho.core.schedule;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.OptionalInt;
+import java.util.logging.Logger;
+
+/**
+ * Scheduler decorator for sub-millisecond onset precision. The wrapped scheduler parks until a
+ * guard window before the deadline; the rest of the wait is a busy loop on {@link
+ * System#nanoTime()}, whose target is calibrated against the wall clock just before spinning.
+ *
+ * <p>Every wakeup is recorded in a {@link JitterStats}, which is logged after each deadline.
+ */
+public class PrecisionScheduler implements ChimeScheduler {
+  private static final Logger logger = Logger.getLogger("jiho.schedule");
+
+  /** The busy-wait window used when none is configured. */
+  public static final Duration DEFAULT_GUARD = Duration.ofMillis(50);
+
+  // Number of clock samples taken for calibration; the tightest one wins
+  private static final int CALIBRATION_SAMPLES = 16;
+
+  private final ChimeScheduler coarse;
+  private final Duration guard;
+  private final Clock clock;
+  private final JitterStats jitterStats = new JitterStats();
+
+  /**
+   * Constructs a PrecisionScheduler using the system clock for calibration.
+   *
+   * @param coarse The scheduler used for deadlines and for the coarse wait.
+   * @param guard How long before the deadline to switch from parking to busy-waiting.
+   */
+  public PrecisionScheduler(ChimeScheduler coarse, Duration guard) {
+    this(coarse, guard, Clock.systemUTC());
+  }
+
+  /**
+   * Constructs a PrecisionScheduler with a specific calibration clock.
+   *
+   * @param coarse The scheduler used for deadlines and for the coarse wait.
+   * @param guard How long before the deadline to switch from parking to busy-waiting.
+   * @param clock The wall clock the spin target is calibrated against.
+   */
+  public PrecisionScheduler(ChimeScheduler coarse, Duration guard, Clock clock) {
+    this.coarse = coarse;
+    this.guard = guard;
+    this.clock = clock;
+  }
+
+  /**
+   * Gets the next deadline from the wrapped scheduler.
+   *
+   * @return The next deadline.
+   */
+  @Override
+  public ZonedDateTime nextDeadline() {
+    return this.coarse.nextDeadline();
+  }
+
+  /**
+   * Gets the next deadline after the given time from the wrapped scheduler.
+   *
+   * @param now The reference time.
+   * @return The next deadline.
+   */
+  @Override
+  public ZonedDateTime nextDeadline(ZonedDateTime now) {
+    return this.coarse.nextDeadline(now);
+  }
+
+  /**
+   * Converts a deadline to the local wall clock with the wrapped scheduler.
+   *
+   * @param deadline The deadline.
+   * @return The instant of the deadline on the local wall clock.
+   */
+  @Override
+  public Instant localInstant(ZonedDateTime deadline) {
+    return this.coarse.localInstant(deadline);
+  }
+
+  /**
+   * Gets how many times to chime at a deadline from the wrapped scheduler.
+   *
+   * @param deadline The deadline.
+   * @return The number of times, or empty to chime the hour.
+   */
+  @Override
+  public OptionalInt chimeCount(ZonedDateTime deadline) {
+    return this.coarse.chimeCount(deadline);
+  }
+
+  /**
+   * Parks until the guard window before the deadline, then busy-waits for the rest.
+   *
+   * @param deadline The deadline to wait for.
+   * @return true if the deadline was reached on time, false if it was missed.
+   * @throws InterruptedException if the waiting thread is interrupted.
+   */
+  @Override
+  public boolean awaitDeadline(ZonedDateTime deadline) throws InterruptedException {
+    // Coarse stage: park until the guard window opens
+    if (!this.coarse.awaitDeadline(deadline.minus(this.guard))) {
+      return false;
+    }
+
+    // Fine stage: translate the wall clock deadline to the monotonic clock and spin
+    final long targetNanos = this.calibrate(deadline.toInstant());
+    long now;
+    while ((now = System.nanoTime()) < targetNanos) {
+      Thread.onSpinWait();
+    }
+
+    if (Thread.interrupted()) {
+      throw new InterruptedException();
+    }
+
+    this.jitterStats.record(now - targetNanos);
+    logger.info("Precision wakeup jitter: " + this.jitterStats);
+    return true;
+  }
+
+  /**
+   * Gets the recorded wakeup jitter.
+   *
+   * @return The jitter statistics.
+   */
+  public JitterStats getJitterStats() {
+    return this.jitterStats;
+  }
+
+  /**
+   * Converts a wall clock instant to a {@link System#nanoTime()} value. The wall clock is read
+   * several times between two monotonic reads, and the pair with the shortest bracket is used.
+   *
+   * @param target The wall clock instant.
+   * @return The corresponding monotonic time.
+   */
+  long calibrate(Instant target) {
+    long bestBracket = Long.MAX_VALUE;
+    long bestOffset = 0;
+
+    for (int i = 0; i < CALIBRATION_SAMPLES; i++) {
+      long before = System.nanoTime();
+      Instant wall = this.clock.instant();
+      long after = System.nanoTime();
+
+      long bracket = after - before;
+      if (bracket < bestBracket) {
+        bestBracket = bracket;
+        // Monotonic time at which the wall clock read happened, minus its wall clock value
+        long mid = before + bracket / 2;
+        bestOffset = mid - Duration.between(Instant.EPOCH, wall).toNanos();
+      }
+    }
+
+    return bestOffset + Duration.between(Instant.EPOCH, target).toNanos();
+  }
+}
@@ -0,0 +1,177 @@
+package dev.haruki7049.jiho.core.schedule;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.PriorityQueue;
+import java.util.logging.Logger;
+
+/**
+ * Scheduler serving any number of {@link ChimeRule}s from one thread.
+ *
+ * <p>The rules are kept in a priority queue ordered by their next fire time. The next deadline is
+ * the head of the queue; once it has passed, only the rules that fired are advanced and put back,
+ * so each fire costs O(log n) in the number of rules. Rules that fire at the same instant make a
+ * single deadline, and the rule listed first decides how many times to chime.
+ *
+ * <p>Waiting is done by a {@link DeadlineWaiter}, like in {@link HourlyScheduler}.
+ */
+public class RuleScheduler implements ChimeScheduler {
+  private static final Logger logger = Logger.getLogger("jiho.schedule");
+
+  /** A rule with its next fire time, ordered in the queue by time, then by rule order. */
+  private record Entry(ZonedDateTime fireAt, int index, ChimeRule rule) {}
+
+  private static final Comparator<Entry> ORDER =
+      Comparator.comparing((Entry entry) -> entry.fireAt().toInstant())
+          .thenComparingInt(Entry::index);
+
+  private final Clock clock;
+  private final DeadlineWaiter waiter;
+  private final PriorityQueue<Entry> queue = new PriorityQueue<>(ORDER);
+
+  // The deadline handed out by nextDeadline(), until it has passed
+  private Entry pending;
+
+  /**
+   * Constructs a RuleScheduler.
+   *
+   * @param clock The wall clock. Its zone is the zone of the cron expressions.
+   * @param missedTolerance How late a deadline may be reached before it is reported as missed.
+   * @param rules The rules, in order of precedence.
+   */
+  public RuleScheduler(Clock clock, Duration missedTolerance, List<ChimeRule> rules) {
+    this(clock, missedTolerance, Sleeper.system(), rules);
+  }
+
+  /**
+   * Constructs a RuleScheduler with a specific sleeper.
+   *
+   * @param clock The wall clock. Its zone is the zone of the cron expressions.
+   * @param missedTolerance How late a deadline may be reached before it is reported as missed.
+   * @param sleeper The monotonic clock to sleep on, e.g. a {@link VirtualClock} for simulations.
+   * @param rules The rules, in order of precedence.
+   */
+  public RuleScheduler(
+      Clock clock, Duration missedTolerance, Sleeper sleeper, List<ChimeRule> rules) {
+    if (rules.isEmpty()) {
+      throw new IllegalArgumentException("At least one rule is required");
+    }
+    this.clock = clock;
+    this.waiter = new DeadlineWaiter(clock, missedTolerance, sleeper);
+
+    ZonedDateTime now = ZonedDateTime.now(clock);
+    List<Entry> entries = new ArrayList<>(rules.size());
+    for (int i = 0; i < rules.size(); i++) {
+      ChimeRule rule = rules.get(i);
+      ZonedDateTime fireAt = rule.getExpression().next(now);
+      if (fireAt == null) {
+        logger.warning("Rule " + rule + " never fires, ignoring it.");
+        continue;
+      }
+      entries.add(new Entry(fireAt, i, rule));
+    }
+    this.queue.addAll(entries);
+  }
+
+  /**
+   * Constructs a RuleScheduler with the default missed tolerance.
+   *
+   * @param clock The wall clock. Its zone is the zone of the cron expressions.
+   * @param rules The rules, in order of precedence.
+   */
+  public RuleScheduler(Clock clock, List<ChimeRule> rules) {
+    this(clock, HourlyScheduler.DEFAULT_MISSED_TOLERANCE, rules);
+  }
+
+  /**
+   * Constructs a RuleScheduler with a specific sleeper and the default missed tolerance.
+   *
+   * @param clock The wall clock. Its zone is the zone of the cron expressions.
+   * @param sleeper The monotonic clock to sleep on.
+   * @param rules The rules, in order of precedence.
+   */
+  public RuleScheduler(Clock clock, Sleeper sleeper, List<ChimeRule> rules) {
+    this(clock, HourlyScheduler.DEFAULT_MISSED_TOLERANCE, sleeper, rules);
+  }
+
+  /**
+   * Gets the earliest fire time of all rules strictly after the current time.
+   *
+   * @return The next deadline.
+   * @throws IllegalStateException if no rule fires again.
+   */
+  @Override
+  public ZonedDateTime nextDeadline() {
+    return this.nextDeadline(ZonedDateTime.now(this.clock));
+  }
+
+  /**
+   * Gets the earliest fire time of all rules strictly after the given time. Rules whose fire time
+   * is not after it, because they fired or were missed, are advanced first.
+   *
+   * @param now The reference time.
+   * @return The next deadline.
+   * @throws IllegalStateException if no rule fires again.
+   */
+  @Override
+  public synchronized ZonedDateTime nextDeadline(ZonedDateTime now) {
+    if (this.pending != null && this.pending.fireAt().isAfter(now)) {
+      return this.pending.fireAt();
+    }
+
+    Entry head;
+    while ((head = this.queue.peek()) != null && !head.fireAt().isAfter(now)) {
+      this.queue.poll();
+      ZonedDateTime fireAt = head.rule().getExpression().next(now);
+      if (fireAt != null) {
+        this.queue.add(new Entry(fireAt, head.index(), head.rule()));
+      }
+    }
+
+    if (head == null) {
+      throw new IllegalStateException("No rule fires after " + now);
+    }
+    this.pending = head;
+    return head.fireAt();
+  }
+
+  /**
+   * Gets how many times to chime at the pending deadline, as set by the first rule firing at it.
+   *
+   * @param deadline The deadline.
+   * @return The number of times, or empty to chime the hour.
+   */
+  @Override
+  public synchronized OptionalInt chimeCount(ZonedDateTime deadline) {
+    if (this.pending == null || !this.pending.fireAt().isEqual(deadline)) {
+      return OptionalInt.empty();
+    }
+    return this.pending.rule().getTimes();
+  }
+
+  /**
+   * Gets the number of rules that still fire.
+   *
+   * @return The rule count.
+   */
+  public synchronized int getRuleCount() {
+    return this.queue.size();
+  }
+
+  /**
+   * Sleeps until the wall clock reaches the deadline.
+   *
+   * @param deadline The deadline to wait for.
+   * @return true if the deadline was reached on time, false if it was missed.
+   * @throws InterruptedException if the waiting thread is interrupted.
+   */
+  @Override
+  public boolean awaitDeadline(ZonedDateTime deadline) throws InterruptedException {
+    return this.waiter.await(deadline);
+  }
+}
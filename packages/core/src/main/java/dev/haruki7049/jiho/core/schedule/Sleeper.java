@@ -0,0 +1,52 @@
+package dev.haruki7049.jiho.core.schedule;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Interface defining the monotonic time the schedulers wait on. The system sleeper parks the
+ * thread on {@link System#nanoTime()}; a {@link VirtualClock} moves its own time forward instead,
+ * so a simulation does not wait at all.
+ */
+public interface Sleeper {
+
+  /**
+   * Gets the sleeper on the system's monotonic clock.
+   *
+   * @return The system sleeper.
+   */
+  static Sleeper system() {
+    return SystemSleeper.INSTANCE;
+  }
+
+  /**
+   * Reads the monotonic clock.
+   *
+   * @return The current time in nanoseconds, only meaningful as a difference to another reading.
+   */
+  long nanoTime();
+
+  /**
+   * Blocks until the monotonic clock reaches the target.
+   *
+   * @param targetNanos The target {@link #nanoTime()} value.
+   * @throws InterruptedException if the thread is interrupted.
+   */
+  void sleepUntil(long targetNanos) throws InterruptedException;
+
+  /**
+   * Blocks until a wall clock reaches the target. Unlike the monotonic clock, the wall clock keeps
+   * running while the machine is suspended and follows steps, so the sleep ends when the wall clock
+   * reaches the target however it got there. The default implementation sleeps on the monotonic
+   * clock for the time left on the wall clock, which is only right for a sleeper that is its own
+   * wall clock, such as a {@link VirtualClock}.
+   *
+   * @param clock The wall clock.
+   * @param target The target time on the wall clock.
+   * @throws InterruptedException if the thread is interrupted.
+   */
+  default void sleepUntil(Clock clock, Instant target) throws InterruptedException {
+    this.sleepUntil(this.nanoTime() + Duration.between(clock.instant(), target).toNanos());
+  }
+}
@@ -0,0 +1,174 @@
+package dev.haruki7049.jiho.core.schedule;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.OptionalInt;
+import java.util.logging.Logger;
+
+/**
+ * Scheduler decorator that fires on the group clock of a {@link ClockSync} rather than on the local
+ * wall clock, so that the instances of the group chime together. The deadline is moved by the
+ * offset of the group clock before the wrapped scheduler waits for it, which also works with a
+ * {@link PrecisionScheduler} inside.
+ *
+ * <p>The offset changes while a deadline is waited for, so most of the wait is a plain sleep, and
+ * the offset is read again shortly before the deadline.
+ */
+public class SyncScheduler implements ChimeScheduler {
+  private static final Logger logger = Logger.getLogger("jiho.schedule");
+
+  /** Time before the deadline at which the offset is read again. */
+  static final Duration SETTLE_TIME = Duration.ofSeconds(2);
+
+  // Offsets larger than this are worth a warning, the local clock is probably not synchronized
+  private static final Duration LARGE_OFFSET = Duration.ofSeconds(1);
+
+  private final ChimeScheduler scheduler;
+  private final ClockSync sync;
+  private final DeadlineWaiter waiter;
+  private volatile Corrected corrected; // The last deadline waited for, as moved to the local clock
+
+  /**
+   * Constructs a SyncScheduler.
+   *
+   * @param scheduler The scheduler used for deadlines and for the final wait.
+   * @param sync The synchronization with the group, whose clock is the local wall clock.
+   */
+  public SyncScheduler(ChimeScheduler scheduler, ClockSync sync) {
+    this.scheduler = scheduler;
+    this.sync = sync;
+    this.waiter =
+        new DeadlineWaiter(
+            sync.getClock(), HourlyScheduler.DEFAULT_MISSED_TOLERANCE, Sleeper.system());
+  }
+
+  /**
+   * Gets the next deadline from the wrapped scheduler, strictly after the current time of the
+   * group clock. Asking on the local clock would return the deadline just fired again when the
+   * local clock is behind the group by more than the chime.
+   *
+   * @return The next deadline, on the group clock.
+   */
+  @Override
+  public ZonedDateTime nextDeadline() {
+    Instant groupNow = this.sync.getClock().instant().plus(this.sync.getOffset());
+    return this.nextDeadline(ZonedDateTime.ofInstant(groupNow, this.sync.getClock().getZone()));
+  }
+
+  /**
+   * Gets the next deadline after the given time from the wrapped scheduler.
+   *
+   * @param now The reference time, on the group clock.
+   * @return The next deadline, on the group clock.
+   */
+  @Override
+  public ZonedDateTime nextDeadline(ZonedDateTime now) {
+    return this.scheduler.nextDeadline(now);
+  }
+
+  /**
+   * Converts a deadline to the local wall clock. The last deadline waited for is converted with
+   * the offset it was waited with, others with the current offset of the group clock.
+   *
+   * @param deadline The deadline, on the group clock.
+   * @return The instant of the deadline on the local wall clock.
+   */
+  @Override
+  public Instant localInstant(ZonedDateTime deadline) {
+    Corrected last = this.corrected;
+    if (last != null && last.deadline().isEqual(deadline)) {
+      return last.local();
+    }
+    return deadline.toInstant().minus(this.sync.getOffset());
+  }
+
+  /**
+   * Gets how many times to chime at a deadline from the wrapped scheduler.
+   *
+   * @param deadline The deadline.
+   * @return The number of times, or empty to chime the hour.
+   */
+  @Override
+  public OptionalInt chimeCount(ZonedDateTime deadline) {
+    return this.scheduler.chimeCount(deadline);
+  }
+
+  /**
+   * Waits until the group clock reaches the deadline, and reports the chime to the group from
+   * another thread, so that the report does not delay the chime.
+   *
+   * @param deadline The deadline to wait for, on the group clock.
+   * @return true if the deadline was reached on time, false if it was missed.
+   * @throws InterruptedException if the waiting thread is interrupted.
+   */
+  @Override
+  public boolean awaitDeadline(ZonedDateTime deadline) throws InterruptedException {
+    // Sleep with the offset of the moment until shortly before the deadline
+    ZonedDateTime settle = deadline.minus(this.sync.getOffset()).minus(SETTLE_TIME);
+    if (settle.toInstant().isAfter(this.sync.getClock().instant())
+        && !this.waiter.await(settle)) {
+      return false;
+    }
+
+    Duration offset = this.sync.getOffset();
+    if (offset.abs().compareTo(LARGE_OFFSET) > 0) {
+      logger.warning("The local clock is " + offset.negated() + " off the group clock");
+    }
+    ZonedDateTime local = deadline.minus(offset);
+    this.corrected = new Corrected(deadline, local.toInstant());
+    if (!this.scheduler.awaitDeadline(local)) {
+      return false;
+    }
+
+    // Only read the clock here, the report is sent and logged while the chime starts
+    Instant firedAt = this.sync.getClock().instant();
+    Thread.ofVirtual().name("jiho-sync-fired").start(() -> this.report(deadline, firedAt, offset));
+    return true;
+  }
+
+  /**
+   * Reports a chime to the group and logs the correction it was fired with.
+   *
+   * @param deadline The deadline of the chime, on the group clock.
+   * @param firedAt When it was fired, on the local clock.
+   * @param offset The offset the deadline was corrected by.
+   */
+  private void report(ZonedDateTime deadline, Instant firedAt, Duration offset) {
+    this.sync.fired(deadline, firedAt);
+    logger.fine(
+        "Fired "
+            + deadline
+            + " corrected by "
+            + offset.toNanos() / 1e6
+            + " ms for "
+            + this.sync.getPeerCount()
+            + " peer(s)");
+  }
+
+  /**
+   * Gets the wrapped scheduler.
+   *
+   * @return The scheduler waiting for the corrected deadlines.
+   */
+  public ChimeScheduler getScheduler() {
+    return this.scheduler;
+  }
+
+  /**
+   * Gets the synchronization with the group.
+   *
+   * @return The clock synchronization.
+   */
+  public ClockSync getClockSync() {
+    return this.sync;
+  }
+
+  /**
+   * A deadline on the group clock and the local instant it was waited for.
+   *
+   * @param deadline The deadline, on the group clock.
+   * @param local The deadline moved by the offset of the group clock.
+   */
+  private record Corrected(ZonedDateTime deadline, Instant local) {}
+}
@@ -0,0 +1,74 @@
+package dev.haruki7049.jiho.core.schedule;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sleeper that parks on {@link System#nanoTime()}, or on the system wall clock for wall clock
+ * targets.
+ */
+enum SystemSleeper implements Sleeper {
+  INSTANCE;
+
+  // Absolute parks have a resolution of a millisecond and wake up a few milliseconds late now and
+  // then, so the end of the wait is slept on System.nanoTime() instead
+  private static final long ABSOLUTE_MARGIN_NANOS = Duration.ofMillis(20).toNanos();
+
+  /**
+   * Reads {@link System#nanoTime()}.
+   *
+   * @return The current time in nanoseconds.
+   */
+  @Override
+  public long nanoTime() {
+    return System.nanoTime();
+  }
+
+  /**
+   * Parks the current thread until the target. Spurious wakeups park again for the remaining time.
+   *
+   * @param targetNanos The target {@link System#nanoTime()} value.
+   * @throws InterruptedException if the thread is interrupted.
+   */
+  @Override
+  public void sleepUntil(long targetNanos) throws InterruptedException {
+    long remaining;
+    while ((remaining = targetNanos - System.nanoTime()) > 0) {
+      LockSupport.parkNanos(remaining);
+      if (Thread.interrupted()) {
+        throw new InterruptedException();
+      }
+    }
+  }
+
+  /**
+   * Parks the current thread until the wall clock reaches the target, with {@link
+   * LockSupport#parkUntil(long)}. The kernel re-arms such an absolute wait when the system clock is
+   * stepped, and fires it on resume when the target passed during a suspend, so the thread does not
+   * wake up before the deadline. The wall clock may be offset from the system clock; the offset is
+   * measured again after every wakeup. On a virtual thread the park is relative, as for {@link
+   * #sleepUntil(long)}.
+   *
+   * @param clock The wall clock.
+   * @param target The target time on the wall clock.
+   * @throws InterruptedException if the thread is interrupted.
+   */
+  @Override
+  public void sleepUntil(Clock clock, Instant target) throws InterruptedException {
+    while (true) {
+      Instant systemNow = Instant.now();
+      Duration remaining = Duration.between(clock.instant(), target);
+      if (remaining.toNanos() <= 2 * ABSOLUTE_MARGIN_NANOS) {
+        this.sleepUntil(System.nanoTime() + remaining.toNanos());
+        return;
+      }
+      Instant systemTarget = systemNow.plus(remaining).minusNanos(ABSOLUTE_MARGIN_NANOS);
+      LockSupport.parkUntil(systemTarget.toEpochMilli());
+      if (Thread.interrupted()) {
+        throw new InterruptedException();
+      }
+    }
+  }
+}
@@ -0,0 +1,135 @@
+package dev.haruki7049.jiho.core.schedule;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Clock whose time only moves when a thread sleeps on it, for running a schedule faster than real
+ * time. It is both the wall clock and the {@link Sleeper} of the schedulers: sleeping until a
+ * deadline moves the time to the deadline, after waiting a fraction of the time for real if a
+ * speed is given. The copies made by {@link #withZone} share the time of the original.
+ */
+public final class VirtualClock extends Clock implements Sleeper {
+  private final Instant origin;
+  private final AtomicLong elapsedNanos; // Shared with the copies in other zones
+  private final double speed;
+  private final ZoneId zone;
+
+  /**
+   * Constructs a VirtualClock that jumps to every deadline at once.
+   *
+   * @param start The time the clock starts at.
+   * @param zone The time zone.
+   */
+  public VirtualClock(Instant start, ZoneId zone) {
+    this(start, zone, 0);
+  }
+
+  /**
+   * Constructs a VirtualClock.
+   *
+   * @param start The time the clock starts at.
+   * @param zone The time zone.
+   * @param speed How many times faster than real time the clock runs while sleeping, or 0 (or
+   *     infinity) to jump to every deadline at once.
+   * @throws IllegalArgumentException if the speed is negative or not a number.
+   */
+  public VirtualClock(Instant start, ZoneId zone, double speed) {
+    this(start, new AtomicLong(), speed, zone);
+    if (!(speed >= 0)) {
+      throw new IllegalArgumentException("Speed must not be negative: " + speed);
+    }
+  }
+
+  /**
+   * Constructs a VirtualClock sharing its time with another one.
+   *
+   * @param origin The time of the shared clock at zero elapsed nanoseconds.
+   * @param elapsedNanos The elapsed time of the shared clock.
+   * @param speed How many times faster than real time the clock runs.
+   * @param zone The time zone.
+   */
+  private VirtualClock(Instant origin, AtomicLong elapsedNanos, double speed, ZoneId zone) {
+    this.origin = origin;
+    this.elapsedNanos = elapsedNanos;
+    this.speed = speed;
+    this.zone = zone;
+  }
+
+  /**
+   * Gets the time zone.
+   *
+   * @return The time zone.
+   */
+  @Override
+  public ZoneId getZone() {
+    return this.zone;
+  }
+
+  /**
+   * Gets a copy in another time zone that shares the time of this clock.
+   *
+   * @param zone The time zone.
+   * @return The copy.
+   */
+  @Override
+  public VirtualClock withZone(ZoneId zone) {
+    if (zone.equals(this.zone)) {
+      return this;
+    }
+    return new VirtualClock(this.origin, this.elapsedNanos, this.speed, zone);
+  }
+
+  /**
+   * Gets the current virtual time.
+   *
+   * @return The instant.
+   */
+  @Override
+  public Instant instant() {
+    return this.origin.plusNanos(this.elapsedNanos.get());
+  }
+
+  /**
+   * Gets the virtual time elapsed since the clock was created.
+   *
+   * @return The elapsed time in nanoseconds.
+   */
+  @Override
+  public long nanoTime() {
+    return this.elapsedNanos.get();
+  }
+
+  /**
+   * Moves the time forward to the target, first waiting for the time divided by the speed.
+   *
+   * @param targetNanos The target {@link #nanoTime()} value.
+   * @throws InterruptedException if the thread is interrupted.
+   */
+  @Override
+  public void sleepUntil(long targetNanos) throws InterruptedException {
+    if (Thread.interrupted()) {
+      throw new InterruptedException();
+    }
+    long remaining = targetNanos - this.elapsedNanos.get();
+    if (remaining <= 0) {
+      return;
+    }
+    if (this.speed > 0 && Double.isFinite(this.speed)) {
+      Sleeper.system().sleepUntil(System.nanoTime() + (long) (remaining / this.speed));
+    }
+    this.elapsedNanos.accumulateAndGet(targetNanos, Math::max);
+  }
+
+  /**
+   * Moves the time forward without waiting.
+   *
+   * @param duration The time to move by.
+   */
+  public void advance(Duration duration) {
+    this.elapsedNanos.addAndGet(duration.toNanos());
+  }
+}
@@ -0,0 +1,176 @@
+package dev.haruki7049.jiho.core;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.testng.annotations.Test;
+
+/** Tests for the asynchronous playback of {@link AudioPlayer}. */
+public class AudioPlayerTest {
+
+  /**
+   * AudioPlayer whose play() blocks until it is interrupted or aborted. Like the real players, it
+   * blocks while holding its monitor.
+   */
+  private static class BlockingPlayer implements AudioPlayer {
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch stopped = new CountDownLatch(1);
+    final CountDownLatch aborted = new CountDownLatch(1);
+    volatile boolean interrupted;
+    volatile int playedTimes;
+    volatile boolean block = true;
+    volatile IOException failure;
+
+    @Override
+    public synchronized void play(int times, Duration duration, Float volume)
+        throws IOException, InterruptedException {
+      this.started.countDown();
+      try {
+        IOException failure = this.failure;
+        if (failure != null) {
+          this.failure = null; // Fails once
+          throw failure;
+        }
+        if (this.block) {
+          Thread.sleep(Long.MAX_VALUE);
+        }
+        this.playedTimes = times;
+      } catch (InterruptedException e) {
+        this.interrupted = true;
+        throw e;
+      } finally {
+        this.stopped.countDown();
+      }
+    }
+
+    @Override
+    public Duration getAudioDuration() {
+      return Duration.ofSeconds(1);
+    }
+
+    @Override
+    public void abort() {
+      this.aborted.countDown();
+    }
+  }
+
+  @Test
+  public void testPlayAsyncCompletes() throws Exception {
+    BlockingPlayer player = new BlockingPlayer();
+    player.block = false;
+
+    player.playAsync(3, Duration.ofSeconds(1), null).get(5, TimeUnit.SECONDS);
+
+    assertEquals(player.playedTimes, 3);
+    assertEquals(player.aborted.getCount(), 1);
+  }
+
+  @Test
+  public void testPlayAsyncDoesNotBlockCaller() throws Exception {
+    BlockingPlayer player = new BlockingPlayer();
+
+    CompletableFuture<Void> future = player.playAsync(12, Duration.ofSeconds(3), null);
+
+    assertTrue(player.started.await(5, TimeUnit.SECONDS));
+    assertFalse(future.isDone());
+    future.cancel(true);
+  }
+
+  @Test
+  public void testConcurrentPlaybacksDoNotQueue() throws Exception {
+    // More chimes than cores, as tenants firing at the same hour
+    List<BlockingPlayer> players = new ArrayList<>();
+    List<CompletableFuture<Void>> futures = new ArrayList<>();
+    for (int i = 0; i < Runtime.getRuntime().availableProcessors() * 2 + 2; i++) {
+      BlockingPlayer player = new BlockingPlayer();
+      players.add(player);
+      futures.add(player.playAsync(12, Duration.ofSeconds(3), null));
+    }
+
+    try {
+      for (BlockingPlayer player : players) {
+        assertTrue(player.started.await(5, TimeUnit.SECONDS), "playback queued");
+      }
+    } finally {
+      futures.forEach(future -> future.cancel(true));
+    }
+  }
+
+  @Test
+  public void testCancelStopsPlayback() throws Exception {
+    BlockingPlayer player = new BlockingPlayer();
+
+    CompletableFuture<Void> future = player.playAsync(12, Duration.ofSeconds(3), null);
+    assertTrue(player.started.await(5, TimeUnit.SECONDS));
+    future.cancel(true);
+
+    assertTrue(player.stopped.await(5, TimeUnit.SECONDS));
+    assertTrue(player.interrupted);
+    assertTrue(player.aborted.await(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testTimeoutStopsPlayback() throws Exception {
+    BlockingPlayer player = new BlockingPlayer();
+
+    CompletableFuture<Void> future =
+        player.playAsync(12, Duration.ofSeconds(3), null).orTimeout(50, TimeUnit.MILLISECONDS);
+
+    try {
+      future.get(5, TimeUnit.SECONDS);
+      throw new AssertionError("Expected a timeout");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof TimeoutException);
+    }
+    assertTrue(player.stopped.await(5, TimeUnit.SECONDS));
+    assertTrue(player.aborted.await(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void testPlayAsyncPropagatesFailure() throws Exception {
+    BlockingPlayer player = new BlockingPlayer();
+    IOException failure = new IOException("line gone");
+    player.failure = failure;
+
+    try {
+      player.playAsync(1, Duration.ofSeconds(1), null).get(5, TimeUnit.SECONDS);
+      throw new AssertionError("Expected the failure");
+    } catch (ExecutionException e) {
+      assertEquals(e.getCause(), failure);
+    }
+  }
+
+  @Test
+  public void testFailureDoesNotAbortNextPlayback() throws Exception {
+    BlockingPlayer player = new BlockingPlayer();
+    player.failure = new IOException("line gone");
+
+    try {
+      player.playAsync(1, Duration.ofSeconds(1), null).get(5, TimeUnit.SECONDS);
+      throw new AssertionError("Expected the failure");
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause() instanceof IOException);
+    }
+
+    // The failed playback must not stop the next one, which holds the monitor now
+    CompletableFuture<Void> next = player.playAsync(12, Duration.ofSeconds(3), null);
+    try {
+      assertFalse(player.aborted.await(200, TimeUnit.MILLISECONDS));
+      assertFalse(next.isDone());
+      assertFalse(player.interrupted);
+    } finally {
+      next.cancel(true);
+    }
+    assertTrue(player.aborted.await(5, TimeUnit.SECONDS));
+  }
+}
@@ -1,11 +1,27 @@
 package dev.haruki7049.jiho.core;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
 
 import dev.haruki7049.jiho.core.config.Config;
+import dev.haruki7049.jiho.core.schedule.ChimeScheduler;
+import dev.haruki7049.jiho.core.schedule.HourlyScheduler;
+import dev.haruki7049.jiho.core.schedule.VirtualClock;
 import java.lang.reflect.Method;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import org.testng.annotations.Test;
 
 /** Tests for the core Jiho logic class. */
@@ -69,4 +85,205 @@ public class JihoTest {
     ZonedDateTime time = ZonedDateTime.of(2025, 1, 1, 0, 0, 0, 0, ZoneId.systemDefault());
     assertEquals(invokeCalculateTimes(time), 12);
   }
+
+  @Test
+  public void testRunsYearOfChimesOnVirtualClock() throws Exception {
+    ZoneId newYork = ZoneId.of("America/New_York");
+    ZonedDateTime start = ZonedDateTime.of(2025, 1, 1, 0, 30, 0, 0, newYork);
+    VirtualClock clock = new VirtualClock(start.toInstant(), newYork);
+    List<Integer> chimes = new ArrayList<>();
+    AudioPlayer player =
+        new AudioPlayer() {
+          @Override
+          public void play(int times, Duration duration, Float volume) {
+            chimes.add(times);
+          }
+
+          @Override
+          public Duration getAudioDuration() {
+            return Duration.ofSeconds(1);
+          }
+        };
+    Jiho jiho = new Jiho(new Config(null, null), player, new HourlyScheduler(clock, clock), clock);
+
+    long startNanos = System.nanoTime();
+    jiho.run(ZonedDateTime.of(2026, 1, 1, 0, 0, 0, 0, newYork));
+    assertTrue(System.nanoTime() - startNanos < Duration.ofSeconds(30).toNanos());
+
+    // Every local hour, without 02:00 on 2025-03-09 and with 01:00 twice on 2025-11-02
+    assertEquals(chimes.size(), 8760);
+    assertEquals(chimes.stream().mapToInt(Integer::intValue).sum(), 365 * 156 - 2 + 1);
+    assertEquals(jiho.getMetrics().getRepetitions().get(), 365 * 156 - 2 + 1);
+    assertEquals(jiho.getMetrics().getFailures().get(), 0);
+    assertEquals(clock.instant(), ZonedDateTime.of(2026, 1, 1, 0, 0, 0, 0, newYork).toInstant());
+  }
+
+  @Test
+  public void testOnsetMeasuredOnLocalClock() throws Exception {
+    // The scheduler runs on a group clock an hour ahead of the local one, as SyncScheduler does
+    Duration ahead = Duration.ofHours(1);
+    ZoneId utc = ZoneId.of("UTC");
+    ZonedDateTime start = ZonedDateTime.of(2025, 1, 1, 0, 30, 0, 0, utc);
+    VirtualClock clock = new VirtualClock(start.toInstant(), utc);
+    HourlyScheduler local = new HourlyScheduler(clock, clock);
+    ChimeScheduler group =
+        new ChimeScheduler() {
+          @Override
+          public ZonedDateTime nextDeadline() {
+            return this.nextDeadline(ZonedDateTime.now(clock).plus(ahead));
+          }
+
+          @Override
+          public ZonedDateTime nextDeadline(ZonedDateTime now) {
+            return local.nextDeadline(now);
+          }
+
+          @Override
+          public boolean awaitDeadline(ZonedDateTime deadline) throws InterruptedException {
+            return local.awaitDeadline(deadline.minus(ahead));
+          }
+
+          @Override
+          public Instant localInstant(ZonedDateTime deadline) {
+            return deadline.toInstant().minus(ahead);
+          }
+        };
+    AtomicLong onset = new AtomicLong();
+    AudioPlayer player =
+        new AudioPlayer() {
+          @Override
+          public void play(int times, Duration duration, Float volume) {
+            onset.set(System.nanoTime());
+          }
+
+          @Override
+          public Duration getAudioDuration() {
+            return Duration.ofSeconds(1);
+          }
+
+          @Override
+          public OptionalLong getLastOnsetNanoTime() {
+            return OptionalLong.of(onset.get());
+          }
+        };
+    Jiho jiho = new Jiho(new Config(null, null), player, group, clock);
+
+    jiho.run(start.plusHours(4));
+
+    // Measured against the group deadline on the local clock, it would be an hour early
+    assertEquals(jiho.getChimeCount(), 3);
+    Duration latency = jiho.getLastOnsetLatency();
+    assertTrue(
+        !latency.isNegative() && latency.compareTo(Duration.ofSeconds(1)) < 0,
+        "onset latency " + latency);
+  }
+
+  @Test
+  public void testNewScheduleReArmsTheWait() throws Exception {
+    // 50 virtual minutes to the next UTC hour take a second
+    ZonedDateTime start = ZonedDateTime.of(2025, 1, 1, 0, 10, 0, 0, ZoneId.of("UTC"));
+    VirtualClock clock = new VirtualClock(start.toInstant(), start.getZone(), 3000);
+    List<Integer> chimes = new CopyOnWriteArrayList<>();
+    AudioPlayer player =
+        new AudioPlayer() {
+          @Override
+          public void play(int times, Duration duration, Float volume) {
+            chimes.add(times);
+          }
+
+          @Override
+          public Duration getAudioDuration() {
+            return Duration.ofSeconds(1);
+          }
+        };
+    Jiho jiho = new Jiho(new Config(null, null), player, new HourlyScheduler(clock, clock), clock);
+    CompletableFuture<Void> run =
+        CompletableFuture.runAsync(
+            () -> {
+              try {
+                jiho.run(start.plusHours(1));
+              } catch (Exception e) {
+                throw new CompletionException(e);
+              }
+            });
+    while (jiho.getNextChime() == null && !run.isDone()) {
+      Thread.sleep(10);
+    }
+
+    // India is 5:30 ahead, its hours start at half past UTC hours, before the UTC deadline
+    VirtualClock kolkata = clock.withZone(ZoneId.of("Asia/Kolkata"));
+    jiho.reconfigure(new Config(null, null), player, new HourlyScheduler(kolkata, kolkata));
+    run.get(5, TimeUnit.SECONDS);
+
+    assertEquals(chimes, List.of(6)); // 06:00 in India, not 01:00 UTC
+    assertEquals(clock.instant(), start.plusMinutes(20).toInstant());
+  }
+
+  @Test
+  public void testTriggerRefusedWhileManualChimePlays() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    AudioPlayer player =
+        new AudioPlayer() {
+          @Override
+          public void play(int times, Duration duration, Float volume)
+              throws InterruptedException {
+            release.await();
+          }
+
+          @Override
+          public Duration getAudioDuration() {
+            return Duration.ofSeconds(1);
+          }
+        };
+    Jiho jiho = new Jiho(new Config(null, null), player);
+
+    assertThrows(IllegalArgumentException.class, () -> jiho.trigger(Jiho.MAX_TRIGGER_TIMES + 1));
+    CompletableFuture<Void> first = jiho.trigger(3);
+    assertThrows(IllegalStateException.class, () -> jiho.trigger(1));
+
+    release.countDown();
+    first.get(5, TimeUnit.SECONDS);
+    jiho.trigger(1).get(5, TimeUnit.SECONDS); // Accepted once the first one finished
+  }
+
+  @Test
+  public void testTriggerRefusedWhileScheduledChimePlays() throws Exception {
+    ZonedDateTime start = ZonedDateTime.of(2025, 1, 1, 0, 30, 0, 0, ZoneId.of("UTC"));
+    VirtualClock clock = new VirtualClock(start.toInstant(), start.getZone());
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    AudioPlayer player =
+        new AudioPlayer() {
+          @Override
+          public void play(int times, Duration duration, Float volume)
+              throws InterruptedException {
+            clock.advance(Duration.ofSeconds(10)); // Well into the chime
+            started.countDown();
+            release.await();
+          }
+
+          @Override
+          public Duration getAudioDuration() {
+            return Duration.ofSeconds(1);
+          }
+        };
+    Jiho jiho = new Jiho(new Config(null, null), player, new HourlyScheduler(clock, clock), clock);
+    CompletableFuture<Void> run =
+        CompletableFuture.runAsync(
+            () -> {
+              try {
+                jiho.run(start.plusHours(1)); // The 01:00 chime only
+              } catch (Exception e) {
+                throw new CompletionException(e);
+              }
+            });
+
+    // A manual chime would queue behind the scheduled one, which the overlap check cannot see
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    assertThrows(IllegalStateException.class, () -> jiho.trigger(1));
+
+    release.countDown();
+    run.get(5, TimeUnit.SECONDS);
+    jiho.trigger(1).get(5, TimeUnit.SECONDS); // Accepted once nothing is scheduled
+  }
 }
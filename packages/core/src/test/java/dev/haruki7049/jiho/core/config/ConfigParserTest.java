@@ -0,0 +1,141 @@
+package dev.haruki7049.jiho.core.config;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.List;
+import org.testng.annotations.Test;
+
+/** Tests for the streaming configuration parser. */
+public class ConfigParserTest {
+
+  @Test
+  public void testParsesEveryField() throws Exception {
+    Config config =
+        parse(
+            """
+            {
+              "site": "tokyo",
+              "zone": "Asia/Tokyo",
+              "soundSource": "/tmp/chime.wav",
+              "volume": 0.5,
+              "chimeGap": "PT0.25S",
+              "warmLine": true,
+              "mixer": false,
+              "outputSampleRate": 48000,
+              "precisionMode": true,
+              "precisionGuard": "PT0.05S",
+              "syncGroup": "239.255.74.72:47474",
+              "syncInterface": "eth0",
+              "metricsAddress": "127.0.0.1:9464",
+              "rules": [{"cron": "0 * * * *"}, {"cron": "30 * * * *", "times": 1}]
+            }
+            """);
+
+    assertEquals(config.getSite(), "tokyo");
+    assertEquals(config.getZone(), ZoneId.of("Asia/Tokyo"));
+    assertEquals(config.getSoundSource(), new File("/tmp/chime.wav"));
+    assertEquals(config.getVolume(), 0.5f);
+    assertEquals(config.getChimeGap(), Duration.ofMillis(250));
+    assertTrue(config.getWarmLine());
+    assertFalse(config.getMixer());
+    assertEquals(config.getOutputSampleRate(), Integer.valueOf(48000));
+    assertTrue(config.getPrecisionMode());
+    assertEquals(config.getPrecisionGuard(), Duration.ofMillis(50));
+    assertEquals(config.getSyncGroup(), "239.255.74.72:47474");
+    assertEquals(config.getSyncInterface(), "eth0");
+    assertEquals(config.getMetricsAddress(), "127.0.0.1:9464");
+    assertEquals(
+        config.getRules(),
+        List.of(new RuleConfig("0 * * * *", null), new RuleConfig("30 * * * *", 1)));
+  }
+
+  @Test
+  public void testNullMeansUnspecified() throws Exception {
+    Config config = parse("{\"volume\": null, \"soundSource\": null}");
+    assertNull(config.getVolume());
+    assertNull(config.getSoundSource());
+  }
+
+  @Test
+  public void testRejectsValueOutOfRange() {
+    assertInvalid("{\n  \"volume\": 7\n}", "from 0.0 to 1.0", "line 2", "$.volume");
+    assertInvalid("{\"chimeGap\": \"PT-1S\"}", "non-negative duration", "$.chimeGap");
+    assertInvalid("{\"precisionGuard\": \"PT0S\"}", "positive duration", "$.precisionGuard");
+    assertInvalid("{\"rules\": [{\"cron\": \"@hourly\", \"times\": 0}]}", "$.rules[0].times");
+    assertInvalid(
+        "{\"rules\": [{\"cron\": \"@hourly\", \"times\": 1000}]}",
+        "from 1 to 12",
+        "$.rules[0].times");
+    assertInvalid("{\"outputSampleRate\": 44100.5}", "whole number", "$.outputSampleRate");
+  }
+
+  @Test
+  public void testRejectsUnknownAndDuplicateKeys() {
+    assertInvalid("{\"volum\": 0.5}", "Unknown configuration key \"volum\"", "$.volum");
+    assertInvalid("{\"volume\": 0.5, \"volume\": 0.6}", "Duplicate key \"volume\"");
+    assertInvalid("{\"rules\": [{\"cron\": \"@hourly\", \"every\": 2}]}", "Unknown rule key");
+  }
+
+  @Test
+  public void testRejectsWrongTypesAndBadValues() {
+    assertInvalid("{\"volume\": \"loud\"}", "Expected a number but was STRING", "$.volume");
+    assertInvalid("{\"warmLine\": \"yes\"}", "Expected true or false", "$.warmLine");
+    assertInvalid("{\"zone\": \"Mars/Olympus\"}", "Failed to parse ZoneId", "$.zone");
+    assertInvalid("{\"rules\": [{\"cron\": \"61 * * * *\"}]}", "Invalid cron", "$.rules[0].cron");
+    assertInvalid("{\"rules\": [{\"times\": 3}]}", "Rule without \"cron\"");
+    assertInvalid("[]", "Expected a configuration object but was BEGIN_ARRAY");
+    assertInvalid("{\"syncGroup\": \"10.0.0.1:47474\"}", "not a multicast address", "$.syncGroup");
+    assertInvalid("{\"syncGroup\": \"chimes.local:47474\"}", "numeric", "$.syncGroup");
+    assertInvalid("{\"syncGroup\": \"[ff15::7a]:0\"}", "Port out of range", "$.syncGroup");
+    assertInvalid("{\"metricsAddress\": \"9464\"}", "HOST:PORT", "$.metricsAddress");
+    assertInvalid(
+        "{\"metricsAddress\": \"localhost:99999\"}", "Port out of range", "$.metricsAddress");
+  }
+
+  @Test
+  public void testParsesList() throws Exception {
+    List<Config> configs =
+        ConfigParser.parseList(new StringReader("[{\"site\": \"a\"}, {\"site\": \"b\"}]"));
+    assertEquals(configs.size(), 2);
+    assertEquals(configs.get(1).getSite(), "b");
+  }
+
+  /**
+   * Parses a configuration from a string.
+   *
+   * @param json The JSON text.
+   * @return The configuration.
+   * @throws IOException if parsing fails.
+   */
+  private static Config parse(String json) throws IOException {
+    return ConfigParser.parse(new StringReader(json));
+  }
+
+  /**
+   * Asserts that parsing fails with a message containing every given fragment.
+   *
+   * @param json The JSON text.
+   * @param fragments The expected parts of the message.
+   */
+  private static void assertInvalid(String json, String... fragments) {
+    try {
+      parse(json);
+      fail("Accepted " + json);
+    } catch (InvalidConfigException e) {
+      for (String fragment : fragments) {
+        assertTrue(e.getMessage().contains(fragment), e.getMessage());
+      }
+    } catch (IOException e) {
+      fail("Not reported as an invalid config: " + json, e);
+    }
+  }
+}
@@ -0,0 +1,129 @@
+package dev.haruki7049.jiho.core.impl;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.stream.Stream;
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/** Tests for the header-only probe and its persistent cache. */
+public class AudioProbeTest {
+
+  private Path tempDir;
+
+  /**
+   * Creates a temporary directory for the generated audio files.
+   *
+   * @throws IOException if the directory cannot be created.
+   */
+  @BeforeMethod
+  public void setUp() throws IOException {
+    tempDir = Files.createTempDirectory("jiho-probe-test-");
+  }
+
+  /**
+   * Recursively deletes the temporary directory.
+   *
+   * @throws IOException if cleanup fails.
+   */
+  @AfterMethod
+  public void tearDown() throws IOException {
+    try (Stream<Path> walk = Files.walk(tempDir)) {
+      walk.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    }
+  }
+
+  /**
+   * Helper method to write a silent audio file.
+   *
+   * @param name The file name.
+   * @param type The file type.
+   * @param format The sample format.
+   * @param frames The number of sample frames.
+   * @return The written file.
+   * @throws IOException if writing fails.
+   */
+  private Path write(String name, AudioFileFormat.Type type, AudioFormat format, int frames)
+      throws IOException {
+    Path path = tempDir.resolve(name);
+    byte[] data = new byte[frames * format.getFrameSize()];
+    try (AudioInputStream stream =
+        new AudioInputStream(new ByteArrayInputStream(data), format, frames)) {
+      AudioSystem.write(stream, type, path.toFile());
+    }
+    return path;
+  }
+
+  @Test
+  public void testProbeWav() throws Exception {
+    AudioFormat format = new AudioFormat(44100f, 16, 2, true, false);
+    Path wav = write("a.wav", AudioFileFormat.Type.WAVE, format, 22050);
+
+    ProbedAudio probed = AudioProbe.probe(wav);
+    assertNotNull(probed);
+    assertEquals(probed.getFrameLength(), 22050L);
+    assertEquals(probed.getDuration(), Duration.ofMillis(500));
+  }
+
+  @Test
+  public void testProbeAiff() throws Exception {
+    AudioFormat format = new AudioFormat(22050f, 16, 1, true, true);
+    Path aiff = write("a.aiff", AudioFileFormat.Type.AIFF, format, 44100);
+
+    ProbedAudio probed = AudioProbe.probe(aiff);
+    assertNotNull(probed);
+    assertEquals(probed.getFormat().getSampleRate(), 22050f);
+    assertEquals(probed.getDuration(), Duration.ofSeconds(2));
+  }
+
+  @Test
+  public void testProbeAu() throws Exception {
+    AudioFormat format = new AudioFormat(8000f, 16, 1, true, true);
+    Path au = write("a.au", AudioFileFormat.Type.AU, format, 4000);
+
+    ProbedAudio probed = AudioProbe.probe(au);
+    assertNotNull(probed);
+    assertEquals(probed.getDuration(), Duration.ofMillis(500));
+  }
+
+  @Test
+  public void testProbeUnknownFormat() throws Exception {
+    Path text = tempDir.resolve("a.txt");
+    Files.writeString(text, "not audio at all");
+    assertNull(AudioProbe.probe(text));
+  }
+
+  @Test
+  public void testCacheIsPersistedAndKeyedBySizeAndMtime() throws Exception {
+    AudioFormat format = new AudioFormat(8000f, 16, 1, true, false);
+    Path wav = write("a.wav", AudioFileFormat.Type.WAVE, format, 8000);
+    FileTime mtime = Files.getLastModifiedTime(wav);
+    Path cacheFile = tempDir.resolve("cache").resolve("probe-cache.properties");
+
+    assertEquals(new ProbeCache(cacheFile).probe(wav).getDuration(), Duration.ofSeconds(1));
+
+    // Break the header but keep size and mtime: a new cache instance must not read the file
+    byte[] garbage = new byte[(int) Files.size(wav)];
+    Files.write(wav, garbage);
+    Files.setLastModifiedTime(wav, mtime);
+    assertEquals(new ProbeCache(cacheFile).probe(wav).getDuration(), Duration.ofSeconds(1));
+
+    // A different mtime invalidates the entry
+    Files.setLastModifiedTime(wav, FileTime.fromMillis(mtime.toMillis() - 60000));
+    assertNull(new ProbeCache(cacheFile).probe(wav));
+  }
+}
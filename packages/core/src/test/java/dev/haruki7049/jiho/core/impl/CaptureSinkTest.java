@@ -0,0 +1,151 @@
+package dev.haruki7049.jiho.core.impl;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.SourceDataLine;
+import org.testng.annotations.Test;
+
+/** Tests for the headless lines, through the capture sink. */
+public class CaptureSinkTest {
+  private static final AudioFormat FORMAT = new AudioFormat(1000f, 16, 1, true, false);
+
+  @Test
+  public void testRecordsWhatAudioManagerPlays() throws Exception {
+    byte[] data = new byte[200]; // 100 ms
+    for (int i = 0; i < data.length; i++) {
+      data[i] = (byte) i;
+    }
+    Path wav = Files.createTempFile("jiho-capture-test-", ".wav");
+    try {
+      try (AudioInputStream stream =
+          new AudioInputStream(new ByteArrayInputStream(data), FORMAT, data.length / 2)) {
+        AudioSystem.write(stream, AudioFileFormat.Type.WAVE, wav.toFile());
+      }
+      CaptureSink sink = new CaptureSink();
+      AudioManager manager = AudioManager.builder(wav.toUri().toURL()).sink(sink).build();
+
+      long before = System.nanoTime();
+      manager.play(1, Duration.ofMillis(100), null);
+      long after = System.nanoTime();
+
+      List<CaptureSink.Capture> captures = sink.getCaptures();
+      assertEquals(captures.size(), 1);
+      CaptureSink.Capture capture = captures.get(0);
+      assertEquals(Arrays.copyOf(capture.getData(), data.length), data);
+
+      // Played at the frame rate, after the line was started
+      long first = capture.getFrameNanos(0);
+      assertTrue(first >= manager.getLastOnsetNanoTime().getAsLong());
+      assertEquals(capture.getFrameNanos(99) - first, 99_000_000L);
+      assertTrue(after - before >= 99_000_000L, "play returned before the sound was played");
+      assertEquals(manager.getPlaybackStats().get().getUnderruns(), 0);
+    } finally {
+      Files.deleteIfExists(wav);
+    }
+  }
+
+  @Test
+  public void testPlaysPrefetchedSoundWithoutTouchingTheFile() throws Exception {
+    Path wav = Files.createTempFile("jiho-capture-test-", ".wav");
+    try (AudioInputStream stream =
+        new AudioInputStream(new ByteArrayInputStream(new byte[200]), FORMAT, 100)) {
+      AudioSystem.write(stream, AudioFileFormat.Type.WAVE, wav.toFile());
+    }
+    CaptureSink sink = new CaptureSink(false);
+    AudioManager manager = AudioManager.builder(wav.toUri().toURL()).sink(sink).build();
+    manager.prefetch(2, Duration.ofMillis(150), null);
+
+    // Everything the chime needs was read ahead of it
+    Files.delete(wav);
+    manager.play(2, Duration.ofMillis(150), null);
+    assertEquals(sink.getCaptures().get(0).getFrameCount(), 250);
+  }
+
+  @Test
+  public void testRunDryLineStartsNewRun() throws Exception {
+    CaptureSink sink = new CaptureSink();
+    SourceDataLine line = sink.getLine(FORMAT);
+    line.open(FORMAT);
+    line.start();
+
+    line.write(new byte[40], 0, 40);
+    line.drain();
+    assertEquals(line.getLongFramePosition(), 20);
+    assertTrue(line.available() >= line.getBufferSize());
+
+    Thread.sleep(30);
+    long beforeSecondWrite = System.nanoTime();
+    line.write(new byte[20], 0, 20);
+    line.drain();
+    line.close();
+
+    CaptureSink.Capture capture = sink.getCaptures().get(0);
+    assertEquals(capture.getFrameCount(), 30);
+    assertEquals(capture.getFrameNanos(19) - capture.getFrameNanos(0), 19_000_000L);
+    assertTrue(capture.getFrameNanos(20) >= beforeSecondWrite);
+    assertEquals(capture.getFrameNanos(30), -1);
+  }
+
+  @Test
+  public void testWriteBlocksWhileBufferIsFull() throws Exception {
+    CaptureSink sink = new CaptureSink();
+    SourceDataLine line = sink.getLine(FORMAT);
+    line.open(FORMAT, 20); // 10 frames, 10 ms
+    line.start();
+
+    long start = System.nanoTime();
+    assertEquals(line.write(new byte[100], 0, 100), 100);
+    assertTrue(System.nanoTime() - start >= 30_000_000L, "write did not wait for the buffer");
+    line.close();
+  }
+
+  @Test
+  public void testFlushDropsUnplayedFrames() throws Exception {
+    CaptureSink sink = new CaptureSink();
+    SourceDataLine line = sink.getLine(FORMAT);
+    line.open(FORMAT);
+
+    // Not started, so nothing is played
+    line.write(new byte[40], 0, 40);
+    line.flush();
+    line.write(new byte[] {1, 0, 2, 0}, 0, 4);
+    line.start();
+    line.drain();
+    line.close();
+
+    CaptureSink.Capture capture = sink.getCaptures().get(0);
+    assertEquals(capture.getData(), new byte[] {1, 0, 2, 0});
+    assertEquals(capture.getFrameNanos(1) - capture.getFrameNanos(0), 1_000_000L);
+  }
+
+  @Test
+  public void testLineWithoutPacingPlaysWritesAtOnce() throws Exception {
+    CaptureSink sink = new CaptureSink(false);
+    SourceDataLine line = sink.getLine(FORMAT);
+    line.open(FORMAT);
+    line.start();
+
+    // An hour of sound
+    long start = System.nanoTime();
+    byte[] hour = new byte[3600 * 1000 * 2];
+    assertEquals(line.write(hour, 0, hour.length), hour.length);
+    line.drain();
+    assertTrue(System.nanoTime() - start < 1_000_000_000L);
+    assertEquals(line.getBufferSize(), 0);
+    line.close();
+
+    CaptureSink.Capture capture = sink.getCaptures().get(0);
+    assertEquals(capture.getFrameNanos(3_599_999), capture.getFrameNanos(0));
+  }
+}
@@ -0,0 +1,68 @@
+package dev.haruki7049.jiho.core.impl;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import javax.sound.sampled.AudioFormat;
+import org.testng.annotations.Test;
+
+/** Tests for the pre-rendered chime sequences. */
+public class ChimeRendererTest {
+
+  // 1000 frames per second, so one frame is one millisecond
+  private static final AudioFormat SIGNED_8 = new AudioFormat(1000f, 8, 1, true, false);
+  private static final AudioFormat UNSIGNED_8 = new AudioFormat(1000f, 8, 1, false, false);
+
+  @Test
+  public void testRepetitionsAreExactlyOnePeriodApart() {
+    DecodedAudio audio = new DecodedAudio(SIGNED_8, new byte[] {1, 2, 3});
+    ChimeRenderer renderer = new ChimeRenderer(audio, Duration.ofMillis(5));
+
+    byte[] sequence = bytes(renderer.render(3));
+
+    // Two full periods plus the last repetition without a trailing gap
+    assertEquals(sequence, new byte[] {1, 2, 3, 0, 0, 1, 2, 3, 0, 0, 1, 2, 3});
+  }
+
+  @Test
+  public void testSequencesShareOneCachedRendering() {
+    DecodedAudio audio = new DecodedAudio(SIGNED_8, new byte[] {1, 2, 3});
+    ChimeRenderer renderer = new ChimeRenderer(audio, Duration.ofMillis(5));
+
+    // Every count up to 12 is a prefix of the sequence of 12
+    assertSame(renderer.render(1).array(), renderer.render(12).array());
+    assertEquals(renderer.render(12).remaining(), 11 * 5 + 3);
+    assertEquals(bytes(renderer.render(1)), new byte[] {1, 2, 3});
+    assertEquals(bytes(renderer.render(13)).length, 12 * 5 + 3);
+  }
+
+  @Test
+  public void testPeriodShorterThanSoundDoesNotOverlap() {
+    DecodedAudio audio = new DecodedAudio(SIGNED_8, new byte[] {1, 2, 3});
+    ChimeRenderer renderer = new ChimeRenderer(audio, Duration.ofMillis(1));
+
+    assertEquals(bytes(renderer.render(2)), new byte[] {1, 2, 3, 1, 2, 3});
+  }
+
+  @Test
+  public void testUnsignedSilence() {
+    DecodedAudio audio = new DecodedAudio(UNSIGNED_8, new byte[] {1});
+    ChimeRenderer renderer = new ChimeRenderer(audio, Duration.ofMillis(3));
+
+    assertEquals(bytes(renderer.render(2)), new byte[] {1, (byte) 0x80, (byte) 0x80, 1});
+  }
+
+  /**
+   * Copies a rendered sequence out of its buffer.
+   *
+   * @param sequence The sequence.
+   * @return The bytes from its position to its limit.
+   */
+  static byte[] bytes(ByteBuffer sequence) {
+    byte[] bytes = new byte[sequence.remaining()];
+    sequence.duplicate().get(bytes);
+    return bytes;
+  }
+}
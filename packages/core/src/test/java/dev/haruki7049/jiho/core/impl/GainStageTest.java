@@ -0,0 +1,135 @@
+package dev.haruki7049.jiho.core.impl;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Random;
+import javax.sound.sampled.AudioFormat;
+import org.testng.annotations.Test;
+
+/** Tests for applying volume and fades to the samples. */
+public class GainStageTest {
+  private static final AudioFormat MONO = new AudioFormat(1000f, 16, 1, true, false);
+
+  @Test
+  public void testVectorKernelMatchesScalarKernel() {
+    GainKernel scalar = new ScalarGainKernel();
+    GainKernel vector = new VectorGainKernel();
+    int lanes = VectorGainKernel.lanes();
+
+    // Rounding differences show up for some gains only, so try many
+    for (int seed = 0; seed < 200; seed++) {
+      Random random = new Random(seed);
+      for (int channels = 1; channels <= 6; channels++) {
+        // Every tail length the vector loops can leave to the scalar loop
+        int frames = 3 * lanes + random.nextInt(lanes + 1);
+        short[] input = new short[channels * frames];
+        for (int i = 0; i < input.length; i++) {
+          input[i] = (short) random.nextInt();
+        }
+        float gain = random.nextFloat() * 2;
+        float start = random.nextFloat();
+        float step = (random.nextFloat() - 0.5f) / frames;
+        String label = "seed " + seed + ", channels " + channels + ", frames " + frames;
+
+        short[] expected = input.clone();
+        short[] actual = input.clone();
+        scalar.scale(expected, channels, input.length - 3, gain);
+        vector.scale(actual, channels, input.length - 3, gain);
+        assertEquals(actual, expected, "scale, " + label);
+
+        scalar.ramp(expected, channels, input.length, channels, start, step);
+        vector.ramp(actual, channels, input.length, channels, start, step);
+        assertEquals(actual, expected, "ramp, " + label);
+      }
+    }
+  }
+
+  @Test
+  public void testClampsInsteadOfWrappingAround() {
+    short[] samples = {30000, -30000, 100};
+    new ScalarGainKernel().scale(samples, 0, 3, 2.0f);
+    assertEquals(samples, new short[] {32767, -32768, 200});
+  }
+
+  @Test
+  public void testAppliesGainAndFades() {
+    short[] samples = new short[20];
+    Arrays.fill(samples, (short) 1000);
+
+    // At 1 kHz: 4 frames of fade-in, then 8 frames of fade-out
+    GainEnvelope envelope = new GainEnvelope(0.5f, Duration.ofMillis(4), Duration.ofMillis(8));
+    GainStage.process(samples, MONO, envelope, GainStage.kernel());
+
+    assertEquals(samples[0], (short) 0);
+    assertEquals(samples[1], (short) 125);
+    assertEquals(samples[3], (short) 375);
+    assertEquals(samples[4], (short) 500);
+    assertEquals(samples[11], (short) 500);
+    assertEquals(samples[12], (short) 500);
+    assertEquals(samples[16], (short) 250);
+    assertEquals(samples[19], (short) 62);
+  }
+
+  @Test
+  public void testShortensFadesLongerThanTheSound() {
+    short[] samples = new short[10];
+    Arrays.fill(samples, (short) 1000);
+
+    GainEnvelope envelope = new GainEnvelope(1.0f, Duration.ofMillis(30), Duration.ofMillis(10));
+    GainStage.process(samples, MONO, envelope, GainStage.kernel());
+
+    // 7 frames of fade-in and 3 of fade-out
+    assertEquals(samples[0], (short) 0);
+    assertTrue(samples[6] > samples[5]);
+    assertEquals(samples[7], (short) 1000);
+    assertTrue(samples[9] < samples[8]);
+  }
+
+  @Test
+  public void testAppliesToBigEndianCopy() {
+    AudioFormat bigEndian = new AudioFormat(1000f, 16, 2, true, true);
+    byte[] data = new byte[8];
+    short[] input = {2, -4, 6, 8};
+    ByteBuffer.wrap(data).order(ByteOrder.BIG_ENDIAN).asShortBuffer().put(input);
+    DecodedAudio audio = new DecodedAudio(bigEndian, data);
+
+    DecodedAudio processed = GainStage.apply(audio, GainEnvelope.of(0.5f, null, null));
+
+    short[] samples = new short[4];
+    processed.getData().order(ByteOrder.BIG_ENDIAN).asShortBuffer().get(samples);
+    assertEquals(samples, new short[] {1, -2, 3, 4});
+    assertEquals(data[1], (byte) 2); // The source is not modified
+  }
+
+  @Test
+  public void testRejectsUnsupportedFormat() {
+    AudioFormat eightBit = new AudioFormat(1000f, 8, 1, true, false);
+    assertFalse(GainStage.supports(eightBit));
+    DecodedAudio audio = new DecodedAudio(eightBit, new byte[4]);
+    GainEnvelope half = GainEnvelope.of(0.5f, null, null);
+    assertThrows(
+        IllegalArgumentException.class, () -> new ChimeRenderer(audio, Duration.ZERO, half));
+  }
+
+  @Test
+  public void testRendererAppliesEnvelopeOnce() {
+    byte[] data = new byte[8];
+    ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN).asShortBuffer().put(new short[] {8, 8});
+    DecodedAudio audio = new DecodedAudio(new AudioFormat(1000f, 16, 1, true, false), data);
+    ChimeRenderer renderer =
+        new ChimeRenderer(audio, Duration.ofMillis(4), GainEnvelope.of(0.5f, null, null));
+
+    byte[] sequence = renderer.render(2).array();
+    assertSame(renderer.render(2).array(), sequence);
+    assertEquals(sequence[0], (byte) 4);
+    assertEquals(sequence[8], (byte) 4);
+  }
+}
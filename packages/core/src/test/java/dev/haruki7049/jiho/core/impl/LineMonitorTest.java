@@ -0,0 +1,112 @@
+package dev.haruki7049.jiho.core.impl;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import dev.haruki7049.jiho.core.PlaybackStats;
+import java.lang.reflect.Proxy;
+import javax.sound.sampled.LineEvent;
+import javax.sound.sampled.SourceDataLine;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/** Tests for underrun and late start detection. */
+public class LineMonitorTest {
+  private static final int BUFFER_SIZE = 4096;
+
+  private LineMonitor monitor;
+  private PlaybackStats stats;
+  private SourceDataLine line;
+  private int available;
+
+  @BeforeMethod
+  public void setUp() {
+    this.monitor = new LineMonitor();
+    this.stats = new PlaybackStats();
+
+    // A line whose free buffer space is controlled by the test
+    this.line =
+        (SourceDataLine)
+            Proxy.newProxyInstance(
+                SourceDataLine.class.getClassLoader(),
+                new Class<?>[] {SourceDataLine.class},
+                (proxy, method, args) ->
+                    switch (method.getName()) {
+                      case "getBufferSize" -> BUFFER_SIZE;
+                      case "available" -> this.available;
+                      default -> null;
+                    });
+  }
+
+  @Test
+  public void testNoUnderrunWhileBufferHasData() {
+    this.monitor.begin();
+    this.available = BUFFER_SIZE; // Empty before the first write, which is expected
+    this.monitor.beforeWrite(this.line);
+    this.available = BUFFER_SIZE / 2;
+    this.monitor.beforeWrite(this.line);
+    this.monitor.endWrites();
+    this.monitor.end(System.nanoTime(), this.stats);
+
+    assertEquals(this.stats.getPlays(), 1);
+    assertEquals(this.stats.getLastUnderruns(), 0);
+  }
+
+  @Test
+  public void testEmptyBufferBetweenWritesIsUnderrun() {
+    this.monitor.begin();
+    this.available = BUFFER_SIZE;
+    this.monitor.beforeWrite(this.line);
+    this.monitor.beforeWrite(this.line); // Still empty, the line played everything
+    this.monitor.endWrites();
+    this.monitor.end(System.nanoTime(), this.stats);
+
+    assertEquals(this.stats.getLastUnderruns(), 1);
+    assertEquals(this.stats.getUnderruns(), 1);
+  }
+
+  @Test
+  public void testStopEventWhileWritingIsUnderrun() {
+    this.monitor.begin();
+    this.monitor.update(new LineEvent(this.line, LineEvent.Type.STOP, 100));
+    this.monitor.endWrites();
+
+    // Stopping once everything is queued is the normal end of playback
+    this.monitor.update(new LineEvent(this.line, LineEvent.Type.STOP, 200));
+    this.monitor.end(System.nanoTime(), this.stats);
+
+    assertEquals(this.stats.getLastUnderruns(), 1);
+  }
+
+  @Test
+  public void testCancelIgnoresStop() {
+    this.monitor.begin();
+    this.monitor.cancel();
+    this.monitor.update(new LineEvent(this.line, LineEvent.Type.STOP, 100));
+    this.monitor.end(System.nanoTime(), this.stats);
+
+    assertEquals(this.stats.getLastUnderruns(), 0);
+  }
+
+  @Test
+  public void testOnsetPrefersStartEvent() throws Exception {
+    this.monitor.begin();
+    this.monitor.update(new LineEvent(this.line, LineEvent.Type.START, 0));
+    long fallback = System.nanoTime() + 1_000_000_000L;
+    long onset = this.monitor.end(fallback, this.stats);
+
+    assertTrue(onset < fallback);
+    assertFalse(this.stats.isLastStartLate());
+  }
+
+  @Test
+  public void testLateStart() {
+    this.monitor.begin();
+    long late = System.nanoTime() + PlaybackStats.LATE_START_THRESHOLD.toNanos() * 2;
+    this.monitor.end(late, this.stats);
+
+    assertTrue(this.stats.isLastStartLate());
+    assertEquals(this.stats.getLateStarts(), 1);
+  }
+}
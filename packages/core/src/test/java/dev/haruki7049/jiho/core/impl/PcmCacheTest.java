@@ -0,0 +1,155 @@
+package dev.haruki7049.jiho.core.impl;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.stream.Stream;
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/** Tests for the decode-once PCM cache. */
+public class PcmCacheTest {
+
+  private static final AudioFormat FORMAT = new AudioFormat(8000f, 16, 1, true, false);
+
+  private Path tempDir;
+
+  /**
+   * Creates a temporary directory for the generated WAV files.
+   *
+   * @throws IOException if the directory cannot be created.
+   */
+  @BeforeMethod
+  public void setUp() throws IOException {
+    tempDir = Files.createTempDirectory("jiho-pcm-test-");
+  }
+
+  /**
+   * Recursively deletes the temporary directory.
+   *
+   * @throws IOException if cleanup fails.
+   */
+  @AfterMethod
+  public void tearDown() throws IOException {
+    try (Stream<Path> walk = Files.walk(tempDir)) {
+      walk.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    }
+  }
+
+  /**
+   * Helper method to write a silent 16-bit mono WAV file.
+   *
+   * @param path The file to write.
+   * @param frames The number of sample frames.
+   * @throws IOException if writing fails.
+   */
+  private void writeWav(Path path, int frames) throws IOException {
+    byte[] data = new byte[frames * FORMAT.getFrameSize()];
+    try (AudioInputStream stream =
+        new AudioInputStream(new ByteArrayInputStream(data), FORMAT, frames)) {
+      AudioSystem.write(stream, AudioFileFormat.Type.WAVE, path.toFile());
+    }
+  }
+
+  @Test
+  public void testDecodesOnlyOnce() throws Exception {
+    Path wav = tempDir.resolve("sound.wav");
+    writeWav(wav, 8000);
+
+    PcmCache cache = new PcmCache(wav.toUri().toURL());
+    DecodedAudio first = cache.get();
+    DecodedAudio second = cache.get();
+
+    // The second call must be served from the cache
+    assertSame(second, first);
+    assertEquals(first.getFrameLength(), 8000L);
+    assertEquals(first.getDuration(), Duration.ofSeconds(1));
+  }
+
+  @Test
+  public void testInvalidatesWhenFileChanges() throws Exception {
+    Path wav = tempDir.resolve("sound.wav");
+    writeWav(wav, 8000);
+
+    PcmCache cache = new PcmCache(wav.toUri().toURL());
+    DecodedAudio first = cache.get();
+
+    // Rewrite with a different length and an explicitly different mtime
+    writeWav(wav, 4000);
+    Files.setLastModifiedTime(wav, FileTime.fromMillis(0));
+
+    // Only a refresh looks at the file again
+    assertSame(cache.get(), first);
+    cache.refresh();
+    DecodedAudio second = cache.get();
+    assertNotSame(second, first);
+    assertEquals(second.getDuration(), Duration.ofMillis(500));
+  }
+
+  @Test
+  public void testRendererIsSharedUntilFileChanges() throws Exception {
+    Path wav = tempDir.resolve("sound.wav");
+    writeWav(wav, 8000);
+
+    PcmCache cache = new PcmCache(wav.toUri().toURL());
+    Object player = new Object();
+    Object other = new Object();
+    ChimeRenderer first = cache.getRenderer(player, cache.get(), Duration.ofSeconds(2));
+    assertSame(cache.getRenderer(other, cache.get(), Duration.ofSeconds(2)), first);
+    assertNotSame(cache.getRenderer(other, cache.get(), Duration.ofSeconds(3)), first);
+
+    writeWav(wav, 4000);
+    Files.setLastModifiedTime(wav, FileTime.fromMillis(0));
+    cache.refresh();
+    assertNotSame(cache.getRenderer(player, cache.get(), Duration.ofSeconds(2)), first);
+  }
+
+  @Test
+  public void testDropsRenderersNoPlayerUses() throws Exception {
+    Path wav = tempDir.resolve("sound.wav");
+    writeWav(wav, 8000);
+
+    PcmCache cache = new PcmCache(wav.toUri().toURL());
+    Object player = new Object();
+    Object other = new Object();
+    ChimeRenderer first = cache.getRenderer(player, cache.get(), Duration.ofSeconds(2));
+    cache.getRenderer(other, cache.get(), Duration.ofSeconds(2));
+
+    // Kept while the other player still uses it
+    cache.getRenderer(player, cache.get(), Duration.ofSeconds(3));
+    assertSame(cache.getRenderer(player, cache.get(), Duration.ofSeconds(2)), first);
+
+    // Dropped once both moved on, e.g. after a reload with another chime gap
+    cache.getRenderer(player, cache.get(), Duration.ofSeconds(3));
+    cache.releaseRenderer(other);
+    assertNotSame(cache.getRenderer(player, cache.get(), Duration.ofSeconds(2)), first);
+  }
+
+  @Test
+  public void testPoolSharesCachePerSource() throws Exception {
+    Path one = tempDir.resolve("one.wav");
+    Path two = tempDir.resolve("two.wav");
+    writeWav(one, 8000);
+    writeWav(two, 8000);
+
+    PcmCachePool pool = new PcmCachePool();
+    PcmCache first = pool.get(one.toUri().toURL());
+
+    assertSame(pool.get(one.toUri().toURL()), first);
+    assertNotSame(pool.get(two.toUri().toURL()), first);
+    assertEquals(pool.size(), 2);
+  }
+}
@@ -0,0 +1,139 @@
+package dev.haruki7049.jiho.core.impl;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.SourceDataLine;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/** Tests for mixing concurrent voices into one line. */
+public class SoftwareMixerTest {
+  private static final AudioFormat FORMAT = new AudioFormat(8000f, 16, 1, true, false);
+  private static final int BLOCK_FRAMES = 4;
+
+  private ByteArrayOutputStream written;
+  private CountDownLatch opened; // Holds the audio thread until every voice is submitted
+  private SoftwareMixer mixer;
+
+  @BeforeMethod
+  public void setUp() {
+    this.written = new ByteArrayOutputStream();
+    this.opened = new CountDownLatch(1);
+
+    // A line that records what is written to it
+    SourceDataLine line =
+        (SourceDataLine)
+            Proxy.newProxyInstance(
+                SourceDataLine.class.getClassLoader(),
+                new Class<?>[] {SourceDataLine.class},
+                (proxy, method, args) ->
+                    switch (method.getName()) {
+                      case "open" -> {
+                        this.opened.await();
+                        yield null;
+                      }
+                      case "write" -> {
+                        this.written.write((byte[]) args[0], (int) args[1], (int) args[2]);
+                        yield args[2];
+                      }
+                      case "getLongFramePosition" -> 0L;
+                      default -> null;
+                    });
+    this.mixer = new SoftwareMixer(format -> line, FORMAT, BLOCK_FRAMES);
+  }
+
+  @AfterMethod
+  public void tearDown() {
+    this.mixer.close();
+  }
+
+  @Test
+  public void testSumsVoicesWithGain() throws Exception {
+    CompletableFuture<Void> first = this.mixer.play(constant(6, 0.5f), FORMAT, 1.0f, 0);
+    CompletableFuture<Void> second = this.mixer.play(constant(6, 0.5f), FORMAT, 0.5f, 0);
+    this.opened.countDown();
+    first.get(5, TimeUnit.SECONDS);
+    second.get(5, TimeUnit.SECONDS);
+
+    short[] output = this.output();
+    assertEquals(output.length, 2 * BLOCK_FRAMES);
+    for (int i = 0; i < 6; i++) {
+      assertEquals(output[i], (short) Math.round(0.75f * Short.MAX_VALUE));
+    }
+    assertEquals(output[6], (short) 0);
+    assertEquals(this.mixer.getClippedSamples(), 0L);
+  }
+
+  @Test
+  public void testClipsInsteadOfWrappingAround() throws Exception {
+    CompletableFuture<Void> first = this.mixer.play(constant(4, 0.75f), FORMAT, 1.0f, 0);
+    CompletableFuture<Void> second = this.mixer.play(constant(4, -0.75f), FORMAT, 2.0f, 0);
+    CompletableFuture<Void> third = this.mixer.play(constant(4, -0.75f), FORMAT, 1.0f, 0);
+    this.opened.countDown();
+    CompletableFuture.allOf(first, second, third).get(5, TimeUnit.SECONDS);
+
+    short[] output = this.output();
+    for (int i = 0; i < 4; i++) {
+      assertEquals(output[i], (short) -Short.MAX_VALUE);
+    }
+    assertEquals(this.mixer.getClippedSamples(), 4L);
+  }
+
+  @Test
+  public void testStartOffsetAndResampling() throws Exception {
+    // Half the output rate, so every source frame lasts two output frames
+    AudioFormat slow = new AudioFormat(4000f, 16, 1, true, false);
+    CompletableFuture<Void> voice = this.mixer.play(constant(2, 0.5f), slow, 1.0f, 3);
+    this.opened.countDown();
+    voice.get(5, TimeUnit.SECONDS);
+
+    short[] output = this.output();
+    assertEquals(output.length, 2 * BLOCK_FRAMES);
+    for (int i = 0; i < 3; i++) {
+      assertEquals(output[i], (short) 0);
+    }
+    for (int i = 3; i < 7; i++) {
+      assertTrue(Math.abs(output[i] - 0.5f * Short.MAX_VALUE) <= 1, "frame " + i);
+    }
+    assertEquals(output[7], (short) 0);
+  }
+
+  /**
+   * Creates a mono 16-bit voice holding one value.
+   *
+   * @param frames The number of frames.
+   * @param value The sample value in [-1, 1).
+   * @return The PCM data.
+   */
+  private static ByteBuffer constant(int frames, float value) {
+    ByteBuffer data = ByteBuffer.allocate(frames * 2).order(ByteOrder.LITTLE_ENDIAN);
+    for (int i = 0; i < frames; i++) {
+      data.putShort((short) (value * 32768));
+    }
+    return data.flip();
+  }
+
+  /**
+   * Gets the samples written to the line.
+   *
+   * @return The 16-bit samples.
+   */
+  private short[] output() {
+    ShortBuffer samples =
+        ByteBuffer.wrap(this.written.toByteArray()).order(ByteOrder.LITTLE_ENDIAN).asShortBuffer();
+    short[] output = new short[samples.remaining()];
+    samples.get(output);
+    return output;
+  }
+}
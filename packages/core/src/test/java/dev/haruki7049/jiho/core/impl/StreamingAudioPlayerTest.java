@@ -0,0 +1,67 @@
+package dev.haruki7049.jiho.core.impl;
+
+import static org.testng.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/** Tests for the streaming playback path. */
+public class StreamingAudioPlayerTest {
+
+  private static final AudioFormat FORMAT = new AudioFormat(8000f, 16, 2, true, false);
+
+  private Path wav;
+
+  /**
+   * Writes a silent two second WAV file.
+   *
+   * @throws IOException if writing fails.
+   */
+  @BeforeMethod
+  public void setUp() throws IOException {
+    wav = Files.createTempFile("jiho-stream-test-", ".wav");
+    int frames = 16000;
+    byte[] data = new byte[frames * FORMAT.getFrameSize()];
+    try (AudioInputStream stream =
+        new AudioInputStream(new ByteArrayInputStream(data), FORMAT, frames)) {
+      AudioSystem.write(stream, AudioFileFormat.Type.WAVE, wav.toFile());
+    }
+  }
+
+  /**
+   * Deletes the WAV file.
+   *
+   * @throws IOException if cleanup fails.
+   */
+  @AfterMethod
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(wav);
+  }
+
+  @Test
+  public void testDurationWithoutDecoding() throws Exception {
+    StreamingAudioPlayer player = new StreamingAudioPlayer(wav.toUri().toURL());
+    assertEquals(player.getAudioDuration(), Duration.ofSeconds(2));
+  }
+
+  @Test
+  public void testAudioManagerSwitchesToStreamingAboveThreshold() throws Exception {
+    URL url = wav.toUri().toURL();
+
+    // A threshold of zero streams every source, the result must match the in-memory path
+    AudioManager streamed = AudioManager.builder(url).streamingThreshold(0).build();
+    AudioManager decoded = AudioManager.builder(url).streamingThreshold(Long.MAX_VALUE).build();
+    assertEquals(streamed.getAudioDuration(), decoded.getAudioDuration());
+  }
+}
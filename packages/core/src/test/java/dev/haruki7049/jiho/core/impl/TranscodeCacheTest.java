@@ -0,0 +1,165 @@
+package dev.haruki7049.jiho.core.impl;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/** Tests for the persistent cache of sources converted to the output format. */
+public class TranscodeCacheTest {
+
+  private static final AudioFormat SOURCE = new AudioFormat(8000f, 16, 1, true, false);
+  private static final AudioFormat TARGET = new AudioFormat(16000f, 16, 2, true, false);
+
+  private Path tempDir;
+  private Path cacheDir;
+
+  /**
+   * Creates a temporary directory for the sources and the cache.
+   *
+   * @throws IOException if the directory cannot be created.
+   */
+  @BeforeMethod
+  public void setUp() throws IOException {
+    tempDir = Files.createTempDirectory("jiho-transcode-test-");
+    cacheDir = tempDir.resolve("cache");
+  }
+
+  /**
+   * Recursively deletes the temporary directory.
+   *
+   * @throws IOException if cleanup fails.
+   */
+  @AfterMethod
+  public void tearDown() throws IOException {
+    try (Stream<Path> walk = Files.walk(tempDir)) {
+      walk.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    }
+  }
+
+  /**
+   * Helper method to write a 16-bit mono WAV file holding a ramp.
+   *
+   * @param path The file to write.
+   * @param frames The number of sample frames.
+   * @throws IOException if writing fails.
+   */
+  private void writeWav(Path path, int frames) throws IOException {
+    byte[] data = new byte[frames * SOURCE.getFrameSize()];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = (byte) i;
+    }
+    try (AudioInputStream stream =
+        new AudioInputStream(new ByteArrayInputStream(data), SOURCE, frames)) {
+      AudioSystem.write(stream, AudioFileFormat.Type.WAVE, path.toFile());
+    }
+  }
+
+  /**
+   * Lists the files of the cache directory.
+   *
+   * @return The cache files.
+   * @throws IOException if the directory cannot be listed.
+   */
+  private List<Path> cacheFiles() throws IOException {
+    try (Stream<Path> files = Files.list(cacheDir)) {
+      return files.toList();
+    }
+  }
+
+  /**
+   * Checks the duration of converted audio. The resampler may add a few frames at the end.
+   *
+   * @param audio The converted audio.
+   * @param expected The duration of the source.
+   */
+  private static void assertDuration(DecodedAudio audio, Duration expected) {
+    Duration excess = audio.getDuration().minus(expected);
+    assertTrue(
+        !excess.isNegative() && excess.compareTo(Duration.ofMillis(5)) < 0,
+        "duration " + audio.getDuration());
+  }
+
+  @Test
+  public void testConvertsOnceAndMapsAfterwards() throws Exception {
+    Path wav = tempDir.resolve("sound.wav");
+    writeWav(wav, 8000);
+
+    DecodedAudio converted = new TranscodeCache(cacheDir).get(wav.toUri().toURL(), TARGET);
+    assertTrue(converted.isMapped());
+    assertTrue(converted.getFormat().matches(TARGET));
+    assertDuration(converted, Duration.ofSeconds(1));
+
+    List<Path> files = cacheFiles();
+    assertEquals(files.size(), 1);
+    assertTrue(files.get(0).getFileName().toString().endsWith("-16000Hz-16bit-2ch.wav"));
+
+    // A later run finds the file and does not convert again
+    Files.setLastModifiedTime(files.get(0), FileTime.fromMillis(0));
+    DecodedAudio cached = new TranscodeCache(cacheDir).get(wav.toUri().toURL(), TARGET);
+    assertTrue(cached.isMapped());
+    assertEquals(cached.getData(), converted.getData());
+    assertEquals(Files.getLastModifiedTime(files.get(0)), FileTime.fromMillis(0));
+  }
+
+  @Test
+  public void testChangedContentGetsNewEntry() throws Exception {
+    Path wav = tempDir.resolve("sound.wav");
+    TranscodeCache cache = new TranscodeCache(cacheDir);
+
+    writeWav(wav, 8000);
+    cache.get(wav.toUri().toURL(), TARGET);
+    writeWav(wav, 4000);
+    DecodedAudio converted = cache.get(wav.toUri().toURL(), TARGET);
+
+    assertDuration(converted, Duration.ofMillis(500));
+    assertEquals(cacheFiles().size(), 2);
+  }
+
+  @Test
+  public void testConvertsInMemoryIfCacheIsUnwritable() throws Exception {
+    Path wav = tempDir.resolve("sound.wav");
+    writeWav(wav, 8000);
+
+    // A regular file where the directory should be
+    Files.createFile(cacheDir);
+    DecodedAudio converted = new TranscodeCache(cacheDir).get(wav.toUri().toURL(), TARGET);
+
+    assertFalse(converted.isMapped());
+    assertTrue(converted.getFormat().matches(TARGET));
+    assertDuration(converted, Duration.ofSeconds(1));
+  }
+
+  @Test
+  public void testPcmCacheMapsSourceAlreadyInTargetFormat() throws Exception {
+    Path wav = tempDir.resolve("sound.wav");
+    writeWav(wav, 8000);
+    TranscodeCache transcodeCache = new TranscodeCache(cacheDir);
+
+    // The sample rate of the source is kept, so there is nothing to convert
+    AudioFormat keepRate = new AudioFormat(AudioSystem.NOT_SPECIFIED, 16, 1, true, false);
+    PcmCache same = new PcmCache(wav.toUri().toURL(), transcodeCache, keepRate);
+    assertTrue(same.get().isMapped());
+    assertFalse(Files.exists(cacheDir));
+
+    PcmCache resampled = new PcmCache(wav.toUri().toURL(), transcodeCache, TARGET);
+    assertTrue(resampled.get().getFormat().matches(TARGET));
+    assertEquals(cacheFiles().size(), 1);
+  }
+}
@@ -0,0 +1,111 @@
+package dev.haruki7049.jiho.core.impl;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/** Tests for writing played sound to a WAV file. */
+public class WavFileSinkTest {
+  private static final AudioFormat LITTLE_ENDIAN = new AudioFormat(8000f, 16, 2, true, false);
+  private static final AudioFormat BIG_ENDIAN = new AudioFormat(8000f, 16, 2, true, true);
+
+  private Path wav;
+
+  /**
+   * Creates a path for the WAV file.
+   *
+   * @throws IOException if the temporary file cannot be created.
+   */
+  @BeforeMethod
+  public void setUp() throws IOException {
+    this.wav = Files.createTempFile("jiho-sink-test-", ".wav");
+  }
+
+  /**
+   * Deletes the WAV file.
+   *
+   * @throws IOException if cleanup fails.
+   */
+  @AfterMethod
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(this.wav);
+  }
+
+  @Test
+  public void testAppendsLinesIntoOneFile() throws Exception {
+    WavFileSink sink = new WavFileSink(this.wav);
+    play(sink, LITTLE_ENDIAN, new byte[] {1, 2, 3, 4});
+    play(sink, BIG_ENDIAN, new byte[] {5, 6, 7, 8, 9, 10, 11, 12});
+
+    try (AudioInputStream stream = AudioSystem.getAudioInputStream(this.wav.toFile())) {
+      assertEquals(stream.getFormat().toString(), LITTLE_ENDIAN.toString());
+      assertEquals(stream.getFrameLength(), 3);
+      assertEquals(stream.readAllBytes(), new byte[] {1, 2, 3, 4, 6, 5, 8, 7, 10, 9, 12, 11});
+    }
+  }
+
+  @Test
+  public void testMapsWrittenFile() throws Exception {
+    play(new WavFileSink(this.wav), LITTLE_ENDIAN, new byte[400]);
+
+    WavFile file = WavFile.map(this.wav);
+    assertEquals(file.getData().remaining(), 400);
+  }
+
+  @Test
+  public void testFlushedFramesAreRemoved() throws Exception {
+    SourceDataLine line = new WavFileSink(this.wav).getLine(LITTLE_ENDIAN);
+    line.open(LITTLE_ENDIAN);
+    line.write(new byte[] {1, 2, 3, 4, 5, 6, 7, 8}, 0, 8);
+    line.flush(); // Never started, so nothing was played
+    line.write(new byte[] {9, 9, 9, 9}, 0, 4);
+    line.start();
+    line.drain();
+    line.close();
+
+    try (AudioInputStream stream = AudioSystem.getAudioInputStream(this.wav.toFile())) {
+      assertEquals(stream.readAllBytes(), new byte[] {9, 9, 9, 9});
+    }
+  }
+
+  @Test
+  public void testRejectsSecondLineAndOtherFormat() throws Exception {
+    WavFileSink sink = new WavFileSink(this.wav);
+    SourceDataLine first = sink.getLine(LITTLE_ENDIAN);
+    first.open(LITTLE_ENDIAN);
+    assertThrows(LineUnavailableException.class, () -> sink.getLine(LITTLE_ENDIAN).open());
+    first.close();
+
+    AudioFormat mono = new AudioFormat(8000f, 16, 1, true, false);
+    assertThrows(LineUnavailableException.class, () -> sink.getLine(mono).open(mono));
+  }
+
+  /**
+   * Plays data on a new line of the sink.
+   *
+   * @param sink The sink.
+   * @param format The format of the data.
+   * @param data The data.
+   * @throws LineUnavailableException if the line cannot be opened.
+   */
+  private static void play(WavFileSink sink, AudioFormat format, byte[] data)
+      throws LineUnavailableException {
+    SourceDataLine line = sink.getLine(format);
+    line.open(format);
+    line.start();
+    line.write(data, 0, data.length);
+    line.drain();
+    line.close();
+  }
+}
@@ -0,0 +1,100 @@
+package dev.haruki7049.jiho.core.impl;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import org.testng.annotations.Test;
+
+/** Tests for the memory-mapped WAV reader. */
+public class WavFileTest {
+
+  /**
+   * Helper method to build a WAV file by hand, with an extra chunk before the data.
+   *
+   * @param formatTag The WAV format tag.
+   * @param data The PCM payload.
+   * @return The file contents.
+   */
+  private ByteBuffer buildWav(int formatTag, byte[] data) {
+    ByteBuffer buffer = ByteBuffer.allocate(12 + 24 + 8 + 4 + 8 + data.length);
+    buffer.order(ByteOrder.LITTLE_ENDIAN);
+    buffer.put("RIFF".getBytes()).putInt(buffer.capacity() - 8).put("WAVE".getBytes());
+    // fmt: 16-bit mono, 8000 Hz
+    buffer.put("fmt ".getBytes()).putInt(16);
+    buffer.putShort((short) formatTag).putShort((short) 1).putInt(8000).putInt(16000);
+    buffer.putShort((short) 2).putShort((short) 16);
+    // An odd-sized chunk that must be skipped, including its pad byte
+    buffer.put("junk".getBytes()).putInt(3).put(new byte[] {1, 2, 3, 0});
+    buffer.put("data".getBytes()).putInt(data.length).put(data);
+    return buffer.flip();
+  }
+
+  @Test
+  public void testParsesChunksInPlace() {
+    byte[] payload = {10, 20, 30, 40};
+    WavFile wav = WavFile.parse(buildWav(1, payload));
+
+    assertNotNull(wav);
+    assertEquals(wav.getFormat().getSampleRate(), 8000f);
+    assertEquals(wav.getFormat().getFrameSize(), 2);
+    assertEquals(wav.getFormat().getEncoding(), AudioFormat.Encoding.PCM_SIGNED);
+
+    ByteBuffer data = wav.getData();
+    assertTrue(data.isReadOnly());
+    byte[] read = new byte[data.remaining()];
+    data.get(read);
+    assertEquals(read, payload);
+  }
+
+  @Test
+  public void testRejectsFloatData() {
+    // Format tag 3 is IEEE float, which is left to Java Sound
+    assertNull(WavFile.parse(buildWav(3, new byte[] {0, 0})));
+  }
+
+  @Test
+  public void testMapsFileWrittenByJavaSound() throws Exception {
+    AudioFormat format = new AudioFormat(44100f, 16, 2, true, false);
+    byte[] data = new byte[441 * format.getFrameSize()];
+    data[0] = 42;
+
+    Path path = Files.createTempFile("jiho-wav-test-", ".wav");
+    try {
+      try (AudioInputStream stream =
+          new AudioInputStream(new ByteArrayInputStream(data), format, 441)) {
+        AudioSystem.write(stream, AudioFileFormat.Type.WAVE, path.toFile());
+      }
+
+      WavFile wav = WavFile.map(path);
+      assertNotNull(wav);
+      assertTrue(wav.getFormat().matches(format));
+      assertEquals(wav.getData().remaining(), data.length);
+      assertEquals(wav.getData().get(0), (byte) 42);
+    } finally {
+      Files.deleteIfExists(path);
+    }
+  }
+
+  @Test
+  public void testRejectsOtherFormats() throws Exception {
+    AudioFormat format = new AudioFormat(8000f, 16, 1, true, true);
+    ByteArrayOutputStream au = new ByteArrayOutputStream();
+    try (AudioInputStream stream =
+        new AudioInputStream(new ByteArrayInputStream(new byte[16]), format, 8)) {
+      AudioSystem.write(stream, AudioFileFormat.Type.AU, au);
+    }
+    assertNull(WavFile.parse(ByteBuffer.wrap(au.toByteArray())));
+  }
+}
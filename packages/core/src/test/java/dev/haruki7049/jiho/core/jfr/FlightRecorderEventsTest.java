@@ -0,0 +1,109 @@
+package dev.haruki7049.jiho.core.jfr;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import dev.haruki7049.jiho.core.Jiho;
+import dev.haruki7049.jiho.core.config.Config;
+import dev.haruki7049.jiho.core.impl.AudioManager;
+import dev.haruki7049.jiho.core.impl.NullSink;
+import dev.haruki7049.jiho.core.schedule.HourlyScheduler;
+import dev.haruki7049.jiho.core.schedule.VirtualClock;
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.testng.annotations.Test;
+
+/** Tests for the Flight Recorder events of the chime path. */
+public class FlightRecorderEventsTest {
+  private static final AudioFormat FORMAT = new AudioFormat(1000f, 16, 1, true, false);
+
+  @Test
+  public void testRecordsScheduleAndAudioPipeline() throws Exception {
+    Path wav = Files.createTempFile("jiho-jfr-test-", ".wav");
+    Path dump = Files.createTempFile("jiho-jfr-test-", ".jfr");
+    try (Recording recording = new Recording()) {
+      try (AudioInputStream stream =
+          new AudioInputStream(new ByteArrayInputStream(new byte[200]), FORMAT, 100)) {
+        AudioSystem.write(stream, AudioFileFormat.Type.WAVE, wav.toFile());
+      }
+      for (Class<? extends jdk.jfr.Event> event :
+          List.of(
+              ScheduleEvent.class,
+              WaitEvent.class,
+              ChimeEvent.class,
+              DecodeEvent.class,
+              LineOpenEvent.class,
+              RepetitionEvent.class)) {
+        recording.enable(event);
+      }
+      recording.start();
+
+      // Chimes once at 01:00 and twice at 02:00, played instantly
+      ZonedDateTime start = ZonedDateTime.of(2025, 1, 1, 0, 30, 0, 0, ZoneOffset.UTC);
+      VirtualClock clock = new VirtualClock(start.toInstant(), ZoneOffset.UTC);
+      AudioManager player =
+          AudioManager.builder(wav.toUri().toURL()).sink(new NullSink(false)).build();
+      Jiho jiho =
+          new Jiho(new Config(null, null), player, new HourlyScheduler(clock, clock), clock);
+      jiho.run(start.plusMinutes(90));
+
+      recording.stop();
+      recording.dump(dump);
+      List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+
+      List<RecordedEvent> chimes = named(events, "dev.haruki7049.jiho.Chime");
+      assertEquals(chimes.size(), 2);
+      assertEquals(chimes.get(1).getInt("times"), 2);
+      assertEquals(chimes.get(1).getString("outcome"), "played");
+      assertEquals(chimes.get(1).getInstant("deadline"), start.plusMinutes(90).toInstant());
+
+      assertTrue(named(events, "dev.haruki7049.jiho.Schedule").size() >= 2);
+      List<RecordedEvent> waits = named(events, "dev.haruki7049.jiho.Wait");
+      assertEquals(waits.size(), 2);
+      assertTrue(waits.get(0).getBoolean("onTime"));
+      assertEquals(named(events, "dev.haruki7049.jiho.AudioDecode").size(), 2);
+
+      List<RecordedEvent> lines = named(events, "dev.haruki7049.jiho.LineOpen");
+      assertEquals(lines.size(), 2);
+      assertEquals(lines.get(0).getString("sink"), "NullSink");
+      assertFalse(lines.get(0).getBoolean("warm"));
+
+      // One event per repetition, the first of two spans the whole period
+      List<RecordedEvent> repetitions = named(events, "dev.haruki7049.jiho.Repetition");
+      assertEquals(repetitions.size(), 3);
+      assertEquals(repetitions.get(1).getInt("repetition"), 1);
+      assertEquals(repetitions.get(1).getLong("frames"), 600); // 0.1 s sound, 0.5 s gap
+      assertEquals(repetitions.get(2).getInt("repetition"), 2);
+      assertEquals(repetitions.get(2).getLong("frames"), 100);
+    } finally {
+      Files.deleteIfExists(wav);
+      Files.deleteIfExists(dump);
+    }
+  }
+
+  /**
+   * Gets the events of one type, in the order they ended.
+   *
+   * @param events The recorded events.
+   * @param name The event name.
+   * @return The events of that name.
+   */
+  private static List<RecordedEvent> named(List<RecordedEvent> events, String name) {
+    return events.stream()
+        .filter(event -> event.getEventType().getName().equals(name))
+        .sorted((a, b) -> a.getEndTime().compareTo(b.getEndTime()))
+        .toList();
+  }
+}
@@ -0,0 +1,101 @@
+package dev.haruki7049.jiho.core.metrics;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import org.testng.annotations.Test;
+
+/** Tests for the latency histogram and its export. */
+public class LatencyHistogramTest {
+
+  @Test
+  public void testBucketsCoverEveryValue() {
+    // Every value falls into a bucket whose bounds hold it, and the buckets are contiguous
+    long[] values = {0, 1, 31, 32, 33, 63, 64, 1_000, 1_000_000, 123_456_789, Long.MAX_VALUE};
+    for (long value : values) {
+      int index = LatencyHistogram.indexOf(value);
+      assertTrue(LatencyHistogram.lowestValueAt(index) <= value, "lowest of " + value);
+      assertTrue(LatencyHistogram.highestValueAt(index) >= value, "highest of " + value);
+    }
+    for (int i = 1; i < LatencyHistogram.indexOf(Long.MAX_VALUE); i++) {
+      assertEquals(LatencyHistogram.lowestValueAt(i), LatencyHistogram.highestValueAt(i - 1) + 1);
+    }
+  }
+
+  @Test
+  public void testQuantilesWithinBucketPrecision() {
+    LatencyHistogram histogram = new MetricsRegistry().histogram("test_seconds", "Test.");
+    for (long micros = 1; micros <= 1000; micros++) {
+      histogram.record(micros * 1000);
+    }
+    histogram.record(-5); // Recorded as zero
+
+    LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+    assertEquals(snapshot.getCount(), 1001);
+    assertEquals(snapshot.getSum(), 500_500_000L);
+    assertEquals(snapshot.getMax(), 1_000_000L);
+    assertEquals(snapshot.getValueAtQuantile(0.0), 0);
+    assertEquals(snapshot.getValueAtQuantile(1.0), 1_000_000L);
+    assertClose(snapshot.getValueAtQuantile(0.5), 500_000);
+    assertClose(snapshot.getValueAtQuantile(0.99), 990_000);
+  }
+
+  @Test
+  public void testRecordingDoesNotAllocate() {
+    LatencyHistogram histogram = new MetricsRegistry().histogram("test_seconds", "Test.");
+    Counter counter = new MetricsRegistry().counter("test_total", "Test.");
+    com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long thread = Thread.currentThread().threadId();
+    histogram.record(1); // Links the method reference
+
+    long before = threads.getThreadAllocatedBytes(thread);
+    for (int i = 0; i < 100_000; i++) {
+      histogram.record(i * 997L);
+      counter.add(i);
+    }
+    long allocated = threads.getThreadAllocatedBytes(thread) - before;
+
+    // A single object per record would be megabytes
+    assertTrue(allocated < 4096, "allocated " + allocated + " bytes");
+  }
+
+  @Test
+  public void testWritesPrometheusText() {
+    MetricsRegistry registry = new MetricsRegistry();
+    registry.counter("jiho_test_total", "Things counted.").add(3);
+    registry.histogram("jiho_test_seconds", "Things\ntimed.").record(2_000_000);
+
+    assertEquals(
+        registry.scrape(),
+        """
+        # HELP jiho_test_total Things counted.
+        # TYPE jiho_test_total counter
+        jiho_test_total 3
+        # HELP jiho_test_seconds Things\\ntimed.
+        # TYPE jiho_test_seconds summary
+        jiho_test_seconds{quantile="0.5"} 0.002
+        jiho_test_seconds{quantile="0.9"} 0.002
+        jiho_test_seconds{quantile="0.99"} 0.002
+        jiho_test_seconds{quantile="0.999"} 0.002
+        jiho_test_seconds_sum 0.002
+        jiho_test_seconds_count 1
+        # HELP jiho_test_seconds_max Largest value of jiho_test_seconds.
+        # TYPE jiho_test_seconds_max gauge
+        jiho_test_seconds_max 0.002
+        """);
+  }
+
+  /**
+   * Asserts that a value is within the precision of the buckets of the expected one.
+   *
+   * @param actual The value read from the histogram.
+   * @param expected The exact value.
+   */
+  private static void assertClose(long actual, long expected) {
+    double error = Math.abs(actual - expected) / (double) expected;
+    assertTrue(
+        error <= 1.0 / LatencyHistogram.SUB_BUCKETS, "expected " + expected + " was " + actual);
+  }
+}
@@ -0,0 +1,71 @@
+package dev.haruki7049.jiho.core.metrics;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import org.testng.annotations.Test;
+
+/** Tests for serving the metrics over HTTP. */
+public class MetricsServerTest {
+
+  @Test
+  public void testParsesAddress() {
+    assertEquals(
+        MetricsServer.parseAddress("127.0.0.1:9464"),
+        InetSocketAddress.createUnresolved("127.0.0.1", 9464));
+    assertEquals(MetricsServer.parseAddress("[::1]:9464").getHostString(), "::1");
+    assertTrue(MetricsServer.parseAddress(":9464").getAddress().isAnyLocalAddress());
+    assertThrows(IllegalArgumentException.class, () -> MetricsServer.parseAddress("localhost"));
+    assertThrows(IllegalArgumentException.class, () -> MetricsServer.parseAddress("a b:9464"));
+    assertThrows(IllegalArgumentException.class, () -> MetricsServer.parseAddress("host:0"));
+  }
+
+  @Test
+  public void testServesMetrics() throws Exception {
+    ChimeMetrics metrics = new ChimeMetrics();
+    metrics.recordPlayed(3);
+    metrics.recordOnsetLateness(1_500_000);
+
+    try (MetricsServer server =
+            MetricsServer.start(new InetSocketAddress("127.0.0.1", 0), metrics.getRegistry());
+        HttpClient client = HttpClient.newHttpClient()) {
+      String base = "http://127.0.0.1:" + server.getAddress().getPort();
+
+      HttpResponse<String> response = get(client, base + MetricsServer.PATH, "GET");
+      assertEquals(response.statusCode(), 200);
+      assertEquals(
+          response.headers().firstValue("Content-Type").orElseThrow(),
+          MetricsRegistry.CONTENT_TYPE);
+      assertTrue(response.body().contains("\njiho_repetitions_played_total 3\n"));
+      assertTrue(response.body().contains("\njiho_onset_lateness_seconds_count 1\n"));
+      assertTrue(response.body().contains("\njiho_onset_lateness_seconds_max 0.0015\n"));
+
+      assertEquals(get(client, base + "/", "GET").statusCode(), 404);
+      assertEquals(get(client, base + MetricsServer.PATH, "POST").statusCode(), 405);
+    }
+  }
+
+  /**
+   * Sends a request without a body.
+   *
+   * @param client The client.
+   * @param uri The URI to request.
+   * @param method The HTTP method.
+   * @return The response.
+   * @throws Exception if the request fails.
+   */
+  private static HttpResponse<String> get(HttpClient client, String uri, String method)
+      throws Exception {
+    HttpRequest request =
+        HttpRequest.newBuilder(URI.create(uri))
+            .method(method, HttpRequest.BodyPublishers.noBody())
+            .build();
+    return client.send(request, HttpResponse.BodyHandlers.ofString());
+  }
+}
@@ -0,0 +1,203 @@
+package dev.haruki7049.jiho.core.schedule;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.OptionalInt;
+import java.util.concurrent.CompletableFuture;
+import org.testng.annotations.Test;
+
+/** Tests for synchronizing chimes between instances, on the loopback interface. */
+public class ClockSyncTest {
+  private static final Duration INTERVAL = Duration.ofMillis(100);
+  private static final Duration AHEAD = Duration.ofMillis(40);
+
+  @Test
+  public void testParsesGroup() {
+    assertEquals(
+        ClockSync.parseGroup("239.255.74.72:47474"),
+        new InetSocketAddress("239.255.74.72", 47474));
+    assertEquals(ClockSync.parseGroup("[ff15::7a]:1").getPort(), 1);
+    assertThrows(IllegalArgumentException.class, () -> ClockSync.parseGroup("239.255.74.72"));
+    assertThrows(IllegalArgumentException.class, () -> ClockSync.parseGroup("127.0.0.1:47474"));
+    assertThrows(IllegalArgumentException.class, () -> ClockSync.parseGroup("[localhost]:47474"));
+  }
+
+  @Test
+  public void testInstancesAgreeOnGroupClock() throws Exception {
+    InetSocketAddress group = freeGroup();
+    Clock ahead = Clock.offset(Clock.systemUTC(), AHEAD);
+    try (ClockSync fast = start(group, ahead);
+        ClockSync exact = start(group, Clock.systemUTC())) {
+      awaitPeers(fast, exact);
+
+      // The group clock is the median of the two, half way between them
+      assertClose(fast.getOffset(), AHEAD.dividedBy(2).negated());
+      assertClose(exact.getOffset(), AHEAD.dividedBy(2));
+    }
+  }
+
+  @Test
+  public void testSynchronizedInstancesFireTogether() throws Exception {
+    InetSocketAddress group = freeGroup();
+    Clock ahead = Clock.offset(Clock.systemUTC(), AHEAD);
+    try (ClockSync fast = start(group, ahead);
+        ClockSync exact = start(group, Clock.systemUTC())) {
+      awaitPeers(fast, exact);
+
+      ZonedDateTime deadline = ZonedDateTime.now(ZoneOffset.UTC).plusSeconds(1);
+      CompletableFuture<Instant> fastFired = fire(new SyncScheduler(at(ahead), fast), deadline);
+      CompletableFuture<Instant> exactFired =
+          fire(new SyncScheduler(at(Clock.systemUTC()), exact), deadline);
+
+      // Unsynchronized, they would fire 40 ms apart; on real time, they fire together
+      assertClose(Duration.between(fastFired.get(), exactFired.get()), Duration.ZERO);
+
+      // Both measure the skew once they have the fire time of the other
+      long until = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+      while (exact.getSkewStats().getCount() == 0 && System.nanoTime() < until) {
+        Thread.sleep(50);
+      }
+      assertEquals(exact.getSkewStats().getCount(), 1);
+      assertClose(exact.getSkewStats().getLast(), Duration.ZERO);
+    }
+  }
+
+  @Test
+  public void testNextDeadlineIsOnGroupClock() throws Exception {
+    InetSocketAddress group = freeGroup();
+    Clock behind = Clock.offset(Clock.systemUTC(), Duration.ofHours(-2));
+    try (ClockSync late = start(group, behind);
+        ClockSync first = start(group, Clock.systemUTC());
+        ClockSync second = start(group, Clock.systemUTC())) {
+      awaitPeers(late, first, second);
+
+      // On the local clock, the next hour would be one the group has already chimed
+      Instant now = Instant.now();
+      SyncScheduler scheduler =
+          new SyncScheduler(new HourlyScheduler(behind, Sleeper.system()), late);
+      ZonedDateTime next = scheduler.nextDeadline();
+      Instant deadline = next.toInstant();
+      assertTrue(deadline.isAfter(now), deadline + " is not after " + now);
+      assertTrue(!deadline.isAfter(now.plus(Duration.ofHours(1))), deadline + " is too late");
+
+      // Lateness is measured on the local clock, where the deadline is two hours earlier
+      assertClose(Duration.between(scheduler.localInstant(next), deadline), Duration.ofHours(2));
+    }
+  }
+
+  /**
+   * Finds a multicast group with a port no socket is bound to.
+   *
+   * @return The group.
+   * @throws Exception if no port can be found.
+   */
+  private static InetSocketAddress freeGroup() throws Exception {
+    try (DatagramSocket socket = new DatagramSocket(0)) {
+      return new InetSocketAddress("239.255.74.72", socket.getLocalPort());
+    }
+  }
+
+  /**
+   * Starts an instance on the loopback interface.
+   *
+   * @param group The group.
+   * @param clock The local clock of the instance.
+   * @return The running instance.
+   * @throws Exception if the group cannot be joined.
+   */
+  private static ClockSync start(InetSocketAddress group, Clock clock) throws Exception {
+    return new ClockSync(group, NetworkInterface.getByName("lo"), clock, INTERVAL);
+  }
+
+  /**
+   * Waits until each instance has measured the other, for a few samples.
+   *
+   * @param syncs The instances.
+   * @throws InterruptedException if interrupted.
+   */
+  private static void awaitPeers(ClockSync... syncs) throws InterruptedException {
+    long until = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+    for (ClockSync sync : syncs) {
+      while (sync.getPeerCount() == 0) {
+        assertTrue(System.nanoTime() < until, "peer not heard");
+        Thread.sleep(20);
+      }
+    }
+    Thread.sleep(INTERVAL.multipliedBy(5).toMillis());
+  }
+
+  /**
+   * Creates a scheduler that waits for any deadline on a clock.
+   *
+   * @param clock The clock.
+   * @return The scheduler.
+   */
+  private static ChimeScheduler at(Clock clock) {
+    DeadlineWaiter waiter = new DeadlineWaiter(clock, Duration.ofSeconds(1), Sleeper.system());
+    return new ChimeScheduler() {
+      @Override
+      public ZonedDateTime nextDeadline() {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public ZonedDateTime nextDeadline(ZonedDateTime now) {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public OptionalInt chimeCount(ZonedDateTime deadline) {
+        return OptionalInt.empty();
+      }
+
+      @Override
+      public boolean awaitDeadline(ZonedDateTime deadline) throws InterruptedException {
+        return waiter.await(deadline);
+      }
+    };
+  }
+
+  /**
+   * Waits for a deadline on a new thread.
+   *
+   * @param scheduler The scheduler.
+   * @param deadline The deadline.
+   * @return The real time the scheduler fired at.
+   */
+  private static CompletableFuture<Instant> fire(ChimeScheduler scheduler, ZonedDateTime deadline) {
+    CompletableFuture<Instant> fired = new CompletableFuture<>();
+    Thread.ofPlatform()
+        .start(
+            () -> {
+              try {
+                assertTrue(scheduler.awaitDeadline(deadline));
+                fired.complete(Instant.now());
+              } catch (Throwable e) {
+                fired.completeExceptionally(e);
+              }
+            });
+    return fired;
+  }
+
+  /**
+   * Asserts that a duration is within a few milliseconds of the expected one.
+   *
+   * @param actual The measured duration.
+   * @param expected The expected duration.
+   */
+  private static void assertClose(Duration actual, Duration expected) {
+    assertTrue(
+        actual.minus(expected).abs().compareTo(Duration.ofMillis(5)) <= 0,
+        "expected " + expected + " but was " + actual);
+  }
+}
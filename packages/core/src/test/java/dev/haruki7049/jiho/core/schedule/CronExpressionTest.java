@@ -0,0 +1,106 @@
+package dev.haruki7049.jiho.core.schedule;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import org.testng.annotations.Test;
+
+/** Tests for cron expression parsing and matching. */
+public class CronExpressionTest {
+
+  private static final ZoneId NEW_YORK = ZoneId.of("America/New_York");
+
+  @Test
+  public void testQuarterHours() {
+    CronExpression cron = CronExpression.parse("*/15 * * * *");
+    ZonedDateTime now = ZonedDateTime.of(2025, 1, 1, 9, 50, 12, 0, NEW_YORK);
+    assertEquals(cron.next(now), ZonedDateTime.of(2025, 1, 1, 10, 0, 0, 0, NEW_YORK));
+    assertEquals(
+        cron.next(cron.next(now)), ZonedDateTime.of(2025, 1, 1, 10, 15, 0, 0, NEW_YORK));
+  }
+
+  @Test
+  public void testWeekdaysOnly() {
+    // 2025-01-03 is a Friday, the next weekday morning is Monday 2025-01-06
+    CronExpression cron = CronExpression.parse("0 9 * * MON-FRI");
+    ZonedDateTime now = ZonedDateTime.of(2025, 1, 3, 10, 0, 0, 0, NEW_YORK);
+    assertEquals(cron.next(now), ZonedDateTime.of(2025, 1, 6, 9, 0, 0, 0, NEW_YORK));
+  }
+
+  @Test
+  public void testDayOfMonthOrDayOfWeek() {
+    // Both restricted: the 15th or any Sunday, whichever comes first
+    CronExpression cron = CronExpression.parse("0 0 15 * 7");
+    ZonedDateTime now = ZonedDateTime.of(2025, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+    assertEquals(cron.next(now).toLocalDate().toString(), "2025-01-05");
+    assertTrue(cron.matches(LocalDateTime.of(2025, 1, 15, 0, 0)));
+    assertFalse(cron.matches(LocalDateTime.of(2025, 1, 16, 0, 0)));
+  }
+
+  @Test
+  public void testShortcutAndListsAndSteps() {
+    assertTrue(CronExpression.parse("@hourly").matches(LocalDateTime.of(2025, 6, 1, 13, 0)));
+    CronExpression cron = CronExpression.parse("5,50 8-18/2 * jan,Dec *");
+    assertTrue(cron.matches(LocalDateTime.of(2025, 12, 1, 10, 50)));
+    assertFalse(cron.matches(LocalDateTime.of(2025, 12, 1, 11, 50)));
+    assertFalse(cron.matches(LocalDateTime.of(2025, 6, 1, 10, 50)));
+  }
+
+  @Test
+  public void testLeapDay() {
+    CronExpression cron = CronExpression.parse("0 12 29 2 *");
+    ZonedDateTime now = ZonedDateTime.of(2025, 3, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+    assertEquals(cron.next(now), ZonedDateTime.of(2028, 2, 29, 12, 0, 0, 0, ZoneOffset.UTC));
+  }
+
+  @Test
+  public void testNeverFires() {
+    CronExpression cron = CronExpression.parse("0 0 30 2 *");
+    assertNull(cron.next(ZonedDateTime.of(2025, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC)));
+  }
+
+  @Test
+  public void testSpringForwardGapIsSkipped() {
+    // 02:30 does not exist on 2025-03-09 in New York
+    CronExpression cron = CronExpression.parse("30 2 * * *");
+    ZonedDateTime now = ZonedDateTime.of(2025, 3, 9, 0, 0, 0, 0, NEW_YORK);
+    assertEquals(cron.next(now).toLocalDateTime(), LocalDateTime.of(2025, 3, 10, 2, 30));
+  }
+
+  @Test
+  public void testFallBackOverlapFiresForEachOffset() {
+    // 01:00 to 01:59 occurs twice on 2025-11-02 in New York, first at -04:00 then at -05:00
+    CronExpression cron = CronExpression.parse("0,45 1 * * *");
+    ZonedDateTime now = ZonedDateTime.of(2025, 11, 2, 0, 30, 0, 0, NEW_YORK);
+
+    ZonedDateTime first = cron.next(now);
+    ZonedDateTime second = cron.next(first);
+    ZonedDateTime third = cron.next(second);
+    ZonedDateTime fourth = cron.next(third);
+
+    assertEquals(first.toLocalDateTime(), LocalDateTime.of(2025, 11, 2, 1, 0));
+    assertEquals(first.getOffset(), ZoneOffset.ofHours(-4));
+    assertEquals(second.toLocalDateTime(), LocalDateTime.of(2025, 11, 2, 1, 45));
+    assertEquals(second.getOffset(), ZoneOffset.ofHours(-4));
+    assertEquals(third.toLocalDateTime(), LocalDateTime.of(2025, 11, 2, 1, 0));
+    assertEquals(third.getOffset(), ZoneOffset.ofHours(-5));
+    assertEquals(fourth.toLocalDateTime(), LocalDateTime.of(2025, 11, 2, 1, 45));
+    assertEquals(fourth.getOffset(), ZoneOffset.ofHours(-5));
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testWrongFieldCount() {
+    CronExpression.parse("0 * * *");
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testValueOutOfRange() {
+    CronExpression.parse("60 * * * *");
+  }
+}
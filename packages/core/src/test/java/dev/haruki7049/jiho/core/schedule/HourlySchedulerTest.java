@@ -0,0 +1,205 @@
+package dev.haruki7049.jiho.core.schedule;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.testng.annotations.Test;
+
+/** Tests for the hourly deadline scheduler. */
+public class HourlySchedulerTest {
+
+  private static final ZoneId NEW_YORK = ZoneId.of("America/New_York");
+
+  /**
+   * Helper method to create a scheduler whose clock is fixed at the given time.
+   *
+   * @param now The fixed current time.
+   * @return The scheduler.
+   */
+  private HourlyScheduler schedulerAt(ZonedDateTime now) {
+    return new HourlyScheduler(Clock.fixed(now.toInstant(), now.getZone()), Duration.ofSeconds(30));
+  }
+
+  @Test
+  public void testNextDeadlineIsTopOfNextHour() {
+    ZonedDateTime now = ZonedDateTime.of(2025, 1, 1, 9, 59, 59, 0, NEW_YORK);
+    ZonedDateTime deadline = schedulerAt(now).nextDeadline();
+    assertEquals(deadline, ZonedDateTime.of(2025, 1, 1, 10, 0, 0, 0, NEW_YORK));
+  }
+
+  @Test
+  public void testExactlyOnTheHourMovesToNextHour() {
+    ZonedDateTime now = ZonedDateTime.of(2025, 1, 1, 10, 0, 0, 0, NEW_YORK);
+    ZonedDateTime deadline = schedulerAt(now).nextDeadline();
+    assertEquals(deadline, ZonedDateTime.of(2025, 1, 1, 11, 0, 0, 0, NEW_YORK));
+  }
+
+  @Test
+  public void testSpringForwardGapIsSkipped() {
+    // 2025-03-09 02:00 does not exist in New York, clocks jump from 02:00 to 03:00
+    ZonedDateTime now = ZonedDateTime.of(2025, 3, 9, 1, 30, 0, 0, NEW_YORK);
+    ZonedDateTime deadline = schedulerAt(now).nextDeadline();
+    assertEquals(deadline.toLocalDateTime(), LocalDateTime.of(2025, 3, 9, 3, 0));
+    assertEquals(Duration.between(now, deadline), Duration.ofMinutes(30));
+  }
+
+  @Test
+  public void testFallBackOverlapChimesTwice() {
+    // 2025-11-02 01:00 occurs twice in New York, first at -04:00 then at -05:00
+    ZonedDateTime now = ZonedDateTime.of(2025, 11, 2, 0, 30, 0, 0, NEW_YORK);
+    HourlyScheduler scheduler = schedulerAt(now);
+
+    ZonedDateTime first = scheduler.nextDeadline(now);
+    assertEquals(first.toLocalDateTime(), LocalDateTime.of(2025, 11, 2, 1, 0));
+    assertEquals(first.getOffset(), ZoneOffset.ofHours(-4));
+
+    ZonedDateTime second = scheduler.nextDeadline(first);
+    assertEquals(second.toLocalDateTime(), LocalDateTime.of(2025, 11, 2, 1, 0));
+    assertEquals(second.getOffset(), ZoneOffset.ofHours(-5));
+
+    ZonedDateTime third = scheduler.nextDeadline(second);
+    assertEquals(third.toLocalDateTime(), LocalDateTime.of(2025, 11, 2, 2, 0));
+  }
+
+  @Test
+  public void testHalfHourTransitionStaysOnTheHour() {
+    // Lord Howe Island moves its clocks by 30 minutes, from 02:00 to 02:30
+    ZoneId lordHowe = ZoneId.of("Australia/Lord_Howe");
+    ZonedDateTime now = ZonedDateTime.of(2025, 10, 5, 1, 30, 0, 0, lordHowe);
+    ZonedDateTime deadline = schedulerAt(now).nextDeadline();
+    assertEquals(deadline.toLocalDateTime(), LocalDateTime.of(2025, 10, 5, 3, 0));
+  }
+
+  @Test
+  public void testAwaitPastDeadlineWithinTolerance() throws Exception {
+    Instant now = Instant.parse("2025-01-01T10:00:05Z");
+    HourlyScheduler scheduler =
+        new HourlyScheduler(Clock.fixed(now, ZoneOffset.UTC), Duration.ofSeconds(30));
+    assertTrue(scheduler.awaitDeadline(ZonedDateTime.of(2025, 1, 1, 10, 0, 0, 0, ZoneOffset.UTC)));
+  }
+
+  @Test
+  public void testAwaitMissedDeadline() throws Exception {
+    // e.g. the machine was suspended over the hour
+    Instant now = Instant.parse("2025-01-01T10:05:00Z");
+    HourlyScheduler scheduler =
+        new HourlyScheduler(Clock.fixed(now, ZoneOffset.UTC), Duration.ofSeconds(30));
+    assertFalse(scheduler.awaitDeadline(ZonedDateTime.of(2025, 1, 1, 10, 0, 0, 0, ZoneOffset.UTC)));
+  }
+
+  @Test
+  public void testAwaitReArmsAfterSuspend() throws Exception {
+    // Suspended for 10 minutes during a 20 minute wait, the monotonic clock stops meanwhile
+    SuspendingClock clock =
+        new SuspendingClock(Instant.parse("2025-01-01T09:40:00Z"), Duration.ofMinutes(10));
+    HourlyScheduler scheduler = new HourlyScheduler(clock, clock);
+    ZonedDateTime deadline = ZonedDateTime.of(2025, 1, 1, 10, 0, 0, 0, ZoneOffset.UTC);
+
+    assertTrue(scheduler.awaitDeadline(deadline));
+    assertEquals(clock.instant(), deadline.toInstant());
+  }
+
+  @Test
+  public void testAwaitSleepsOncePerChime() throws Exception {
+    // Any wakeup between two chimes is a call to the sleeper
+    VirtualClock clock = new VirtualClock(Instant.parse("2025-01-01T09:00:00Z"), ZoneOffset.UTC);
+    AtomicInteger sleeps = new AtomicInteger();
+    Sleeper counting =
+        new Sleeper() {
+          @Override
+          public long nanoTime() {
+            return clock.nanoTime();
+          }
+
+          @Override
+          public void sleepUntil(long targetNanos) throws InterruptedException {
+            sleeps.incrementAndGet();
+            clock.sleepUntil(targetNanos);
+          }
+
+          @Override
+          public void sleepUntil(Clock wallClock, Instant target) throws InterruptedException {
+            sleeps.incrementAndGet();
+            clock.sleepUntil(wallClock, target);
+          }
+        };
+    HourlyScheduler scheduler = new HourlyScheduler(clock, counting);
+
+    for (int hour = 0; hour < 24; hour++) {
+      assertTrue(scheduler.awaitDeadline(scheduler.nextDeadline()));
+    }
+    assertEquals(sleeps.get(), 24);
+    assertEquals(clock.instant(), Instant.parse("2025-01-02T09:00:00Z"));
+  }
+
+  /**
+   * Wall clock and monotonic clock of a machine that is suspended once, during the first sleep.
+   * While suspended, the wall clock moves on and the monotonic clock does not.
+   */
+  private static final class SuspendingClock extends Clock implements Sleeper {
+    private final Instant start;
+    private long monoNanos;
+    private Duration suspended;
+    private Duration pendingSuspend;
+
+    /**
+     * Constructs a SuspendingClock.
+     *
+     * @param start The wall clock time at monotonic time zero.
+     * @param suspend How long the machine is suspended during the first sleep.
+     */
+    SuspendingClock(Instant start, Duration suspend) {
+      this.start = start;
+      this.suspended = Duration.ZERO;
+      this.pendingSuspend = suspend;
+    }
+
+    @Override
+    public long nanoTime() {
+      return this.monoNanos;
+    }
+
+    @Override
+    public void sleepUntil(long targetNanos) {
+      this.suspended = this.suspended.plus(this.pendingSuspend);
+      this.pendingSuspend = Duration.ZERO;
+      this.monoNanos = Math.max(this.monoNanos, targetNanos);
+    }
+
+    /**
+     * Sleeps like an absolute wait of the kernel: the suspend happens, then the sleep ends when the
+     * wall clock reaches the target.
+     */
+    @Override
+    public void sleepUntil(Clock clock, Instant target) {
+      this.suspended = this.suspended.plus(this.pendingSuspend);
+      this.pendingSuspend = Duration.ZERO;
+      long remaining = Duration.between(this.instant(), target).toNanos();
+      this.monoNanos += Math.max(0, remaining);
+    }
+
+    @Override
+    public Instant instant() {
+      return this.start.plus(this.suspended).plusNanos(this.monoNanos);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
@@ -0,0 +1,42 @@
+package dev.haruki7049.jiho.core.schedule;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import org.testng.annotations.Test;
+
+/** Tests for the precision (park then spin) scheduler. */
+public class PrecisionSchedulerTest {
+
+  @Test
+  public void testWakesCloseToDeadline() throws Exception {
+    Clock clock = Clock.systemUTC();
+    ZonedDateTime deadline = ZonedDateTime.now(clock.withZone(ZoneOffset.UTC)).plusNanos(200000000);
+
+    HourlyScheduler coarse = new HourlyScheduler(clock, Duration.ofSeconds(30));
+    PrecisionScheduler scheduler = new PrecisionScheduler(coarse, Duration.ofMillis(20), clock);
+
+    assertTrue(scheduler.awaitDeadline(deadline));
+
+    // Generous bound to keep the test stable on loaded machines
+    JitterStats stats = scheduler.getJitterStats();
+    assertEquals(stats.getCount(), 1L);
+    assertTrue(stats.getWorst().compareTo(Duration.ofMillis(5)) < 0, stats.toString());
+  }
+
+  @Test
+  public void testJitterStatsReport() {
+    JitterStats stats = new JitterStats();
+    stats.record(1000);
+    stats.record(-3000);
+
+    assertEquals(stats.getCount(), 2L);
+    assertEquals(stats.getLast(), Duration.ofNanos(-3000));
+    assertEquals(stats.getWorst(), Duration.ofNanos(3000));
+    assertEquals(stats.toString(), "last=-3.0us min=-3.0us max=1.0us mean=-1.0us (n=2)");
+  }
+}
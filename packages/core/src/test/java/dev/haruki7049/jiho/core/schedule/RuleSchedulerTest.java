@@ -0,0 +1,109 @@
+package dev.haruki7049.jiho.core.schedule;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertThrows;
+
+import java.time.Clock;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalInt;
+import org.testng.annotations.Test;
+
+/** Tests for the priority queue rule scheduler. */
+public class RuleSchedulerTest {
+
+  private static final ZoneId TOKYO = ZoneId.of("Asia/Tokyo");
+
+  /**
+   * Helper method to create a scheduler whose clock is fixed at the given time.
+   *
+   * @param now The fixed current time.
+   * @param rules The rules.
+   * @return The scheduler.
+   */
+  private RuleScheduler schedulerAt(ZonedDateTime now, List<ChimeRule> rules) {
+    return new RuleScheduler(Clock.fixed(now.toInstant(), now.getZone()), rules);
+  }
+
+  @Test
+  public void testEarliestRuleFiresFirst() {
+    List<ChimeRule> rules =
+        List.of(
+            new ChimeRule(CronExpression.parse("0 * * * *"), null),
+            new ChimeRule(CronExpression.parse("15,30,45 * * * *"), 1));
+    ZonedDateTime now = ZonedDateTime.of(2025, 1, 1, 9, 10, 0, 0, TOKYO);
+    RuleScheduler scheduler = schedulerAt(now, rules);
+
+    ZonedDateTime deadline = scheduler.nextDeadline(now);
+    assertEquals(deadline, ZonedDateTime.of(2025, 1, 1, 9, 15, 0, 0, TOKYO));
+    assertEquals(scheduler.chimeCount(deadline), OptionalInt.of(1));
+
+    // Asking again before the deadline returns the same one
+    assertEquals(scheduler.nextDeadline(now.plusMinutes(1)), deadline);
+
+    // Once it has passed, the scheduler moves on
+    ZonedDateTime top = scheduler.nextDeadline(ZonedDateTime.of(2025, 1, 1, 9, 45, 1, 0, TOKYO));
+    assertEquals(top, ZonedDateTime.of(2025, 1, 1, 10, 0, 0, 0, TOKYO));
+    assertEquals(scheduler.chimeCount(top), OptionalInt.empty());
+  }
+
+  @Test
+  public void testCoincidingRulesFireOnceWithFirstRuleCount() {
+    List<ChimeRule> rules =
+        List.of(
+            new ChimeRule(CronExpression.parse("0 12 * * *"), 3),
+            new ChimeRule(CronExpression.parse("*/30 * * * *"), 1));
+    ZonedDateTime now = ZonedDateTime.of(2025, 1, 1, 11, 45, 0, 0, TOKYO);
+    RuleScheduler scheduler = schedulerAt(now, rules);
+
+    ZonedDateTime deadline = scheduler.nextDeadline(now);
+    assertEquals(deadline, ZonedDateTime.of(2025, 1, 1, 12, 0, 0, 0, TOKYO));
+    assertEquals(scheduler.chimeCount(deadline), OptionalInt.of(3));
+
+    ZonedDateTime next = scheduler.nextDeadline(deadline);
+    assertEquals(next, ZonedDateTime.of(2025, 1, 1, 12, 30, 0, 0, TOKYO));
+    assertEquals(scheduler.chimeCount(next), OptionalInt.of(1));
+  }
+
+  @Test
+  public void testManyRulesAreServedInOrder() {
+    // One rule per minute of the hour, listed in reverse
+    List<ChimeRule> rules = new ArrayList<>();
+    for (int minute = 59; minute >= 0; minute--) {
+      rules.add(new ChimeRule(CronExpression.parse(minute + " * * * *"), 1));
+    }
+    ZonedDateTime now = ZonedDateTime.of(2025, 1, 1, 0, 0, 30, 0, TOKYO);
+    RuleScheduler scheduler = schedulerAt(now, rules);
+
+    ZonedDateTime deadline = now;
+    for (int i = 1; i <= 120; i++) {
+      deadline = scheduler.nextDeadline(deadline);
+      assertEquals(deadline, now.withSecond(0).plusMinutes(i));
+    }
+    assertEquals(scheduler.getRuleCount(), 60);
+  }
+
+  @Test
+  public void testRuleThatNeverFiresIsDropped() {
+    List<ChimeRule> rules =
+        List.of(
+            new ChimeRule(CronExpression.parse("0 0 30 2 *"), 1),
+            new ChimeRule(CronExpression.parse("@daily"), 1));
+    ZonedDateTime now = ZonedDateTime.of(2025, 1, 1, 9, 0, 0, 0, TOKYO);
+    RuleScheduler scheduler = schedulerAt(now, rules);
+
+    assertEquals(scheduler.getRuleCount(), 1);
+    assertFalse(scheduler.nextDeadline(now).isBefore(now));
+  }
+
+  @Test
+  public void testRejectsChimeCountOutOfRange() {
+    CronExpression hourly = CronExpression.parse("0 * * * *");
+    assertThrows(IllegalArgumentException.class, () -> new ChimeRule(hourly, 0));
+    assertThrows(IllegalArgumentException.class, () -> new ChimeRule(hourly, 13));
+    assertEquals(new ChimeRule(hourly, 12).getTimes().getAsInt(), 12);
+  }
+}
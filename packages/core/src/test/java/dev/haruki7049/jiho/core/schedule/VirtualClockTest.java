@@ -0,0 +1,69 @@
+package dev.haruki7049.jiho.core.schedule;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import org.testng.annotations.Test;
+
+/** Tests for the clock of simulations. */
+public class VirtualClockTest {
+  private static final Instant START = Instant.parse("2025-01-01T00:00:00Z");
+
+  @Test
+  public void testSleepingMovesTimeOfEveryZone() throws Exception {
+    VirtualClock clock = new VirtualClock(START, ZoneOffset.UTC);
+    VirtualClock tokyo = clock.withZone(ZoneId.of("Asia/Tokyo"));
+
+    clock.sleepUntil(clock.nanoTime() + Duration.ofDays(1).toNanos());
+    assertEquals(tokyo.instant(), START.plus(Duration.ofDays(1)));
+    assertEquals(tokyo.nanoTime(), Duration.ofDays(1).toNanos());
+
+    // The past is not slept to
+    clock.sleepUntil(0);
+    assertEquals(clock.instant(), START.plus(Duration.ofDays(1)));
+  }
+
+  @Test
+  public void testSchedulerWaitsWithoutRealTime() throws Exception {
+    VirtualClock clock = new VirtualClock(START, ZoneOffset.UTC);
+    HourlyScheduler scheduler = new HourlyScheduler(clock, clock);
+
+    long startNanos = System.nanoTime();
+    for (int i = 0; i < 24; i++) {
+      ZonedDateTime deadline = scheduler.nextDeadline();
+      assertTrue(scheduler.awaitDeadline(deadline));
+      assertEquals(clock.instant(), deadline.toInstant());
+    }
+    assertEquals(clock.instant(), START.plus(Duration.ofDays(1)));
+    assertTrue(System.nanoTime() - startNanos < Duration.ofSeconds(1).toNanos());
+  }
+
+  @Test
+  public void testSpeedScalesRealTime() throws Exception {
+    VirtualClock clock = new VirtualClock(START, ZoneOffset.UTC, 3600);
+
+    // A minute at 3600 times real time takes 16.7 ms
+    long startNanos = System.nanoTime();
+    clock.sleepUntil(Duration.ofMinutes(1).toNanos());
+    long elapsed = System.nanoTime() - startNanos;
+    assertTrue(elapsed >= Duration.ofMillis(16).toNanos(), "slept " + elapsed + " ns");
+    assertThrows(IllegalArgumentException.class, () -> new VirtualClock(START, ZoneOffset.UTC, -1));
+  }
+
+  @Test
+  public void testMissedDeadlineAfterJump() throws Exception {
+    VirtualClock clock = new VirtualClock(START, ZoneOffset.UTC);
+    HourlyScheduler scheduler = new HourlyScheduler(clock, clock);
+
+    ZonedDateTime deadline = scheduler.nextDeadline();
+    clock.advance(Duration.ofHours(2)); // A suspend
+    assertFalse(scheduler.awaitDeadline(deadline));
+  }
+}
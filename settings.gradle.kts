@@ -1,3 +1,4 @@
 rootProject.name = "jiho"
 
 include("packages:core")
+include("packages:bench")
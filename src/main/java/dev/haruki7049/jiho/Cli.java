@@ -1,6 +1,7 @@
 package dev.haruki7049.jiho;
 
 import dev.dirs.ProjectDirectories;
+import dev.haruki7049.jiho.core.AudioSink;
 import java.io.FileWriter;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -12,7 +13,10 @@ import picocli.CommandLine;
  * CLI (Command Line Interface) handler class for Jiho. This class uses picocli to parse command
  * line arguments.
  */
-@CommandLine.Command(name = "jiho", version = "0.1.0")
+@CommandLine.Command(
+    name = "jiho",
+    version = "0.1.0",
+    subcommands = {WarmupCommand.class, SimulateCommand.class})
 public class Cli implements Callable<Integer> {
 
   /** Option to display the help message. */
@@ -35,6 +39,41 @@ public class Cli implements Callable<Integer> {
       description = "configuration file's PATH")
   Path configPath;
 
+  /** Option to run one Jiho per configuration listed in a tenants file. */
+  @CommandLine.Option(
+      names = {"--tenants-file"},
+      description = "run every configuration of a JSON array file in one process")
+  Path tenantsPath;
+
+  /** Option to print how long each startup phase took. */
+  @CommandLine.Option(
+      names = {"--startup-report"},
+      description = "print how long each startup phase took")
+  boolean startupReport;
+
+  /** Option to choose where the sound is played. */
+  @CommandLine.Option(
+      names = {"--sink"},
+      description =
+          "where to play the sound: javasound (default), null (discard at real-time pace)"
+              + " or wav:PATH (write a WAV file)",
+      defaultValue = "javasound")
+  String sink;
+
+  /** Option to choose the control socket, instead of the one next to the configuration file. */
+  @CommandLine.Option(
+      names = {"--control-socket"},
+      description =
+          "PATH of the control socket (default: jiho.sock next to the configuration file)")
+  Path controlSocket;
+
+  /** Option to keep a continuous Flight Recorder recording. */
+  @CommandLine.Option(
+      names = {"--flight-recording"},
+      description =
+          "keep a JDK Flight Recorder recording in a bounded ring buffer, written to PATH at exit")
+  Path flightRecording;
+
   /**
    * Main logic of the CLI command, executed by picocli.
    *
@@ -43,18 +82,44 @@ public class Cli implements Callable<Integer> {
    */
   @Override
   public Integer call() throws Exception {
-    // Generate default configuration file
-    if (this.configPath == null) {
-      this.setConfigPath();
-      this.loadInitialConfig();
+    StartupReport report = new StartupReport(this.startupReport);
+    if (this.flightRecording != null) {
+      FlightRecording.start(this.flightRecording);
+    }
+    AudioSink audioSink = Runner.createSink(this.sink);
+    report.phase("cli parse");
+
+    // Multi-tenant mode, the tenants file replaces the configuration file
+    if (this.tenantsPath != null) {
+      Runner.runTenants(this.tenantsPath, report, audioSink);
+      return 0;
     }
 
     // Run by Runner class
-    Runner.run(this.configPath);
+    Path config = this.resolveConfigPath();
+    Path socket =
+        this.controlSocket != null ? this.controlSocket : ControlServer.socketPathFor(config);
+    Runner.run(config, report, audioSink, socket);
 
     return 0;
   }
 
+  /**
+   * Gets the configuration file path, falling back to the OS standard location, where an initial
+   * configuration file is generated if there is none.
+   *
+   * @return The configuration file path.
+   * @throws Exception if the initial configuration file cannot be created.
+   */
+  Path resolveConfigPath() throws Exception {
+    // Generate default configuration file
+    if (this.configPath == null) {
+      this.setConfigPath();
+      this.loadInitialConfig();
+    }
+    return this.configPath;
+  }
+
   /**
    * Sets the default configuration file path based on OS standards if no path is provided via
    * command line.
@@ -0,0 +1,120 @@
+package dev.haruki7049.jiho;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Watches a configuration file with a {@link WatchService} and calls back when it changes. Editors
+ * often save a file in several steps (truncate then write, or write a temporary file and rename
+ * it), so the events of one save are collected for a short settling time and reported once.
+ */
+public class ConfigWatcher implements AutoCloseable {
+  private static final Logger logger = Logger.getLogger("jiho");
+
+  /** Quiet time after the last event of a save before the change is reported. */
+  static final Duration SETTLE_TIME = Duration.ofMillis(200);
+
+  private final Path fileName;
+  private final Runnable onChange;
+  private final WatchService watchService;
+  private final Thread thread;
+
+  /**
+   * Constructs a ConfigWatcher and starts watching.
+   *
+   * @param configPath The file to watch.
+   * @param onChange Called on the watcher thread after every change of the file.
+   * @throws IOException if the directory of the file cannot be watched.
+   */
+  private ConfigWatcher(Path configPath, Runnable onChange) throws IOException {
+    Path absolute = configPath.toAbsolutePath();
+    Path directory = absolute.getParent();
+    this.fileName = absolute.getFileName();
+    this.onChange = onChange;
+
+    // Watch the directory, a file replaced by a rename is a new entry of it
+    this.watchService = directory.getFileSystem().newWatchService();
+    directory.register(this.watchService, ENTRY_CREATE, ENTRY_MODIFY);
+
+    this.thread = Thread.ofVirtual().name("jiho-config-watcher").start(this::watch);
+    logger.fine("Watching " + absolute + " for changes");
+  }
+
+  /**
+   * Starts watching a configuration file.
+   *
+   * @param configPath The file to watch.
+   * @param onChange Called on the watcher thread after every change of the file.
+   * @return The running watcher. Closing it stops watching.
+   * @throws IOException if the directory of the file cannot be watched.
+   */
+  public static ConfigWatcher start(Path configPath, Runnable onChange) throws IOException {
+    return new ConfigWatcher(configPath, onChange);
+  }
+
+  /** Body of the watcher thread: waits for changes of the file and reports them. */
+  private void watch() {
+    try {
+      while (true) {
+        if (!this.pollChanged(this.watchService.take())) {
+          continue;
+        }
+
+        // Let the editor finish saving, folding its remaining events into this change
+        WatchKey key;
+        while ((key = this.watchService.poll(SETTLE_TIME.toMillis(), TimeUnit.MILLISECONDS))
+            != null) {
+          this.pollChanged(key);
+        }
+
+        try {
+          this.onChange.run();
+        } catch (RuntimeException e) {
+          logger.log(Level.WARNING, "Handling the configuration change failed", e);
+        }
+      }
+    } catch (InterruptedException | ClosedWatchServiceException e) {
+      // Closed
+    }
+  }
+
+  /**
+   * Consumes the events of a key and re-arms it.
+   *
+   * @param key The signalled key.
+   * @return true if one of the events concerns the watched file, or events were lost.
+   */
+  private boolean pollChanged(WatchKey key) {
+    boolean changed = false;
+    for (WatchEvent<?> event : key.pollEvents()) {
+      if (event.kind() == OVERFLOW || this.fileName.equals(event.context())) {
+        changed = true;
+      }
+    }
+    key.reset();
+    return changed;
+  }
+
+  /** Stops watching. */
+  @Override
+  public void close() {
+    this.thread.interrupt();
+    try {
+      this.watchService.close();
+    } catch (IOException e) {
+      logger.fine("Closing the config watcher failed: " + e);
+    }
+  }
+}
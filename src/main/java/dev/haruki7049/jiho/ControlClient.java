@@ -0,0 +1,104 @@
+package dev.haruki7049.jiho;
+
+import dev.dirs.ProjectDirectories;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * Sends one command to the {@link ControlServer} of a running Jiho and prints the reply. It only
+ * uses the JDK, not picocli or the rest of the application, so it starts quickly:
+ *
+ * <pre>
+ * java -cp jiho.jar dev.haruki7049.jiho.ControlClient [--socket PATH] COMMAND [ARGUMENT]
+ * </pre>
+ *
+ * <p>The socket defaults to the one next to the default configuration file. The exit code is 0 for
+ * an {@code ok} reply, 1 for an {@code error} reply and 2 if the command could not be sent.
+ */
+public final class ControlClient {
+
+  /** Not instantiated. */
+  private ControlClient() {}
+
+  /**
+   * Entry point of the client.
+   *
+   * @param args The command line arguments.
+   */
+  public static void main(String[] args) {
+    System.exit(run(args, System.out, System.err));
+  }
+
+  /**
+   * Sends the command of the arguments and prints the reply.
+   *
+   * @param args The command line arguments.
+   * @param out The stream to print the reply to.
+   * @param err The stream to print usage and connection errors to.
+   * @return The exit code.
+   */
+  static int run(String[] args, PrintStream out, PrintStream err) {
+    Path socketPath = null;
+    int first = 0;
+    if (args.length >= 2 && args[0].equals("--socket")) {
+      socketPath = Paths.get(args[1]);
+      first = 2;
+    }
+    if (first >= args.length) {
+      err.println(
+          "Usage: ControlClient [--socket PATH] status|next-fire|trigger N|reload|stats");
+      return 2;
+    }
+    if (socketPath == null) {
+      ProjectDirectories projDirs = ProjectDirectories.from("dev", "haruki7049", "jiho");
+      socketPath = ControlServer.socketPathFor(Paths.get(projDirs.configDir, "config.json"));
+    }
+
+    String request = String.join(" ", Arrays.copyOfRange(args, first, args.length));
+    String reply;
+    try {
+      reply = send(socketPath, request);
+    } catch (IOException e) {
+      err.println("Could not reach Jiho on " + socketPath + ": " + e.getMessage());
+      return 2;
+    }
+    if (reply == null) {
+      err.println("Jiho closed the connection without replying");
+      return 2;
+    }
+
+    out.println(reply);
+    return reply.startsWith("ok") ? 0 : 1;
+  }
+
+  /**
+   * Sends one request line and reads its reply line.
+   *
+   * @param socketPath The control socket.
+   * @param request The request.
+   * @return The reply, or null if the connection was closed first.
+   * @throws IOException if the socket cannot be reached.
+   */
+  static String send(Path socketPath, String request) throws IOException {
+    try (SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(socketPath))) {
+      ByteBuffer bytes = ByteBuffer.wrap((request + "\n").getBytes(StandardCharsets.UTF_8));
+      while (bytes.hasRemaining()) {
+        channel.write(bytes);
+      }
+      BufferedReader reader =
+          new BufferedReader(
+              new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+      return reader.readLine();
+    }
+  }
+}
@@ -0,0 +1,232 @@
+package dev.haruki7049.jiho;
+
+import dev.haruki7049.jiho.core.Jiho;
+import dev.haruki7049.jiho.core.PlaybackStats;
+import dev.haruki7049.jiho.core.schedule.ChimeScheduler;
+import dev.haruki7049.jiho.core.schedule.ClockSync;
+import dev.haruki7049.jiho.core.schedule.JitterStats;
+import dev.haruki7049.jiho.core.schedule.PrecisionScheduler;
+import dev.haruki7049.jiho.core.schedule.SyncScheduler;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/**
+ * The control commands of a running Jiho, served by a {@link ControlServer}. Every command is
+ * answered with one line:
+ *
+ * <ul>
+ *   <li>{@code status}: {@code ok running pid=... uptime=... config=...}
+ *   <li>{@code next-fire}: {@code ok <deadline> times=<n> in=<duration>}, or {@code ok none}
+ *   <li>{@code trigger N}: plays a chime of N times now, {@code ok playing N}
+ *   <li>{@code reload}: reloads the configuration file, {@code ok reloaded}
+ *   <li>{@code stats}: {@code ok chimes=... key=value...} of the playbacks, wakeups and sync
+ * </ul>
+ *
+ * <p>Everything but {@code reload} is answered at once from what the Jiho has already measured;
+ * a reload runs on its own virtual thread.
+ */
+class ControlCommands implements Function<String, CompletableFuture<String>> {
+  private static final Logger logger = Logger.getLogger("jiho");
+
+  private final Jiho jiho;
+  private final Path configPath;
+  private final BooleanSupplier reloader;
+  private final Instant started = Instant.now();
+
+  /**
+   * Constructs a ControlCommands.
+   *
+   * @param jiho The running Jiho.
+   * @param configPath The configuration file it runs.
+   * @param reloader Reloads the configuration file into the Jiho, returning whether it applied.
+   */
+  ControlCommands(Jiho jiho, Path configPath, BooleanSupplier reloader) {
+    this.jiho = jiho;
+    this.configPath = configPath;
+    this.reloader = reloader;
+  }
+
+  /**
+   * Runs one command.
+   *
+   * @param request The request line.
+   * @return The reply line.
+   * @throws IllegalArgumentException if the command or its arguments are invalid.
+   * @throws IllegalStateException if the command cannot be run now.
+   */
+  @Override
+  public CompletableFuture<String> apply(String request) {
+    String[] words = request.strip().split("\\s+");
+    switch (words[0]) {
+      case "status":
+        expectArguments(words, 0);
+        return CompletableFuture.completedFuture(this.status());
+      case "next-fire":
+        expectArguments(words, 0);
+        return CompletableFuture.completedFuture(this.nextFire());
+      case "trigger":
+        expectArguments(words, 1);
+        return CompletableFuture.completedFuture(this.trigger(parseTimes(words[1])));
+      case "reload":
+        expectArguments(words, 0);
+        return CompletableFuture.supplyAsync(
+            () -> this.reloader.getAsBoolean() ? "ok reloaded" : "error not reloaded, see the log",
+            task -> Thread.ofVirtual().name("jiho-control-reload").start(task));
+      case "stats":
+        expectArguments(words, 0);
+        return CompletableFuture.completedFuture(this.stats());
+      default:
+        throw new IllegalArgumentException(
+            "unknown command " + words[0] + ", expected status, next-fire, trigger N, reload"
+                + " or stats");
+    }
+  }
+
+  /**
+   * Describes the running process.
+   *
+   * @return The reply line.
+   */
+  private String status() {
+    Duration uptime = Duration.between(this.started, Instant.now()).truncatedTo(ChronoUnit.SECONDS);
+    return "ok running pid="
+        + ProcessHandle.current().pid()
+        + " uptime="
+        + uptime
+        + " config="
+        + this.configPath.toAbsolutePath();
+  }
+
+  /**
+   * Describes the next scheduled chime.
+   *
+   * @return The reply line.
+   */
+  private String nextFire() {
+    Jiho.NextChime next = this.jiho.getNextChime();
+    if (next == null) {
+      return "ok none";
+    }
+    Duration in = Duration.between(Instant.now(), next.deadline().toInstant());
+    return "ok "
+        + next.deadline()
+        + " times="
+        + next.times()
+        + " in="
+        + in.truncatedTo(ChronoUnit.SECONDS);
+  }
+
+  /**
+   * Plays a chime now. Failures of the playback are only logged, the reply does not wait for it.
+   *
+   * @param times The number of times to play the sound.
+   * @return The reply line.
+   */
+  private String trigger(int times) {
+    this.jiho
+        .trigger(times)
+        .whenComplete(
+            (result, error) -> {
+              if (error != null) {
+                logger.warning("Manual chime failed: " + error);
+              }
+            });
+    return "ok playing " + times;
+  }
+
+  /**
+   * Reports the playback and wakeup statistics.
+   *
+   * @return The reply line.
+   */
+  private String stats() {
+    StringBuilder reply = new StringBuilder("ok chimes=").append(this.jiho.getChimeCount());
+    Duration onset = this.jiho.getLastOnsetLatency();
+    if (onset != null) {
+      reply.append(String.format(Locale.ROOT, " onset=%.3fms", onset.toNanos() / 1e6));
+    }
+
+    PlaybackStats playback = this.jiho.getAudioPlayer().getPlaybackStats().orElse(null);
+    if (playback != null) {
+      reply
+          .append(" underruns=")
+          .append(playback.getUnderruns())
+          .append(" late-starts=")
+          .append(playback.getLateStarts())
+          .append(
+              String.format(
+                  Locale.ROOT,
+                  " worst-start-delay=%.3fms",
+                  playback.getWorstStartDelay().toNanos() / 1e6));
+    }
+
+    ChimeScheduler scheduler = this.jiho.getScheduler();
+    if (scheduler instanceof SyncScheduler synced) {
+      ClockSync sync = synced.getClockSync();
+      JitterStats skew = sync.getSkewStats();
+      reply.append(
+          String.format(
+              Locale.ROOT,
+              " sync-peers=%d sync-offset=%.3fms skew-last=%.3fms skew-worst=%.3fms",
+              sync.getPeerCount(),
+              sync.getOffset().toNanos() / 1e6,
+              skew.getLast().toNanos() / 1e6,
+              skew.getWorst().toNanos() / 1e6));
+      scheduler = synced.getScheduler();
+    }
+
+    if (scheduler instanceof PrecisionScheduler precision) {
+      JitterStats jitter = precision.getJitterStats();
+      reply.append(
+          String.format(
+              Locale.ROOT,
+              " wakeups=%d jitter-last=%.1fus jitter-worst=%.1fus",
+              jitter.getCount(),
+              jitter.getLast().toNanos() / 1e3,
+              jitter.getWorst().toNanos() / 1e3));
+    }
+    return reply.toString();
+  }
+
+  /**
+   * Checks the number of arguments of a command.
+   *
+   * @param words The command and its arguments.
+   * @param count The number of arguments expected.
+   * @throws IllegalArgumentException if there are more or fewer.
+   */
+  private static void expectArguments(String[] words, int count) {
+    if (words.length - 1 != count) {
+      throw new IllegalArgumentException(
+          words[0] + " takes " + count + " argument(s), got " + (words.length - 1));
+    }
+  }
+
+  /**
+   * Parses the number of times of a manual chime.
+   *
+   * @param word The argument.
+   * @return The number of times.
+   * @throws IllegalArgumentException if it is not an integer from 1 to {@link
+   *     Jiho#MAX_TRIGGER_TIMES}.
+   */
+  private static int parseTimes(String word) {
+    try {
+      int times = Integer.parseInt(word);
+      if (times >= 1 && times <= Jiho.MAX_TRIGGER_TIMES) {
+        return times;
+      }
+    } catch (NumberFormatException e) {
+      // Reported below
+    }
+    throw new IllegalArgumentException(
+        "trigger takes 1 to " + Jiho.MAX_TRIGGER_TIMES + " times, got " + word);
+  }
+}
@@ -0,0 +1,414 @@
+package dev.haruki7049.jiho;
+
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Serves control commands on a UNIX domain socket, so that a running Jiho can be queried and driven
+ * without starting another JVM. The protocol is line based: every request line gets one reply line
+ * starting with {@code ok} or {@code error}, in the order of the requests of the connection.
+ *
+ * <p>All connections are served by one thread on a non-blocking {@link Selector}, which waits on
+ * neither the clients nor the commands: the handler returns a future, and slow commands such as a
+ * reload complete it on another thread. The chime thread is never involved.
+ */
+public class ControlServer implements AutoCloseable {
+  private static final Logger logger = Logger.getLogger("jiho");
+
+  /** Name of the socket file, created next to the configuration file. */
+  public static final String SOCKET_NAME = "jiho.sock";
+
+  /** Longest request line accepted. A longer one closes the connection. */
+  static final int MAX_LINE = 256;
+
+  /** Connections served at once. More are closed as soon as they are accepted. */
+  static final int MAX_CONNECTIONS = 16;
+
+  private final Path socketPath;
+  private final Function<String, CompletableFuture<String>> handler;
+  private final ServerSocketChannel server;
+  private final Selector selector;
+  private final Queue<Connection> completed = new ConcurrentLinkedQueue<>(); // Replies ready
+  private final Thread thread;
+  private volatile boolean closed;
+  private int connections; // Only used by the selector thread
+
+  /**
+   * Constructs a ControlServer and starts serving.
+   *
+   * @param socketPath The socket file to create.
+   * @param handler Turns a request line into its reply line, without waiting.
+   * @throws IOException if the socket cannot be created.
+   */
+  private ControlServer(Path socketPath, Function<String, CompletableFuture<String>> handler)
+      throws IOException {
+    this.socketPath = socketPath.toAbsolutePath();
+    this.handler = handler;
+
+    removeStaleSocket(this.socketPath);
+    this.server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+    try {
+      this.server.bind(UnixDomainSocketAddress.of(this.socketPath));
+      restrictToOwner(this.socketPath);
+      this.server.configureBlocking(false);
+      this.selector = Selector.open();
+      this.server.register(this.selector, SelectionKey.OP_ACCEPT);
+    } catch (IOException e) {
+      this.server.close();
+      Files.deleteIfExists(this.socketPath);
+      throw e;
+    }
+
+    // A platform thread, a virtual one would pin its carrier while selecting
+    this.thread = Thread.ofPlatform().daemon().name("jiho-control").start(this::serve);
+    logger.fine("Serving control commands on " + this.socketPath);
+  }
+
+  /**
+   * Starts serving control commands.
+   *
+   * @param socketPath The socket file to create. A stale one left by a crash is replaced.
+   * @param handler Turns a request line into its reply line, without waiting. It is called on the
+   *     selector thread, and may throw to reply with an error.
+   * @return The running server. Closing it stops serving and removes the socket file.
+   * @throws IOException if the socket cannot be created, or another process is serving on it.
+   */
+  public static ControlServer start(
+      Path socketPath, Function<String, CompletableFuture<String>> handler) throws IOException {
+    return new ControlServer(socketPath, handler);
+  }
+
+  /**
+   * Gets the socket path of the Jiho running a configuration file.
+   *
+   * @param configPath The configuration file.
+   * @return The socket file in the same directory.
+   */
+  public static Path socketPathFor(Path configPath) {
+    return configPath.toAbsolutePath().resolveSibling(SOCKET_NAME);
+  }
+
+  /**
+   * Gets the path of the socket file.
+   *
+   * @return The absolute socket path.
+   */
+  public Path getSocketPath() {
+    return this.socketPath;
+  }
+
+  /**
+   * Deletes a socket file that no process accepts connections on any more.
+   *
+   * @param socketPath The socket file.
+   * @throws IOException if another process is serving on it, or it cannot be deleted.
+   */
+  private static void removeStaleSocket(Path socketPath) throws IOException {
+    if (!Files.exists(socketPath)) {
+      return;
+    }
+
+    boolean inUse;
+    try {
+      SocketChannel.open(UnixDomainSocketAddress.of(socketPath)).close();
+      inUse = true;
+    } catch (IOException e) {
+      inUse = false;
+    }
+    if (inUse) {
+      throw new IOException("Another process is serving on " + socketPath);
+    }
+    Files.delete(socketPath);
+  }
+
+  /**
+   * Lets only the owner connect to the socket, as it can trigger chimes.
+   *
+   * @param socketPath The socket file.
+   * @throws IOException if the permissions cannot be changed.
+   */
+  private static void restrictToOwner(Path socketPath) throws IOException {
+    try {
+      Files.setPosixFilePermissions(socketPath, PosixFilePermissions.fromString("rw-------"));
+    } catch (UnsupportedOperationException e) {
+      // Not a POSIX file system, left to the directory permissions
+    }
+  }
+
+  /** Body of the selector thread: accepts, reads and writes until closed. */
+  private void serve() {
+    try {
+      while (!this.closed) {
+        this.selector.select(this::handle);
+
+        Connection connection;
+        while ((connection = this.completed.poll()) != null) {
+          connection.flushReplies();
+        }
+      }
+    } catch (IOException | RuntimeException e) {
+      logger.log(Level.WARNING, "Control socket failed, no longer serving it", e);
+    } finally {
+      this.shutdown();
+    }
+  }
+
+  /**
+   * Handles one ready key.
+   *
+   * @param key The key of the server or of a connection.
+   */
+  private void handle(SelectionKey key) {
+    if (key.attachment() instanceof Connection connection) {
+      connection.handle(key);
+      return;
+    }
+
+    try {
+      SocketChannel channel = this.server.accept();
+      if (channel == null) {
+        return;
+      }
+      if (this.connections >= MAX_CONNECTIONS) {
+        logger.warning("Too many control connections, closing a new one");
+        channel.close();
+        return;
+      }
+      channel.configureBlocking(false);
+      Connection accepted = new Connection(channel);
+      accepted.key = channel.register(this.selector, SelectionKey.OP_READ, accepted);
+      this.connections++;
+    } catch (IOException e) {
+      logger.fine("Accepting a control connection failed: " + e);
+    }
+  }
+
+  /** Closes the connections, the socket and the selector, and removes the socket file. */
+  private void shutdown() {
+    for (SelectionKey key : this.selector.keys()) {
+      try {
+        key.channel().close();
+      } catch (IOException e) {
+        logger.fine("Closing a control connection failed: " + e);
+      }
+    }
+    try {
+      this.selector.close();
+      Files.deleteIfExists(this.socketPath);
+    } catch (IOException e) {
+      logger.fine("Closing the control socket failed: " + e);
+    }
+  }
+
+  /** Stops serving and removes the socket file. */
+  @Override
+  public void close() {
+    this.closed = true;
+    this.selector.wakeup();
+    try {
+      this.thread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /** One client connection, only used by the selector thread except for the reply futures. */
+  private class Connection {
+    private final SocketChannel channel;
+    private final ByteBuffer in = ByteBuffer.allocate(MAX_LINE);
+    private ByteBuffer out = ByteBuffer.allocate(MAX_LINE); // In write mode, grown as needed
+    private final ArrayDeque<CompletableFuture<String>> pending = new ArrayDeque<>();
+    private SelectionKey key;
+    private boolean endOfInput;
+
+    /**
+     * Constructs a Connection.
+     *
+     * @param channel The accepted channel, in non-blocking mode.
+     */
+    Connection(SocketChannel channel) {
+      this.channel = channel;
+    }
+
+    /**
+     * Reads the requests or writes the replies the channel is ready for.
+     *
+     * @param key The key of the channel.
+     */
+    void handle(SelectionKey key) {
+      try {
+        if (key.isReadable()) {
+          this.read();
+        }
+        if (key.isValid() && key.isWritable()) {
+          this.write();
+        }
+      } catch (IOException e) {
+        logger.fine("Control connection failed: " + e);
+        this.close();
+      }
+    }
+
+    /**
+     * Reads what the client sent and submits the complete lines.
+     *
+     * @throws IOException if reading fails.
+     */
+    private void read() throws IOException {
+      if (this.channel.read(this.in) < 0) {
+        this.endOfInput = true;
+      }
+
+      int start = 0;
+      for (int i = 0; i < this.in.position(); i++) {
+        if (this.in.get(i) == '\n') {
+          String line = new String(this.in.array(), start, i - start, StandardCharsets.UTF_8);
+          if (!line.isBlank()) {
+            this.submit(line.strip());
+          }
+          start = i + 1;
+        }
+      }
+      this.in.flip().position(start);
+      this.in.compact();
+
+      // The last request may end without a newline
+      if (this.endOfInput && this.in.position() > 0) {
+        String line = new String(this.in.array(), 0, this.in.position(), StandardCharsets.UTF_8);
+        if (!line.isBlank()) {
+          this.submit(line.strip());
+        }
+        this.in.clear();
+      }
+
+      if (!this.in.hasRemaining()) {
+        logger.fine("Control request longer than " + MAX_LINE + " bytes, closing");
+        this.close();
+        return;
+      }
+      this.flushReplies();
+    }
+
+    /**
+     * Passes a request to the handler. The reply is sent once it and every earlier one are done.
+     *
+     * @param request The request line.
+     */
+    private void submit(String request) {
+      CompletableFuture<String> reply;
+      try {
+        reply = ControlServer.this.handler.apply(request);
+      } catch (RuntimeException e) {
+        reply = CompletableFuture.failedFuture(e);
+      }
+      this.pending.add(reply);
+      if (!reply.isDone()) {
+        reply.whenComplete(
+            (result, error) -> {
+              ControlServer.this.completed.add(this);
+              ControlServer.this.selector.wakeup();
+            });
+      }
+    }
+
+    /** Moves the finished replies at the head of the queue to the output, and sends them. */
+    void flushReplies() {
+      if (!this.channel.isOpen()) {
+        return;
+      }
+
+      while (!this.pending.isEmpty() && this.pending.peek().isDone()) {
+        this.append(replyOf(this.pending.poll()));
+      }
+      try {
+        this.write();
+      } catch (IOException e) {
+        logger.fine("Control connection failed: " + e);
+        this.close();
+      }
+    }
+
+    /**
+     * Appends a reply line to the output.
+     *
+     * @param reply The reply, folded to one line.
+     */
+    private void append(String reply) {
+      byte[] bytes = (reply.replace('\n', ' ') + "\n").getBytes(StandardCharsets.UTF_8);
+      if (this.out.remaining() < bytes.length) {
+        ByteBuffer grown = ByteBuffer.allocate(Math.max(this.out.capacity() * 2, bytes.length));
+        this.out = grown.put(this.out.flip());
+      }
+      this.out.put(bytes);
+    }
+
+    /**
+     * Writes as much of the output as the channel takes, then waits for what is left to do.
+     *
+     * @throws IOException if writing fails.
+     */
+    private void write() throws IOException {
+      this.out.flip();
+      this.channel.write(this.out);
+      this.out.compact();
+
+      boolean unsent = this.out.position() > 0;
+      if (this.endOfInput && this.pending.isEmpty() && !unsent) {
+        this.close();
+        return;
+      }
+      int interest =
+          (this.endOfInput ? 0 : SelectionKey.OP_READ) | (unsent ? SelectionKey.OP_WRITE : 0);
+      this.key.interestOps(interest);
+    }
+
+    /** Closes the connection. Replies still to come are dropped. */
+    private void close() {
+      if (!this.channel.isOpen()) {
+        return;
+      }
+      ControlServer.this.connections--;
+      this.key.cancel();
+      try {
+        this.channel.close();
+      } catch (IOException e) {
+        logger.fine("Closing a control connection failed: " + e);
+      }
+    }
+  }
+
+  /**
+   * Gets the reply line of a finished request.
+   *
+   * @param reply The finished reply future.
+   * @return The reply, or an error line with the message of the exception it failed with.
+   */
+  private static String replyOf(CompletableFuture<String> reply) {
+    try {
+      return reply.join();
+    } catch (CompletionException e) {
+      Throwable cause = e.getCause() != null ? e.getCause() : e;
+      return "error " + (cause.getMessage() != null ? cause.getMessage() : cause.toString());
+    } catch (RuntimeException e) {
+      return "error " + e;
+    }
+  }
+}
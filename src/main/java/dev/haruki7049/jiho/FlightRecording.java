@@ -0,0 +1,64 @@
+package dev.haruki7049.jiho;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.logging.Logger;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+/**
+ * Continuous JDK Flight Recorder recording of the whole process: the Jiho events of the schedule,
+ * the audio pipeline and the configuration, next to the JDK's own GC, safepoint and thread events.
+ * The recording is kept in a ring buffer on disk, bounded by {@link #MAX_SIZE} and {@link
+ * #MAX_AGE}, and written to a file when the JVM exits.
+ *
+ * <p>While running, the recording can be written out at any time with {@code jcmd <pid> JFR.dump
+ * name=jiho filename=<file>}, e.g. right after a late chime.
+ */
+class FlightRecording {
+  private static final Logger logger = Logger.getLogger("jiho");
+
+  /** Name of the recording, for {@code jcmd JFR.dump}. */
+  static final String NAME = "jiho";
+
+  /** Size above which the oldest recorded data is dropped. */
+  static final long MAX_SIZE = 64L * 1024 * 1024; // 64 MiB
+
+  /** Age above which recorded data is dropped. */
+  static final Duration MAX_AGE = Duration.ofHours(24);
+
+  /** Not instantiated. */
+  private FlightRecording() {}
+
+  /**
+   * Starts recording with the JDK's low-overhead {@code default} settings. The Jiho events are
+   * enabled by default, without a threshold.
+   *
+   * @param destination The file written when the JVM exits.
+   * @return The running recording.
+   * @throws IOException if the recording cannot be started or the destination is not writable.
+   * @throws ParseException if the JDK's settings cannot be read.
+   */
+  static Recording start(Path destination) throws IOException, ParseException {
+    Recording recording = new Recording(Configuration.getConfiguration("default"));
+    recording.setName(NAME);
+    recording.setToDisk(true);
+    recording.setMaxSize(MAX_SIZE);
+    recording.setMaxAge(MAX_AGE);
+    recording.setDestination(destination);
+    recording.setDumpOnExit(true);
+    recording.start();
+
+    logger.info(
+        "Flight recording started, written to "
+            + destination
+            + " at exit, or with: jcmd "
+            + ProcessHandle.current().pid()
+            + " JFR.dump name="
+            + NAME
+            + " filename=<file>");
+    return recording;
+  }
+}
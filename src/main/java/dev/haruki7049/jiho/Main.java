@@ -7,6 +7,7 @@ public class Main {
 
   /** A main function. */
   public static void main(String[] args) {
+    StartupReport.markMain();
     CommandLine cli = new CommandLine(new Cli());
     System.exit(cli.execute(args));
   }
@@ -1,24 +1,56 @@
 package dev.haruki7049.jiho;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import dev.haruki7049.jiho.core.AudioPlayer;
+import dev.haruki7049.jiho.core.AudioSink;
 import dev.haruki7049.jiho.core.InvalidAudioSourceException;
 import dev.haruki7049.jiho.core.Jiho;
 import dev.haruki7049.jiho.core.config.Config;
-import dev.haruki7049.jiho.core.config.DurationAdapter;
-import dev.haruki7049.jiho.core.config.FileAdapter;
-import dev.haruki7049.jiho.core.config.PathAdapter;
+import dev.haruki7049.jiho.core.config.ConfigParser;
+import dev.haruki7049.jiho.core.config.InvalidConfigException;
+import dev.haruki7049.jiho.core.config.RuleConfig;
 import dev.haruki7049.jiho.core.impl.AudioManager;
+import dev.haruki7049.jiho.core.impl.JavaSoundSink;
+import dev.haruki7049.jiho.core.impl.MixingAudioPlayer;
+import dev.haruki7049.jiho.core.impl.NullSink;
+import dev.haruki7049.jiho.core.impl.PcmCachePool;
+import dev.haruki7049.jiho.core.impl.ProbeCache;
+import dev.haruki7049.jiho.core.impl.SoftwareMixer;
+import dev.haruki7049.jiho.core.impl.TranscodeCache;
+import dev.haruki7049.jiho.core.impl.WavFileSink;
+import dev.haruki7049.jiho.core.jfr.ConfigLoadEvent;
+import dev.haruki7049.jiho.core.metrics.ChimeMetrics;
+import dev.haruki7049.jiho.core.metrics.MetricsRegistry;
+import dev.haruki7049.jiho.core.metrics.MetricsServer;
+import dev.haruki7049.jiho.core.schedule.ChimeRule;
+import dev.haruki7049.jiho.core.schedule.ChimeScheduler;
+import dev.haruki7049.jiho.core.schedule.ClockSync;
+import dev.haruki7049.jiho.core.schedule.CronExpression;
+import dev.haruki7049.jiho.core.schedule.HourlyScheduler;
+import dev.haruki7049.jiho.core.schedule.PrecisionScheduler;
+import dev.haruki7049.jiho.core.schedule.RuleScheduler;
+import dev.haruki7049.jiho.core.schedule.Sleeper;
+import dev.haruki7049.jiho.core.schedule.SyncScheduler;
+import dev.haruki7049.jiho.core.schedule.VirtualClock;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
+import java.io.PrintStream;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Clock;
 import java.time.Duration;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
 
 /**
  * Handles the initialization and execution of the Jiho application. This class sets up the
@@ -31,47 +63,547 @@ public class Runner {
   private static final String DEFAULT_SOUND_RESOURCE = "/default_sound.wav";
 
   /**
-   * Loads configuration, initializes services, and runs the main Jiho application logic.
+   * Loads configuration, initializes services, and runs the main Jiho application logic. The
+   * configuration file is watched while running, and reloaded when it changes.
    *
    * @param configPath The path to the configuration file (e.g., config.json).
    * @throws Exception if configuration loading fails, audio initialization fails, or an error
    *     occurs during runtime.
    */
   public static void run(Path configPath) throws Exception {
-    // 1. Load configuration
+    run(
+        configPath,
+        new StartupReport(false),
+        new JavaSoundSink(),
+        ControlServer.socketPathFor(configPath));
+  }
+
+  /**
+   * Loads configuration, initializes services, and runs the main Jiho application logic, timing
+   * the startup phases. Control commands are served on a UNIX domain socket while running.
+   *
+   * @param configPath The path to the configuration file (e.g., config.json).
+   * @param report The startup report, printed once the first chime is scheduled.
+   * @param sink Where the sound is played.
+   * @param controlSocket The control socket to create.
+   * @throws Exception if configuration loading fails, audio initialization fails, or an error
+   *     occurs during runtime.
+   */
+  public static void run(
+      Path configPath, StartupReport report, AudioSink sink, Path controlSocket)
+      throws Exception {
+    // 1. Load configuration and create the scheduler, on the group clock if synchronized
+    Config config = loadConfig(configPath);
+    ClockSync sync = startSync(config);
+    ChimeScheduler scheduler = createScheduler(config, sync);
+    report.phase("config");
+
+    // 2. Initialize AudioPlayer (with fallback), Jiho probes the length of its sound
+    ProbeCache probeCache = new ProbeCache(ProbeCache.defaultCacheFile());
+    TranscodeCache transcodeCache = new TranscodeCache(TranscodeCache.defaultDirectory());
+    PcmCachePool pcmCaches = new PcmCachePool(transcodeCache); // Kept across reloads
+    SoftwareMixer mixer = new SoftwareMixer(sink);
+    ChimeMetrics metrics = new ChimeMetrics(); // Kept across reloads
+    AudioPlayer audioPlayer =
+        createAudioPlayer(config, probeCache, pcmCaches, mixer, sink, metrics);
+    Jiho jiho = new Jiho(config, audioPlayer, scheduler, Clock.systemUTC(), metrics);
+    report.phase("audio probe");
+
+    // 3. Schedule the first chime
+    scheduler.nextDeadline();
+    report.phase("first schedule");
+    report.print(System.err);
+
+    // 4. Run Jiho, reloading the configuration when it changes or when asked to
+    Object reloadLock = new Object(); // One reload at a time, from the watcher or the socket
+    BooleanSupplier reloader =
+        () -> {
+          synchronized (reloadLock) {
+            return reload(jiho, configPath, probeCache, pcmCaches, mixer, sink, sync);
+          }
+        };
+    MetricsServer metricsServer = startMetrics(config, metrics.getRegistry());
+    try (sync;
+        metricsServer;
+        ConfigWatcher watcher = ConfigWatcher.start(configPath, reloader::getAsBoolean);
+        ControlServer control =
+            startControl(controlSocket, new ControlCommands(jiho, configPath, reloader))) {
+      jiho.run();
+    }
+  }
+
+  /**
+   * Joins the sync group of the configuration. The chimes do not depend on it, so if the group
+   * cannot be joined Jiho chimes on its own clock.
+   *
+   * @param config The application configuration.
+   * @return The running synchronization, or null if none is configured or it could not start.
+   */
+  private static ClockSync startSync(Config config) {
+    if (config.getSyncGroup() == null) {
+      return null;
+    }
+    try {
+      return ClockSync.start(
+          ClockSync.parseGroup(config.getSyncGroup()),
+          config.getSyncInterface(),
+          Clock.systemUTC());
+    } catch (IOException e) {
+      logger.warning(
+          "Could not join the sync group "
+              + config.getSyncGroup()
+              + ", chiming unsynchronized: "
+              + e);
+      return null;
+    }
+  }
+
+  /**
+   * Starts serving the metrics on the configured address. The chimes do not depend on it, so if
+   * the address cannot be bound Jiho runs without it.
+   *
+   * @param config The application configuration.
+   * @param registry The metrics to serve.
+   * @return The running server, or null if none is configured or it could not start.
+   */
+  private static MetricsServer startMetrics(Config config, MetricsRegistry registry) {
+    if (config.getMetricsAddress() == null) {
+      return null;
+    }
+    try {
+      MetricsServer server =
+          MetricsServer.start(MetricsServer.parseAddress(config.getMetricsAddress()), registry);
+      logger.info("Metrics served at " + MetricsServer.PATH + " on " + server.getAddress());
+      return server;
+    } catch (IOException e) {
+      logger.warning("Could not serve metrics on " + config.getMetricsAddress() + ": " + e);
+      return null;
+    }
+  }
+
+  /**
+   * Starts serving control commands. The chimes do not depend on it, so if the socket cannot be
+   * created Jiho runs without it.
+   *
+   * @param socketPath The socket file to create.
+   * @param commands The commands to serve.
+   * @return The running server, or null if it could not be started.
+   */
+  private static ControlServer startControl(Path socketPath, ControlCommands commands) {
+    try {
+      ControlServer server = ControlServer.start(socketPath, commands);
+      logger.info("Control commands served on " + server.getSocketPath());
+      return server;
+    } catch (IOException | UnsupportedOperationException e) {
+      logger.warning("Could not serve control commands on " + socketPath + ": " + e);
+      return null;
+    }
+  }
+
+  /**
+   * Runs the startup path once without chiming: loads the configuration, probes the sound,
+   * schedules the first chime and discovers the Java Sound providers. A JVM started with {@code
+   * -XX:+AutoCreateSharedArchive} writes the classes loaded on the way into its class data sharing
+   * archive when it exits.
+   *
+   * @param configPath The path to the configuration file.
+   * @param sink Where the sound would be played.
+   * @throws Exception if configuration loading or audio initialization fails.
+   */
+  static void warmup(Path configPath, AudioSink sink) throws Exception {
     Config config = loadConfig(configPath);
+    ChimeScheduler scheduler = createScheduler(config);
+    AudioPlayer audioPlayer =
+        createAudioPlayer(
+            config,
+            new ProbeCache(ProbeCache.defaultCacheFile()),
+            new PcmCachePool(new TranscodeCache(TranscodeCache.defaultDirectory())),
+            new SoftwareMixer(sink),
+            sink,
+            new ChimeMetrics());
+    Jiho jiho = new Jiho(config, audioPlayer, scheduler); // Probes the length of the sound
+    ZonedDateTime firstDeadline = jiho.getScheduler().nextDeadline();
+
+    // Otherwise done when the first line is opened, at the hour
+    AudioSystem.getMixerInfo();
+
+    logger.info("Warmed up, the first chime would be at " + firstDeadline);
+  }
+
+  /**
+   * Runs the configured schedule and playback between two times on a virtual clock, with a sink
+   * that plays every chime instantly, and reports how many chimes were played, how fast, and the
+   * schedule errors found. The precision mode is not simulated, it busy-waits on real time.
+   *
+   * @param configPath The path to the configuration file.
+   * @param from The time the virtual clock starts at.
+   * @param to The last time a chime may be played at.
+   * @param speed How many times faster than real time to run, or 0 for as fast as possible.
+   * @param out The stream to print the report to.
+   * @return true if the run finished without errors.
+   * @throws Exception if configuration loading or audio initialization fails.
+   */
+  static boolean simulate(
+      Path configPath, ZonedDateTime from, ZonedDateTime to, double speed, PrintStream out)
+      throws Exception {
+    Config config = loadConfig(configPath);
+    if (Boolean.TRUE.equals(config.getPrecisionMode())) {
+      logger.warning("Precision mode is not simulated, using the plain scheduler.");
+    }
+
+    VirtualClock clock = new VirtualClock(from.toInstant(), zoneOf(config), speed);
+    SimulationScheduler scheduler =
+        new SimulationScheduler(
+            createScheduler(config, clock, clock), clock, isHourly(config), from);
+    AudioSink sink = new NullSink(false);
+    SoftwareMixer mixer = new SoftwareMixer(sink);
+    AudioPlayer audioPlayer =
+        createAudioPlayer(
+            config,
+            new ProbeCache(ProbeCache.defaultCacheFile()),
+            new PcmCachePool(new TranscodeCache(TranscodeCache.defaultDirectory())),
+            mixer,
+            sink,
+            new ChimeMetrics());
+    Jiho jiho = new Jiho(config, audioPlayer, scheduler, clock);
+
+    // One line per chime would drown the report
+    Level level = logger.getLevel();
+    logger.setLevel(Level.WARNING);
+    long startNanos = System.nanoTime();
+    try {
+      jiho.run(to);
+    } catch (Exception e) {
+      scheduler.error("Playback failed: " + e);
+    } finally {
+      logger.setLevel(level);
+      audioPlayer.release();
+      mixer.close();
+    }
+
+    scheduler.print(out, Duration.ofNanos(System.nanoTime() - startNanos));
+    return scheduler.getErrors().isEmpty();
+  }
+
+  /**
+   * Gets whether the configuration chimes every hour rather than by rules.
+   *
+   * @param config The application configuration.
+   * @return true for the hourly scheduler.
+   */
+  private static boolean isHourly(Config config) {
+    return config.getRules() == null || config.getRules().isEmpty();
+  }
+
+  /**
+   * Reloads the configuration file into a running Jiho. Only what the changes affect is rebuilt: a
+   * new audio player only if the sound source or how it is played (mixer, output sample rate,
+   * fades) changed, a new scheduler only if the schedule changed. Other changes, such as the
+   * volume, only replace the configuration. If the file cannot be parsed or the new settings cannot
+   * be applied, the running configuration is kept.
+   *
+   * @param jiho The running Jiho.
+   * @param configPath The path to the configuration file.
+   * @param probeCache Persistent header probe results.
+   * @param pcmCaches The decoded sounds, so that an unchanged source is not decoded again.
+   * @param mixer The software mixer.
+   * @param sink Where the sound is played.
+   * @param sync The synchronization with the group, or null if not synchronized.
+   * @return true if the new configuration was applied.
+   */
+  static boolean reload(
+      Jiho jiho,
+      Path configPath,
+      ProbeCache probeCache,
+      PcmCachePool pcmCaches,
+      SoftwareMixer mixer,
+      AudioSink sink,
+      ClockSync sync) {
+    Config next;
+    try {
+      next = loadConfig(configPath);
+    } catch (IOException e) {
+      // Includes an empty file, e.g. truncated by an editor that has not written yet
+      logger.warning("Invalid configuration in " + configPath + ", keeping the old one: " + e);
+      return false;
+    }
+
+    Config current = jiho.getConfig();
+    boolean playerChanged =
+        !Objects.equals(current.getSoundSource(), next.getSoundSource())
+            || !Objects.equals(current.getMixer(), next.getMixer())
+            || !Objects.equals(current.getOutputSampleRate(), next.getOutputSampleRate())
+            || !Objects.equals(current.getFadeIn(), next.getFadeIn())
+            || !Objects.equals(current.getFadeOut(), next.getFadeOut());
+    boolean scheduleChanged =
+        !Objects.equals(current.getZone(), next.getZone())
+            || !Objects.equals(current.getRules(), next.getRules())
+            || !Objects.equals(current.getPrecisionMode(), next.getPrecisionMode())
+            || !Objects.equals(current.getPrecisionGuard(), next.getPrecisionGuard());
+
+    if (!Objects.equals(current.getSyncGroup(), next.getSyncGroup())
+        || !Objects.equals(current.getSyncInterface(), next.getSyncInterface())) {
+      logger.warning("The sync group is only joined or left at startup, restart to apply it.");
+    }
+    if (!Objects.equals(current.getMetricsAddress(), next.getMetricsAddress())) {
+      logger.warning("The metrics endpoint is only started at startup, restart to apply it.");
+    }
+
+    AudioPlayer audioPlayer = jiho.getAudioPlayer();
+    try {
+      if (playerChanged) {
+        audioPlayer =
+            createAudioPlayer(next, probeCache, pcmCaches, mixer, sink, jiho.getMetrics());
+      }
+      ChimeScheduler scheduler =
+          scheduleChanged ? createScheduler(next, sync) : jiho.getScheduler();
+      jiho.reconfigure(next, audioPlayer, scheduler);
+    } catch (Exception e) {
+      logger.warning("Could not apply the new configuration, keeping the old one: " + e);
+      if (audioPlayer != jiho.getAudioPlayer()) {
+        audioPlayer.release();
+      }
+      return false;
+    }
+
+    logger.info(
+        "Configuration reloaded"
+            + (playerChanged ? ", new audio player" : "")
+            + (scheduleChanged ? ", new schedule" : "")
+            + ".");
+    return true;
+  }
+
+  /**
+   * Loads a list of configurations and runs one Jiho for each of them, every one on its own virtual
+   * thread. The tenants share the header probe cache and the decoded sounds, so tenants playing the
+   * same sound hold one decoded copy of it between them, and tenants with {@code mixer} enabled
+   * play through one software mixer, so chimes firing together share one output line. A tenant that
+   * fails is logged and stops alone.
+   *
+   * @param tenantsPath The path to the JSON file holding an array of configurations.
+   * @param report The startup report, printed once the first chimes are scheduled.
+   * @param sink Where the sound is played.
+   * @throws Exception if the tenants cannot be loaded or initialized.
+   */
+  public static void runTenants(Path tenantsPath, StartupReport report, AudioSink sink)
+      throws Exception {
+    List<Config> tenants = loadTenants(tenantsPath);
+    if (tenants.isEmpty()) {
+      throw new IllegalArgumentException("No tenants configured in " + tenantsPath);
+    }
+
+    report.phase("config");
+
+    // Shared between all tenants
+    ProbeCache probeCache = new ProbeCache(ProbeCache.defaultCacheFile());
+    TranscodeCache transcodeCache = new TranscodeCache(TranscodeCache.defaultDirectory());
+    PcmCachePool pcmCaches = new PcmCachePool(transcodeCache);
+    SoftwareMixer mixer = new SoftwareMixer(sink); // Idle until a tenant uses it
+    ChimeMetrics metrics = new ChimeMetrics();
+
+    // Initialize every tenant first, so that a broken config stops the process before any chime
+    List<Thread> threads = new ArrayList<>(tenants.size());
+    List<Jiho> jihos = new ArrayList<>(tenants.size());
+    for (Config tenant : tenants) {
+      if (tenant.getSyncGroup() != null) {
+        logger.warning("syncGroup is ignored in multi-tenant mode, the tenants share a clock.");
+      }
+      if (tenant.getMetricsAddress() != null) {
+        logger.warning("metricsAddress is ignored in multi-tenant mode.");
+      }
+      AudioPlayer audioPlayer =
+          createAudioPlayer(tenant, probeCache, pcmCaches, mixer, sink, metrics);
+      jihos.add(
+          new Jiho(tenant, audioPlayer, createScheduler(tenant), Clock.systemUTC(), metrics));
+    }
+    logger.info(
+        "Running "
+            + tenants.size()
+            + " tenant(s) sharing "
+            + pcmCaches.size()
+            + " distinct sound source(s).");
+    report.phase("audio probe");
+
+    for (Jiho jiho : jihos) {
+      jiho.getScheduler().nextDeadline();
+    }
+    report.phase("first schedule");
+    report.print(System.err);
+
+    for (int i = 0; i < tenants.size(); i++) {
+      String site = tenants.get(i).getSite() != null ? tenants.get(i).getSite() : "tenant-" + i;
+      Jiho jiho = jihos.get(i);
+      threads.add(Thread.ofVirtual().name("jiho-" + site).start(() -> runTenant(site, jiho)));
+    }
+
+    try {
+      for (Thread thread : threads) {
+        thread.join();
+      }
+    } catch (InterruptedException e) {
+      // Stop every tenant with the process
+      for (Thread thread : threads) {
+        thread.interrupt();
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Runs one tenant until it stops, logging the failure if it fails.
+   *
+   * @param site The name of the tenant.
+   * @param jiho The tenant's Jiho.
+   */
+  private static void runTenant(String site, Jiho jiho) {
+    try {
+      jiho.run();
+    } catch (Exception e) {
+      logger.log(Level.SEVERE, "Tenant " + site + " stopped", e);
+    }
+  }
+
+  /**
+   * Creates the chime scheduler on the local clock. See {@link #createScheduler(Config,
+   * ClockSync)}.
+   *
+   * @param config The application configuration.
+   * @return The scheduler.
+   * @throws IllegalArgumentException if a rule is invalid.
+   */
+  private static ChimeScheduler createScheduler(Config config) {
+    return createScheduler(config, null);
+  }
+
+  /**
+   * Creates the chime scheduler: a rule scheduler if rules are configured, the hourly scheduler
+   * otherwise. It is wrapped in a precision scheduler if the precision mode is enabled, then in a
+   * sync scheduler if the instance is synchronized with a group.
+   *
+   * @param config The application configuration.
+   * @param sync The synchronization with the group, or null to chime on the local clock.
+   * @return The scheduler.
+   * @throws IllegalArgumentException if a rule is invalid.
+   */
+  private static ChimeScheduler createScheduler(Config config, ClockSync sync) {
+    ChimeScheduler scheduler = createScheduler(config, Clock.systemUTC(), Sleeper.system());
+
+    if (Boolean.TRUE.equals(config.getPrecisionMode())) {
+      Duration guard = config.getPrecisionGuard();
+      if (guard == null) {
+        guard = PrecisionScheduler.DEFAULT_GUARD;
+      }
+      logger.info("Precision mode enabled. Busy-waiting the last " + guard + " before the hour.");
+      scheduler = new PrecisionScheduler(scheduler, guard);
+    }
+
+    if (sync != null) {
+      scheduler = new SyncScheduler(scheduler, sync);
+    }
 
-    // 2. Initialize AudioPlayer (with fallback)
-    AudioPlayer audioPlayer = createAudioPlayer(config);
+    return scheduler;
+  }
 
-    // 3. Create and run Jiho
-    Jiho jiho = new Jiho(config, audioPlayer);
-    jiho.run();
+  /**
+   * Creates the chime scheduler without the precision mode: a rule scheduler if rules are
+   * configured, the hourly scheduler otherwise.
+   *
+   * @param config The application configuration.
+   * @param clock The wall clock, in any zone; the configured zone is used.
+   * @param sleeper The monotonic clock the scheduler sleeps on.
+   * @return The scheduler.
+   * @throws IllegalArgumentException if a rule is invalid.
+   */
+  private static ChimeScheduler createScheduler(Config config, Clock clock, Sleeper sleeper) {
+    ZoneId zone = zoneOf(config);
+    List<RuleConfig> ruleConfigs = config.getRules();
+    if (ruleConfigs != null && !ruleConfigs.isEmpty()) {
+      List<ChimeRule> rules = new ArrayList<>(ruleConfigs.size());
+      for (RuleConfig ruleConfig : ruleConfigs) {
+        rules.add(
+            new ChimeRule(CronExpression.parse(ruleConfig.getCron()), ruleConfig.getTimes()));
+      }
+      logger.info("Chiming by " + rules.size() + " rule(s): " + rules);
+      return new RuleScheduler(clock.withZone(zone), sleeper, rules);
+    }
+    return new HourlyScheduler(clock.withZone(zone), sleeper);
   }
 
   /**
-   * Loads configuration from the specified JSON file.
+   * Gets the time zone of the chimes.
+   *
+   * @param config The application configuration.
+   * @return The configured zone, or the system zone if none is configured.
+   */
+  static ZoneId zoneOf(Config config) {
+    return config.getZone() != null ? config.getZone() : ZoneId.systemDefault();
+  }
+
+  /**
+   * Loads configuration from the specified JSON file. The load is a Flight Recorder event.
    *
    * @param configPath The path to the configuration file.
    * @return The loaded Config object.
-   * @throws IOException if an I/O error occurs reading the file.
+   * @throws InvalidConfigException if the file holds an unknown key or an invalid value.
+   * @throws IOException if an I/O error occurs reading the file, or the file is not valid JSON.
    */
-  private static Config loadConfig(Path configPath) throws IOException {
-    // Get a BufferedReader
-    BufferedReader reader = Files.newBufferedReader(configPath);
+  static Config loadConfig(Path configPath) throws IOException {
+    ConfigLoadEvent event = new ConfigLoadEvent();
+    event.begin();
+    // Load config, closing the reader afterwards
+    try (BufferedReader reader = Files.newBufferedReader(configPath)) {
+      Config config = ConfigParser.parse(reader);
+      event.valid = true;
+      return config;
+    } catch (IOException | RuntimeException e) {
+      event.error = e.toString();
+      throw e;
+    } finally {
+      if (event.shouldCommit()) {
+        event.path = configPath.toString();
+        event.commit();
+      }
+    }
+  }
 
-    // Create Gson by GsonBuilder, with a few TypeAdapter
-    Gson gson =
-        new GsonBuilder()
-            .registerTypeAdapter(Path.class, new PathAdapter())
-            .registerTypeAdapter(File.class, new FileAdapter())
-            .registerTypeAdapter(Duration.class, new DurationAdapter())
-            .setPrettyPrinting()
-            .create();
+  /**
+   * Loads a list of configurations from the specified JSON file, which holds an array of the
+   * objects found in a config.json.
+   *
+   * @param tenantsPath The path to the tenants file.
+   * @return The loaded Config objects.
+   * @throws InvalidConfigException if the file holds an unknown key or an invalid value.
+   * @throws IOException if an I/O error occurs reading the file, or the file is not valid JSON.
+   */
+  static List<Config> loadTenants(Path tenantsPath) throws IOException {
+    try (BufferedReader reader = Files.newBufferedReader(tenantsPath)) {
+      return ConfigParser.parseList(reader);
+    }
+  }
 
-    // Load config
-    Config config = gson.fromJson(reader, Config.class);
-    return config;
+  /**
+   * Creates the sink the sound is played to from its command line name: {@code javasound} for the
+   * default Java Sound mixer, {@code null} to discard the sound at real-time pace, or {@code
+   * wav:PATH} to write it to a WAV file.
+   *
+   * @param spec The name of the sink, with the path for a WAV file.
+   * @return The sink.
+   * @throws IllegalArgumentException if the name is unknown.
+   */
+  static AudioSink createSink(String spec) {
+    if (spec.startsWith("wav:") && spec.length() > 4) {
+      return new WavFileSink(Path.of(spec.substring(4)));
+    }
+    switch (spec) {
+      case "javasound":
+        return new JavaSoundSink();
+      case "null":
+        return new NullSink();
+      default:
+        throw new IllegalArgumentException(
+            "Unknown sink: " + spec + " (expected javasound, null or wav:PATH)");
+    }
   }
 
   /**
@@ -81,11 +613,22 @@ public class Runner {
    * doesn't exist, it falls back to the default sound resource bundled in the JAR.
    *
    * @param config The application configuration.
+   * @param probeCache Persistent header probe results, so startup does not read the audio payload.
+   * @param pcmCaches The decoded sounds, shared with other players of the same source.
+   * @param mixer The software mixer, used if the configuration enables it.
+   * @param sink Where a player with a line of its own plays the sound.
+   * @param metrics Where the player records its decode and line open times.
    * @return An initialized AudioPlayer.
    * @throws InvalidAudioSourceException if both user and default sources are unavailable.
    * @throws MalformedURLException if the user-defined file path is invalid.
    */
-  private static AudioPlayer createAudioPlayer(Config config)
+  private static AudioPlayer createAudioPlayer(
+      Config config,
+      ProbeCache probeCache,
+      PcmCachePool pcmCaches,
+      SoftwareMixer mixer,
+      AudioSink sink,
+      ChimeMetrics metrics)
       throws InvalidAudioSourceException, MalformedURLException {
 
     File userSoundSource = config.getSoundSource();
@@ -93,7 +636,8 @@ public class Runner {
     // 1. Attempt to use user-defined sound source
     if (userSoundSource != null && userSoundSource.exists()) {
       logger.info("Using user-defined sound source: " + userSoundSource.getPath());
-      return new AudioManager(userSoundSource);
+      return createAudioPlayer(
+          config, userSoundSource.toURI().toURL(), probeCache, pcmCaches, mixer, sink, metrics);
     }
 
     // 2. Log a warning if user source was specified but not found
@@ -109,7 +653,8 @@ public class Runner {
 
     if (defaultSoundUrl != null) {
       logger.info("Using default sound source from JAR.");
-      return new AudioManager(defaultSoundUrl);
+      return createAudioPlayer(
+          config, defaultSoundUrl, probeCache, pcmCaches, mixer, sink, metrics);
     }
 
     // 4. Fatal error: No audio source is available
@@ -119,4 +664,59 @@ public class Runner {
             + DEFAULT_SOUND_RESOURCE
             + ") is missing from the JAR.");
   }
+
+  /**
+   * Creates the AudioPlayer for a resolved sound source: a player of the software mixer if the
+   * configuration enables it, an AudioManager with its own line otherwise.
+   *
+   * @param config The application configuration.
+   * @param soundUrl The URL to the sound source.
+   * @param probeCache Persistent header probe results.
+   * @param pcmCaches The decoded sounds, shared with other players of the same source.
+   * @param mixer The software mixer.
+   * @param sink Where a player with a line of its own plays the sound.
+   * @param metrics Where the player records its decode and line open times.
+   * @return The AudioPlayer.
+   */
+  private static AudioPlayer createAudioPlayer(
+      Config config,
+      URL soundUrl,
+      ProbeCache probeCache,
+      PcmCachePool pcmCaches,
+      SoftwareMixer mixer,
+      AudioSink sink,
+      ChimeMetrics metrics) {
+    if (Boolean.TRUE.equals(config.getMixer())) {
+      logger.fine("Playing through the software mixer: " + mixer.getFormat());
+      return new MixingAudioPlayer(
+          pcmCaches.get(soundUrl, mixer.getFormat()),
+          mixer,
+          config.getFadeIn(),
+          config.getFadeOut(),
+          metrics);
+    }
+    return AudioManager.builder(soundUrl)
+        .probeCache(probeCache)
+        .pcmCache(pcmCaches.get(soundUrl, outputFormat(config)))
+        .sink(sink)
+        .fadeIn(config.getFadeIn())
+        .fadeOut(config.getFadeOut())
+        .metrics(metrics)
+        .build();
+  }
+
+  /**
+   * Gets the format the sound is converted to for a line of its own. Java Sound does not tell the
+   * native format of a device, so the sample rate comes from the configuration.
+   *
+   * @param config The application configuration.
+   * @return The output format, or null to keep the sample rate of the sound.
+   */
+  private static AudioFormat outputFormat(Config config) {
+    Integer sampleRate = config.getOutputSampleRate();
+    if (sampleRate == null) {
+      return null;
+    }
+    return new AudioFormat(sampleRate, 16, AudioSystem.NOT_SPECIFIED, true, false);
+  }
 }
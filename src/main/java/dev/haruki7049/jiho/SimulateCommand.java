@@ -0,0 +1,92 @@
+package dev.haruki7049.jiho;
+
+import dev.haruki7049.jiho.core.config.Config;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.Callable;
+import picocli.CommandLine;
+
+/**
+ * The {@code simulate} subcommand. Runs the configured schedule and playback over a span of time on
+ * a virtual clock, with the sound played to a sink that takes no time, and prints how many chimes
+ * were played, how fast, and any schedule errors. A year of hourly chimes takes seconds.
+ */
+@CommandLine.Command(
+    name = "simulate",
+    description = "run the schedule on a virtual clock and report throughput and schedule errors")
+public class SimulateCommand implements Callable<Integer> {
+
+  /** The main command, holding the configuration file option. */
+  @CommandLine.ParentCommand Cli parent;
+
+  /** Option for the start of the simulated span. */
+  @CommandLine.Option(
+      names = {"--from"},
+      description =
+          "start, as yyyy-MM-dd or yyyy-MM-ddTHH:mm in the configured zone (default: now)")
+  String from;
+
+  /** Option for the end of the simulated span. */
+  @CommandLine.Option(
+      names = {"--to"},
+      description = "end, in the same format (default: one year after the start)")
+  String to;
+
+  /** Option for how fast the virtual clock runs. */
+  @CommandLine.Option(
+      names = {"--speed"},
+      description = "times faster than real time, 0 for as fast as possible (default: 0)",
+      defaultValue = "0")
+  double speed;
+
+  /**
+   * Runs the simulation and prints the report.
+   *
+   * @return The exit code: 0 if no schedule errors were found, 1 otherwise.
+   * @throws Exception if the configuration or the sound cannot be loaded.
+   */
+  @Override
+  public Integer call() throws Exception {
+    Path configPath = this.parent.resolveConfigPath();
+    Config config = Runner.loadConfig(configPath);
+    ZoneId zone = Runner.zoneOf(config);
+
+    ZonedDateTime start =
+        this.from != null
+            ? parseTime(this.from, zone)
+            : ZonedDateTime.now(zone).truncatedTo(ChronoUnit.SECONDS);
+    ZonedDateTime end = this.to != null ? parseTime(this.to, zone) : start.plusYears(1);
+    if (!end.isAfter(start)) {
+      throw new CommandLine.ParameterException(
+          new CommandLine(this), "--to " + end + " is not after --from " + start);
+    }
+
+    boolean ok = Runner.simulate(configPath, start, end, this.speed, System.out);
+    return ok ? 0 : 1;
+  }
+
+  /**
+   * Parses a date or a local date and time in the given zone.
+   *
+   * @param text The date, e.g. 2025-01-01, or date and time, e.g. 2025-01-01T09:30.
+   * @param zone The zone of the time.
+   * @return The time, the start of the day for a date.
+   * @throws CommandLine.ParameterException if the text is neither.
+   */
+  private ZonedDateTime parseTime(String text, ZoneId zone) {
+    try {
+      if (text.contains("T")) {
+        return LocalDateTime.parse(text).atZone(zone);
+      }
+      return LocalDate.parse(text).atStartOfDay(zone);
+    } catch (DateTimeParseException e) {
+      throw new CommandLine.ParameterException(
+          new CommandLine(this), "Invalid time: " + text + " (" + e.getMessage() + ")");
+    }
+  }
+}
@@ -0,0 +1,211 @@
+package dev.haruki7049.jiho;
+
+import dev.haruki7049.jiho.core.Jiho;
+import dev.haruki7049.jiho.core.schedule.ChimeScheduler;
+import java.io.PrintStream;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.OptionalInt;
+
+/**
+ * Scheduler decorator for {@code jiho simulate}. It passes everything through to the real
+ * scheduler, checks every deadline on the way and prints a report at the end.
+ *
+ * <p>A deadline is an error if it is not after the previous one or the start of the simulation, if
+ * it is missed or reached at another time than the deadline, and, for the hourly scheduler, if it
+ * is not at the top of a local hour or its chime count is not the 12-hour clock hour. Local times
+ * that are not one hour apart are counted, not reported, as they are daylight saving transitions.
+ */
+class SimulationScheduler implements ChimeScheduler {
+  // Errors listed in the report, the rest are only counted
+  private static final int MAX_LISTED_ERRORS = 20;
+
+  // The 12-hour clock hour as java.time prints it, to check Jiho.calculateTimes against
+  private static final DateTimeFormatter CLOCK_HOUR =
+      DateTimeFormatter.ofPattern("h", Locale.ROOT);
+
+  private final ChimeScheduler scheduler;
+  private final Clock clock;
+  private final boolean hourly;
+  private final ZonedDateTime start;
+  private final List<String> errors = new ArrayList<>();
+  private ZonedDateTime previous;
+  private ZonedDateTime firstChime;
+  private ZonedDateTime lastChime;
+  private long chimes;
+  private long strikes;
+  private long localJumps;
+
+  /**
+   * Constructs a SimulationScheduler.
+   *
+   * @param scheduler The real scheduler.
+   * @param clock The virtual clock the scheduler waits on.
+   * @param hourly Whether the scheduler is the hourly scheduler, whose deadlines are checked more.
+   * @param start The time the simulation starts at.
+   */
+  SimulationScheduler(ChimeScheduler scheduler, Clock clock, boolean hourly, ZonedDateTime start) {
+    this.scheduler = scheduler;
+    this.clock = clock;
+    this.hourly = hourly;
+    this.start = start;
+  }
+
+  /**
+   * Gets the next deadline from the real scheduler and checks that time moves forward.
+   *
+   * @return The next deadline.
+   */
+  @Override
+  public ZonedDateTime nextDeadline() {
+    return this.check(this.scheduler.nextDeadline());
+  }
+
+  /**
+   * Gets the next deadline after the given time from the real scheduler and checks it like {@link
+   * #nextDeadline()}.
+   *
+   * @param now The reference time.
+   * @return The next deadline.
+   */
+  @Override
+  public ZonedDateTime nextDeadline(ZonedDateTime now) {
+    return this.check(this.scheduler.nextDeadline(now));
+  }
+
+  /**
+   * Checks that a deadline moves time forward and, for hourly chimes, is at the top of the hour.
+   *
+   * @param deadline The deadline from the real scheduler.
+   * @return The deadline.
+   */
+  private ZonedDateTime check(ZonedDateTime deadline) {
+    ZonedDateTime after = this.previous != null ? this.previous : this.start;
+    if (!deadline.isAfter(after)) {
+      this.error("Deadline " + deadline + " is not after " + after);
+    }
+    if (this.hourly && (deadline.getMinute() != 0 || deadline.getSecond() != 0)) {
+      this.error("Deadline " + deadline + " is not at the top of the hour");
+    }
+    return deadline;
+  }
+
+  /**
+   * Converts a deadline to the local wall clock with the real scheduler.
+   *
+   * @param deadline The deadline.
+   * @return The instant of the deadline on the local wall clock.
+   */
+  @Override
+  public Instant localInstant(ZonedDateTime deadline) {
+    return this.scheduler.localInstant(deadline);
+  }
+
+  /**
+   * Gets how many times to chime at a deadline from the real scheduler.
+   *
+   * @param deadline The deadline.
+   * @return The number of times, or empty to chime the hour.
+   */
+  @Override
+  public OptionalInt chimeCount(ZonedDateTime deadline) {
+    return this.scheduler.chimeCount(deadline);
+  }
+
+  /**
+   * Waits for the deadline with the real scheduler, then checks and counts the chime.
+   *
+   * @param deadline The deadline to wait for.
+   * @return true if the deadline was reached on time, false if it was missed.
+   * @throws InterruptedException if the waiting thread is interrupted.
+   */
+  @Override
+  public boolean awaitDeadline(ZonedDateTime deadline) throws InterruptedException {
+    boolean onTime = this.scheduler.awaitDeadline(deadline);
+    Instant now = this.clock.instant();
+    if (!onTime) {
+      this.error("Deadline " + deadline + " was missed, woke at " + now);
+      return false;
+    }
+    if (!now.equals(deadline.toInstant())) {
+      this.error("Deadline " + deadline + " was reached at " + now);
+    }
+
+    int times = this.chimeCount(deadline).orElseGet(() -> Jiho.calculateTimes(deadline));
+    if (this.hourly && times != Integer.parseInt(CLOCK_HOUR.format(deadline))) {
+      this.error("Deadline " + deadline + " chimes " + times + " times");
+    }
+
+    if (this.hourly
+        && this.previous != null
+        && !this.previous.toLocalDateTime().plusHours(1).equals(deadline.toLocalDateTime())) {
+      this.localJumps++;
+    }
+    if (this.firstChime == null) {
+      this.firstChime = deadline;
+    }
+    this.previous = deadline;
+    this.lastChime = deadline;
+    this.chimes++;
+    this.strikes += times;
+    return true;
+  }
+
+  /**
+   * Records an error of the simulated run.
+   *
+   * @param message The description of the error.
+   */
+  void error(String message) {
+    this.errors.add(message);
+  }
+
+  /**
+   * Gets the errors found.
+   *
+   * @return The descriptions of the errors, in the order they were found.
+   */
+  List<String> getErrors() {
+    return Collections.unmodifiableList(this.errors);
+  }
+
+  /**
+   * Gets the number of chimes played.
+   *
+   * @return The number of deadlines reached on time.
+   */
+  long getChimes() {
+    return this.chimes;
+  }
+
+  /**
+   * Prints the report of the simulated run.
+   *
+   * @param out The stream to print to.
+   * @param elapsed The real time the run took.
+   */
+  void print(PrintStream out, Duration elapsed) {
+    double seconds = Math.max(elapsed.toNanos(), 1) / 1e9;
+    out.println("Simulation report:");
+    out.println("  first chime          " + this.firstChime);
+    out.println("  last chime           " + this.lastChime);
+    out.printf(Locale.ROOT, "  chimes               %d (%d strikes)%n", this.chimes, this.strikes);
+    out.printf(Locale.ROOT, "  real time            %.3f s%n", seconds);
+    out.printf(Locale.ROOT, "  throughput           %.1f chimes/s%n", this.chimes / seconds);
+    out.printf(Locale.ROOT, "  non-hourly steps     %d (local time, e.g. DST)%n", this.localJumps);
+    out.printf(Locale.ROOT, "  errors               %d%n", this.errors.size());
+    for (String error : this.errors.subList(0, Math.min(MAX_LISTED_ERRORS, this.errors.size()))) {
+      out.println("    " + error);
+    }
+    if (this.errors.size() > MAX_LISTED_ERRORS) {
+      out.println("    ...");
+    }
+  }
+}
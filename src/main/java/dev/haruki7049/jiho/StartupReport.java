@@ -0,0 +1,116 @@
+package dev.haruki7049.jiho;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Measures how long each phase of the startup takes, from the JVM start up to the first scheduled
+ * chime, and prints the result for {@code --startup-report}. A disabled report records nothing.
+ */
+public class StartupReport {
+  // When main() was entered, on both clocks, or 0 if main() was not run (e.g., in tests)
+  private static volatile long mainNanos;
+  private static volatile long mainMillis;
+
+  private final boolean enabled;
+  private final long startNanos;
+  private long lastNanos;
+  private final List<String> names = new ArrayList<>();
+  private final List<Long> durations = new ArrayList<>();
+
+  /**
+   * Constructs a StartupReport whose first phase starts when main() was entered.
+   *
+   * @param enabled Whether phases are recorded and printed.
+   */
+  public StartupReport(boolean enabled) {
+    this.enabled = enabled;
+    this.startNanos = mainNanos != 0 ? mainNanos : System.nanoTime();
+    this.lastNanos = this.startNanos;
+  }
+
+  /** Records the moment main() is entered. Called first thing by {@link Main}. */
+  static void markMain() {
+    mainMillis = System.currentTimeMillis();
+    mainNanos = System.nanoTime();
+  }
+
+  /**
+   * Gets whether the report is enabled.
+   *
+   * @return true if phases are recorded.
+   */
+  public boolean isEnabled() {
+    return this.enabled;
+  }
+
+  /**
+   * Ends a phase: the time since the end of the previous phase is recorded under the given name.
+   *
+   * @param name The name of the phase that just ended.
+   */
+  public void phase(String name) {
+    if (!this.enabled) {
+      return;
+    }
+    long now = System.nanoTime();
+    this.names.add(name);
+    this.durations.add(now - this.lastNanos);
+    this.lastNanos = now;
+  }
+
+  /**
+   * Prints the recorded phases, the JVM startup before main() and the class data sharing archive in
+   * use.
+   *
+   * @param out The stream to print to.
+   */
+  public void print(PrintStream out) {
+    if (!this.enabled) {
+      return;
+    }
+
+    out.println("Startup report:");
+    if (mainMillis != 0) {
+      // Only looked up now, so the management classes are not loaded for every startup
+      long jvmMillis = mainMillis - ManagementFactory.getRuntimeMXBean().getStartTime();
+      printLine(out, "jvm start", jvmMillis * 1_000_000L);
+    }
+    for (int i = 0; i < this.names.size(); i++) {
+      printLine(out, this.names.get(i), this.durations.get(i));
+    }
+    printLine(out, "total since main", this.lastNanos - this.startNanos);
+
+    String archive = sharedArchiveFile();
+    out.println("  class data sharing archive: " + (archive != null ? archive : "none"));
+  }
+
+  /**
+   * Prints one phase.
+   *
+   * @param out The stream to print to.
+   * @param name The phase name.
+   * @param nanos The phase duration.
+   */
+  private static void printLine(PrintStream out, String name, long nanos) {
+    out.printf(Locale.ROOT, "  %-20s %9.1f ms%n", name, nanos / 1e6);
+  }
+
+  /**
+   * Gets the class data sharing archive the JVM was started with.
+   *
+   * @return The value of {@code -XX:SharedArchiveFile}, or null if the option was not given.
+   */
+  static String sharedArchiveFile() {
+    String prefix = "-XX:SharedArchiveFile=";
+    for (String argument : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+      if (argument.startsWith(prefix)) {
+        return argument.substring(prefix.length());
+      }
+    }
+    return null;
+  }
+}
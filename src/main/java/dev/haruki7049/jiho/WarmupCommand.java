@@ -0,0 +1,41 @@
+package dev.haruki7049.jiho;
+
+import java.util.concurrent.Callable;
+import picocli.CommandLine;
+
+/**
+ * The {@code warmup} subcommand. Runs the startup path once without chiming and exits, so that a
+ * JVM started with {@code -XX:+AutoCreateSharedArchive} (as the launcher scripts do) writes a class
+ * data sharing archive of everything startup loads. Later runs map that archive instead of loading
+ * and verifying the classes again.
+ */
+@CommandLine.Command(
+    name = "warmup",
+    description = "run the startup path once and exit, writing the class data sharing archive")
+public class WarmupCommand implements Callable<Integer> {
+
+  /** The main command, holding the configuration file and sink options. */
+  @CommandLine.ParentCommand Cli parent;
+
+  /**
+   * Runs the startup path and reports where the archive goes.
+   *
+   * @return The exit code (0 for success).
+   * @throws Exception if the startup path fails.
+   */
+  @Override
+  public Integer call() throws Exception {
+    Runner.warmup(this.parent.resolveConfigPath(), Runner.createSink(this.parent.sink));
+
+    String archive = StartupReport.sharedArchiveFile();
+    if (archive == null) {
+      System.err.println(
+          "Startup path warmed up, but no archive is written: the JVM was not started with"
+              + " -XX:SharedArchiveFile=<file> -XX:+AutoCreateSharedArchive."
+              + " Use the launcher script, or pass the options in JAVA_OPTS.");
+    } else {
+      System.out.println("Startup path warmed up, archive written on exit: " + archive);
+    }
+    return 0;
+  }
+}
@@ -0,0 +1,43 @@
+package dev.haruki7049.jiho;
+
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.testng.annotations.Test;
+
+/** Tests for watching the configuration file. */
+public class ConfigWatcherTest {
+  // Time without a second report after which a change counts as reported once
+  private static final long QUIET_MILLIS = ConfigWatcher.SETTLE_TIME.toMillis() + 500;
+
+  @Test
+  public void testReportsChangesOfTheWatchedFile() throws Exception {
+    Path directory = Files.createTempDirectory("jiho-watch-");
+    Path configFile = directory.resolve("config.json");
+    Path otherFile = directory.resolve("other.json");
+    Files.writeString(configFile, "{}");
+
+    Semaphore changes = new Semaphore(0);
+    try (ConfigWatcher watcher = ConfigWatcher.start(configFile, changes::release)) {
+      Files.writeString(otherFile, "{}");
+      Files.writeString(configFile, "{\"volume\": 0.5}");
+
+      assertTrue(changes.tryAcquire(10, TimeUnit.SECONDS));
+      assertFalse(changes.tryAcquire(QUIET_MILLIS, TimeUnit.MILLISECONDS));
+
+      // Both writes of the file fall within the settling time and are reported once
+      Files.writeString(configFile, "");
+      Files.writeString(configFile, "{\"volume\": 0.6}");
+      assertTrue(changes.tryAcquire(10, TimeUnit.SECONDS));
+      assertFalse(changes.tryAcquire(QUIET_MILLIS, TimeUnit.MILLISECONDS));
+    } finally {
+      Files.deleteIfExists(configFile);
+      Files.deleteIfExists(otherFile);
+      Files.deleteIfExists(directory);
+    }
+  }
+}
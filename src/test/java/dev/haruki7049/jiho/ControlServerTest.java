@@ -0,0 +1,156 @@
+package dev.haruki7049.jiho;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+
+import dev.haruki7049.jiho.core.AudioPlayer;
+import dev.haruki7049.jiho.core.Jiho;
+import dev.haruki7049.jiho.core.config.Config;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/** Tests for the control socket and its commands. */
+public class ControlServerTest {
+  private Path directory;
+  private Path socket;
+
+  /**
+   * Creates a directory for the socket.
+   *
+   * @throws IOException if the directory cannot be created.
+   */
+  @BeforeMethod
+  public void setUp() throws IOException {
+    this.directory = Files.createTempDirectory("jiho-control-");
+    this.socket = ControlServer.socketPathFor(this.directory.resolve("config.json"));
+  }
+
+  /**
+   * Deletes the directory.
+   *
+   * @throws IOException if cleanup fails.
+   */
+  @AfterMethod
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(this.socket);
+    Files.deleteIfExists(this.directory);
+  }
+
+  @Test
+  public void testRepliesInRequestOrder() throws Exception {
+    CompletableFuture<String> slow = new CompletableFuture<>();
+    try (ControlServer server =
+            ControlServer.start(
+                this.socket,
+                request -> {
+                  switch (request) {
+                    case "slow":
+                      return slow;
+                    case "fast":
+                      return CompletableFuture.completedFuture("ok fast");
+                    default:
+                      throw new IllegalArgumentException("unknown " + request);
+                  }
+                });
+        SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(this.socket))) {
+      assertEquals(server.getSocketPath(), this.directory.resolve("jiho.sock").toAbsolutePath());
+      BufferedReader reader =
+          new BufferedReader(
+              new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+      channel.write(ByteBuffer.wrap("slow\nfast\n  \nwhat\n".getBytes(StandardCharsets.UTF_8)));
+
+      // The fast reply waits for the slow one, completed later on another thread
+      Thread.ofVirtual().start(() -> slow.complete("ok\nslow"));
+      assertEquals(reader.readLine(), "ok slow");
+      assertEquals(reader.readLine(), "ok fast");
+      assertEquals(reader.readLine(), "error unknown what");
+    }
+    assertFalse(Files.exists(this.socket), "the socket file was not removed");
+  }
+
+  @Test
+  public void testReplacesStaleSocketOnly() throws Exception {
+    Files.createFile(this.socket); // Left by a crash
+    try (ControlServer server =
+        ControlServer.start(this.socket, r -> CompletableFuture.completedFuture("ok " + r))) {
+      assertEquals(ControlClient.send(this.socket, "ping"), "ok ping");
+      assertThrows(
+          IOException.class,
+          () -> ControlServer.start(this.socket, r -> CompletableFuture.completedFuture("ok")));
+      assertEquals(ControlClient.send(this.socket, "ping"), "ok ping");
+    }
+  }
+
+  @Test
+  public void testCommandsOfJiho() throws Exception {
+    LinkedBlockingQueue<Integer> played = new LinkedBlockingQueue<>();
+    AudioPlayer player =
+        new AudioPlayer() {
+          @Override
+          public void play(int times, Duration duration, Float volume) {
+            played.add(times);
+          }
+
+          @Override
+          public Duration getAudioDuration() {
+            return Duration.ofSeconds(1);
+          }
+        };
+    Jiho jiho = new Jiho(new Config(null, null), player);
+    Path config = this.directory.resolve("config.json");
+    ControlCommands commands = new ControlCommands(jiho, config, () -> true);
+
+    try (ControlServer server = ControlServer.start(this.socket, commands)) {
+      assertTrue(client("status").startsWith("ok running pid="));
+      assertEquals(client("next-fire"), "ok none");
+      assertEquals(client("trigger", "3"), "ok playing 3");
+      assertEquals(played.poll(10, TimeUnit.SECONDS), Integer.valueOf(3));
+      assertEquals(client("reload"), "ok reloaded");
+      assertEquals(client("stats"), "ok chimes=0");
+
+      assertEquals(client("trigger", "0"), "error trigger takes 1 to 12 times, got 0");
+      assertEquals(client("trigger", "13"), "error trigger takes 1 to 12 times, got 13");
+      assertEquals(client("status", "now"), "error status takes 0 argument(s), got 1");
+      assertTrue(client("reboot").startsWith("error unknown command reboot"));
+    }
+  }
+
+  /**
+   * Runs the control client on the test socket.
+   *
+   * @param command The command and its arguments.
+   * @return The line the client printed.
+   */
+  private String client(String... command) {
+    String[] args = new String[command.length + 2];
+    args[0] = "--socket";
+    args[1] = this.socket.toString();
+    System.arraycopy(command, 0, args, 2, command.length);
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    int exitCode =
+        ControlClient.run(args, new PrintStream(out, true, StandardCharsets.UTF_8), System.err);
+    String reply = out.toString(StandardCharsets.UTF_8).strip();
+    assertEquals(exitCode, reply.startsWith("ok") ? 0 : 1);
+    return reply;
+  }
+}
@@ -0,0 +1,164 @@
+package dev.haruki7049.jiho;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import dev.haruki7049.jiho.core.AudioPlayer;
+import dev.haruki7049.jiho.core.Jiho;
+import dev.haruki7049.jiho.core.config.Config;
+import dev.haruki7049.jiho.core.impl.NullSink;
+import dev.haruki7049.jiho.core.impl.PcmCachePool;
+import dev.haruki7049.jiho.core.impl.ProbeCache;
+import dev.haruki7049.jiho.core.impl.SoftwareMixer;
+import dev.haruki7049.jiho.core.schedule.ChimeScheduler;
+import dev.haruki7049.jiho.core.schedule.HourlyScheduler;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+import org.testng.annotations.Test;
+
+/** Tests for loading configuration files. */
+public class RunnerTest {
+
+  @Test
+  public void testLoadTenants() throws Exception {
+    Path tenantsFile = Files.createTempFile("jiho-tenants-", ".json");
+    try {
+      Files.writeString(
+          tenantsFile,
+          """
+          [
+            {"site": "tokyo", "zone": "Asia/Tokyo", "volume": 0.5},
+            {"site": "london", "zone": "Europe/London"},
+            {}
+          ]
+          """);
+
+      List<Config> tenants = Runner.loadTenants(tenantsFile);
+
+      assertEquals(tenants.size(), 3);
+      assertEquals(tenants.get(0).getSite(), "tokyo");
+      assertEquals(tenants.get(0).getZone(), ZoneId.of("Asia/Tokyo"));
+      assertEquals(tenants.get(0).getVolume(), 0.5f);
+      assertEquals(tenants.get(1).getZone(), ZoneId.of("Europe/London"));
+      assertNull(tenants.get(2).getZone());
+    } finally {
+      Files.deleteIfExists(tenantsFile);
+    }
+  }
+
+  @Test
+  public void testReloadOnlyReplacesWhatChanged() throws Exception {
+    Path configFile = Files.createTempFile("jiho-config-", ".json");
+    try {
+      Files.writeString(configFile, "{\"volume\": 0.8}");
+      Config config = Runner.loadConfig(configFile);
+      AudioPlayer player = new SilentPlayer();
+      ChimeScheduler scheduler = new HourlyScheduler(ZoneId.of("UTC"));
+      Jiho jiho = new Jiho(config, player, scheduler);
+
+      Files.writeString(configFile, "{\"volume\": 0.3}");
+      assertTrue(reload(jiho, configFile));
+      assertEquals(jiho.getConfig().getVolume(), 0.3f);
+      assertSame(jiho.getAudioPlayer(), player);
+      assertSame(jiho.getScheduler(), scheduler);
+
+      Files.writeString(configFile, "{\"volume\": 0.3, \"zone\": \"Asia/Tokyo\"}");
+      assertTrue(reload(jiho, configFile));
+      assertSame(jiho.getAudioPlayer(), player);
+      assertTrue(jiho.getScheduler() != scheduler);
+    } finally {
+      Files.deleteIfExists(configFile);
+    }
+  }
+
+  @Test
+  public void testReloadKeepsOldConfigOnBadEdit() throws Exception {
+    Path configFile = Files.createTempFile("jiho-config-", ".json");
+    try {
+      Files.writeString(configFile, "{\"volume\": 0.8}");
+      Jiho jiho =
+          new Jiho(
+              Runner.loadConfig(configFile),
+              new SilentPlayer(),
+              new HourlyScheduler(ZoneId.of("UTC")));
+
+      Files.writeString(configFile, "{\"volume\": ");
+      assertFalse(reload(jiho, configFile));
+      Files.writeString(configFile, "");
+      assertFalse(reload(jiho, configFile));
+      Files.writeString(configFile, "{\"rules\": [{\"cron\": \"not a cron\"}]}");
+      assertFalse(reload(jiho, configFile));
+
+      assertEquals(jiho.getConfig().getVolume(), 0.8f);
+      assertNull(jiho.getConfig().getRules());
+    } finally {
+      Files.deleteIfExists(configFile);
+    }
+  }
+
+  @Test
+  public void testSimulatesDaylightSavingWeekend() throws Exception {
+    Path configFile = Files.createTempFile("jiho-config-", ".json");
+    try {
+      Files.writeString(configFile, "{\"zone\": \"Europe/London\"}");
+      ZoneId london = ZoneId.of("Europe/London");
+      ByteArrayOutputStream report = new ByteArrayOutputStream();
+
+      // Clocks go forward at 01:00 on 2025-03-30, so that day has 23 hours
+      boolean ok =
+          Runner.simulate(
+              configFile,
+              ZonedDateTime.of(2025, 3, 29, 0, 0, 0, 0, london),
+              ZonedDateTime.of(2025, 3, 31, 0, 0, 0, 0, london),
+              0,
+              new PrintStream(report, true, StandardCharsets.UTF_8));
+
+      String text = report.toString(StandardCharsets.UTF_8);
+      assertTrue(ok, text);
+      assertTrue(text.contains("chimes               47 "), text);
+      assertTrue(text.contains("non-hourly steps     1 "), text);
+      assertTrue(text.contains("errors               0"), text);
+    } finally {
+      Files.deleteIfExists(configFile);
+    }
+  }
+
+  /**
+   * Reloads a configuration file with fresh, unused audio resources.
+   *
+   * @param jiho The Jiho to reload.
+   * @param configFile The configuration file.
+   * @return Whether the new configuration was applied.
+   */
+  private static boolean reload(Jiho jiho, Path configFile) {
+    return Runner.reload(
+        jiho,
+        configFile,
+        new ProbeCache(null),
+        new PcmCachePool(),
+        new SoftwareMixer(null),
+        new NullSink(),
+        null);
+  }
+
+  /** AudioPlayer that plays nothing. */
+  private static class SilentPlayer implements AudioPlayer {
+    @Override
+    public void play(int times, Duration duration, Float volume) {}
+
+    @Override
+    public Duration getAudioDuration() {
+      return Duration.ofSeconds(1);
+    }
+  }
+}
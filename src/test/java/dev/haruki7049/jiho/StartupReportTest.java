@@ -0,0 +1,49 @@
+package dev.haruki7049.jiho;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import org.testng.annotations.Test;
+
+/** Tests for the startup phase timing. */
+public class StartupReportTest {
+
+  @Test
+  public void testPrintsPhasesInOrder() {
+    StartupReport report = new StartupReport(true);
+    report.phase("config");
+    report.phase("audio probe");
+
+    String printed = print(report);
+
+    assertTrue(printed.startsWith("Startup report:"), printed);
+    int config = printed.indexOf("config");
+    int probe = printed.indexOf("audio probe");
+    int total = printed.indexOf("total since main");
+    assertTrue(config > 0 && probe > config && total > probe, printed);
+    assertTrue(printed.contains("class data sharing archive: none"), printed);
+  }
+
+  @Test
+  public void testDisabledReportPrintsNothing() {
+    StartupReport report = new StartupReport(false);
+    report.phase("config");
+
+    assertEquals(print(report), "");
+  }
+
+  /**
+   * Prints a report into a string.
+   *
+   * @param report The report.
+   * @return The printed text.
+   */
+  private static String print(StartupReport report) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    report.print(new PrintStream(out, true, StandardCharsets.UTF_8));
+    return out.toString(StandardCharsets.UTF_8);
+  }
+}